@@ -21,6 +21,13 @@ plugins {
 
 dependencies {
   jmh(project(":libs:logging"))
+  jmh(project(":libs:sampling"))
+  jmh(project(":libs:shared"))
+  jmh(project(":libs:config"))
+  jmh(project(":instrumentation:instrumentation-shared"))
+  jmh(project(":bootstrap"))
+  jmh("io.opentelemetry:opentelemetry-sdk")
+  jmh("io.opentelemetry.semconv:opentelemetry-semconv")
 }
 
 jmh {
@@ -0,0 +1,103 @@
+/*
+ * © SolarWinds Worldwide, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.solarwinds.benchmarks;
+
+import com.solarwinds.joboe.sampling.SecureRandomSeedGenerator;
+import com.solarwinds.joboe.sampling.SeedException;
+import com.solarwinds.joboe.sampling.ThreadLocalRng;
+import com.solarwinds.joboe.sampling.XorShiftRng;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures contended throughput of the random number generators used for sampling coin-flips and
+ * trace/span ID randomization, with as many benchmark threads as available processors.
+ *
+ * <ul>
+ *   <li>{@code sharedRandom*} — one {@link Random} shared by all threads, the previous sampling
+ *       path where every call is a CAS loop on a single seed.
+ *   <li>{@code sharedXorShift*} — one lock guarded {@link XorShiftRng} shared by all threads
+ *       (previous ID path).
+ *   <li>{@code threadLocal*} — {@link ThreadLocalRng}, the per-thread generators now in use.
+ * </ul>
+ *
+ * <p>Run with:
+ *
+ * <pre>{@code
+ * ./gradlew :benchmarks:jmh -Pjmh.include=RandomNumberGeneratorBenchmark
+ * }</pre>
+ */
+@Fork(2)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Threads(Threads.MAX)
+@Warmup(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Measurement(iterations = 10, time = 1)
+public class RandomNumberGeneratorBenchmark {
+  private static final int SAMPLE_RESOLUTION = 1_000_000;
+
+  private Random sharedRandom;
+
+  private Random sharedXorShift;
+
+  @Setup(Level.Trial)
+  public void setUp() throws SeedException {
+    sharedRandom = new Random();
+    sharedXorShift = new XorShiftRng(new SecureRandomSeedGenerator());
+  }
+
+  /** Per-thread buffer, the size of a trace id as randomized by {@code Metadata}. */
+  @State(Scope.Thread)
+  public static class IdBuffer {
+    final byte[] bytes = new byte[16];
+  }
+
+  @Benchmark
+  public int sharedRandomCoinFlip() {
+    return sharedRandom.nextInt(SAMPLE_RESOLUTION);
+  }
+
+  @Benchmark
+  public int threadLocalCoinFlip() {
+    return ThreadLocalRng.nextInt(SAMPLE_RESOLUTION);
+  }
+
+  @Benchmark
+  public byte[] sharedXorShiftId(IdBuffer buffer) {
+    sharedXorShift.nextBytes(buffer.bytes);
+    return buffer.bytes;
+  }
+
+  @Benchmark
+  public byte[] threadLocalSecureSeededId(IdBuffer buffer) {
+    ThreadLocalRng.secureSeeded().nextBytes(buffer.bytes);
+    return buffer.bytes;
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * © SolarWinds Worldwide, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.solarwinds.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares a single shared {@link AtomicInteger} (the previous sampling request counter) against a
+ * striped {@link LongAdder} (the counter now used by {@code TraceDecisionUtil}) under 1, 8 and 64
+ * concurrent request threads.
+ *
+ * <p>Every root span increments the {@code THROUGHPUT} counter, so the contended cases are the
+ * relevant ones: the {@code AtomicInteger} CAS loop on one cache line degrades as threads are
+ * added, while the {@code LongAdder} spreads increments across cells.
+ *
+ * <p>Run with:
+ *
+ * <pre>{@code
+ * ./gradlew :benchmarks:jmh -Pjmh.include=RequestCounterBenchmark
+ * }</pre>
+ */
+@Fork(2)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Measurement(iterations = 10, time = 1)
+public class RequestCounterBenchmark {
+
+  private final AtomicInteger atomicCounter = new AtomicInteger();
+
+  private final LongAdder stripedCounter = new LongAdder();
+
+  @Benchmark
+  @Threads(1)
+  public int atomicInteger1Thread() {
+    return atomicCounter.incrementAndGet();
+  }
+
+  @Benchmark
+  @Threads(8)
+  public int atomicInteger8Threads() {
+    return atomicCounter.incrementAndGet();
+  }
+
+  @Benchmark
+  @Threads(64)
+  public int atomicInteger64Threads() {
+    return atomicCounter.incrementAndGet();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public void longAdder1Thread() {
+    stripedCounter.increment();
+  }
+
+  @Benchmark
+  @Threads(8)
+  public void longAdder8Threads() {
+    stripedCounter.increment();
+  }
+
+  @Benchmark
+  @Threads(64)
+  public void longAdder64Threads() {
+    stripedCounter.increment();
+  }
+}
@@ -0,0 +1,218 @@
+/*
+ * © SolarWinds Worldwide, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.solarwinds.benchmarks;
+
+import com.solarwinds.joboe.sampling.SamplingConfiguration;
+import com.solarwinds.joboe.sampling.Settings;
+import com.solarwinds.joboe.sampling.SettingsArg;
+import com.solarwinds.joboe.sampling.SettingsFetcher;
+import com.solarwinds.joboe.sampling.SettingsListener;
+import com.solarwinds.joboe.sampling.SettingsManager;
+import com.solarwinds.joboe.sampling.TraceDecisionUtil;
+import com.solarwinds.joboe.sampling.TracingMode;
+import com.solarwinds.opentelemetry.extensions.SolarwindsSampler;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.IdGenerator;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
+import io.opentelemetry.semconv.ServerAttributes;
+import io.opentelemetry.semconv.UrlAttributes;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the full {@link SolarwindsSampler#shouldSample} path for the three kinds of spans:
+ *
+ * <ul>
+ *   <li>{@code root} — no parent, a new trace decided by the local and remote settings.
+ *   <li>{@code remoteParent} — continues an upstream trace carrying the {@code sw} tracestate.
+ *   <li>{@code localParent} — child span of a span of the same process, parent based decision.
+ * </ul>
+ *
+ * <p>The settings sample everything with a bucket that never runs dry, and there are no transaction
+ * settings, which is the common production setup. Run with {@code -prof gc} to compare allocations.
+ *
+ * <p>Run with:
+ *
+ * <pre>{@code
+ * ./gradlew :benchmarks:jmh -Pjmh.include=SolarwindsSamplerBenchmark
+ * }</pre>
+ */
+@Fork(2)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Measurement(iterations = 10, time = 1)
+public class SolarwindsSamplerBenchmark {
+  private final IdGenerator idGenerator = IdGenerator.random();
+
+  private SolarwindsSampler sampler;
+
+  private Attributes attributes;
+
+  private String traceId;
+
+  private Context remoteParentContext;
+
+  private Context localParentContext;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    SettingsManager.initialize(new FixedSettingsFetcher(), SamplingConfiguration.builder().build());
+    sampler = new SolarwindsSampler();
+    attributes =
+        Attributes.of(
+            UrlAttributes.URL_SCHEME,
+            "https",
+            ServerAttributes.SERVER_ADDRESS,
+            "shop.example.com",
+            UrlAttributes.URL_PATH,
+            "/api/orders/42");
+
+    traceId = idGenerator.generateTraceId();
+    String parentSpanId = idGenerator.generateSpanId();
+    remoteParentContext =
+        Context.root()
+            .with(
+                Span.wrap(
+                    SpanContext.createFromRemoteParent(
+                        traceId,
+                        parentSpanId,
+                        TraceFlags.getSampled(),
+                        TraceState.builder().put("sw", parentSpanId + "-01").build())));
+    localParentContext =
+        Context.root()
+            .with(
+                Span.wrap(
+                    SpanContext.create(
+                        traceId, parentSpanId, TraceFlags.getSampled(), TraceState.getDefault())));
+  }
+
+  @Benchmark
+  public SamplingResult root() {
+    return sampler.shouldSample(
+        Context.root(),
+        traceId,
+        "GET /api/orders/{id}",
+        SpanKind.SERVER,
+        attributes,
+        Collections.emptyList());
+  }
+
+  @Benchmark
+  public SamplingResult remoteParent() {
+    return sampler.shouldSample(
+        remoteParentContext,
+        traceId,
+        "GET /api/orders/{id}",
+        SpanKind.SERVER,
+        attributes,
+        Collections.emptyList());
+  }
+
+  @Benchmark
+  public SamplingResult localParent() {
+    return sampler.shouldSample(
+        localParentContext,
+        traceId,
+        "SELECT orders",
+        SpanKind.CLIENT,
+        Attributes.empty(),
+        Collections.emptyList());
+  }
+
+  private static class FixedSettingsFetcher implements SettingsFetcher {
+    private final Settings settings = new AlwaysSampleSettings();
+
+    @Override
+    public Settings getSettings() {
+      return settings;
+    }
+
+    @Override
+    public void registerListener(SettingsListener listener) {}
+
+    @Override
+    public CountDownLatch isSettingsAvailableLatch() {
+      return new CountDownLatch(0);
+    }
+
+    @Override
+    public void close() {}
+  }
+
+  private static class AlwaysSampleSettings extends Settings {
+    private static final Double BUCKET = 1_000_000_000.0;
+
+    @Override
+    public long getValue() {
+      return TraceDecisionUtil.SAMPLE_RESOLUTION;
+    }
+
+    @Override
+    public long getTimestamp() {
+      return TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+    }
+
+    @Override
+    public short getType() {
+      return Settings.OBOE_SETTINGS_TYPE_DEFAULT_SAMPLE_RATE;
+    }
+
+    @Override
+    public short getFlags() {
+      return TracingMode.ALWAYS.toFlags();
+    }
+
+    @Override
+    public long getTtl() {
+      return Integer.MAX_VALUE;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T getArgValue(SettingsArg<T> arg) {
+      if (arg.equals(SettingsArg.BUCKET_CAPACITY)
+          || arg.equals(SettingsArg.BUCKET_RATE)
+          || arg.equals(SettingsArg.RELAXED_BUCKET_CAPACITY)
+          || arg.equals(SettingsArg.RELAXED_BUCKET_RATE)
+          || arg.equals(SettingsArg.STRICT_BUCKET_CAPACITY)
+          || arg.equals(SettingsArg.STRICT_BUCKET_RATE)) {
+        return (T) BUCKET;
+      }
+      return null;
+    }
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * © SolarWinds Worldwide, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.solarwinds.benchmarks;
+
+import com.solarwinds.opentelemetry.extensions.SpanStacktraceFilter;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.SpanBuilder;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the stacktrace filter run on every span end, for spans with 20 attributes.
+ *
+ * <ul>
+ *   <li>{@code collectKeys} — the previous approach: stream the attribute keys of the span into a
+ *       new set of names, then check the filter names against it.
+ *   <li>{@code probeKeys} — {@link SpanStacktraceFilter}, probing the span for the typed keys
+ *       resolved from the filter names.
+ * </ul>
+ *
+ * <p>{@code matching} selects whether the span has a {@code db.system} attribute. Run with {@code
+ * -prof gc} to compare allocations.
+ *
+ * <p>Run with:
+ *
+ * <pre>{@code
+ * ./gradlew :benchmarks:jmh -Pjmh.include=SpanStacktraceFilterBenchmark
+ * }</pre>
+ */
+@Fork(2)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Measurement(iterations = 10, time = 1)
+public class SpanStacktraceFilterBenchmark {
+  private static final int ATTRIBUTE_COUNT = 20;
+
+  @Param({"true", "false"})
+  public boolean matching;
+
+  private SdkTracerProvider tracerProvider;
+
+  private ReadableSpan span;
+
+  private Set<String> filterNames;
+
+  private SpanStacktraceFilter filter;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    tracerProvider = SdkTracerProvider.builder().build();
+    SpanBuilder spanBuilder = tracerProvider.get("benchmark").spanBuilder("span");
+    int attributeCount = ATTRIBUTE_COUNT;
+    if (matching) {
+      spanBuilder.setAttribute("db.system", "mysql");
+      attributeCount--;
+    }
+    for (int i = 0; i < attributeCount; i++) {
+      if (i % 2 == 0) {
+        spanBuilder.setAttribute("app.attribute." + i, "value-" + i);
+      } else {
+        spanBuilder.setAttribute("app.attribute." + i, (long) i);
+      }
+    }
+
+    span = (ReadableSpan) spanBuilder.startSpan();
+    filterNames = new HashSet<>(Collections.singleton("db.system"));
+    filter = new SpanStacktraceFilter();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    tracerProvider.close();
+  }
+
+  @Benchmark
+  public boolean collectKeys() {
+    Set<String> attributes =
+        span.getAttributes().asMap().keySet().stream()
+            .map(AttributeKey::getKey)
+            .collect(Collectors.toSet());
+
+    return filterNames.stream().anyMatch(attributes::contains);
+  }
+
+  @Benchmark
+  public boolean probeKeys() {
+    return filter.test(span);
+  }
+}
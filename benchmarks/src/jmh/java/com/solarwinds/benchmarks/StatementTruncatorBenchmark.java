@@ -0,0 +1,111 @@
+/*
+ * © SolarWinds Worldwide, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.solarwinds.benchmarks;
+
+import com.solarwinds.joboe.config.ConfigManager;
+import com.solarwinds.joboe.config.ConfigProperty;
+import com.solarwinds.joboe.config.InvalidConfigException;
+import com.solarwinds.opentelemetry.instrumentation.StatementTruncator;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.semconv.DbAttributes;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the work done by the JDBC statement advice to check the length of the SQL query of a
+ * sampled span, for a query within the max length.
+ *
+ * <ul>
+ *   <li>{@code reflectivePerCall} — the previous approach: {@code getDeclaredMethod}, {@code
+ *       setAccessible} and {@code Method.invoke} plus a config lookup on every execution.
+ *   <li>{@code maybeTruncateStatement} — {@link StatementTruncator}, with the accessor cached per
+ *       span class and the max length cached until the configs change.
+ * </ul>
+ *
+ * <p>Run with:
+ *
+ * <pre>{@code
+ * ./gradlew :benchmarks:jmh -Pjmh.include=StatementTruncatorBenchmark
+ * }</pre>
+ */
+@Fork(2)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Measurement(iterations = 10, time = 1)
+public class StatementTruncatorBenchmark {
+  private SdkTracerProvider tracerProvider;
+
+  private Span span;
+
+  private Context context;
+
+  @Setup(Level.Trial)
+  public void setUp() throws InvalidConfigException {
+    ConfigManager.setConfig(ConfigProperty.AGENT_SQL_QUERY_MAX_LENGTH, 4096);
+    tracerProvider = SdkTracerProvider.builder().build();
+    span =
+        tracerProvider
+            .get("benchmark")
+            .spanBuilder("SELECT shop.orders")
+            .setAttribute(
+                DbAttributes.DB_QUERY_TEXT,
+                "SELECT id, customer_id, total FROM orders WHERE customer_id = ? AND status = ?")
+            .startSpan();
+    context = Context.root().with(span);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    span.end();
+    tracerProvider.close();
+    ConfigManager.removeConfig(ConfigProperty.AGENT_SQL_QUERY_MAX_LENGTH);
+  }
+
+  @Benchmark
+  public int reflectivePerCall() throws Exception {
+    Span current = Span.fromContext(context);
+    Method getAttribute = current.getClass().getDeclaredMethod("getAttribute", AttributeKey.class);
+    getAttribute.setAccessible(true);
+    String sql = (String) getAttribute.invoke(current, DbAttributes.DB_QUERY_TEXT);
+    int sqlMaxLength =
+        ConfigManager.getConfigOptional(
+            ConfigProperty.AGENT_SQL_QUERY_MAX_LENGTH, StatementTruncator.DEFAULT_SQL_MAX_LENGTH);
+    return sql.length() > sqlMaxLength ? sqlMaxLength : sql.length();
+  }
+
+  @Benchmark
+  public void maybeTruncateStatement() {
+    StatementTruncator.maybeTruncateStatement(context);
+  }
+}
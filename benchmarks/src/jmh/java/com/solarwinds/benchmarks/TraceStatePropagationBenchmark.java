@@ -0,0 +1,153 @@
+/*
+ * © SolarWinds Worldwide, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.solarwinds.benchmarks;
+
+import com.solarwinds.opentelemetry.extensions.SamplingUtil;
+import com.solarwinds.opentelemetry.extensions.SolarwindsContextPropagator;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.api.trace.TraceStateBuilder;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.propagation.TextMapGetter;
+import io.opentelemetry.context.propagation.TextMapSetter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the tracestate handling of {@link SolarwindsContextPropagator} for a tracestate of 20
+ * vendor members, as seen by services fanning out many downstream calls per request.
+ *
+ * <ul>
+ *   <li>{@code inject} — writes our entry in front of the members of the span tracestate.
+ *   <li>{@code extract} — scans the inbound header for members of other vendors.
+ *   <li>{@code extractSplit} — the previous scan, {@code split(",")} and a stream {@code anyMatch}.
+ *   <li>{@code validateSwEntry} / {@code validateSwEntryRegex} — validation of the {@code sw} entry
+ *       by {@link SamplingUtil#isValidSwTraceState} and by the previous regex.
+ * </ul>
+ *
+ * <p>Run with:
+ *
+ * <pre>{@code
+ * ./gradlew :benchmarks:jmh -Pjmh.include=TraceStatePropagationBenchmark
+ * }</pre>
+ */
+@Fork(2)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Measurement(iterations = 10, time = 1)
+public class TraceStatePropagationBenchmark {
+  private static final int MEMBER_COUNT = 20;
+
+  private static final Pattern SW_TRACESTATE_REGEX =
+      Pattern.compile("[0-9a-fA-F]{16}-[0-9a-fA-F]{2}");
+
+  private static final TextMapSetter<Map<String, String>> SETTER = Map::put;
+
+  private static final TextMapGetter<Map<String, String>> GETTER =
+      new TextMapGetter<Map<String, String>>() {
+        @Override
+        public Iterable<String> keys(Map<String, String> carrier) {
+          return carrier.keySet();
+        }
+
+        @Override
+        public String get(Map<String, String> carrier, String key) {
+          return carrier == null ? null : carrier.get(key);
+        }
+      };
+
+  private final SolarwindsContextPropagator propagator = new SolarwindsContextPropagator();
+
+  private final Map<String, String> outbound = new HashMap<>();
+
+  private final Map<String, String> inbound = new HashMap<>();
+
+  private Context context;
+
+  private String traceStateHeader;
+
+  private String swEntry;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    String spanId = "a2d8376f3cab2837";
+    TraceStateBuilder traceStateBuilder = TraceState.builder();
+    for (int i = 0; i < MEMBER_COUNT; i++) {
+      traceStateBuilder.put("vendor" + i, "00f067aa0ba902b7-" + i);
+    }
+    traceStateBuilder.put("sw", spanId + "-01");
+    context =
+        Context.root()
+            .with(
+                Span.wrap(
+                    SpanContext.create(
+                        "80ad68e98d3449dfc54098b38fc466ec",
+                        spanId,
+                        TraceFlags.getSampled(),
+                        traceStateBuilder.build())));
+
+    propagator.inject(context, outbound, SETTER);
+    traceStateHeader = outbound.get("tracestate");
+    swEntry = spanId + "-01";
+    // our own entry first, the vendor members after it
+    inbound.put("tracestate", traceStateHeader);
+  }
+
+  @Benchmark
+  public Map<String, String> inject() {
+    propagator.inject(context, outbound, SETTER);
+    return outbound;
+  }
+
+  @Benchmark
+  public Context extract() {
+    return propagator.extract(Context.root(), inbound, GETTER);
+  }
+
+  @Benchmark
+  public boolean extractSplit() {
+    return Arrays.stream(traceStateHeader.split(",")).anyMatch(info -> !info.startsWith("sw="));
+  }
+
+  @Benchmark
+  public boolean validateSwEntry() {
+    return SamplingUtil.isValidSwTraceState(swEntry);
+  }
+
+  @Benchmark
+  public boolean validateSwEntryRegex() {
+    return SW_TRACESTATE_REGEX.matcher(swEntry).matches();
+  }
+}
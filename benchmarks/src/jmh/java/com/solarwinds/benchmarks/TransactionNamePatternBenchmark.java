@@ -0,0 +1,146 @@
+/*
+ * © SolarWinds Worldwide, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.solarwinds.benchmarks;
+
+import com.solarwinds.opentelemetry.extensions.TransactionNamePattern;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures building a transaction name from a URL path, which happens on every miss of the URL
+ * transaction name cache.
+ *
+ * <ul>
+ *   <li>{@code splitAndMap} — the previous approach: {@code split("/")}, a map of tokens named
+ *       "p1".."pN" and string concatenation.
+ *   <li>{@code indexedPattern} — {@link TransactionNamePattern}, pattern tokens pre-parsed into
+ *       segment indexes and a single scan of the path.
+ * </ul>
+ *
+ * <p>The URLs are REST style paths with ids, UUIDs and hashes, so that each one is unique just like
+ * the paths blowing the cache in production.
+ *
+ * <p>Run with:
+ *
+ * <pre>{@code
+ * ./gradlew :benchmarks:jmh -Pjmh.include=TransactionNamePatternBenchmark
+ * }</pre>
+ */
+@Fork(2)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Measurement(iterations = 10, time = 1)
+public class TransactionNamePatternBenchmark {
+  private static final int URL_COUNT = 4096;
+
+  /** "p1,p2" is the default pattern, the others are custom patterns. */
+  @Param({"p1,p2", "p1,p3,p4", "p2,p6"})
+  public String pattern;
+
+  private String[] urls;
+
+  private String[] tokens;
+
+  private TransactionNamePattern transactionNamePattern;
+
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    Random random = new Random(42);
+    urls = new String[URL_COUNT];
+    for (int i = 0; i < URL_COUNT; i++) {
+      urls[i] = randomUrl(random);
+    }
+
+    tokens = pattern.split(",");
+    transactionNamePattern = TransactionNamePattern.parse(pattern, false, ".");
+  }
+
+  private static String randomUrl(Random random) {
+    switch (random.nextInt(4)) {
+      case 0:
+        return "/api/v1/users/" + random.nextInt(1_000_000) + "/orders/" + UUID.randomUUID();
+      case 1:
+        return "/shop/products/" + random.nextInt(100_000) + "/reviews";
+      case 2:
+        return "/static/js/app." + Long.toHexString(random.nextLong()) + ".js";
+      default:
+        return "/tenants/"
+            + UUID.randomUUID()
+            + "/projects/"
+            + random.nextInt(10_000)
+            + "/builds/"
+            + random.nextInt(100_000)
+            + "/artifacts/report.html";
+    }
+  }
+
+  private String nextUrl() {
+    String url = urls[next];
+    next = (next + 1) & (URL_COUNT - 1);
+    return url;
+  }
+
+  @Benchmark
+  public String splitAndMap() {
+    Map<String, String> urlTokenMap = new HashMap<>();
+    int counter = 1;
+    for (String token : nextUrl().split("/")) {
+      if (!token.isEmpty()) {
+        String tokenName = "p" + counter++;
+        urlTokenMap.put(tokenName, token);
+      }
+    }
+
+    StringBuilder transactionName = new StringBuilder();
+    boolean isFirstToken = true;
+    for (String patternToken : tokens) {
+      if (urlTokenMap.containsKey(patternToken)) {
+        if (isFirstToken) {
+          transactionName.append(urlTokenMap.get(patternToken));
+          isFirstToken = false;
+        } else {
+          transactionName.append(".").append(urlTokenMap.get(patternToken));
+        }
+      }
+    }
+    return transactionName.toString();
+  }
+
+  @Benchmark
+  public String indexedPattern() {
+    return transactionNamePattern.build(nextUrl());
+  }
+}
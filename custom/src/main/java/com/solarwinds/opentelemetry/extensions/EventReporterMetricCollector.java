@@ -0,0 +1,126 @@
+/*
+ * © SolarWinds Worldwide, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.solarwinds.opentelemetry.extensions;
+
+import com.google.auto.service.AutoService;
+import com.solarwinds.joboe.core.EventReporter;
+import com.solarwinds.joboe.core.EventReporterStats;
+import com.solarwinds.joboe.core.PipelinedEventReporter;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.BatchCallback;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.metrics.ObservableLongMeasurement;
+import io.opentelemetry.javaagent.extension.AgentListener;
+import io.opentelemetry.sdk.autoconfigure.AutoConfiguredOpenTelemetrySdk;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Reports the stats of the tracing event reporter. The stats are consumed once per collection, the
+ * discarded events of a {@link PipelinedEventReporter} are attributed to its overflow policy
+ */
+@AutoService(AgentListener.class)
+public class EventReporterMetricCollector implements AutoCloseable, AgentListener {
+  static final AttributeKey<String> OVERFLOW_POLICY_KEY =
+      AttributeKey.stringKey("sw.overflow_policy");
+
+  private final Supplier<EventReporter> eventReporterSupplier;
+  private BatchCallback batchCallback;
+
+  public EventReporterMetricCollector() {
+    this(ReporterProvider::getEventReporter);
+  }
+
+  EventReporterMetricCollector(Supplier<EventReporter> eventReporterSupplier) {
+    this.eventReporterSupplier = eventReporterSupplier;
+  }
+
+  public void collect(Meter meter) {
+    ObservableLongMeasurement sent =
+        meter
+            .gaugeBuilder("trace.service.events_sent")
+            .setDescription("Count of events sent by the event reporter.")
+            .setUnit("{event}")
+            .ofLongs()
+            .buildObserver();
+    ObservableLongMeasurement failed =
+        meter
+            .gaugeBuilder("trace.service.events_failed")
+            .setDescription("Count of events the event reporter failed to send.")
+            .setUnit("{event}")
+            .ofLongs()
+            .buildObserver();
+    ObservableLongMeasurement overflowed =
+        meter
+            .gaugeBuilder("trace.service.events_overflowed")
+            .setDescription("Count of events discarded as the event reporter queue was full.")
+            .setUnit("{event}")
+            .ofLongs()
+            .buildObserver();
+    ObservableLongMeasurement queueLargest =
+        meter
+            .gaugeBuilder("trace.service.events_queue_largest")
+            .setDescription("Largest number of events queued in the event reporter.")
+            .setUnit("{event}")
+            .ofLongs()
+            .buildObserver();
+
+    batchCallback =
+        meter.batchCallback(
+            () -> {
+              EventReporter eventReporter = eventReporterSupplier.get();
+              if (eventReporter == null) {
+                return;
+              }
+              EventReporterStats stats = eventReporter.consumeStats();
+              sent.record(stats.getSentCount());
+              failed.record(stats.getFailedCount());
+              queueLargest.record(stats.getQueueLargestCount());
+              if (eventReporter instanceof PipelinedEventReporter) {
+                PipelinedEventReporter.OverflowPolicy policy =
+                    ((PipelinedEventReporter) eventReporter).getOverflowPolicy();
+                overflowed.record(
+                    stats.getOverflowedCount(policy),
+                    Attributes.of(OVERFLOW_POLICY_KEY, toConfigValue(policy)));
+              } else {
+                overflowed.record(stats.getOverflowedCount());
+              }
+            },
+            sent,
+            failed,
+            overflowed,
+            queueLargest);
+  }
+
+  private static String toConfigValue(PipelinedEventReporter.OverflowPolicy policy) {
+    return policy.name().replace('_', '-').toLowerCase(Locale.ROOT);
+  }
+
+  @Override
+  public void close() {
+    if (batchCallback != null) {
+      batchCallback.close();
+    }
+  }
+
+  @Override
+  public void afterAgent(AutoConfiguredOpenTelemetrySdk autoConfiguredOpenTelemetrySdk) {
+    collect(MeterProvider.getReporterMetricsMeter());
+    Runtime.getRuntime().addShutdownHook(new Thread(this::close));
+  }
+}
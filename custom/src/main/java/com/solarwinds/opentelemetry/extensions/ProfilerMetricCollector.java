@@ -0,0 +1,98 @@
+/*
+ * © SolarWinds Worldwide, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.solarwinds.opentelemetry.extensions;
+
+import com.google.auto.service.AutoService;
+import com.solarwinds.joboe.core.profiler.Profiler;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.metrics.ObservableDoubleGauge;
+import io.opentelemetry.api.metrics.ObservableLongGauge;
+import io.opentelemetry.javaagent.extension.AgentListener;
+import io.opentelemetry.sdk.autoconfigure.AutoConfiguredOpenTelemetrySdk;
+import java.util.ArrayList;
+import java.util.List;
+
+@AutoService(AgentListener.class)
+public class ProfilerMetricCollector implements AutoCloseable, AgentListener {
+  private final List<ObservableLongGauge> gauges = new ArrayList<>();
+  private final List<ObservableDoubleGauge> doubleGauges = new ArrayList<>();
+
+  public void collect(Meter meter) {
+    gauges.add(
+        meter
+            .gaugeBuilder("trace.service.profiling_cycle_count")
+            .setDescription(
+                "Count of profiling cycles that took snapshots, not recorded in JFR sampling mode.")
+            .setUnit("{cycle}")
+            .ofLongs()
+            .buildWithCallback(
+                observableLongMeasurement ->
+                    observableLongMeasurement.record(Profiler.consumeSamplingCycleCount())));
+
+    gauges.add(
+        meter
+            .gaugeBuilder("trace.service.profiling_cycle_duration")
+            .setDescription("Total time spent taking snapshots, not recorded in JFR sampling mode.")
+            .setUnit("us")
+            .ofLongs()
+            .buildWithCallback(
+                observableLongMeasurement ->
+                    observableLongMeasurement.record(Profiler.consumeSamplingCycleDuration())));
+
+    gauges.add(
+        meter
+            .gaugeBuilder("trace.service.profiling_late_samples")
+            .setDescription(
+                "Count of JFR samples that arrived after profiling stopped and were recorded late.")
+            .setUnit("{sample}")
+            .ofLongs()
+            .buildWithCallback(
+                observableLongMeasurement ->
+                    observableLongMeasurement.record(Profiler.consumeLateSampleCount())));
+
+    gauges.add(
+        meter
+            .gaugeBuilder("trace.service.profiling_interval")
+            .setDescription("Current interval between profiling cycles.")
+            .setUnit("ms")
+            .ofLongs()
+            .buildWithCallback(
+                observableLongMeasurement ->
+                    observableLongMeasurement.record(Profiler.getEffectiveInterval())));
+
+    doubleGauges.add(
+        meter
+            .gaugeBuilder("trace.service.profiling_overhead")
+            .setDescription("Fraction of wall time currently spent on profiling cycles.")
+            .setUnit("1")
+            .buildWithCallback(
+                observableDoubleMeasurement ->
+                    observableDoubleMeasurement.record(Profiler.getMeasuredOverhead())));
+  }
+
+  @Override
+  public void close() {
+    gauges.forEach(ObservableLongGauge::close);
+    doubleGauges.forEach(ObservableDoubleGauge::close);
+  }
+
+  @Override
+  public void afterAgent(AutoConfiguredOpenTelemetrySdk autoConfiguredOpenTelemetrySdk) {
+    collect(MeterProvider.getProfilingMetricsMeter());
+    Runtime.getRuntime().addShutdownHook(new Thread(this::close));
+  }
+}
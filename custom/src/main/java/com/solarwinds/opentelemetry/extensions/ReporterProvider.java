@@ -35,7 +35,7 @@ public final class ReporterProvider {
         logger.debug("Building reporter");
         eventReporter =
             ReporterFactory.getInstance()
-                .createQueuingEventReporter(
+                .createEventReporter(
                     RpcClientManager.getClient(RpcClientManager.OperationType.TRACING));
         logger.debug("Built reporter");
       } catch (ClientException clientException) {
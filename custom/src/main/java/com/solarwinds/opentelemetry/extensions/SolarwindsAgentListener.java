@@ -106,7 +106,7 @@ public class SolarwindsAgentListener implements AgentListener {
                   Profiler.initialize(
                       profilerSetting,
                       ReporterFactory.getInstance()
-                          .createQueuingEventReporter(
+                          .createEventReporter(
                               RpcClientManager.getClient(
                                   RpcClientManager.OperationType.PROFILING)));
                 } else {
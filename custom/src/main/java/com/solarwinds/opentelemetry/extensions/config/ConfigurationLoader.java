@@ -511,7 +511,12 @@ public class ConfigurationLoader {
               profilerSettingsFromConfigFile.getExcludePackages(),
               finalInterval,
               profilerSettingsFromConfigFile.getCircuitBreakerDurationThreshold(),
-              profilerSettingsFromConfigFile.getCircuitBreakerCountThreshold());
+              profilerSettingsFromConfigFile.getCircuitBreakerCountThreshold(),
+              profilerSettingsFromConfigFile.getSamplingMode(),
+              profilerSettingsFromConfigFile.isCompactEncodingEnabled(),
+              profilerSettingsFromConfigFile.isAggregationEnabled(),
+              profilerSettingsFromConfigFile.getMaxCallTreeNodes(),
+              profilerSettingsFromConfigFile.getOverheadBudget());
 
     } else if (profilerEnabledFromEnvVar != null || profilerIntervalFromEnvVar != null) {
       finalProfilerSetting =
@@ -17,7 +17,7 @@
 package com.solarwinds.opentelemetry.extensions.config;
 
 import com.solarwinds.joboe.config.ConfigManager;
-import com.solarwinds.joboe.config.ConfigProperty;
+import com.solarwinds.joboe.config.ConfigSnapshot;
 import com.solarwinds.joboe.config.ServiceKeyUtils;
 import com.solarwinds.joboe.core.settings.SettingsReader;
 import com.solarwinds.joboe.logging.Logger;
@@ -40,12 +40,9 @@ public class HttpSettingsReader implements SettingsReader {
 
   @Override
   public Settings getSettings() {
-    String collectorUrl =
-        constructSettingsEndpoint(
-            ConfigManager.getConfigOptional(
-                ConfigProperty.AGENT_COLLECTOR, "apm.collector.na-01.cloud.solarwinds.com"));
-    String serviceKey =
-        ConfigManager.getConfigOptional(ConfigProperty.AGENT_SERVICE_KEY, ":unknown-java");
+    ConfigSnapshot configSnapshot = ConfigManager.getSnapshot();
+    String collectorUrl = constructSettingsEndpoint(configSnapshot.getCollector());
+    String serviceKey = configSnapshot.getServiceKey();
     String serviceName = ServiceKeyUtils.getServiceName(serviceKey);
 
     String apiToken = ServiceKeyUtils.getApiKey(serviceKey);
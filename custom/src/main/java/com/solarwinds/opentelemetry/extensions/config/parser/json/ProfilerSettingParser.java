@@ -34,6 +34,11 @@ public class ProfilerSettingParser implements ConfigParser<String, ProfilerSetti
   public static final String INTERVAL_KEY = "interval";
   public static final String CIRCUIT_BREAKER_DURATION_THRESHOLD = "circuitBreakerDurationThreshold";
   public static final String CIRCUIT_BREAKER_COUNT_THRESHOLD = "circuitBreakerCountThreshold";
+  public static final String SAMPLING_MODE_KEY = "samplingMode";
+  public static final String COMPACT_ENCODING_ENABLED_KEY = "compactEncodingEnabled";
+  public static final String AGGREGATION_ENABLED_KEY = "aggregationEnabled";
+  public static final String MAX_CALL_TREE_NODES_KEY = "maxCallTreeNodes";
+  public static final String OVERHEAD_BUDGET_KEY = "overheadBudget";
 
   public static final ProfilerSettingParser INSTANCE = new ProfilerSettingParser();
 
@@ -81,13 +86,43 @@ public class ProfilerSettingParser implements ConfigParser<String, ProfilerSetti
           jsonObject.has(CIRCUIT_BREAKER_COUNT_THRESHOLD)
               ? jsonObject.getInt(CIRCUIT_BREAKER_COUNT_THRESHOLD)
               : ProfilerSetting.DEFAULT_CIRCUIT_BREAKER_COUNT_THRESHOLD;
+      ProfilerSetting.SamplingMode samplingMode =
+          jsonObject.has(SAMPLING_MODE_KEY)
+              ? ProfilerSetting.SamplingMode.parse(jsonObject.getString(SAMPLING_MODE_KEY))
+              : ProfilerSetting.DEFAULT_SAMPLING_MODE;
+      boolean compactEncodingEnabled =
+          jsonObject.has(COMPACT_ENCODING_ENABLED_KEY)
+              && jsonObject.getBoolean(COMPACT_ENCODING_ENABLED_KEY);
+      boolean aggregationEnabled =
+          jsonObject.has(AGGREGATION_ENABLED_KEY) && jsonObject.getBoolean(AGGREGATION_ENABLED_KEY);
+      int maxCallTreeNodes =
+          jsonObject.has(MAX_CALL_TREE_NODES_KEY)
+              ? jsonObject.getInt(MAX_CALL_TREE_NODES_KEY)
+              : ProfilerSetting.DEFAULT_MAX_CALL_TREE_NODES;
+      if (maxCallTreeNodes <= 0) {
+        throw new InvalidConfigException(
+            "Profiling max call tree nodes should be > 0 but found " + maxCallTreeNodes);
+      }
+      double overheadBudget =
+          jsonObject.has(OVERHEAD_BUDGET_KEY)
+              ? jsonObject.getDouble(OVERHEAD_BUDGET_KEY)
+              : ProfilerSetting.DEFAULT_OVERHEAD_BUDGET;
+      if (overheadBudget < 0 || overheadBudget >= 1) {
+        throw new InvalidConfigException(
+            "Profiling overhead budget should be >= 0 and < 1 but found " + overheadBudget);
+      }
 
       return new ProfilerSetting(
           isEnabled,
           excludePackages,
           interval,
           ciruitBreakerDurationThreshold,
-          circuitBreakerCountThreshold);
+          circuitBreakerCountThreshold,
+          samplingMode,
+          compactEncodingEnabled,
+          aggregationEnabled,
+          maxCallTreeNodes,
+          overheadBudget);
     } catch (JSONException e) {
       throw new InvalidConfigException(
           "Failed parsing profiler settings from config file: " + e.getMessage(), e);
@@ -56,12 +56,32 @@ public class ProfilingSettingsParser implements DeclarativeConfigPropertyParser
 
     List<String> excludePackages =
         profilerSettings.getScalarList("excludePackages", String.class, Collections.emptyList());
+    String samplingMode = profilerSettings.getString("samplingMode");
+    int maxCallTreeNodes =
+        profilerSettings.getInt("maxCallTreeNodes", ProfilerSetting.DEFAULT_MAX_CALL_TREE_NODES);
+    if (maxCallTreeNodes <= 0) {
+      throw new InvalidConfigException(
+          "Profiling max call tree nodes should be > 0 but found " + maxCallTreeNodes);
+    }
+    double overheadBudget =
+        profilerSettings.getDouble("overheadBudget", ProfilerSetting.DEFAULT_OVERHEAD_BUDGET);
+    if (overheadBudget < 0 || overheadBudget >= 1) {
+      throw new InvalidConfigException(
+          "Profiling overhead budget should be >= 0 and < 1 but found " + overheadBudget);
+    }
     return new ProfilerSetting(
         enabled,
         new HashSet<>(excludePackages),
         interval,
         circuitBreakerDurationThreshold,
-        circuitBreakerCountThreshold);
+        circuitBreakerCountThreshold,
+        samplingMode != null
+            ? ProfilerSetting.SamplingMode.parse(samplingMode)
+            : ProfilerSetting.DEFAULT_SAMPLING_MODE,
+        profilerSettings.getBoolean("compactEncodingEnabled", false),
+        profilerSettings.getBoolean("aggregationEnabled", false),
+        maxCallTreeNodes,
+        overheadBudget);
   }
 
   @Override
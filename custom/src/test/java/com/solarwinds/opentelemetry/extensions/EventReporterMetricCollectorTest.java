@@ -0,0 +1,105 @@
+/*
+ * © SolarWinds Worldwide, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.solarwinds.opentelemetry.extensions;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.solarwinds.joboe.core.EventReporter;
+import com.solarwinds.joboe.core.EventReporterStats;
+import com.solarwinds.joboe.core.PipelinedEventReporter;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleGaugeBuilder;
+import io.opentelemetry.api.metrics.LongGaugeBuilder;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.metrics.ObservableLongMeasurement;
+import io.opentelemetry.api.metrics.ObservableMeasurement;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class EventReporterMetricCollectorTest {
+  @Mock private ObservableLongMeasurement observableLongMeasurementMock;
+
+  @Mock private Meter meterMock;
+
+  @Mock private DoubleGaugeBuilder doubleGaugeBuilderMock;
+
+  @Mock private LongGaugeBuilder longGaugeBuilderMock;
+
+  @Captor private ArgumentCaptor<Runnable> callbackArgumentCaptor;
+
+  private final EventReporterStats stats =
+      EventReporterStats.builder()
+          .sentCount(10)
+          .failedCount(1)
+          .overflowedCount(3)
+          .queueLargestCount(7)
+          .sampledDownCount(3)
+          .build();
+
+  @BeforeEach
+  void setup() {
+    when(meterMock.gaugeBuilder(anyString())).thenReturn(doubleGaugeBuilderMock);
+    when(doubleGaugeBuilderMock.setDescription(anyString())).thenReturn(doubleGaugeBuilderMock);
+    when(doubleGaugeBuilderMock.setUnit(anyString())).thenReturn(doubleGaugeBuilderMock);
+    when(doubleGaugeBuilderMock.ofLongs()).thenReturn(longGaugeBuilderMock);
+    when(longGaugeBuilderMock.buildObserver()).thenReturn(observableLongMeasurementMock);
+  }
+
+  @Test
+  void recordDiscardedEventsByOverflowPolicy() {
+    PipelinedEventReporter eventReporterMock = mock(PipelinedEventReporter.class);
+    when(eventReporterMock.consumeStats()).thenReturn(stats);
+    when(eventReporterMock.getOverflowPolicy())
+        .thenReturn(PipelinedEventReporter.OverflowPolicy.SAMPLE_DOWN);
+
+    new EventReporterMetricCollector(() -> eventReporterMock).collect(meterMock);
+    verify(meterMock)
+        .batchCallback(
+            callbackArgumentCaptor.capture(), any(), any(ObservableMeasurement[].class));
+    callbackArgumentCaptor.getValue().run();
+
+    verify(observableLongMeasurementMock).record(10);
+    verify(observableLongMeasurementMock).record(1);
+    verify(observableLongMeasurementMock).record(7);
+    verify(observableLongMeasurementMock)
+        .record(3, Attributes.of(EventReporterMetricCollector.OVERFLOW_POLICY_KEY, "sample-down"));
+  }
+
+  @Test
+  void recordOverflowedEventsGivenQueuingReporter() {
+    EventReporter eventReporterMock = mock(EventReporter.class);
+    when(eventReporterMock.consumeStats()).thenReturn(stats);
+
+    new EventReporterMetricCollector(() -> eventReporterMock).collect(meterMock);
+    verify(meterMock)
+        .batchCallback(
+            callbackArgumentCaptor.capture(), any(), any(ObservableMeasurement[].class));
+    callbackArgumentCaptor.getValue().run();
+
+    verify(observableLongMeasurementMock).record(3);
+  }
+}
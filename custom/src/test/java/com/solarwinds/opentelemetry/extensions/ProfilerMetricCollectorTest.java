@@ -0,0 +1,78 @@
+/*
+ * © SolarWinds Worldwide, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.solarwinds.opentelemetry.extensions;
+
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.opentelemetry.api.metrics.DoubleGaugeBuilder;
+import io.opentelemetry.api.metrics.LongGaugeBuilder;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.metrics.ObservableDoubleMeasurement;
+import io.opentelemetry.api.metrics.ObservableLongMeasurement;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class ProfilerMetricCollectorTest {
+  private final ProfilerMetricCollector tested = new ProfilerMetricCollector();
+
+  @Mock private ObservableLongMeasurement observableLongMeasurementMock;
+
+  @Mock private ObservableDoubleMeasurement observableDoubleMeasurementMock;
+
+  @Mock private Meter meterMock;
+
+  @Mock private DoubleGaugeBuilder doubleGaugeBuilderMock;
+
+  @Mock private LongGaugeBuilder longGaugeBuilderMock;
+
+  @Captor private ArgumentCaptor<Consumer<ObservableLongMeasurement>> consumerArgumentCaptor;
+
+  @Captor
+  private ArgumentCaptor<Consumer<ObservableDoubleMeasurement>> doubleConsumerArgumentCaptor;
+
+  @Test
+  void verifyThatAllGaugesCallbackIsExecuted() {
+    when(meterMock.gaugeBuilder(anyString())).thenReturn(doubleGaugeBuilderMock);
+    when(doubleGaugeBuilderMock.setDescription(anyString())).thenReturn(doubleGaugeBuilderMock);
+    when(doubleGaugeBuilderMock.setUnit(anyString())).thenReturn(doubleGaugeBuilderMock);
+    when(doubleGaugeBuilderMock.ofLongs()).thenReturn(longGaugeBuilderMock);
+
+    tested.collect(meterMock);
+    verify(longGaugeBuilderMock, atLeastOnce()).buildWithCallback(consumerArgumentCaptor.capture());
+
+    consumerArgumentCaptor
+        .getAllValues()
+        .forEach(consumer -> consumer.accept(observableLongMeasurementMock));
+    verify(observableLongMeasurementMock, times(4)).record(anyLong());
+
+    verify(doubleGaugeBuilderMock).buildWithCallback(doubleConsumerArgumentCaptor.capture());
+    doubleConsumerArgumentCaptor.getValue().accept(observableDoubleMeasurementMock);
+    verify(observableDoubleMeasurementMock).record(anyDouble());
+  }
+}
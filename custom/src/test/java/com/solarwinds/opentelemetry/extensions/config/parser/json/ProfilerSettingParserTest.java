@@ -17,6 +17,7 @@
 package com.solarwinds.opentelemetry.extensions.config.parser.json;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -57,6 +58,58 @@ class ProfilerSettingParserTest {
 
     assertEquals(5, actual.getCircuitBreakerCountThreshold());
     assertEquals(expectedExcludes, actual.getExcludePackages());
+    assertEquals(ProfilerSetting.SamplingMode.PER_THREAD, actual.getSamplingMode());
+    assertFalse(actual.isAggregationEnabled());
+    assertEquals(ProfilerSetting.DEFAULT_MAX_CALL_TREE_NODES, actual.getMaxCallTreeNodes());
+    assertEquals(ProfilerSetting.DEFAULT_OVERHEAD_BUDGET, actual.getOverheadBudget());
+  }
+
+  @Test
+  void returnProfilerSettingWithSamplingModeGivenValidJson() throws InvalidConfigException {
+    String json = "{" + "\"enabled\": \"true\"," + "\"samplingMode\": \"batched\"" + "}";
+
+    ProfilerSetting actual = tested.convert(json);
+    assertEquals(ProfilerSetting.SamplingMode.BATCHED, actual.getSamplingMode());
+  }
+
+  @Test
+  void returnProfilerSettingWithAggregationGivenValidJson() throws InvalidConfigException {
+    String json =
+        "{"
+            + "\"enabled\": \"true\","
+            + "\"aggregationEnabled\": true,"
+            + "\"maxCallTreeNodes\": 500"
+            + "}";
+
+    ProfilerSetting actual = tested.convert(json);
+    assertTrue(actual.isAggregationEnabled());
+    assertEquals(500, actual.getMaxCallTreeNodes());
+  }
+
+  @Test
+  void throwInvalidConfigExceptionGivenNonPositiveMaxCallTreeNodes() {
+    String json = "{" + "\"enabled\": \"true\"," + "\"maxCallTreeNodes\": 0" + "}";
+    assertThrows(InvalidConfigException.class, () -> tested.convert(json));
+  }
+
+  @Test
+  void returnProfilerSettingWithOverheadBudgetGivenValidJson() throws InvalidConfigException {
+    String json = "{" + "\"enabled\": \"true\"," + "\"overheadBudget\": 0.01" + "}";
+
+    ProfilerSetting actual = tested.convert(json);
+    assertEquals(0.01, actual.getOverheadBudget());
+  }
+
+  @Test
+  void throwInvalidConfigExceptionGivenOverheadBudgetOutOfRange() {
+    String json = "{" + "\"enabled\": \"true\"," + "\"overheadBudget\": 1.5" + "}";
+    assertThrows(InvalidConfigException.class, () -> tested.convert(json));
+  }
+
+  @Test
+  void throwInvalidConfigExceptionGivenUnknownSamplingMode() {
+    String json = "{" + "\"enabled\": \"true\"," + "\"samplingMode\": \"sometimes\"" + "}";
+    assertThrows(InvalidConfigException.class, () -> tested.convert(json));
   }
 
   @Test
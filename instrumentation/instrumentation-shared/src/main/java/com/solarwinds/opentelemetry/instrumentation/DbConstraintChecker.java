@@ -17,32 +17,51 @@
 package com.solarwinds.opentelemetry.instrumentation;
 
 import com.solarwinds.joboe.config.ConfigManager;
-import com.solarwinds.joboe.config.ConfigProperty;
+import com.solarwinds.joboe.config.ConfigSnapshot;
 import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Locale;
 
 public class DbConstraintChecker {
 
-  private static final Set<String> defaultDbs = new HashSet<>();
-
-  static {
-    defaultDbs.add(Db.mysql.name());
-  }
+  private static volatile PreparedTagModeSetting preparedTagModeSetting =
+      new PreparedTagModeSetting(null, PreparedSqlTagMode.comment);
 
   public static boolean isDbConfigured(Db db) {
-    Set<String> configuredDbs =
-        new HashSet<>(
-            ConfigManager.getConfigOptional(ConfigProperty.AGENT_SQL_TAG_DATABASES, defaultDbs));
-    return configuredDbs.contains(db.name());
+    return ConfigManager.getSnapshot().getSqlTagDatabases().contains(db.name());
   }
 
   public static boolean sqlTagEnabled() {
-    return ConfigManager.getConfigOptional(ConfigProperty.AGENT_SQL_TAG, false);
+    return ConfigManager.getSnapshot().isSqlTag();
   }
 
   public static boolean preparedSqlTagEnabled() {
-    return ConfigManager.getConfigOptional(ConfigProperty.AGENT_SQL_TAG_PREPARED, false);
+    return ConfigManager.getSnapshot().isSqlTagPrepared();
+  }
+
+  /**
+   * Read on every prepared statement, so the mode is only parsed again once the configs change
+   *
+   * @return the configured mode, {@link PreparedSqlTagMode#comment} if not set or invalid
+   */
+  public static PreparedSqlTagMode preparedSqlTagMode() {
+    PreparedTagModeSetting current = preparedTagModeSetting;
+    ConfigSnapshot snapshot = ConfigManager.getSnapshot();
+    if (current.snapshot != snapshot) {
+      current = new PreparedTagModeSetting(snapshot, parsePreparedSqlTagMode(snapshot));
+      preparedTagModeSetting = current;
+    }
+    return current.mode;
+  }
+
+  private static PreparedSqlTagMode parsePreparedSqlTagMode(ConfigSnapshot snapshot) {
+    String mode = snapshot.getSqlTagPreparedMode();
+    if (mode != null) {
+      try {
+        return PreparedSqlTagMode.valueOf(mode.trim().toLowerCase(Locale.ROOT));
+      } catch (IllegalArgumentException ignore) {
+      }
+    }
+    return PreparedSqlTagMode.comment;
   }
 
   public static boolean anyDbConfigured() {
@@ -54,5 +73,30 @@ public class DbConstraintChecker {
     postgresql
   }
 
+  /** How the trace context is attached to prepared statements */
+  public enum PreparedSqlTagMode {
+    /**
+     * Prepends a traceparent comment to the SQL. The SQL is unique per span, so it bypasses the
+     * prepared statement caches of the driver and the database
+     */
+    comment,
+    /**
+     * Sends the traceparent as a query attribute right before each execution and keeps the SQL
+     * unchanged. Only supported by MySQL Connector/J 8.0.26+, statements of other drivers are not
+     * tagged
+     */
+    attribute
+  }
+
+  private static class PreparedTagModeSetting {
+    private final ConfigSnapshot snapshot;
+    private final PreparedSqlTagMode mode;
+
+    private PreparedTagModeSetting(ConfigSnapshot snapshot, PreparedSqlTagMode mode) {
+      this.snapshot = snapshot;
+      this.mode = mode;
+    }
+  }
+
   private DbConstraintChecker() {}
 }
@@ -17,7 +17,7 @@
 package com.solarwinds.opentelemetry.instrumentation;
 
 import com.solarwinds.joboe.config.ConfigManager;
-import com.solarwinds.joboe.config.ConfigProperty;
+import com.solarwinds.joboe.config.ConfigSnapshot;
 import com.solarwinds.joboe.logging.Logger;
 import com.solarwinds.joboe.logging.LoggerFactory;
 import io.opentelemetry.api.common.AttributeKey;
@@ -25,37 +25,42 @@ import io.opentelemetry.api.trace.Span;
 import io.opentelemetry.api.trace.SpanContext;
 import io.opentelemetry.context.Context;
 import io.opentelemetry.semconv.DbAttributes;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 
 public class StatementTruncator {
   private static final Logger logger = LoggerFactory.getLogger();
-  public static final int DEFAULT_SQL_MAX_LENGTH =
-      128 * 1024; // control the max length of the SQL string to avoid BufferOverFlowException
+  // control the max length of the SQL string to avoid BufferOverFlowException
+  public static final int DEFAULT_SQL_MAX_LENGTH = ConfigSnapshot.DEFAULT_SQL_QUERY_MAX_LENGTH;
+
+  private static final MethodType GET_ATTRIBUTE_TYPE =
+      MethodType.methodType(Object.class, Span.class, AttributeKey.class);
+
+  /**
+   * `getAttribute` accessor per span class, null if the span class does not declare one. Looked up
+   * once per class instead of on every statement execution
+   */
+  private static final ClassValue<MethodHandle> GET_ATTRIBUTE =
+      new ClassValue<MethodHandle>() {
+        @Override
+        protected MethodHandle computeValue(Class<?> spanClass) {
+          return lookupGetAttribute(spanClass);
+        }
+      };
 
   public static void maybeTruncateStatement(Context context) {
     Span span = Span.fromContext(context);
     SpanContext spanContext = span.getSpanContext();
 
     if (spanContext.isValid() && spanContext.isSampled()) {
-      String sql = null;
-      try {
-        /* Note that we cannot cast the object of class `io.opentelemetry.sdk.trace.RecordEventsReadableSpan` to interface
-         * `io.opentelemetry.sdk.trace.ReadableSpan` as they are loaded by different classloaders.
-         * */
-        Method getAttribute = span.getClass().getDeclaredMethod("getAttribute", AttributeKey.class);
-        getAttribute.setAccessible(true);
-        sql = (String) getAttribute.invoke(span, DbAttributes.DB_QUERY_TEXT);
-      } catch (Throwable throwable) {
-        logger.debug(() -> "Cannot execute method getAttribute: " + throwable);
-      }
+      String sql = getQueryText(span);
       if (sql == null) {
         return;
       }
 
-      int sqlMaxLength =
-          ConfigManager.getConfigOptional(
-              ConfigProperty.AGENT_SQL_QUERY_MAX_LENGTH, DEFAULT_SQL_MAX_LENGTH);
-
+      int sqlMaxLength = ConfigManager.getSnapshot().getSqlQueryMaxLength();
       if (sql.length() > sqlMaxLength) {
         sql = sql.substring(0, sqlMaxLength);
         span.setAttribute(QueryTruncatedAttributeKey.KEY, true);
@@ -72,6 +77,34 @@ public class StatementTruncator {
     }
   }
 
+  private static String getQueryText(Span span) {
+    MethodHandle getAttribute = GET_ATTRIBUTE.get(span.getClass());
+    if (getAttribute == null) {
+      return null;
+    }
+
+    try {
+      return (String) (Object) getAttribute.invokeExact(span, DbAttributes.DB_QUERY_TEXT);
+    } catch (Throwable throwable) {
+      logger.debug(() -> "Cannot execute method getAttribute: " + throwable);
+      return null;
+    }
+  }
+
+  private static MethodHandle lookupGetAttribute(Class<?> spanClass) {
+    try {
+      /* Note that we cannot cast the object of class `io.opentelemetry.sdk.trace.RecordEventsReadableSpan` to interface
+       * `io.opentelemetry.sdk.trace.ReadableSpan` as they are loaded by different classloaders.
+       * */
+      Method getAttribute = spanClass.getDeclaredMethod("getAttribute", AttributeKey.class);
+      getAttribute.setAccessible(true);
+      return MethodHandles.lookup().unreflect(getAttribute).asType(GET_ATTRIBUTE_TYPE);
+    } catch (Throwable throwable) {
+      logger.debug(() -> "Cannot find method getAttribute of " + spanClass + ": " + throwable);
+      return null;
+    }
+  }
+
   public static class QueryTruncatedAttributeKey {
     public static final AttributeKey<Boolean> KEY = AttributeKey.booleanKey("QueryTruncated");
   }
@@ -16,11 +16,34 @@
 
 package com.solarwinds.opentelemetry.instrumentation;
 
+import com.solarwinds.joboe.logging.Logger;
+import com.solarwinds.joboe.logging.LoggerFactory;
 import io.opentelemetry.api.trace.Span;
 import io.opentelemetry.api.trace.SpanContext;
 import io.opentelemetry.context.Context;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 
 public class TraceContextInjector {
+  private static final Logger logger = LoggerFactory.getLogger();
+
+  public static final String QUERY_ATTRIBUTE_NAME = "traceparent";
+
+  private static final MethodType SET_ATTRIBUTE_TYPE =
+      MethodType.methodType(void.class, Object.class, String.class, Object.class);
+
+  /**
+   * `setAttribute(String, Object)` of MySQL Connector/J statements per statement class, null if the
+   * driver does not support query attributes
+   */
+  private static final ClassValue<MethodHandle> SET_ATTRIBUTE =
+      new ClassValue<MethodHandle>() {
+        @Override
+        protected MethodHandle computeValue(Class<?> statementClass) {
+          return lookupSetAttribute(statementClass);
+        }
+      };
 
   public static String inject(Context context, String sql) {
     if (sql.contains("traceparent")) {
@@ -33,16 +56,62 @@ public class TraceContextInjector {
       return sql;
     }
 
-    String traceContext =
-        "00-"
-            + spanContext.getTraceId()
-            + "-"
-            + spanContext.getSpanId()
-            + "-"
-            + spanContext.getTraceFlags().asHex();
-
-    String tag = String.format("/*traceparent='%s'*/", traceContext);
+    String tag = String.format("/*traceparent='%s'*/", toTraceparent(spanContext));
     span.setAttribute("sw.query_tag", tag);
     return String.format("%s %s", tag, sql);
   }
+
+  /**
+   * Attaches the trace context to the next execution of the statement as a query attribute, which
+   * leaves the SQL and hence the prepared statement caches untouched. No-op for drivers without
+   * query attributes support
+   *
+   * @param context the current context
+   * @param statement the statement about to be executed
+   */
+  public static void injectQueryAttribute(Context context, Object statement) {
+    MethodHandle setAttribute = SET_ATTRIBUTE.get(statement.getClass());
+    if (setAttribute == null) {
+      return;
+    }
+
+    Span span = Span.fromContext(context);
+    SpanContext spanContext = span.getSpanContext();
+    if (!(spanContext.isValid() && spanContext.isSampled())) {
+      return;
+    }
+
+    String traceparent = toTraceparent(spanContext);
+    try {
+      setAttribute.invokeExact(statement, QUERY_ATTRIBUTE_NAME, (Object) traceparent);
+      span.setAttribute("sw.query_tag", String.format("/*traceparent='%s'*/", traceparent));
+    } catch (Throwable throwable) {
+      logger.debug(() -> "Cannot set query attribute " + QUERY_ATTRIBUTE_NAME + ": " + throwable);
+    }
+  }
+
+  private static String toTraceparent(SpanContext spanContext) {
+    return "00-"
+        + spanContext.getTraceId()
+        + "-"
+        + spanContext.getSpanId()
+        + "-"
+        + spanContext.getTraceFlags().asHex();
+  }
+
+  private static MethodHandle lookupSetAttribute(Class<?> statementClass) {
+    if (!statementClass.getName().startsWith("com.mysql.cj.jdbc")) {
+      return null;
+    }
+
+    try {
+      return MethodHandles.publicLookup()
+          .unreflect(statementClass.getMethod("setAttribute", String.class, Object.class))
+          .asType(SET_ATTRIBUTE_TYPE);
+    } catch (Throwable throwable) {
+      logger.debug(
+          () -> "Query attributes are not supported by " + statementClass + ": " + throwable);
+      return null;
+    }
+  }
 }
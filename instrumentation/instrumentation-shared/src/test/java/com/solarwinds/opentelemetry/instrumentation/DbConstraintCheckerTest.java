@@ -16,6 +16,7 @@
 
 package com.solarwinds.opentelemetry.instrumentation;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -53,4 +54,24 @@ class DbConstraintCheckerTest {
     ConfigManager.removeConfig(ConfigProperty.AGENT_SQL_TAG_DATABASES);
     assertFalse(DbConstraintChecker.isDbConfigured(DbConstraintChecker.Db.postgresql));
   }
+
+  @Test
+  void returnCommentModeWhenPreparedSqlTagModeIsNotConfigured() {
+    ConfigManager.removeConfig(ConfigProperty.AGENT_SQL_TAG_PREPARED_MODE);
+    assertEquals(
+        DbConstraintChecker.PreparedSqlTagMode.comment, DbConstraintChecker.preparedSqlTagMode());
+  }
+
+  @Test
+  void returnConfiguredPreparedSqlTagModeAndFollowChanges() throws InvalidConfigException {
+    ConfigManager.setConfig(ConfigProperty.AGENT_SQL_TAG_PREPARED_MODE, "Attribute");
+    assertEquals(
+        DbConstraintChecker.PreparedSqlTagMode.attribute,
+        DbConstraintChecker.preparedSqlTagMode());
+
+    ConfigManager.setConfig(ConfigProperty.AGENT_SQL_TAG_PREPARED_MODE, "unknown");
+    assertEquals(
+        DbConstraintChecker.PreparedSqlTagMode.comment, DbConstraintChecker.preparedSqlTagMode());
+    ConfigManager.removeConfig(ConfigProperty.AGENT_SQL_TAG_PREPARED_MODE);
+  }
 }
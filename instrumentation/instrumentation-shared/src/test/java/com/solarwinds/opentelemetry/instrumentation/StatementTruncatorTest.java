@@ -0,0 +1,107 @@
+/*
+ * © SolarWinds Worldwide, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.solarwinds.opentelemetry.instrumentation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.solarwinds.joboe.config.ConfigManager;
+import com.solarwinds.joboe.config.ConfigProperty;
+import com.solarwinds.joboe.config.InvalidConfigException;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.IdGenerator;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.semconv.DbAttributes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class StatementTruncatorTest {
+
+  private final SdkTracerProvider tracerProvider = SdkTracerProvider.builder().build();
+
+  private final IdGenerator idGenerator = IdGenerator.random();
+
+  @AfterEach
+  void tearDown() {
+    ConfigManager.removeConfig(ConfigProperty.AGENT_SQL_QUERY_MAX_LENGTH);
+    tracerProvider.close();
+  }
+
+  @Test
+  void truncateQueryLongerThanMaxLength() throws InvalidConfigException {
+    ConfigManager.setConfig(ConfigProperty.AGENT_SQL_QUERY_MAX_LENGTH, 10);
+    Span span = startSpan("select name from students");
+
+    StatementTruncator.maybeTruncateStatement(Context.root().with(span));
+
+    ReadableSpan readableSpan = (ReadableSpan) span;
+    assertEquals("select nam", readableSpan.getAttribute(DbAttributes.DB_QUERY_TEXT));
+    assertEquals(
+        true, readableSpan.getAttribute(StatementTruncator.QueryTruncatedAttributeKey.KEY));
+  }
+
+  @Test
+  void keepQueryWithinMaxLength() {
+    Span span = startSpan("select name from students");
+
+    StatementTruncator.maybeTruncateStatement(Context.root().with(span));
+
+    ReadableSpan readableSpan = (ReadableSpan) span;
+    assertEquals(
+        "select name from students", readableSpan.getAttribute(DbAttributes.DB_QUERY_TEXT));
+    assertNull(readableSpan.getAttribute(StatementTruncator.QueryTruncatedAttributeKey.KEY));
+  }
+
+  @Test
+  void pickUpMaxLengthChanges() throws InvalidConfigException {
+    ConfigManager.setConfig(ConfigProperty.AGENT_SQL_QUERY_MAX_LENGTH, 10);
+    Span span = startSpan("select name from students");
+    StatementTruncator.maybeTruncateStatement(Context.root().with(span));
+    assertEquals("select nam", ((ReadableSpan) span).getAttribute(DbAttributes.DB_QUERY_TEXT));
+
+    ConfigManager.setConfig(ConfigProperty.AGENT_SQL_QUERY_MAX_LENGTH, 6);
+    span = startSpan("select name from students");
+    StatementTruncator.maybeTruncateStatement(Context.root().with(span));
+    assertEquals("select", ((ReadableSpan) span).getAttribute(DbAttributes.DB_QUERY_TEXT));
+  }
+
+  @Test
+  void ignoreSpanWithoutAttributes() {
+    SpanContext spanContext =
+        SpanContext.create(
+            idGenerator.generateTraceId(),
+            idGenerator.generateSpanId(),
+            TraceFlags.getSampled(),
+            TraceState.getDefault());
+
+    // a propagated span has no attributes to read, it is left untouched
+    StatementTruncator.maybeTruncateStatement(Context.root().with(Span.wrap(spanContext)));
+  }
+
+  private Span startSpan(String sql) {
+    return tracerProvider
+        .get("test")
+        .spanBuilder("query")
+        .setAttribute(DbAttributes.DB_QUERY_TEXT, sql)
+        .startSpan();
+  }
+}
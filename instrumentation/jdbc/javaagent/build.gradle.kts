@@ -52,6 +52,27 @@ tasks.withType<JavaCompile>().configureEach {
   }
 }
 
+tasks {
+  val testQueryAttributeSqlTag by registering(Test::class) {
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = test.get().classpath
+    filter {
+      includeTestsMatching("*JdbcQueryAttributeTagTest")
+    }
+    jvmArgs("-Dsw.apm.sql.tag.prepared.mode=attribute")
+  }
+
+  test {
+    filter {
+      excludeTestsMatching("*JdbcQueryAttributeTagTest")
+    }
+  }
+
+  check {
+    dependsOn(testQueryAttributeSqlTag)
+  }
+}
+
 swoJava {
   minJavaVersionSupported.set(JavaVersion.VERSION_1_8)
 }
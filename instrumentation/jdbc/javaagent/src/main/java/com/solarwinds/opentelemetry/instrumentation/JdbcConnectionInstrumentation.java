@@ -86,7 +86,10 @@ public class JdbcConnectionInstrumentation implements TypeInstrumentation {
         return;
       }
 
-      sql = TraceContextInjector.inject(currentContext(), sql);
+      if (DbConstraintChecker.preparedSqlTagMode()
+          == DbConstraintChecker.PreparedSqlTagMode.comment) {
+        sql = TraceContextInjector.inject(currentContext(), sql);
+      }
       StatementTracer.writeQuerySpec(currentContext());
     }
 
@@ -26,6 +26,7 @@ import static net.bytebuddy.matcher.ElementMatchers.named;
 import static net.bytebuddy.matcher.ElementMatchers.none;
 import static net.bytebuddy.matcher.ElementMatchers.takesArguments;
 
+import io.opentelemetry.javaagent.bootstrap.CallDepth;
 import io.opentelemetry.javaagent.extension.instrumentation.TypeInstrumentation;
 import io.opentelemetry.javaagent.extension.instrumentation.TypeTransformer;
 import net.bytebuddy.asm.Advice;
@@ -74,10 +75,25 @@ public class JdbcPreparedStatementInstrumentation implements TypeInstrumentation
   @SuppressWarnings("unused")
   public static class PreparedStatementExecuteAdvice {
     @Advice.OnMethodEnter(suppress = Throwable.class)
-    public static void onEnter() {}
+    public static void onEnter(
+        @Advice.Local("swoCallDepth") CallDepth callDepth, @Advice.This Object statement) {
+      // execute methods delegate to each other, tag the outermost call only
+      callDepth = CallDepth.forClass(StatementTruncator.class);
+      if (callDepth.getAndIncrement() > 0) {
+        return;
+      }
+
+      if (DbConstraintChecker.preparedSqlTagMode()
+          == DbConstraintChecker.PreparedSqlTagMode.attribute) {
+        TraceContextInjector.injectQueryAttribute(currentContext(), statement);
+      }
+    }
 
     @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
-    public static void onExit() {
+    public static void onExit(@Advice.Local("swoCallDepth") CallDepth callDepth) {
+      if (callDepth != null) {
+        callDepth.decrementAndGet();
+      }
       StatementTruncator.maybeTruncateStatement(currentContext());
     }
   }
@@ -17,6 +17,7 @@
 package com.solarwinds.opentelemetry.instrumentation;
 
 import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import io.opentelemetry.api.common.AttributeKey;
@@ -26,6 +27,7 @@ import io.opentelemetry.sdk.trace.data.SpanData;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.time.Duration;
@@ -104,6 +106,41 @@ class JdbcInstrumentationTest {
     assertRootSpanHasQueryTag();
   }
 
+  @Test
+  void missPreparedStatementCacheWhenTaggingWithComment() throws SQLException {
+    String url =
+        String.format(
+            "%s?user=%s&password=%s&useServerPrepStmts=true&cachePrepStmts=true",
+            mysql.getJdbcUrl(), mysql.getUsername(), mysql.getPassword());
+    try (Connection cachingConnection = DriverManager.getConnection(url)) {
+      long preparesBefore = serverPrepareCount(cachingConnection);
+      int executions = 10;
+      for (int i = 0; i < executions; i++) {
+        testing.runWithSpan(
+            "root",
+            () -> {
+              try (PreparedStatement preparedStatement =
+                  cachingConnection.prepareStatement("SELECT 1")) {
+                preparedStatement.executeQuery().close();
+              }
+            });
+      }
+
+      // the traceparent comment makes every SQL unique, none of the prepares hit the cache, see
+      // JdbcQueryAttributeTagTest for the cache friendly mode
+      assertEquals(executions, serverPrepareCount(cachingConnection) - preparesBefore);
+    }
+  }
+
+  private static long serverPrepareCount(Connection connection) throws SQLException {
+    try (Statement statement = connection.createStatement();
+        ResultSet resultSet =
+            statement.executeQuery("SHOW SESSION STATUS LIKE 'Com_stmt_prepare'")) {
+      resultSet.next();
+      return resultSet.getLong(2);
+    }
+  }
+
   // Assert the injection outcome (the "root" span carries sw.query_tag) by polling the flat list
   // of exported spans. This avoids pinning the exact number/grouping of driver-generated spans,
   // which is nondeterministic across driver/server versions and timing, and only waits until the
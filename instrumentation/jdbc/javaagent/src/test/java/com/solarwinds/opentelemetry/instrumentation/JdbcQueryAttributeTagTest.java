@@ -0,0 +1,135 @@
+/*
+ * © SolarWinds Worldwide, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.solarwinds.opentelemetry.instrumentation;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.instrumentation.testing.junit.AgentInstrumentationExtension;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+/**
+ * Runs with `sw.apm.sql.tag.prepared.mode=attribute` in its own test task, see build.gradle.kts.
+ * The MySQL server side prepared statement cache is enabled on the connection, every server side
+ * prepare is a miss of that cache.
+ */
+@Testcontainers
+@SuppressWarnings("all")
+class JdbcQueryAttributeTagTest {
+
+  private static final AttributeKey<String> QUERY_TAG = AttributeKey.stringKey("sw.query_tag");
+
+  private static final String SQL = "SELECT ? + 1";
+
+  private static final int EXECUTIONS = 20;
+
+  @RegisterExtension
+  private static final AgentInstrumentationExtension testing =
+      AgentInstrumentationExtension.create();
+
+  @Container
+  private static final MySQLContainer<?> mysql =
+      new MySQLContainer<>(DockerImageName.parse("mysql:9.2.0"));
+
+  private Connection connection;
+
+  @BeforeEach
+  void setup() throws SQLException {
+    String url =
+        String.format(
+            "%s?user=%s&password=%s&useServerPrepStmts=true&cachePrepStmts=true",
+            mysql.getJdbcUrl(), mysql.getUsername(), mysql.getPassword());
+    connection = DriverManager.getConnection(url);
+    testing.clearData();
+  }
+
+  @AfterEach
+  void teardown() throws SQLException {
+    connection.close();
+    testing.clearData();
+  }
+
+  @Test
+  void keepPreparedStatementCacheHitsWhenTaggingWithQueryAttribute() throws SQLException {
+    executeCachedStatement(0); // the first prepare is an expected miss
+    long preparesBefore = serverPrepareCount();
+
+    for (int i = 1; i <= EXECUTIONS; i++) {
+      int value = i;
+      testing.runWithSpan(
+          "root",
+          () -> {
+            assertEquals(value + 1, executeCachedStatement(value));
+          });
+    }
+
+    long misses = serverPrepareCount() - preparesBefore;
+    double hitRate = (EXECUTIONS - misses) / (double) EXECUTIONS;
+    assertEquals(1.0, hitRate, "statement cache hit rate with query attribute tagging");
+
+    await()
+        .atMost(Duration.ofSeconds(20))
+        .untilAsserted(
+            () ->
+                assertEquals(
+                    EXECUTIONS,
+                    testing.spans().stream()
+                        .filter(span -> "root".equals(span.getName()))
+                        .filter(span -> span.getAttributes().get(QUERY_TAG) != null)
+                        .count()));
+    assertTrue(
+        testing.spans().stream()
+            .map(span -> span.getAttributes().get(QUERY_TAG))
+            .filter(tag -> tag != null)
+            .allMatch(tag -> tag.startsWith("/*traceparent='00-")));
+  }
+
+  private int executeCachedStatement(int value) throws SQLException {
+    try (PreparedStatement preparedStatement = connection.prepareStatement(SQL)) {
+      preparedStatement.setInt(1, value);
+      try (ResultSet resultSet = preparedStatement.executeQuery()) {
+        resultSet.next();
+        return resultSet.getInt(1);
+      }
+    }
+  }
+
+  private long serverPrepareCount() throws SQLException {
+    try (Statement statement = connection.createStatement();
+        ResultSet resultSet =
+            statement.executeQuery("SHOW SESSION STATUS LIKE 'Com_stmt_prepare'")) {
+      resultSet.next();
+      return resultSet.getLong(2);
+    }
+  }
+}
@@ -22,34 +22,49 @@ import com.solarwinds.joboe.logging.LoggerFactory;
 public class ConfigManager {
   private static final Logger logger = LoggerFactory.getLogger();
   private ConfigContainer configs;
+  private volatile ConfigSnapshot snapshot = ConfigSnapshot.EMPTY;
 
   private static final ConfigManager SINGLETON = new ConfigManager(); // only a singleton for now
 
   private ConfigManager() {}
 
-  public static void initialize(ConfigContainer configs) {
+  public static synchronized void initialize(ConfigContainer configs) {
     SINGLETON.configs = configs;
+    SINGLETON.snapshot = ConfigSnapshot.of(configs);
   }
 
   /** For internal testing - reset the states of the ConfigManager */
-  public static void reset() {
+  public static synchronized void reset() {
     SINGLETON.configs = null;
+    SINGLETON.snapshot = ConfigSnapshot.EMPTY;
   }
 
-  public static void setConfig(ConfigProperty configKey, Object value)
+  public static synchronized void setConfig(ConfigProperty configKey, Object value)
       throws InvalidConfigException {
     if (SINGLETON.configs == null) {
       SINGLETON.configs = new ConfigContainer();
     }
     SINGLETON.configs.put(configKey, value, true);
+    SINGLETON.snapshot = ConfigSnapshot.of(SINGLETON.configs);
   }
 
-  public static void removeConfig(ConfigProperty configKey) {
+  public static synchronized void removeConfig(ConfigProperty configKey) {
     if (SINGLETON.configs != null) {
       SINGLETON.configs.remove(configKey);
+      SINGLETON.snapshot = ConfigSnapshot.of(SINGLETON.configs);
     }
   }
 
+  /**
+   * Lock free read of the configurations used on hot paths. The returned snapshot is replaced, not
+   * modified, whenever the configurations are initialized, reloaded or modified
+   *
+   * @return the current configuration snapshot, with defaults if the agent is not initialized
+   */
+  public static ConfigSnapshot getSnapshot() {
+    return SINGLETON.snapshot;
+  }
+
   /**
    * Convenience method for other code to read the configuration value of the Agent
    *
@@ -55,6 +55,22 @@ public enum ConfigProperty {
       new ConfigKey(null, EnvPrefix.PRODUCT + "EVENTS_SEND_CAPACITY"),
       ConfigGroup.AGENT,
       Integer.class),
+  AGENT_EVENTS_REPORTER(
+      new ConfigKey(null, EnvPrefix.PRODUCT + "EVENTS_REPORTER"),
+      ConfigGroup.AGENT,
+      String.class), // not advertised
+  AGENT_EVENTS_SEND_WINDOW(
+      new ConfigKey(null, EnvPrefix.PRODUCT + "EVENTS_SEND_WINDOW"),
+      ConfigGroup.AGENT,
+      Integer.class), // not advertised
+  AGENT_EVENTS_OVERFLOW_POLICY(
+      new ConfigKey(null, EnvPrefix.PRODUCT + "EVENTS_OVERFLOW_POLICY"),
+      ConfigGroup.AGENT,
+      String.class), // not advertised
+  AGENT_EVENTS_POOLED_BUFFERS(
+      new ConfigKey(null, EnvPrefix.PRODUCT + "EVENTS_POOLED_BUFFERS"),
+      ConfigGroup.AGENT,
+      Boolean.class), // not advertised
   AGENT_DEBUG(new ConfigKey(null, null), ConfigGroup.AGENT, Boolean.class),
   AGENT_LOGGING(
       new ConfigKey("agent.logging", EnvPrefix.PRODUCT + "DEBUG_LEVEL"),
@@ -136,6 +152,10 @@ public enum ConfigProperty {
       new ConfigKey(null, EnvPrefix.PRODUCT + "GRPC_COMPRESSION"),
       ConfigGroup.AGENT,
       String.class), // not advertised
+  AGENT_GRPC_ASYNC_CLIENT(
+      new ConfigKey(null, EnvPrefix.PRODUCT + "GRPC_ASYNC_CLIENT"),
+      ConfigGroup.AGENT,
+      Boolean.class), // not advertised
   AGENT_SQL_TAG(
       new ConfigKey("agent.sqlTag", EnvPrefix.PRODUCT + "SQL_TAG"),
       ConfigGroup.AGENT,
@@ -144,6 +164,10 @@ public enum ConfigProperty {
       new ConfigKey("agent.sqlTagPrepared", EnvPrefix.PRODUCT + "SQL_TAG_PREPARED"),
       ConfigGroup.AGENT,
       Boolean.class),
+  AGENT_SQL_TAG_PREPARED_MODE(
+      new ConfigKey("agent.sqlTagPreparedMode", EnvPrefix.PRODUCT + "SQL_TAG_PREPARED_MODE"),
+      ConfigGroup.AGENT,
+      String.class),
   AGENT_SQL_TAG_DATABASES(
       new ConfigKey("agent.sqlTagDatabases", EnvPrefix.PRODUCT + "SQL_TAG_DATABASES"),
       ConfigGroup.AGENT,
@@ -0,0 +1,92 @@
+/*
+ * © SolarWinds Worldwide, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.solarwinds.joboe.config;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import lombok.Getter;
+
+/**
+ * Immutable, typed view of the configurations read on hot paths, with the defaults applied and
+ * derived values precomputed. {@link ConfigManager} swaps it whenever the configurations are
+ * initialized, reloaded or modified, so readers only pay a volatile read plus a field access
+ * instead of a {@link ConfigContainer} lookup.
+ *
+ * <p>A snapshot is never modified, callers can keep a reference to detect changes by identity
+ */
+@Getter
+public final class ConfigSnapshot {
+  public static final int DEFAULT_SQL_QUERY_MAX_LENGTH = 128 * 1024;
+  public static final String DEFAULT_COLLECTOR = "apm.collector.na-01.cloud.solarwinds.com";
+  public static final String DEFAULT_SERVICE_KEY = ":unknown-java";
+
+  static final ConfigSnapshot EMPTY = new ConfigSnapshot(null);
+
+  private final boolean sqlTag;
+  private final boolean sqlTagPrepared;
+  private final String sqlTagPreparedMode;
+  /** Database names to tag the SQL of, `mysql` by default */
+  private final Set<String> sqlTagDatabases;
+
+  private final int sqlQueryMaxLength;
+  private final Set<String> spanStacktraceFilters;
+  private final boolean exportMetricsEnabled;
+
+  private final String collector;
+  private final String serviceKey;
+
+  private ConfigSnapshot(ConfigContainer configs) {
+    sqlTag = get(configs, ConfigProperty.AGENT_SQL_TAG, false);
+    sqlTagPrepared = get(configs, ConfigProperty.AGENT_SQL_TAG_PREPARED, false);
+    sqlTagPreparedMode = get(configs, ConfigProperty.AGENT_SQL_TAG_PREPARED_MODE, null);
+    sqlTagDatabases =
+        toImmutableSet(
+            get(
+                configs,
+                ConfigProperty.AGENT_SQL_TAG_DATABASES,
+                Collections.<String>singleton("mysql")));
+
+    sqlQueryMaxLength =
+        get(configs, ConfigProperty.AGENT_SQL_QUERY_MAX_LENGTH, DEFAULT_SQL_QUERY_MAX_LENGTH);
+    spanStacktraceFilters =
+        toImmutableSet(
+            get(
+                configs,
+                ConfigProperty.AGENT_SPAN_STACKTRACE_FILTERS,
+                Collections.<String>singleton("db.system")));
+    exportMetricsEnabled = get(configs, ConfigProperty.AGENT_EXPORT_METRICS_ENABLED, true);
+
+    collector = get(configs, ConfigProperty.AGENT_COLLECTOR, DEFAULT_COLLECTOR);
+    serviceKey = get(configs, ConfigProperty.AGENT_SERVICE_KEY, DEFAULT_SERVICE_KEY);
+  }
+
+  static ConfigSnapshot of(ConfigContainer configs) {
+    return configs == null ? EMPTY : new ConfigSnapshot(configs);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T get(ConfigContainer configs, ConfigProperty configKey, T defaultValue) {
+    Object value = configs != null ? configs.get(configKey) : null;
+    return value != null ? (T) value : defaultValue;
+  }
+
+  private static Set<String> toImmutableSet(Collection<String> values) {
+    return Collections.unmodifiableSet(new HashSet<>(values));
+  }
+}
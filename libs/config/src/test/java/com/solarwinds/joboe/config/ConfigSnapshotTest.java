@@ -0,0 +1,102 @@
+/*
+ * © SolarWinds Worldwide, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.solarwinds.joboe.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class ConfigSnapshotTest {
+
+  @AfterEach
+  void tearDown() {
+    ConfigManager.reset();
+  }
+
+  @Test
+  void returnDefaultsWhenNotInitialized() {
+    ConfigSnapshot snapshot = ConfigManager.getSnapshot();
+
+    assertFalse(snapshot.isSqlTag());
+    assertFalse(snapshot.isSqlTagPrepared());
+    assertNull(snapshot.getSqlTagPreparedMode());
+    assertEquals(Collections.singleton("mysql"), snapshot.getSqlTagDatabases());
+    assertEquals(ConfigSnapshot.DEFAULT_SQL_QUERY_MAX_LENGTH, snapshot.getSqlQueryMaxLength());
+    assertEquals(Collections.singleton("db.system"), snapshot.getSpanStacktraceFilters());
+    assertTrue(snapshot.isExportMetricsEnabled());
+    assertEquals(ConfigSnapshot.DEFAULT_COLLECTOR, snapshot.getCollector());
+    assertEquals(ConfigSnapshot.DEFAULT_SERVICE_KEY, snapshot.getServiceKey());
+  }
+
+  @Test
+  void returnConfiguredValuesOnInitialize() throws InvalidConfigException {
+    ConfigContainer configs = new ConfigContainer();
+    configs.put(ConfigProperty.AGENT_SQL_TAG, true);
+    configs.put(ConfigProperty.AGENT_SQL_QUERY_MAX_LENGTH, 1024);
+    configs.put(ConfigProperty.AGENT_EXPORT_METRICS_ENABLED, false);
+    configs.put(ConfigProperty.AGENT_SERVICE_KEY, "token:service");
+    ConfigManager.initialize(configs);
+
+    ConfigSnapshot snapshot = ConfigManager.getSnapshot();
+    assertTrue(snapshot.isSqlTag());
+    assertEquals(1024, snapshot.getSqlQueryMaxLength());
+    assertFalse(snapshot.isExportMetricsEnabled());
+    assertEquals("token:service", snapshot.getServiceKey());
+  }
+
+  @Test
+  void swapSnapshotOnChanges() throws InvalidConfigException {
+    ConfigSnapshot initial = ConfigManager.getSnapshot();
+
+    ConfigManager.setConfig(ConfigProperty.AGENT_SQL_QUERY_MAX_LENGTH, 10);
+    ConfigSnapshot modified = ConfigManager.getSnapshot();
+    assertNotSame(initial, modified);
+    assertEquals(10, modified.getSqlQueryMaxLength());
+    assertEquals(ConfigSnapshot.DEFAULT_SQL_QUERY_MAX_LENGTH, initial.getSqlQueryMaxLength());
+    assertSame(modified, ConfigManager.getSnapshot());
+
+    ConfigManager.removeConfig(ConfigProperty.AGENT_SQL_QUERY_MAX_LENGTH);
+    assertEquals(
+        ConfigSnapshot.DEFAULT_SQL_QUERY_MAX_LENGTH,
+        ConfigManager.getSnapshot().getSqlQueryMaxLength());
+
+    ConfigManager.initialize(new ConfigContainer()); // reload
+    assertNotSame(modified, ConfigManager.getSnapshot());
+  }
+
+  @Test
+  void copyConfiguredSets() throws InvalidConfigException {
+    Set<String> databases = new HashSet<>();
+    databases.add("postgresql");
+    ConfigManager.setConfig(ConfigProperty.AGENT_SQL_TAG_DATABASES, databases);
+    databases.add("mysql");
+
+    Set<String> snapshotDatabases = ConfigManager.getSnapshot().getSqlTagDatabases();
+    assertEquals(Collections.singleton("postgresql"), snapshotDatabases);
+    assertThrows(UnsupportedOperationException.class, () -> snapshotDatabases.add("mysql"));
+  }
+}
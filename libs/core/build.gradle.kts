@@ -29,6 +29,7 @@ dependencies {
   compileOnly("com.google.auto.service:auto-service")
   annotationProcessor("com.google.auto.service:auto-service")
 
+  testImplementation("io.grpc:grpc-inprocess:$grpcVersion")
   testImplementation("org.json:json")
   testImplementation("io.opentelemetry:opentelemetry-api")
   testImplementation("io.opentelemetry:opentelemetry-context")
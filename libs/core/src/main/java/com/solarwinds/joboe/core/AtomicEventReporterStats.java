@@ -30,6 +30,9 @@ public class AtomicEventReporterStats {
   private final AtomicLong failedCount = new AtomicLong();
   private final AtomicLong queueLargestCount = new AtomicLong();
   private final AtomicLong processedCount = new AtomicLong();
+  private final AtomicLong droppedNewestCount = new AtomicLong();
+  private final AtomicLong droppedOldestCount = new AtomicLong();
+  private final AtomicLong sampledDownCount = new AtomicLong();
 
   private final Supplier<Integer> queueSizeSupplier;
 
@@ -53,11 +56,34 @@ public class AtomicEventReporterStats {
     processedCount.addAndGet(increment);
   }
 
+  /**
+   * Records events discarded by an overflow policy, these are also counted as overflowed
+   *
+   * @param policy the overflow policy that discarded the events
+   * @param increment number of events discarded
+   */
+  public void incrementOverflowedCount(
+      PipelinedEventReporter.OverflowPolicy policy, long increment) {
+    switch (policy) {
+      case DROP_NEWEST:
+        droppedNewestCount.addAndGet(increment);
+        break;
+      case DROP_OLDEST:
+        droppedOldestCount.addAndGet(increment);
+        break;
+      case SAMPLE_DOWN:
+        sampledDownCount.addAndGet(increment);
+        break;
+      default:
+        break;
+    }
+    overflowedCount.addAndGet(increment);
+  }
+
   public void setQueueCount(long currentCount) {
-    synchronized (queueLargestCount) {
-      if (currentCount > queueLargestCount.get()) {
-        queueLargestCount.set(currentCount);
-      }
+    long largest = queueLargestCount.get();
+    while (currentCount > largest && !queueLargestCount.compareAndSet(largest, currentCount)) {
+      largest = queueLargestCount.get();
     }
   }
 
@@ -70,12 +96,18 @@ public class AtomicEventReporterStats {
         this.queueLargestCount.getAndSet(
             queueSizeSupplier.get()); // reset to current queue size as the largest
     long processedCount = this.processedCount.getAndSet(0);
+    long droppedNewestCount = this.droppedNewestCount.getAndSet(0);
+    long droppedOldestCount = this.droppedOldestCount.getAndSet(0);
+    long sampledDownCount = this.sampledDownCount.getAndSet(0);
     return EventReporterStats.builder()
         .sentCount(sentCount)
         .failedCount(failedCount)
         .overflowedCount(overflowedCount)
         .queueLargestCount(queueLargestCount)
         .processedCount(processedCount)
+        .droppedNewestCount(droppedNewestCount)
+        .droppedOldestCount(droppedOldestCount)
+        .sampledDownCount(sampledDownCount)
         .build();
   }
 }
@@ -74,6 +74,13 @@ public abstract class Event {
 
   public abstract ByteBuffer toByteBuffer() throws BsonBufferException;
 
+  /**
+   * Releases the pooled buffer holding the encoded event, if any. Reporters call this once the
+   * event has been sent out (success or failure), the event is encoded again if converted
+   * afterwards
+   */
+  public void release() {}
+
   /**
    * Sets timestamp in microsecond since epoch time
    *
@@ -0,0 +1,159 @@
+/*
+ * © SolarWinds Worldwide, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.solarwinds.joboe.core;
+
+import com.solarwinds.joboe.config.ConfigManager;
+import com.solarwinds.joboe.config.ConfigProperty;
+import com.solarwinds.joboe.logging.Logger;
+import com.solarwinds.joboe.logging.LoggerFactory;
+import com.solarwinds.joboe.sampling.IntervalCounter;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.Value;
+
+/**
+ * A pool of byte arrays holding encoded events, so events can be encoded once by the producer
+ * thread and handed over to the RPC client without further copies.
+ *
+ * <p>Arrays are bucketed in power of 2 size classes. An acquired array is at least as big as the
+ * requested size, the actual encoded length is tracked by the caller. Each size class retains a
+ * bounded amount of bytes, arrays released to a full size class are left for garbage collection.
+ *
+ * <p>Pooling is enabled by {@link ConfigProperty#AGENT_EVENTS_POOLED_BUFFERS}
+ */
+public class EventBufferPool {
+  private static final Logger logger = LoggerFactory.getLogger();
+
+  static final int MIN_BUFFER_SIZE = 256;
+  static final int MAX_RETAINED_BYTES_PER_SIZE_CLASS = 2 * 1024 * 1024;
+  private static final long REPORT_STATS_INTERVAL = 60 * 1000; // 1 minute
+
+  private static final EventBufferPool INSTANCE =
+      new EventBufferPool(
+          MIN_BUFFER_SIZE, Constants.MAX_EVENT_BUFFER_SIZE, MAX_RETAINED_BYTES_PER_SIZE_CLASS);
+  private static final boolean ENABLED =
+      ConfigManager.getConfigOptional(ConfigProperty.AGENT_EVENTS_POOLED_BUFFERS, false);
+
+  private final int minShift;
+  private final BlockingQueue<byte[]>[] sizeClasses;
+
+  private final IntervalCounter hitCount = new IntervalCounter();
+  private final IntervalCounter missCount = new IntervalCounter();
+  private final AtomicLong nextReportTime =
+      new AtomicLong(System.currentTimeMillis() + REPORT_STATS_INTERVAL);
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  EventBufferPool(int minBufferSize, int maxBufferSize, int maxRetainedBytesPerSizeClass) {
+    this.minShift = shiftFor(minBufferSize);
+    int sizeClassCount = shiftFor(maxBufferSize) - minShift + 1;
+    this.sizeClasses = new BlockingQueue[sizeClassCount];
+    for (int i = 0; i < sizeClassCount; i++) {
+      int retainedCount = maxRetainedBytesPerSizeClass / (1 << (minShift + i));
+      sizeClasses[i] = new ArrayBlockingQueue<>(Math.max(1, retainedCount));
+    }
+  }
+
+  public static EventBufferPool getInstance() {
+    return INSTANCE;
+  }
+
+  /** @return whether events should be encoded into pooled buffers */
+  public static boolean isEnabled() {
+    return ENABLED;
+  }
+
+  /** @return the exponent of the smallest power of 2 that is greater than or equal to size */
+  private static int shiftFor(int size) {
+    return size <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(size - 1);
+  }
+
+  /**
+   * Acquires an array with at least the requested size, sizes beyond the largest size class are
+   * allocated with the exact size and never pooled
+   *
+   * @param size the minimum size of the array
+   * @return an array that might contain data from a previous use
+   */
+  public byte[] acquire(int size) {
+    int sizeClass = Math.max(shiftFor(size), minShift) - minShift;
+    if (sizeClass >= sizeClasses.length) {
+      missCount.increment();
+      return new byte[size];
+    }
+
+    byte[] buffer = sizeClasses[sizeClass].poll();
+    if (buffer != null) {
+      hitCount.increment();
+      return buffer;
+    }
+    missCount.increment();
+    return new byte[1 << (minShift + sizeClass)];
+  }
+
+  /**
+   * Returns an array to the pool. The array must no longer be read or written by the caller
+   *
+   * @param buffer an array previously returned by {@link #acquire(int)}
+   */
+  public void release(byte[] buffer) {
+    int sizeClass = shiftFor(buffer.length) - minShift;
+    // only arrays allocated by this pool have an exact size class length
+    if (sizeClass >= 0
+        && sizeClass < sizeClasses.length
+        && buffer.length == 1 << (minShift + sizeClass)) {
+      sizeClasses[sizeClass].offer(buffer);
+    }
+    reportStats();
+  }
+
+  /** Logs and resets the hit rate at most once every {@link #REPORT_STATS_INTERVAL} */
+  private void reportStats() {
+    long reportTime = nextReportTime.get();
+    long currentTime = System.currentTimeMillis();
+    if (currentTime >= reportTime
+        && nextReportTime.compareAndSet(reportTime, currentTime + REPORT_STATS_INTERVAL)) {
+      Stats stats = consumeStats();
+      logger.debug(
+          () ->
+              String.format(
+                  "Event buffer pool hit rate: %.2f%% (hits: %d, misses: %d)",
+                  stats.getHitRate() * 100, stats.getHitCount(), stats.getMissCount()));
+    }
+  }
+
+  /**
+   * Gets and resets the hit and miss counts
+   *
+   * @return the counts since the previous call
+   */
+  public Stats consumeStats() {
+    return new Stats(hitCount.consume(), missCount.consume());
+  }
+
+  @Value
+  public static class Stats {
+    long hitCount;
+    long missCount;
+
+    /** @return ratio of acquired arrays that came from the pool, 0 if nothing was acquired */
+    public double getHitRate() {
+      long total = hitCount + missCount;
+      return total == 0 ? 0 : (double) hitCount / total;
+    }
+  }
+}
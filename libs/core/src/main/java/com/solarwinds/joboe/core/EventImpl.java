@@ -66,6 +66,10 @@ public class EventImpl extends Event {
 
   private Long timestamp = null;
 
+  // encoded event in a pooled buffer, see EventBufferPool
+  private byte[] encodedBuffer = null;
+  private int encodedLength = 0;
+
   static final int MAX_KEY_COUNT = 1024;
   private static final Collection<String> BASIC_KEYS =
       Arrays.asList(
@@ -300,6 +304,10 @@ public class EventImpl extends Event {
       }
     }
 
+    if (EventBufferPool.isEnabled()) {
+      encode();
+    }
+
     try {
       reporter.send(this);
       // Update the context's opID to that of the event
@@ -326,6 +334,22 @@ public class EventImpl extends Event {
    */
   @Override
   public byte[] toBytes() throws BsonBufferException {
+    if (encodedBuffer != null) {
+      return Arrays.copyOf(encodedBuffer, encodedLength);
+    }
+
+    ByteBuffer buffer = writeToBuffer();
+    byte[] bytes = new byte[buffer.remaining()]; // allocate an array with the actual size required
+    buffer.get(bytes);
+    return bytes;
+  }
+
+  /**
+   * Writes the event into the thread local buffer
+   *
+   * @return the thread local buffer flipped for reading the encoded event
+   */
+  private ByteBuffer writeToBuffer() throws BsonBufferException {
     BsonDocument doc = bsonBuilder.build();
     BsonWriter writer = BsonToken.DOCUMENT.writer();
     ByteBuffer buffer = BUFFER.get();
@@ -364,20 +388,54 @@ public class EventImpl extends Event {
     }
 
     buffer.flip(); // cast for JDK 8- runtime compatibility
-
-    byte[] bytes = new byte[buffer.remaining()]; // allocate an array with the actual size required
-    buffer.get(bytes);
-    return bytes;
+    return buffer;
   }
 
-  /* (non-Javadoc)
-   * @see com.solarwinds.joboe.core.Event#toByteBuffer()
+  /**
+   * {@inheritDoc}
+   *
+   * <p>If the event has been encoded into a pooled buffer, the returned buffer is a view of it
+   * which is only valid until {@link #release()}
    */
   @Override
   public ByteBuffer toByteBuffer() throws BsonBufferException {
+    if (encodedBuffer != null) {
+      return ByteBuffer.wrap(encodedBuffer, 0, encodedLength);
+    }
     return ByteBuffer.wrap(toBytes());
   }
 
+  /**
+   * Encodes the event once into a right-sized buffer from {@link EventBufferPool}, so the reporter
+   * can send it out without encoding or copying it again. Events that fail to encode are left as
+   * is, the failure is then reported when the event is converted
+   */
+  void encode() {
+    if (encodedBuffer != null || bsonBuilder == null) {
+      return;
+    }
+    try {
+      ByteBuffer buffer = writeToBuffer();
+      int length = buffer.remaining();
+      byte[] pooledBuffer = EventBufferPool.getInstance().acquire(length);
+      buffer.get(pooledBuffer, 0, length);
+      encodedBuffer = pooledBuffer;
+      encodedLength = length;
+    } catch (BsonBufferException e) {
+      logger.debug(() -> "Failed to encode event into a pooled buffer: " + e.getMessage());
+    }
+  }
+
+  @Override
+  public void release() {
+    byte[] buffer = encodedBuffer;
+    if (buffer != null) {
+      encodedBuffer = null;
+      encodedLength = 0;
+      EventBufferPool.getInstance().release(buffer);
+    }
+  }
+
   /**
    * Trims the BsonDocument using a conservative strategy. This should only be invoked as a fall
    * back to when a BufferOverflowException is encountered during event conversion. Each event
@@ -27,4 +27,25 @@ public class EventReporterStats {
   long failedCount;
   long queueLargestCount;
   long processedCount;
+  // breakdown of overflowedCount by the overflow policy of a pipelined reporter
+  long droppedNewestCount;
+  long droppedOldestCount;
+  long sampledDownCount;
+
+  /**
+   * @param policy the overflow policy of a pipelined reporter
+   * @return the number of events discarded by the given overflow policy
+   */
+  public long getOverflowedCount(PipelinedEventReporter.OverflowPolicy policy) {
+    switch (policy) {
+      case DROP_NEWEST:
+        return droppedNewestCount;
+      case DROP_OLDEST:
+        return droppedOldestCount;
+      case SAMPLE_DOWN:
+        return sampledDownCount;
+      default:
+        return 0;
+    }
+  }
 }
@@ -0,0 +1,428 @@
+/*
+ * © SolarWinds Worldwide, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.solarwinds.joboe.core;
+
+import com.solarwinds.joboe.core.rpc.Client;
+import com.solarwinds.joboe.core.rpc.ClientLoggingCallback;
+import com.solarwinds.joboe.core.rpc.Result;
+import com.solarwinds.joboe.core.util.DaemonThreadFactory;
+import com.solarwinds.joboe.logging.Logger;
+import com.solarwinds.joboe.logging.LoggerFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import lombok.Getter;
+
+/**
+ * A reporter that accepts events into sharded queues w/o blocking and sends them out in batches
+ * without waiting for the previous batch to complete.
+ *
+ * <p>Events are queued into one of several shards picked by the sending thread, so producers do not
+ * contend on a single queue. A sender thread drains the shards into batches of up to {@link
+ * QueuingEventReporter#SEND_CAPACITY} events and posts them to the {@link Client}. Up to {@code
+ * sendWindow} batches can be in flight, once the window is full the sender waits and the shards
+ * fill up, at which point the {@link OverflowPolicy} decides which events are discarded.
+ *
+ * <p>Batches are completed in the order they were posted, {@link Client} implementations process
+ * them in that order too.
+ */
+public class PipelinedEventReporter implements EventReporter {
+  private static final Logger logger = LoggerFactory.getLogger();
+
+  static final int DEFAULT_SEND_WINDOW = 4;
+  static final int MAX_SHARD_COUNT = 8;
+  private static final long REPORT_QUEUE_FULL_INTERVAL = 60 * 1000; // 1 minute
+
+  // marks the end of the in-flight batches on close
+  private static final InFlightBatch END_OF_BATCHES =
+      new InFlightBatch(null, new PostedEvents(Collections.emptyList(), null), 0);
+
+  /** Decides which events are discarded when the queue is full */
+  public enum OverflowPolicy {
+    /** rejects the incoming event */
+    DROP_NEWEST,
+    /** discards the oldest queued event to make room for the incoming event */
+    DROP_OLDEST,
+    /**
+     * starts rejecting a growing share of the incoming events once the queue is half full, and all
+     * of them once it is full
+     */
+    SAMPLE_DOWN;
+
+    /**
+     * Parses the policy from its config value, such as "drop-oldest"
+     *
+     * @param value the config value, case-insensitive
+     * @return the matching policy, or null if none matches
+     */
+    public static OverflowPolicy fromConfigValue(String value) {
+      for (OverflowPolicy policy : values()) {
+        if (policy.name().replace('_', '-').equalsIgnoreCase(value)) {
+          return policy;
+        }
+      }
+      return null;
+    }
+  }
+
+  private final Client client;
+  @Getter private final int sendWindow;
+  @Getter private final OverflowPolicy overflowPolicy;
+
+  private final Shard[] shards;
+  private final Semaphore sendPermits;
+  private final BlockingQueue<InFlightBatch> inFlightBatches = new LinkedBlockingQueue<>();
+  private final AtomicEventReporterStats stats = new AtomicEventReporterStats(this::getQueueSize);
+  private final ClientLoggingCallback<Result> loggingCallback =
+      new ClientLoggingCallback<Result>("send events");
+
+  private final ExecutorService executorService =
+      Executors.newFixedThreadPool(2, DaemonThreadFactory.newInstance("pipelined-event-reporter"));
+
+  private volatile Thread senderThread;
+  private volatile boolean senderIdle;
+  private volatile boolean flushRequested;
+  private volatile boolean exitSignalled;
+  private volatile long reportedQueueFullTime = 0;
+
+  public PipelinedEventReporter(Client client, int sendWindow, OverflowPolicy overflowPolicy) {
+    this.client = client;
+    this.sendWindow = Math.max(1, sendWindow);
+    this.overflowPolicy = overflowPolicy;
+
+    int shardCount = Math.min(Runtime.getRuntime().availableProcessors(), MAX_SHARD_COUNT);
+    this.shards = new Shard[shardCount];
+    for (int i = 0; i < shardCount; i++) {
+      shards[i] = new Shard(QueuingEventReporter.QUEUE_CAPACITY / shardCount);
+    }
+    this.sendPermits = new Semaphore(this.sendWindow);
+
+    executorService.execute(this::sendBatches);
+    executorService.execute(this::completeBatches);
+  }
+
+  /**
+   * Signals to sends an event via this reporter. Take note that the actual outbound request might
+   * be sent later on
+   *
+   * @throws EventReporterException if the event is discarded by the overflow policy
+   */
+  @Override
+  public void send(Event event) throws EventReporterException {
+    Shard shard = shards[(int) (Thread.currentThread().getId() % shards.length)];
+
+    int queued;
+    switch (overflowPolicy) {
+      case DROP_OLDEST:
+        queued = shard.offerEvictingOldest(event);
+        if (queued == -1) {
+          stats.incrementOverflowedCount(OverflowPolicy.DROP_OLDEST, 1);
+          stats.incrementProcessedCount(1);
+          queued = shard.capacity;
+        }
+        break;
+      case SAMPLE_DOWN:
+        queued = shard.offerSampled(event);
+        break;
+      default:
+        queued = shard.offer(event);
+        break;
+    }
+
+    if (queued == -1) {
+      event.release();
+      stats.incrementOverflowedCount(overflowPolicy, 1);
+      stats.incrementProcessedCount(1);
+      reportQueueFull();
+      throw new EventReporterQueueFullException("Cannot send event as the reporter queue is full");
+    }
+
+    if (queued >= shard.flushThreshold) { // should start sending early as it's filling up
+      flushRequested = true;
+      LockSupport.unpark(senderThread);
+    } else if (senderIdle) {
+      LockSupport.unpark(senderThread);
+    }
+  }
+
+  private void reportQueueFull() {
+    long currentTime = System.currentTimeMillis();
+    if (currentTime - reportedQueueFullTime
+        >= REPORT_QUEUE_FULL_INTERVAL) { // at most once every minute
+      reportedQueueFullTime = currentTime;
+      logger.warn(
+          "Fail to report tracing event as the event queue is full in the reporter, overflow policy : "
+              + overflowPolicy);
+    }
+  }
+
+  public void flush() {
+    flushRequested = true;
+    LockSupport.unpark(senderThread);
+  }
+
+  /** Drains the shards into batches and posts them, waits when the send window is full */
+  private void sendBatches() {
+    senderThread = Thread.currentThread();
+    int nextShard = 0;
+    try {
+      while (!exitSignalled || getQueueSize() > 0) {
+        stats.setQueueCount(getQueueSize());
+        List<Event> batch = new ArrayList<>();
+        nextShard = drainTo(batch, nextShard);
+
+        if (batch.isEmpty()) {
+          awaitEvents();
+          continue;
+        }
+
+        // wait a while to batch up events, but only if there's no build up
+        if (batch.size() < QueuingEventReporter.SEND_CAPACITY && !exitSignalled) {
+          awaitFlush();
+          nextShard = drainTo(batch, nextShard);
+        }
+
+        sendPermits.acquire(); // blocks if the send window is full
+        inFlightBatches.add(post(batch));
+      }
+    } catch (InterruptedException e) {
+      logger.debug("Pipelined event reporter sender interrupted");
+      Thread.currentThread().interrupt();
+    } finally {
+      inFlightBatches.add(END_OF_BATCHES);
+    }
+  }
+
+  private InFlightBatch post(List<Event> batch) {
+    try {
+      PostedEvents postedEvents = new PostedEvents(batch, loggingCallback);
+      return new InFlightBatch(postedEvents.post(client), postedEvents, batch.size());
+    } catch (Exception e) {
+      // failed to submit, counted on completion
+      return new InFlightBatch(null, new PostedEvents(batch, loggingCallback), batch.size());
+    }
+  }
+
+  /** Waits for the in-flight batches to complete in order and records the results */
+  private void completeBatches() {
+    try {
+      while (true) {
+        InFlightBatch batch = inFlightBatches.take();
+        if (batch == END_OF_BATCHES) {
+          return;
+        }
+        try {
+          batch.complete(stats);
+        } finally {
+          sendPermits.release();
+        }
+      }
+    } catch (InterruptedException e) {
+      logger.debug("Pipelined event reporter completion interrupted");
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private int drainTo(List<Event> batch, int startShard) {
+    int shard = startShard;
+    for (int i = 0; i < shards.length && batch.size() < QueuingEventReporter.SEND_CAPACITY; i++) {
+      shards[shard].drainTo(batch, QueuingEventReporter.SEND_CAPACITY - batch.size());
+      shard = (shard + 1) % shards.length;
+    }
+    return shard; // start from the next shard on the next drain for fairness
+  }
+
+  /** Blocks until an event is queued or exit is signalled */
+  private void awaitEvents() {
+    senderIdle = true;
+    if (getQueueSize() == 0 && !exitSignalled) { // re-check after publishing the idle flag
+      LockSupport.park(this);
+    }
+    senderIdle = false;
+  }
+
+  /** Blocks until the flushInterval elapsed or flush is signalled */
+  private void awaitFlush() {
+    long deadline =
+        System.nanoTime() + TimeUnit.SECONDS.toNanos(QueuingEventReporter.flushInterval);
+    long remaining;
+    while (!flushRequested
+        && !exitSignalled
+        && !Thread.currentThread().isInterrupted()
+        && (remaining = deadline - System.nanoTime()) > 0) {
+      LockSupport.parkNanos(this, remaining);
+    }
+    flushRequested = false;
+  }
+
+  private int getQueueSize() {
+    int size = 0;
+    for (Shard shard : shards) {
+      size += shard.size();
+    }
+    return size;
+  }
+
+  /**
+   * Gets and clears the current reporter stats
+   *
+   * @return the current reporter stats snapshot
+   */
+  @Override
+  public EventReporterStats consumeStats() {
+    return stats.consumeStats();
+  }
+
+  /**
+   * Closes this reporter orderly. Allow all submitted events to be processed with a default timeout
+   */
+  @Override
+  public void close() {
+    logger.debug("Closing pipelined event reporter, signaling shut down after sending all events");
+    exitSignalled = true;
+    LockSupport.unpark(senderThread);
+
+    if (client.getStatus() != Client.Status.OK) {
+      logger.debug("RPC client is not OK. Shutting down the service now");
+      executorService.shutdownNow();
+    } else {
+      executorService.shutdown();
+    }
+
+    try {
+      boolean termination = executorService.awaitTermination(5, TimeUnit.SECONDS);
+      logger.debug(() -> String.format("Event reporter service shut down: [%s]", termination));
+    } catch (InterruptedException ignored) {
+      Thread.currentThread().interrupt();
+    } finally {
+      client.close();
+    }
+  }
+
+  /** A bounded queue of events guarded by its own monitor */
+  private static final class Shard {
+    private final ArrayDeque<Event> events;
+    private final int capacity;
+    private final int flushThreshold;
+
+    private Shard(int capacity) {
+      this.capacity = Math.max(1, capacity);
+      this.events = new ArrayDeque<>(this.capacity);
+      // roughly a full batch across all the shards
+      int batchShare = QueuingEventReporter.SEND_CAPACITY / MAX_SHARD_COUNT;
+      this.flushThreshold = Math.max(1, Math.min(this.capacity, batchShare));
+    }
+
+    /**
+     * Adds the event if the shard is not full
+     *
+     * @return the queue size after adding the event, or -1 if the shard is full
+     */
+    synchronized int offer(Event event) {
+      if (events.size() >= capacity) {
+        return -1;
+      }
+      events.addLast(event);
+      return events.size();
+    }
+
+    /**
+     * Always adds the event, evicting the oldest event if the shard is full
+     *
+     * @return the queue size after adding the event, or -1 if the oldest event was evicted
+     */
+    synchronized int offerEvictingOldest(Event event) {
+      boolean evicted = false;
+      if (events.size() >= capacity) {
+        events.pollFirst().release();
+        evicted = true;
+      }
+      events.addLast(event);
+      return evicted ? -1 : events.size();
+    }
+
+    /**
+     * Adds the event unless it is sampled out
+     *
+     * @return the queue size after adding the event, or -1 if the event was sampled out
+     */
+    synchronized int offerSampled(Event event) {
+      int size = events.size();
+      int half = capacity / 2;
+      // admission probability declines linearly from 1 at half capacity to 0 at full capacity
+      if (size >= capacity
+          || (size > half && ThreadLocalRandom.current().nextInt(capacity - half) < size - half)) {
+        return -1;
+      }
+      events.addLast(event);
+      return events.size();
+    }
+
+    synchronized void drainTo(List<Event> batch, int maxEvents) {
+      for (int i = 0; i < maxEvents && !events.isEmpty(); i++) {
+        batch.add(events.pollFirst());
+      }
+    }
+
+    synchronized int size() {
+      return events.size();
+    }
+  }
+
+  private static final class InFlightBatch {
+    private final Future<Result> result; // null if the batch could not be submitted
+    private final PostedEvents events;
+    private final int size;
+
+    private InFlightBatch(Future<Result> result, PostedEvents events, int size) {
+      this.result = result;
+      this.events = events;
+      this.size = size;
+    }
+
+    private void complete(AtomicEventReporterStats stats) throws InterruptedException {
+      try {
+        if (result != null && !result.get().getResultCode().isError()) {
+          stats.incrementSentCount(size);
+        } else {
+          logger.debug(() -> "Failed to send out " + size + " events");
+          stats.incrementFailedCount(size);
+        }
+      } catch (InterruptedException e) {
+        throw e;
+      } catch (Exception e) {
+        // do not retry the message, just log the problem
+        logger.debug(
+            () -> "Failed to send " + size + " events, exception found: " + e.getMessage());
+        stats.incrementFailedCount(size);
+      } finally {
+        stats.incrementProcessedCount(size);
+        events.releaseIfDone(); // otherwise released once the in-flight request finishes
+      }
+    }
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * © SolarWinds Worldwide, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.solarwinds.joboe.core;
+
+import com.solarwinds.joboe.core.rpc.Client;
+import com.solarwinds.joboe.core.rpc.ClientException;
+import com.solarwinds.joboe.core.rpc.Result;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A batch of events posted in a single request.
+ *
+ * <p>The pooled buffers of the events are released exactly once: by the client callback when the
+ * request finishes, or by {@link #releaseIfDone()} once the request is no longer in progress. A
+ * sender that stops waiting on an in-flight request, for example when interrupted, therefore leaves
+ * the release to the callback instead of freeing buffers the request may still be reading.
+ */
+final class PostedEvents implements Client.Callback<Result> {
+  private final List<Event> events;
+  private final Client.Callback<Result> callback;
+  private final AtomicBoolean released = new AtomicBoolean();
+  private volatile Future<Result> request;
+
+  PostedEvents(List<Event> events, Client.Callback<Result> callback) {
+    this.events = events;
+    this.callback = callback;
+  }
+
+  Future<Result> post(Client client) throws ClientException {
+    request = client.postEvents(events, this);
+    return request;
+  }
+
+  @Override
+  public void complete(Result result) {
+    try {
+      callback.complete(result);
+    } finally {
+      release();
+    }
+  }
+
+  @Override
+  public void fail(Exception e) {
+    try {
+      callback.fail(e);
+    } finally {
+      release();
+    }
+  }
+
+  /**
+   * Releases the events unless the request is still in progress, in which case the client callback
+   * releases them once the request finishes
+   */
+  void releaseIfDone() {
+    Future<Result> current = request;
+    if (current == null || current.isDone()) {
+      release();
+    }
+  }
+
+  private void release() {
+    if (released.compareAndSet(false, true)) {
+      for (Event event : events) {
+        event.release();
+      }
+    }
+  }
+}
@@ -118,6 +118,7 @@ public class QueuingEventReporter implements EventReporter {
     public void run() {
       while (!exitSignalled || !eventQueue.isEmpty()) {
         List<Event> sendingEvents = new ArrayList<Event>();
+        PostedEvents postedEvents = new PostedEvents(sendingEvents, loggingCallback);
         try {
           sendingEvents.add(
               eventQueue.take()); // this blocks until at least one event is available;
@@ -137,7 +138,8 @@ public class QueuingEventReporter implements EventReporter {
                 sendingEvents, SEND_CAPACITY - sendingEvents.size()); // try draining again
           }
 
-          Result result = synchronousSend(sendingEvents);
+          // block until the client has finished the request
+          Result result = postedEvents.post(client).get();
           ResultCode resultCode = result.getResultCode();
 
           if (resultCode.isError()) {
@@ -158,6 +160,7 @@ public class QueuingEventReporter implements EventReporter {
           stats.incrementFailedCount(sendingEvents.size());
         } finally {
           stats.incrementProcessedCount(sendingEvents.size());
+          postedEvents.releaseIfDone(); // otherwise released once the in-flight request finishes
         }
       }
       scheduledExecutorService.shutdownNow();
@@ -190,6 +193,7 @@ public class QueuingEventReporter implements EventReporter {
   @Override
   public void send(Event event) throws EventReporterException {
     if (!eventQueue.offer(event)) {
+      event.release();
       stats.incrementOverflowedCount(1);
       stats.incrementProcessedCount(1);
 
@@ -16,6 +16,9 @@
 
 package com.solarwinds.joboe.core;
 
+import com.solarwinds.joboe.config.ConfigManager;
+import com.solarwinds.joboe.config.ConfigProperty;
+import com.solarwinds.joboe.core.PipelinedEventReporter.OverflowPolicy;
 import com.solarwinds.joboe.core.rpc.Client;
 import com.solarwinds.joboe.logging.Logger;
 import com.solarwinds.joboe.logging.LoggerFactory;
@@ -78,4 +81,57 @@ public class ReporterFactory {
   public QueuingEventReporter createQueuingEventReporter(Client client) {
     return new QueuingEventReporter(client);
   }
+
+  /**
+   * Builds a {@link PipelinedEventReporter}, which keeps up to <code>sendWindow</code> batches in
+   * flight and discards events according to the overflow policy once its queue is full
+   *
+   * @param client the client to post events to
+   * @param sendWindow max number of batches in flight
+   * @param overflowPolicy the policy to apply when the queue is full
+   * @return a new PipelinedEventReporter
+   */
+  public PipelinedEventReporter createPipelinedEventReporter(
+      Client client, int sendWindow, OverflowPolicy overflowPolicy) {
+    return new PipelinedEventReporter(client, sendWindow, overflowPolicy);
+  }
+
+  /**
+   * Builds the event reporter selected by {@link ConfigProperty#AGENT_EVENTS_REPORTER}, either
+   * "queuing" (default) or "pipelined". The pipelined reporter is configured by {@link
+   * ConfigProperty#AGENT_EVENTS_SEND_WINDOW} and {@link
+   * ConfigProperty#AGENT_EVENTS_OVERFLOW_POLICY}
+   *
+   * @param client the client to post events to
+   * @return a new EventReporter
+   */
+  public EventReporter createEventReporter(Client client) {
+    String reporter = ConfigManager.getConfigOptional(ConfigProperty.AGENT_EVENTS_REPORTER, null);
+    if (!"pipelined".equalsIgnoreCase(reporter)) {
+      if (reporter != null && !"queuing".equalsIgnoreCase(reporter)) {
+        logger.warn("Unknown events reporter [" + reporter + "], using the queuing reporter");
+      }
+      return createQueuingEventReporter(client);
+    }
+
+    int sendWindow =
+        ConfigManager.getConfigOptional(
+            ConfigProperty.AGENT_EVENTS_SEND_WINDOW, PipelinedEventReporter.DEFAULT_SEND_WINDOW);
+    String policyValue =
+        ConfigManager.getConfigOptional(ConfigProperty.AGENT_EVENTS_OVERFLOW_POLICY, null);
+    OverflowPolicy overflowPolicy = OverflowPolicy.fromConfigValue(policyValue);
+    if (overflowPolicy == null) {
+      if (policyValue != null) {
+        logger.warn("Unknown events overflow policy [" + policyValue + "], using drop-newest");
+      }
+      overflowPolicy = OverflowPolicy.DROP_NEWEST;
+    }
+
+    logger.debug(
+        "Using pipelined events reporter, send window : "
+            + sendWindow
+            + ", overflow policy : "
+            + overflowPolicy);
+    return createPipelinedEventReporter(client, sendWindow, overflowPolicy);
+  }
 }
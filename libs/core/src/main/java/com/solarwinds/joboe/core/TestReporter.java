@@ -169,7 +169,7 @@ public class TestReporter implements EventReporter {
   @Override
   public EventReporterStats consumeStats() {
     int sentEvent = getBufList().size();
-    return new EventReporterStats(sentEvent, 0, 0, sentEvent, 0);
+    return new EventReporterStats(sentEvent, 0, 0, sentEvent, 0, 0, 0, 0);
   }
 
   @Override
@@ -104,7 +104,7 @@ public class UdpReporter implements EventReporter {
 
   @Override
   public EventReporterStats consumeStats() {
-    return new EventReporterStats(0, 0, 0, 0, 0); // not implemented
+    return new EventReporterStats(0, 0, 0, 0, 0, 0, 0, 0); // not implemented
   }
 
   @Override
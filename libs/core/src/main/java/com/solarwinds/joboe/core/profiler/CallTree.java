@@ -0,0 +1,145 @@
+/*
+ * © SolarWinds Worldwide, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.solarwinds.joboe.core.profiler;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.Getter;
+
+/**
+ * Folds the snapshots of a profiled thread into a tree of stack paths, counting the snapshots that
+ * went through each path.
+ *
+ * <p>The tree holds up to `maxNodes` nodes. A snapshot that needs a new node once the tree is full
+ * is counted on its deepest path that is already in the tree, and as a truncated sample.
+ *
+ * <p>Not thread safe, callers synchronize on the owning {@link Profiler.SnapshotTracker}
+ */
+class CallTree {
+  private final int maxNodes;
+  private final Node root = new Node(null);
+  private int nodeCount = 0;
+  @Getter private int sampleCount = 0;
+  @Getter private int truncatedSampleCount = 0;
+
+  CallTree(int maxNodes) {
+    this.maxNodes = maxNodes;
+  }
+
+  /**
+   * Adds a snapshot to the tree
+   *
+   * @param stack the stack of the snapshot, top frame first
+   */
+  void add(StackTraceElement[] stack) {
+    Node node = root;
+    for (int i = stack.length - 1; i >= 0; i--) { // walk from the bottom of the stack
+      Node child = node.children != null ? node.children.get(stack[i]) : null;
+      if (child == null) {
+        if (nodeCount >= maxNodes) {
+          truncatedSampleCount++;
+          break;
+        }
+        child = node.addChild(stack[i]);
+        nodeCount++;
+      }
+      child.sampleCount++;
+      node = child;
+    }
+    node.selfSampleCount++;
+    sampleCount++;
+  }
+
+  int getNodeCount() {
+    return nodeCount;
+  }
+
+  /**
+   * Flattens the tree in depth first order. Each node has the index of its parent node in "P" (-1
+   * for the bottom frames), the count of snapshots through it in "N", the count of snapshots with
+   * it as the top frame in "S" (if any) and its frame, either in full or as a frame id in "I" if a
+   * frame dictionary is provided
+   *
+   * @param frameDictionary the dictionary to encode frames with, null to report frames in full
+   * @param definitions receives the definitions of the frames not reported before, if a frame
+   *     dictionary is provided
+   * @return the flattened nodes
+   */
+  List<Map<String, Object>> toNodes(
+      FrameDictionary frameDictionary, List<Map<String, Object>> definitions) {
+    List<Map<String, Object>> nodes = new ArrayList<Map<String, Object>>(nodeCount);
+    Deque<Node> pending = new ArrayDeque<Node>();
+    Deque<Integer> parentIndexes = new ArrayDeque<Integer>();
+    pushChildren(root, -1, pending, parentIndexes);
+
+    while (!pending.isEmpty()) {
+      Node node = pending.pop();
+      int parentIndex = parentIndexes.pop();
+
+      Map<String, Object> value;
+      if (frameDictionary != null) {
+        value = new HashMap<String, Object>();
+        value.put("I", frameDictionary.encode(node.frame, definitions));
+      } else {
+        value = Profiler.toFrameKeyValues(node.frame);
+      }
+      value.put("P", parentIndex);
+      value.put("N", node.sampleCount);
+      if (node.selfSampleCount > 0) {
+        value.put("S", node.selfSampleCount);
+      }
+
+      pushChildren(node, nodes.size(), pending, parentIndexes);
+      nodes.add(value);
+    }
+    return nodes;
+  }
+
+  private static void pushChildren(
+      Node node, int index, Deque<Node> pending, Deque<Integer> parentIndexes) {
+    if (node.children != null) {
+      for (Node child : node.children.values()) {
+        pending.push(child);
+        parentIndexes.push(index);
+      }
+    }
+  }
+
+  private static class Node {
+    private final StackTraceElement frame;
+    private Map<StackTraceElement, Node> children;
+    private int sampleCount;
+    private int selfSampleCount;
+
+    private Node(StackTraceElement frame) {
+      this.frame = frame;
+    }
+
+    private Node addChild(StackTraceElement frame) {
+      if (children == null) {
+        children = new HashMap<StackTraceElement, Node>(2);
+      }
+      Node child = new Node(frame);
+      children.put(frame, child);
+      return child;
+    }
+  }
+}
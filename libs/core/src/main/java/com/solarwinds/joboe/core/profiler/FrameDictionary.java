@@ -0,0 +1,99 @@
+/*
+ * © SolarWinds Worldwide, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.solarwinds.joboe.core.profiler;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns ids to the frames reported by a profiling span, so each frame is only reported in full
+ * once per span.
+ *
+ * <p>A snapshot lists its new frames as ids in "NewFrameIds" and defines the frames that are seen
+ * for the first time in "FrameDefinitions", each with its id under the "I" key along with the usual
+ * frame keys. Once {@link #MAX_SIZE} frames are defined, frames that are not in the dictionary yet
+ * are defined again with a new id each time they are reported.
+ *
+ * <p>Not thread safe, callers synchronize on the {@link Profiler.SnapshotTracker} that owns it.
+ */
+class FrameDictionary {
+  static final int MAX_SIZE = 4096;
+
+  private final Map<StackTraceElement, Integer> frameIds =
+      new HashMap<StackTraceElement, Integer>();
+  private int nextId = 0;
+
+  /**
+   * Encodes the frames into ids and the definitions of the frames not reported before
+   *
+   * @param frames the frames to encode
+   * @param definitions receives the definitions of the frames not reported before
+   * @return the frame ids, in the same order as the frames
+   */
+  List<Integer> encode(StackTraceElement[] frames, List<Map<String, Object>> definitions) {
+    List<Integer> ids = new ArrayList<Integer>(frames.length);
+    for (StackTraceElement frame : frames) {
+      ids.add(encode(frame, definitions));
+    }
+    return ids;
+  }
+
+  /**
+   * Encodes the frame into an id, and its definition if it was not reported before
+   *
+   * @param frame the frame to encode
+   * @param definitions receives the definition of the frame if it was not reported before
+   * @return the frame id
+   */
+  int encode(StackTraceElement frame, List<Map<String, Object>> definitions) {
+    Integer id = frameIds.get(frame);
+    if (id == null) {
+      id = nextId++;
+      if (frameIds.size() < MAX_SIZE) {
+        frameIds.put(frame, id);
+      }
+      Map<String, Object> definition = Profiler.toFrameKeyValues(frame);
+      definition.put("I", id);
+      definitions.add(definition);
+    }
+    return id;
+  }
+
+  int size() {
+    return frameIds.size();
+  }
+
+  /**
+   * Packs timestamps as consecutive little endian 64-bit integers, which takes 8 bytes per
+   * timestamp instead of a BSON array entry for each
+   *
+   * @param timestamps the timestamps to pack
+   * @return the packed timestamps
+   */
+  static byte[] pack(List<Long> timestamps) {
+    ByteBuffer buffer =
+        ByteBuffer.allocate(timestamps.size() * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    for (Long timestamp : timestamps) {
+      buffer.putLong(timestamp);
+    }
+    return buffer.array();
+  }
+}
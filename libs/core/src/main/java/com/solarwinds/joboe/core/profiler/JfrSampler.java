@@ -0,0 +1,298 @@
+/*
+ * © SolarWinds Worldwide, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.solarwinds.joboe.core.profiler;
+
+import com.solarwinds.joboe.logging.Logger;
+import com.solarwinds.joboe.logging.LoggerFactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Receives the execution samples of an in-process JFR {@code RecordingStream} (JDK 14+).
+ *
+ * <p>JFR samples the threads asynchronously without bringing them to a stop. The threads running
+ * Java code are sampled by {@code jdk.ExecutionSample} and the ones in native code (such as socket
+ * reads) by {@code jdk.NativeMethodSample}. Threads that are blocked or waiting are not sampled.
+ *
+ * <p>JFR records 64 frames per stack unless {@code -XX:FlightRecorderOptions:stackdepth} is set,
+ * and drops the bottom frames of deeper stacks.
+ *
+ * <p>The stream flushes the recorded events about once a second, so a sample reaches the listener
+ * up to a second or so after it was taken. The listener must go by the timestamp of the sample
+ * rather than the time it is called: the thread may have moved on to other work by then.
+ *
+ * <p>The agent targets Java 8, hence the JFR classes are accessed with method handles that are
+ * resolved once.
+ */
+final class JfrSampler implements AutoCloseable {
+  private static final Logger logger = LoggerFactory.getLogger();
+
+  static final String EXECUTION_SAMPLE = "jdk.ExecutionSample";
+  static final String NATIVE_METHOD_SAMPLE = "jdk.NativeMethodSample";
+  private static final String SAMPLED_THREAD_FIELD = "sampledThread";
+
+  private static final StackTraceElement[] EMPTY_STACK = new StackTraceElement[0];
+
+  /** Handles of the JFR API, null if the running JDK does not support event streaming */
+  private static final Api API = Api.resolve();
+
+  /** Receives the samples, called by the single thread dispatching the events of the stream */
+  interface SampleListener {
+    /**
+     * @param javaThreadId the id of the sampled thread
+     * @param stack the sampled stack, top frame first
+     * @param timestamp time in microseconds when the sample was taken
+     */
+    void onSample(long javaThreadId, StackTraceElement[] stack, long timestamp);
+  }
+
+  private final Object stream;
+  private int period;
+
+  private JfrSampler(Object stream) {
+    this.stream = stream;
+  }
+
+  /**
+   * @return whether the running JDK supports JFR event streaming
+   */
+  static boolean isSupported() {
+    return API != null;
+  }
+
+  /**
+   * Starts a recording stream that samples threads on the given period
+   *
+   * @param period the sampling period in milliseconds
+   * @param listener the listener of the samples
+   * @return the started sampler
+   * @throws IllegalStateException if JFR streaming is not supported or fails to start
+   */
+  static JfrSampler start(int period, SampleListener listener) {
+    if (API == null) {
+      throw new IllegalStateException("JFR event streaming is not supported by this JDK");
+    }
+
+    Object stream = null;
+    try {
+      stream = API.newStream.invoke();
+      JfrSampler sampler = new JfrSampler(stream);
+      sampler.setPeriod(period);
+
+      Consumer<Object> handler = event -> sampler.handle(event, listener);
+      API.onEvent.invoke(stream, EXECUTION_SAMPLE, handler);
+      API.onEvent.invoke(stream, NATIVE_METHOD_SAMPLE, handler);
+      API.setReuse.invoke(stream, true); // events are not kept beyond the handler
+      API.startAsync.invoke(stream);
+      return sampler;
+    } catch (Throwable e) {
+      if (stream != null) {
+        closeStream(stream);
+      }
+      throw new IllegalStateException("Failed to start JFR recording stream: " + e.getMessage(), e);
+    }
+  }
+
+  int getPeriod() {
+    return period;
+  }
+
+  /**
+   * Updates the sampling period of the running stream
+   *
+   * @param period the sampling period in milliseconds
+   */
+  void setPeriod(int period) {
+    try {
+      Duration duration = Duration.ofMillis(period);
+      API.withPeriod.invoke(API.enable.invoke(stream, EXECUTION_SAMPLE), duration);
+      API.withPeriod.invoke(API.enable.invoke(stream, NATIVE_METHOD_SAMPLE), duration);
+      this.period = period;
+    } catch (Throwable e) {
+      throw new IllegalStateException("Failed to set JFR sampling period: " + e.getMessage(), e);
+    }
+  }
+
+  @Override
+  public void close() {
+    closeStream(stream);
+  }
+
+  private static void closeStream(Object stream) {
+    try {
+      API.close.invoke(stream);
+    } catch (Throwable e) {
+      logger.debug("Failed to close JFR recording stream: " + e.getMessage(), e);
+    }
+  }
+
+  private void handle(Object event, SampleListener listener) {
+    try {
+      Object thread = (Object) API.getThread.invokeExact(event, SAMPLED_THREAD_FIELD);
+      if (thread == null) {
+        return;
+      }
+      long javaThreadId = (long) API.getJavaThreadId.invokeExact(thread);
+      if (javaThreadId < 0) { // not a java thread
+        return;
+      }
+      Instant startTime = (Instant) (Object) API.getStartTime.invokeExact(event);
+      long timestamp =
+          TimeUnit.SECONDS.toMicros(startTime.getEpochSecond())
+              + TimeUnit.NANOSECONDS.toMicros(startTime.getNano());
+
+      Object stackTrace = (Object) API.getStackTrace.invokeExact(event);
+      listener.onSample(javaThreadId, toStack(stackTrace), timestamp);
+    } catch (Throwable e) {
+      logger.debug("Failed to handle JFR sample: " + e.getMessage(), e);
+    }
+  }
+
+  private static StackTraceElement[] toStack(Object stackTrace) throws Throwable {
+    if (stackTrace == null) {
+      return EMPTY_STACK;
+    }
+    List<?> frames = (List<?>) (Object) API.getFrames.invokeExact(stackTrace);
+    StackTraceElement[] stack = new StackTraceElement[frames.size()];
+    int count = 0;
+    for (Object frame : frames) {
+      Object method = (Object) API.getMethod.invokeExact(frame);
+      if (method == null) {
+        continue;
+      }
+      Object type = (Object) API.getType.invokeExact(method);
+      String className = type != null ? (String) (Object) API.getClassName.invokeExact(type) : "";
+      String methodName = (String) (Object) API.getMethodName.invokeExact(method);
+      int lineNumber = (int) API.getLineNumber.invokeExact(frame);
+      // JFR does not record the source file
+      stack[count++] = new StackTraceElement(className, methodName, null, lineNumber);
+    }
+    return count == stack.length ? stack : Arrays.copyOf(stack, count);
+  }
+
+  private static final class Api {
+    private static final MethodType GETTER = MethodType.methodType(Object.class, Object.class);
+
+    private MethodHandle newStream;
+    private MethodHandle enable;
+    private MethodHandle withPeriod;
+    private MethodHandle onEvent;
+    private MethodHandle setReuse;
+    private MethodHandle startAsync;
+    private MethodHandle close;
+    private MethodHandle getThread;
+    private MethodHandle getJavaThreadId;
+    private MethodHandle getStartTime;
+    private MethodHandle getStackTrace;
+    private MethodHandle getFrames;
+    private MethodHandle getMethod;
+    private MethodHandle getLineNumber;
+    private MethodHandle getType;
+    private MethodHandle getMethodName;
+    private MethodHandle getClassName;
+
+    private static Api resolve() {
+      try {
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        Class<?> streamClass = Class.forName("jdk.jfr.consumer.RecordingStream");
+        Class<?> settingsClass = Class.forName("jdk.jfr.EventSettings");
+        Class<?> eventClass = Class.forName("jdk.jfr.consumer.RecordedEvent");
+        Class<?> threadClass = Class.forName("jdk.jfr.consumer.RecordedThread");
+        Class<?> stackTraceClass = Class.forName("jdk.jfr.consumer.RecordedStackTrace");
+        Class<?> frameClass = Class.forName("jdk.jfr.consumer.RecordedFrame");
+        Class<?> methodClass = Class.forName("jdk.jfr.consumer.RecordedMethod");
+        Class<?> recordedClass = Class.forName("jdk.jfr.consumer.RecordedClass");
+
+        Api api = new Api();
+        api.newStream =
+            lookup
+                .findConstructor(streamClass, MethodType.methodType(void.class))
+                .asType(MethodType.methodType(Object.class));
+        api.enable =
+            lookup
+                .findVirtual(
+                    streamClass, "enable", MethodType.methodType(settingsClass, String.class))
+                .asType(MethodType.methodType(Object.class, Object.class, String.class));
+        api.withPeriod =
+            lookup
+                .findVirtual(
+                    settingsClass,
+                    "withPeriod",
+                    MethodType.methodType(settingsClass, Duration.class))
+                .asType(MethodType.methodType(Object.class, Object.class, Duration.class));
+        api.onEvent =
+            lookup
+                .findVirtual(
+                    streamClass,
+                    "onEvent",
+                    MethodType.methodType(void.class, String.class, Consumer.class))
+                .asType(
+                    MethodType.methodType(void.class, Object.class, String.class, Consumer.class));
+        api.setReuse =
+            lookup
+                .findVirtual(
+                    streamClass, "setReuse", MethodType.methodType(void.class, boolean.class))
+                .asType(MethodType.methodType(void.class, Object.class, boolean.class));
+        api.startAsync =
+            lookup
+                .findVirtual(streamClass, "startAsync", MethodType.methodType(void.class))
+                .asType(MethodType.methodType(void.class, Object.class));
+        api.close =
+            lookup
+                .findVirtual(streamClass, "close", MethodType.methodType(void.class))
+                .asType(MethodType.methodType(void.class, Object.class));
+        api.getThread =
+            lookup
+                .findVirtual(
+                    eventClass, "getThread", MethodType.methodType(threadClass, String.class))
+                .asType(MethodType.methodType(Object.class, Object.class, String.class));
+        api.getJavaThreadId =
+            lookup
+                .findVirtual(threadClass, "getJavaThreadId", MethodType.methodType(long.class))
+                .asType(MethodType.methodType(long.class, Object.class));
+        api.getStartTime = getter(lookup, eventClass, "getStartTime", Instant.class);
+        api.getStackTrace = getter(lookup, eventClass, "getStackTrace", stackTraceClass);
+        api.getFrames = getter(lookup, stackTraceClass, "getFrames", List.class);
+        api.getMethod = getter(lookup, frameClass, "getMethod", methodClass);
+        api.getLineNumber =
+            lookup
+                .findVirtual(frameClass, "getLineNumber", MethodType.methodType(int.class))
+                .asType(MethodType.methodType(int.class, Object.class));
+        api.getType = getter(lookup, methodClass, "getType", recordedClass);
+        api.getMethodName = getter(lookup, methodClass, "getName", String.class);
+        api.getClassName = getter(lookup, recordedClass, "getName", String.class);
+        return api;
+      } catch (ReflectiveOperationException | RuntimeException e) {
+        logger.debug("JFR event streaming is not available: " + e);
+        return null;
+      }
+    }
+
+    private static MethodHandle getter(
+        MethodHandles.Lookup lookup, Class<?> owner, String name, Class<?> returnType)
+        throws ReflectiveOperationException {
+      return lookup.findVirtual(owner, name, MethodType.methodType(returnType)).asType(GETTER);
+    }
+  }
+}
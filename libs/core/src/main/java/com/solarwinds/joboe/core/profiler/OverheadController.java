@@ -0,0 +1,127 @@
+/*
+ * © SolarWinds Worldwide, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.solarwinds.joboe.core.profiler;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the time spent by the profiler on taking snapshots within a budget, by adjusting the
+ * interval between sampling cycles and the number of threads sampled per cycle.
+ *
+ * <p>The budget is a fraction of the wall time of one core, for example 0.01 for 1%. The cost of
+ * sampling one thread is smoothed over the cycles, and the interval is set so sampling all tracked
+ * threads stays within the budget. The interval is kept between the configured interval and {@link
+ * #MAX_INTERVAL_MULTIPLIER} times it. Once the interval is at its max, fewer threads are sampled
+ * per cycle instead.
+ *
+ * <p>A budget of 0 only measures the overhead, the configured interval is used and all the tracked
+ * threads are sampled.
+ *
+ * <p>Updated by the profiler thread only, the current values can be read from any thread.
+ */
+class OverheadController {
+  static final int MAX_INTERVAL_MULTIPLIER = 50;
+  static final double SMOOTHING_FACTOR = 0.2;
+
+  private final double budget;
+  private double costPerThread = -1; // in nanoseconds, -1 until a thread is sampled
+  private volatile double overhead = 0;
+  private volatile int interval;
+  private volatile int threadLimit = Integer.MAX_VALUE;
+
+  /**
+   * @param budget the fraction of the wall time of one core to spend on sampling, 0 to not adjust
+   * @param interval the configured interval in milliseconds
+   */
+  OverheadController(double budget, int interval) {
+    this.budget = budget;
+    this.interval = interval;
+  }
+
+  /**
+   * Updates the measured overhead with the cost of the last cycle, and adjusts the interval and the
+   * thread limit for the next cycles
+   *
+   * @param cycleCost the time spent on the last cycle in nanoseconds
+   * @param sampledThreadCount the number of threads sampled on the last cycle
+   * @param trackedThreadCount the number of threads tracked on the last cycle
+   * @param baseInterval the configured interval in milliseconds
+   */
+  void update(long cycleCost, int sampledThreadCount, int trackedThreadCount, int baseInterval) {
+    double period = cycleCost + (double) TimeUnit.MILLISECONDS.toNanos(interval);
+    overhead = smooth(overhead, period > 0 ? cycleCost / period : 0);
+    if (sampledThreadCount > 0) {
+      double cycleCostPerThread = (double) cycleCost / sampledThreadCount;
+      costPerThread =
+          costPerThread < 0 ? cycleCostPerThread : smooth(costPerThread, cycleCostPerThread);
+    }
+
+    if (budget <= 0 || costPerThread < 0 || trackedThreadCount == 0) {
+      interval = baseInterval;
+      threadLimit = Integer.MAX_VALUE;
+      return;
+    }
+
+    long maxInterval = (long) baseInterval * MAX_INTERVAL_MULTIPLIER;
+    double requiredInterval = costPerThread * trackedThreadCount / budget / 1_000_000;
+    if (requiredInterval <= maxInterval) {
+      interval = (int) Math.max(baseInterval, Math.ceil(requiredInterval));
+      threadLimit = Integer.MAX_VALUE;
+    } else {
+      interval = (int) maxInterval;
+      double maxCycleCost = budget * TimeUnit.MILLISECONDS.toNanos(maxInterval);
+      threadLimit = (int) Math.max(1, maxCycleCost / costPerThread);
+    }
+  }
+
+  /**
+   * Resets the interval and the thread limit when there are no threads to sample, the measured
+   * overhead decays as nothing is spent on sampling
+   *
+   * @param baseInterval the configured interval in milliseconds
+   */
+  void idle(int baseInterval) {
+    overhead = smooth(overhead, 0);
+    interval = baseInterval;
+    threadLimit = Integer.MAX_VALUE;
+  }
+
+  /**
+   * @return the interval in milliseconds to wait before the next cycle
+   */
+  int getInterval() {
+    return interval;
+  }
+
+  /**
+   * @return the max number of threads to sample on the next cycle
+   */
+  int getThreadLimit() {
+    return threadLimit;
+  }
+
+  /**
+   * @return the smoothed fraction of wall time spent on sampling
+   */
+  double getOverhead() {
+    return overhead;
+  }
+
+  private static double smooth(double current, double value) {
+    return current + SMOOTHING_FACTOR * (value - current);
+  }
+}
@@ -23,12 +23,17 @@ import com.solarwinds.joboe.core.util.DaemonThreadFactory;
 import com.solarwinds.joboe.core.util.TimeUtils;
 import com.solarwinds.joboe.logging.Logger;
 import com.solarwinds.joboe.logging.LoggerFactory;
+import com.solarwinds.joboe.sampling.IntervalCounter;
 import com.solarwinds.joboe.sampling.Metadata;
 import com.solarwinds.joboe.sampling.SettingsArg;
 import com.solarwinds.joboe.sampling.SettingsArgChangeListener;
 import com.solarwinds.joboe.sampling.SettingsManager;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -79,6 +84,26 @@ public class Profiler {
 
   static final int MAX_REPORTED_FRAME_DEPTH = 400;
 
+  private static final StackTraceElement[] EMPTY_STACK = new StackTraceElement[0];
+
+  private static volatile JfrSampler jfrSampler; // set while sampling with JFR
+  private static volatile Map<Long, TrackedThread> trackedThreadsById = Collections.emptyMap();
+
+  // JFR delivers its samples in batches about a second after taking them, so while sampling with
+  // JFR the stopped trackers are kept open for this period to record their late samples
+  static final long LATE_SAMPLE_GRACE_PERIOD = TimeUnit.SECONDS.toMicros(2); // in microseconds
+  private static volatile boolean closeTrackersLate; // set while sampling with JFR
+  private static final ConcurrentMap<Long, List<StoppedTracker>> stoppedTrackersByThreadId =
+      new ConcurrentHashMap<Long, List<StoppedTracker>>();
+  private static final IntervalCounter lateSampleCount = new IntervalCounter();
+
+  private static volatile OverheadController overheadController =
+      new OverheadController(0, ProfilerSetting.DEFAULT_INTERVAL);
+  private static int sampledThreadOffset; // where the next cycle starts if not all are sampled
+
+  private static final IntervalCounter samplingCycleCount = new IntervalCounter();
+  private static final IntervalCounter samplingCycleDuration = new IntervalCounter(); // in micros
+
   /** Listens to interval changes beamed down by collector */
   private static void addIntervalChangeListener() {
     SettingsManager.registerListener(
@@ -164,6 +189,7 @@ public class Profiler {
   /** Starts the background thread that takes snapshots on `interval` */
   static void run() {
     status = Status.RUNNING;
+    overheadController = new OverheadController(localSetting.getOverheadBudget(), interval);
 
     final CircuitBreaker circuitBreaker =
         new CircuitBreaker(
@@ -175,6 +201,9 @@ public class Profiler {
     samplerFuture =
         service.submit(
             () -> {
+              if (localSetting.getSamplingMode() == ProfilerSetting.SamplingMode.JFR) {
+                jfrSampler = startJfrSampler();
+              }
               while (status != Status.STOPPING) {
                 status = Status.RUNNING;
                 try {
@@ -198,12 +227,18 @@ public class Profiler {
                             + " consecutive profiling operation(s) that exceeded the circuit breaker duration threshold "
                             + circuitBreaker.getBreakDurationThreshold()
                             + " ms");
+                    // JFR samples the threads on its own, stop it for the pause
+                    boolean resumeJfrSampler = jfrSampler != null;
+                    stopJfrSampler();
                     TimeUnit.SECONDS.sleep(circuitBreakerPause);
+                    if (resumeJfrSampler) {
+                      jfrSampler = startJfrSampler();
+                    }
                   } else {
                     // the previous sleep computes modulo hence can have a sleep time in range 1 -
                     // 20ms for default
                     // which is inconsistent with documentation.
-                    TimeUnit.MILLISECONDS.sleep(interval);
+                    TimeUnit.MILLISECONDS.sleep(overheadController.getInterval());
                   }
                 } catch (InterruptedException e) {
                   logger.debug(
@@ -217,11 +252,39 @@ public class Profiler {
                   status = Status.STOPPING; // flag it to stop
                 }
               }
+              stopJfrSampler();
               status = Status.STOPPED;
             });
     service.shutdown();
   }
 
+  private static JfrSampler startJfrSampler() {
+    if (!JfrSampler.isSupported()) {
+      logger.info("JFR event streaming is not supported by this JDK, sampling threads one by one");
+      return null;
+    }
+    try {
+      JfrSampler sampler = JfrSampler.start(interval, Profiler::recordSample);
+      closeTrackersLate = true;
+      logger.info("Sampling threads with JFR every " + interval + " ms");
+      return sampler;
+    } catch (IllegalStateException e) {
+      logger.warn(e.getMessage() + ", sampling threads one by one", e);
+      return null;
+    }
+  }
+
+  private static void stopJfrSampler() {
+    JfrSampler sampler = jfrSampler;
+    if (sampler != null) {
+      jfrSampler = null;
+      sampler.close();
+    }
+    trackedThreadsById = Collections.emptyMap();
+    closeTrackersLate = false;
+    closeStoppedTrackers(Long.MAX_VALUE); // no more samples to wait for
+  }
+
   /**
    * Stops the background thread that takes snapshots on `interval`, blocks until the thread is dead
    */
@@ -240,27 +303,291 @@ public class Profiler {
    * @return the duration of the checkThreads operation
    */
   private static ProfilingDurationInfo checkThreads() {
+    JfrSampler sampler = jfrSampler;
+    closeStoppedTrackers(TimeUtils.getTimestampMicroSeconds());
     if (profileByTraceId.isEmpty()) {
+      if (sampler != null && !trackedThreadsById.isEmpty()) {
+        trackedThreadsById = Collections.emptyMap();
+      }
+      overheadController.idle(interval);
       return new ProfilingDurationInfo(-1, Collections.emptyList());
     }
 
-    long start = System.currentTimeMillis();
+    long start = System.nanoTime();
 
-    List<String> taskIds = new ArrayList<String>();
-    for (Profile profile : new HashSet<Profile>(profileByTraceId.values())) {
-      for (Thread thread : profile.getActiveThreads()) {
-        long snapshotTimestamp = TimeUtils.getTimestampMicroSeconds();
-        StackTraceElement[] stackTrace = thread.getStackTrace();
-        profile.record(thread, stackTrace, snapshotTimestamp);
+    Set<Profile> profiles = new HashSet<Profile>(profileByTraceId.values());
+    Map<Long, TrackedThread> trackedThreads = indexTrackedThreads(profiles);
+    int sampledThreadCount = 0;
+    if (sampler != null) { // JFR takes the snapshots, only keep track of the threads to record
+      trackedThreadsById = trackedThreads;
+      if (sampler.getPeriod() != interval) {
+        sampler.setPeriod(interval);
+      }
+    } else {
+      List<TrackedThread> sampledThreads =
+          selectSampledThreads(trackedThreads.values(), overheadController.getThreadLimit());
+      sampledThreadCount = sampledThreads.size();
+      if (localSetting.getSamplingMode() == ProfilerSetting.SamplingMode.BATCHED) {
+        recordBatched(sampledThreads, ManagementFactory.getThreadMXBean());
+      } else {
+        recordPerThread(sampledThreads);
       }
+    }
+
+    List<String> taskIds = new ArrayList<String>();
+    for (Profile profile : profiles) {
       for (SnapshotTracker tracker : profile.snapshotTrackersByThread.values()) {
         taskIds.add(tracker.metadata.taskHexString());
       }
     }
-    long end = System.currentTimeMillis();
-    long duration = end - start;
+    long elapsed = System.nanoTime() - start;
+    // with JFR the cycle only indexes the tracked threads, its cost is not comparable with the
+    // cycles that take the snapshots
+    if (sampler == null) {
+      recordSamplingCycle(elapsed);
+    }
+    overheadController.update(elapsed, sampledThreadCount, trackedThreads.size(), interval);
+
+    return new ProfilingDurationInfo(TimeUnit.NANOSECONDS.toMillis(elapsed), taskIds);
+  }
+
+  /** Takes a snapshot of each tracked thread with a separate {@link Thread#getStackTrace()} call */
+  static void recordPerThread(Collection<TrackedThread> trackedThreads) {
+    for (TrackedThread trackedThread : trackedThreads) {
+      long snapshotTimestamp = TimeUtils.getTimestampMicroSeconds();
+      StackTraceElement[] stackTrace = trackedThread.thread.getStackTrace();
+      trackedThread.record(stackTrace, snapshotTimestamp);
+    }
+  }
+
+  /**
+   * Takes a snapshot of all the tracked threads with a single {@link
+   * ThreadMXBean#getThreadInfo(long[], int)} call, so the JVM brings the threads to a stop once per
+   * cycle instead of once per thread.
+   *
+   * <p>The stacks are captured in full: the depth limit of the call drops the bottom frames while
+   * {@code Profile.trimStack} keeps the bottom {@link #MAX_REPORTED_FRAME_DEPTH} frames, which the
+   * reported diff is based on.
+   */
+  static void recordBatched(List<TrackedThread> trackedThreads, ThreadMXBean threadMXBean) {
+    if (trackedThreads.isEmpty()) {
+      return;
+    }
+
+    long[] threadIds = new long[trackedThreads.size()];
+    for (int i = 0; i < threadIds.length; i++) {
+      threadIds[i] = trackedThreads.get(i).thread.getId();
+    }
+
+    long snapshotTimestamp = TimeUtils.getTimestampMicroSeconds();
+    ThreadInfo[] threadInfos = threadMXBean.getThreadInfo(threadIds, Integer.MAX_VALUE);
+    for (int i = 0; i < threadInfos.length; i++) {
+      ThreadInfo threadInfo = threadInfos[i];
+      // same as Thread.getStackTrace, a thread that is no longer alive has an empty stack
+      StackTraceElement[] stackTrace =
+          threadInfo != null ? threadInfo.getStackTrace() : EMPTY_STACK;
+      trackedThreads.get(i).record(stackTrace, snapshotTimestamp);
+    }
+  }
+
+  /**
+   * Selects the threads to sample on this cycle, at most {@code limit} of them. If not all of them
+   * can be sampled, the next cycle continues from where this one stopped so each tracked thread
+   * gets its turn
+   */
+  static List<TrackedThread> selectSampledThreads(
+      Collection<TrackedThread> trackedThreads, int limit) {
+    List<TrackedThread> threads = new ArrayList<TrackedThread>(trackedThreads);
+    if (threads.size() <= limit) {
+      return threads;
+    }
+    List<TrackedThread> sampledThreads = new ArrayList<TrackedThread>(limit);
+    int offset = sampledThreadOffset % threads.size();
+    for (int i = 0; i < limit; i++) {
+      sampledThreads.add(threads.get((offset + i) % threads.size()));
+    }
+    sampledThreadOffset = (offset + limit) % threads.size();
+    return sampledThreads;
+  }
 
-    return new ProfilingDurationInfo(duration, taskIds);
+  static Map<Long, TrackedThread> indexTrackedThreads(Collection<Profile> profiles) {
+    Map<Long, TrackedThread> trackedThreads = new HashMap<Long, TrackedThread>();
+    for (Profile profile : profiles) {
+      for (Thread thread : profile.getActiveThreads()) {
+        TrackedThread trackedThread = trackedThreads.get(thread.getId());
+        if (trackedThread == null) {
+          trackedThread = new TrackedThread(thread);
+          trackedThreads.put(thread.getId(), trackedThread);
+        }
+        trackedThread.profiles.add(profile);
+      }
+    }
+    return trackedThreads;
+  }
+
+  /**
+   * Records a snapshot taken by JFR into the tracker of the thread that was running when the
+   * snapshot was taken, ignores the threads that are not tracked.
+   *
+   * <p>The snapshot arrives about a second late. If the tracker it belongs to has stopped since,
+   * the snapshot is still recorded into it as long as the tracker is kept open, rather than into a
+   * tracker started later on the same thread.
+   *
+   * @param threadId the id of the sampled thread
+   * @param stack the sampled stack
+   * @param collectionTime time in microseconds when the snapshot was taken
+   */
+  static void recordSample(long threadId, StackTraceElement[] stack, long collectionTime) {
+    TrackedThread trackedThread = trackedThreadsById.get(threadId);
+    if (trackedThread != null && trackedThread.recordSample(stack, collectionTime)) {
+      return;
+    }
+    List<StoppedTracker> stoppedTrackers = stoppedTrackersByThreadId.get(threadId);
+    if (stoppedTrackers != null) {
+      for (StoppedTracker stoppedTracker : stoppedTrackers) {
+        if (stoppedTracker.tracker.covers(collectionTime)) {
+          stoppedTracker.recordLateSample(stack, collectionTime);
+          lateSampleCount.increment();
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * Keeps a stopped tracker open for the profiler thread to close. While sampling with JFR it stays
+   * open for {@link #LATE_SAMPLE_GRACE_PERIOD}, as JFR may still deliver the samples it took before
+   * the tracker stopped. A tracker that aggregates its snapshots is closed in the next cycle, so its
+   * call tree is flattened and reported off the thread that stopped it
+   *
+   * @return whether the tracker is kept open, it is closed by {@link #closeStoppedTrackers(long)}
+   */
+  private static boolean keepOpen(Profile profile, Thread thread, SnapshotTracker tracker) {
+    long closeTime;
+    if (closeTrackersLate) {
+      closeTime = tracker.stopTime + LATE_SAMPLE_GRACE_PERIOD;
+    } else if (tracker.callTree != null) {
+      closeTime = tracker.stopTime;
+    } else {
+      return false;
+    }
+    StoppedTracker stoppedTracker = new StoppedTracker(profile, thread, tracker, closeTime);
+    stoppedTrackersByThreadId.compute(
+        thread.getId(),
+        (threadId, trackers) -> {
+          List<StoppedTracker> updated =
+              trackers != null
+                  ? new ArrayList<StoppedTracker>(trackers)
+                  : new ArrayList<StoppedTracker>(1);
+          updated.add(stoppedTracker);
+          return updated;
+        });
+    return true;
+  }
+
+  /**
+   * Closes the trackers kept open that are due by the given time, which reports their call tree and
+   * the exit of their profiling span. Runs on the profiler thread
+   *
+   * @param now time in microseconds
+   */
+  static void closeStoppedTrackers(long now) {
+    for (Long threadId : stoppedTrackersByThreadId.keySet()) {
+      List<StoppedTracker> closing = new ArrayList<StoppedTracker>(1);
+      stoppedTrackersByThreadId.computeIfPresent(
+          threadId,
+          (id, trackers) -> {
+            List<StoppedTracker> kept = new ArrayList<StoppedTracker>(trackers.size());
+            for (StoppedTracker stoppedTracker : trackers) {
+              if (stoppedTracker.closeTime <= now) {
+                closing.add(stoppedTracker);
+              } else {
+                kept.add(stoppedTracker);
+              }
+            }
+            return kept.isEmpty() ? null : kept;
+          });
+      for (StoppedTracker stoppedTracker : closing) {
+        stoppedTracker.close();
+      }
+    }
+  }
+
+  static void setCloseTrackersLate(boolean closeTrackersLate) {
+    Profiler.closeTrackersLate = closeTrackersLate;
+  }
+
+  static void setTrackedThreads(Map<Long, TrackedThread> trackedThreads) {
+    trackedThreadsById = trackedThreads;
+  }
+
+  /** A tracked thread and the profiles it is tracked by */
+  static class TrackedThread {
+    private final Thread thread;
+    private final List<Profile> profiles = new ArrayList<Profile>(1);
+
+    private TrackedThread(Thread thread) {
+      this.thread = thread;
+    }
+
+    private void record(StackTraceElement[] stack, long collectionTime) {
+      for (Profile profile : profiles) {
+        profile.record(thread, stack, collectionTime);
+      }
+    }
+
+    /**
+     * @return whether any profile recorded the sample
+     */
+    private boolean recordSample(StackTraceElement[] stack, long collectionTime) {
+      boolean recorded = false;
+      for (Profile profile : profiles) {
+        recorded |= profile.recordSample(thread, stack, collectionTime);
+      }
+      return recorded;
+    }
+  }
+
+  static void recordSamplingCycle(long durationInNanos) {
+    samplingCycleCount.increment();
+    samplingCycleDuration.add(TimeUnit.NANOSECONDS.toMicros(durationInNanos));
+  }
+
+  /**
+   * @return the number of sampling cycles that took snapshots since the last call, the cycles are
+   *     not counted when JFR takes the snapshots
+   */
+  public static long consumeSamplingCycleCount() {
+    return samplingCycleCount.consume();
+  }
+
+  /**
+   * @return the total time in microseconds spent in sampling cycles since the last call
+   */
+  public static long consumeSamplingCycleDuration() {
+    return samplingCycleDuration.consume();
+  }
+
+  /**
+   * @return the number of JFR samples since the last call that arrived after the profiling of their
+   *     thread had stopped, and were recorded into the stopped tracker kept open for them
+   */
+  public static long consumeLateSampleCount() {
+    return lateSampleCount.consume();
+  }
+
+  /**
+   * @return the interval in milliseconds the profiler currently waits between sampling cycles
+   */
+  public static int getEffectiveInterval() {
+    return overheadController.getInterval();
+  }
+
+  /**
+   * @return the smoothed fraction of wall time the profiler currently spends on sampling cycles
+   */
+  public static double getMeasuredOverhead() {
+    return overheadController.getOverhead();
   }
 
   private static class ProfilingDurationInfo {
@@ -393,13 +720,35 @@ public class Profiler {
     }
 
     public void stop() {
-      for (SnapshotTracker tracker : snapshotTrackersByThread.values()) {
-        tracker.stop();
-        createProfileSpanExit(tracker);
+      for (Map.Entry<Thread, SnapshotTracker> entry : snapshotTrackersByThread.entrySet()) {
+        stopTracker(entry.getKey(), entry.getValue());
       }
       snapshotTrackersByThread.clear();
     }
 
+    /**
+     * Stops the tracker, it is closed right away unless kept open for late JFR samples or for its
+     * call tree to be reported by the profiler thread
+     */
+    private void stopTracker(Thread thread, SnapshotTracker tracker) {
+      tracker.stop();
+      if (!keepOpen(this, thread, tracker)) {
+        closeTracker(thread, tracker);
+      }
+    }
+
+    /**
+     * Reports the call tree and the exit of the stopped tracker, nothing is recorded into the
+     * tracker afterwards
+     */
+    private void closeTracker(Thread thread, SnapshotTracker tracker) {
+      synchronized (tracker) {
+        tracker.closed = true;
+      }
+      reportCallTree(thread, tracker);
+      createProfileSpanExit(tracker);
+    }
+
     /**
      * Records and reports (if not omitted) the stack trace provided by in the parameters
      *
@@ -408,8 +757,28 @@ public class Profiler {
      * @param collectionTime time in microseconde when a snapshot was collected
      */
     public void record(Thread thread, StackTraceElement[] stack, long collectionTime) {
-      long threadId = thread.getId();
+      record(thread, snapshotTrackersByThread.get(thread), stack, collectionTime);
+    }
+
+    /**
+     * Records a stack trace sampled asynchronously, unless it was taken outside the time the
+     * current tracker of the thread has been running. Such a sample was delivered late and belongs
+     * to a tracker that has stopped since
+     *
+     * @return whether the stack trace was recorded
+     */
+    boolean recordSample(Thread thread, StackTraceElement[] stack, long collectionTime) {
       SnapshotTracker tracker = snapshotTrackersByThread.get(thread);
+      if (tracker == null || !tracker.covers(collectionTime)) {
+        return false;
+      }
+      record(thread, tracker, stack, collectionTime);
+      return true;
+    }
+
+    private void record(
+        Thread thread, SnapshotTracker tracker, StackTraceElement[] stack, long collectionTime) {
+      long threadId = thread.getId();
       int framesExited;
 
       StackTraceElement[] newFrames;
@@ -417,7 +786,9 @@ public class Profiler {
       int originalFramesCount = stack.length; // get the framesCount before trimming
       stack = trimStack(stack);
 
-      if (tracker != null && !tracker.stopped) {
+      if (tracker != null && !tracker.closed && tracker.callTree != null) {
+        aggregate(thread, tracker, stack, collectionTime);
+      } else if (tracker != null && !tracker.closed) {
         if (tracker.stack == null) {
           framesExited = 0;
           newFrames = stack;
@@ -449,9 +820,9 @@ public class Profiler {
         if (newFrames != null
             || framesExited > 0) { // only update and report if things have changed
           synchronized (tracker) {
-            if (!tracker.stopped) {
+            if (!tracker.closed) {
               reportSnapshot(
-                  tracker.metadata,
+                  tracker,
                   framesExited,
                   tracker.snapshotsOmitted.isEmpty()
                       ? Collections.emptyList()
@@ -467,11 +838,7 @@ public class Profiler {
         } else {
           if (tracker.metadata.isExpired(
               collectionTime / 1000 /*collectionTime is in µs from the caller scope*/)) {
-            logger.warn(
-                String.format(
-                    "Metadata has expired and we're stopping profiling on thread - %s. Trace took to long!",
-                    thread.getName()));
-            stopProfilingOnThread(thread);
+            stopExpiredProfilingOnThread(thread, tracker);
           } else {
             tracker.snapshotsOmitted.add(collectionTime);
           }
@@ -479,6 +846,36 @@ public class Profiler {
       }
     }
 
+    private void stopExpiredProfilingOnThread(Thread thread, SnapshotTracker tracker) {
+      if (tracker.stopped) { // a late sample of a tracker that has stopped already
+        return;
+      }
+      logger.warn(
+          String.format(
+              "Metadata has expired and we're stopping profiling on thread - %s. Trace took to long!",
+              thread.getName()));
+      stopProfilingOnThread(thread);
+    }
+
+    /**
+     * Folds the stack into the call tree of the tracker, the tree is reported once profiling on the
+     * thread stops
+     */
+    private void aggregate(
+        Thread thread, SnapshotTracker tracker, StackTraceElement[] stack, long collectionTime) {
+      if (tracker.metadata.isExpired(
+          collectionTime / 1000 /*collectionTime is in µs from the caller scope*/)) {
+        stopExpiredProfilingOnThread(thread, tracker);
+        return;
+      }
+
+      synchronized (tracker) {
+        if (!tracker.closed) {
+          tracker.callTree.add(stack);
+        }
+      }
+    }
+
     /**
      * Trim the stack by removing top frames that matches ProfilerSetting.getExcludePackages or if
      * it's deeper than MAX_REPORTED_FRAME_DEPTH
@@ -534,6 +931,9 @@ public class Profiler {
       if (!snapshotTrackersByThread.containsKey(thread)) {
         Metadata snapshotMetadata = createProfileSpanEntry(parentMetadata);
         SnapshotTracker tracker = new SnapshotTracker(snapshotMetadata);
+        if (setting.isAggregationEnabled()) {
+          tracker.callTree = new CallTree(setting.getMaxCallTreeNodes());
+        }
         snapshotTrackersByThread.put(thread, tracker);
         return true;
       } else { // this thread is already tracked
@@ -550,12 +950,51 @@ public class Profiler {
     boolean stopProfilingOnThread(Thread thread) {
       SnapshotTracker tracker = snapshotTrackersByThread.remove(thread);
       if (tracker != null) {
-        tracker.stop();
-        createProfileSpanExit(tracker);
+        stopTracker(thread, tracker);
       }
       return tracker != null;
     }
 
+    /**
+     * Reports the call tree aggregated for the tracker, if any snapshot was folded into it. Called
+     * by the profiler thread once the tracker is closed
+     *
+     * @param thread the profiled thread
+     * @param tracker the stopped tracker of the thread
+     */
+    private void reportCallTree(Thread thread, SnapshotTracker tracker) {
+      synchronized (tracker) {
+        CallTree callTree = tracker.callTree;
+        if (callTree == null || callTree.getSampleCount() == 0) {
+          return;
+        }
+        tracker.callTree = null; // reported once
+
+        List<Map<String, Object>> frameDefinitions = new ArrayList<Map<String, Object>>();
+        List<Map<String, Object>> nodes =
+            callTree.toNodes(
+                setting.isCompactEncodingEnabled() ? tracker.frameDictionary : null,
+                frameDefinitions);
+
+        Event event = Context.createEventWithContext(tracker.metadata);
+        event.addInfo(
+            "Label", "info",
+            "Spec", "profiling",
+            "SampleCount", callTree.getSampleCount(),
+            "CallTree", nodes);
+        if (!frameDefinitions.isEmpty()) {
+          event.addInfo("FrameDefinitions", frameDefinitions);
+        }
+        if (callTree.getTruncatedSampleCount() > 0) {
+          event.addInfo("SamplesTruncated", callTree.getTruncatedSampleCount());
+        }
+        event.setTimestamp(TimeUtils.getTimestampMicroSeconds());
+        event.setThreadId(thread.getId());
+
+        report(event, tracker.metadata);
+      }
+    }
+
     private void createProfileSpanExit(SnapshotTracker tracker) {
       if (!sampled) {
         return;
@@ -564,7 +1003,8 @@ public class Profiler {
       snapshotExit.addInfo(
           "Label", "exit",
           "Spec", "profiling",
-          "SnapshotsOmitted", tracker.snapshotsOmitted);
+          "SnapshotsOmitted", encodeSnapshotsOmitted(tracker.snapshotsOmitted));
+      snapshotExit.setTimestamp(tracker.stopTime); // the tracker may be closed a while later
 
       synchronized (tracker) {
         snapshotExit.addEdge(tracker.metadata);
@@ -585,14 +1025,21 @@ public class Profiler {
       return snapshotTrackersByThread.get(thread);
     }
 
+    private Object encodeSnapshotsOmitted(List<Long> snapshotsOmitted) {
+      return setting.isCompactEncodingEnabled()
+          ? FrameDictionary.pack(snapshotsOmitted)
+          : snapshotsOmitted;
+    }
+
     private void reportSnapshot(
-        Metadata metadata,
+        SnapshotTracker tracker,
         int framesExited,
         List<Long> snapshotsOmitted,
         StackTraceElement[] newFrames,
         int framesCount,
         long threadId,
         long timestamp) {
+      Metadata metadata = tracker.metadata;
       Event event;
 
       event = Context.createEventWithContext(metadata);
@@ -600,37 +1047,33 @@ public class Profiler {
           "Label", "info",
           "Spec", "profiling",
           "FramesExited", framesExited,
-          "SnapshotsOmitted", snapshotsOmitted,
+          "SnapshotsOmitted", encodeSnapshotsOmitted(snapshotsOmitted),
           "FramesCount", framesCount);
       event.setTimestamp(timestamp);
       event.setThreadId(threadId);
 
       if (newFrames != null) {
-        List<Map<String, Object>> newFramesValue = new ArrayList<Map<String, Object>>();
-        for (StackTraceElement newFrame : newFrames) {
-          Map<String, Object> frameKeyValues = new HashMap<String, Object>();
-          String className = newFrame.getClassName();
-          if (className != null) {
-            frameKeyValues.put("C", className);
-          }
-          String fileName = newFrame.getFileName();
-          if (fileName != null) {
-            frameKeyValues.put("F", fileName);
+        if (setting.isCompactEncodingEnabled()) {
+          List<Map<String, Object>> frameDefinitions = new ArrayList<Map<String, Object>>();
+          event.addInfo("NewFrameIds", tracker.frameDictionary.encode(newFrames, frameDefinitions));
+          if (!frameDefinitions.isEmpty()) {
+            event.addInfo("FrameDefinitions", frameDefinitions);
           }
-          int lineNumber = newFrame.getLineNumber();
-          if (lineNumber > 0) {
-            frameKeyValues.put("L", lineNumber);
-          }
-          String methodName = newFrame.getMethodName();
-          if (methodName != null) {
-            frameKeyValues.put("M", methodName);
+        } else {
+          List<Map<String, Object>> newFramesValue = new ArrayList<Map<String, Object>>();
+          for (StackTraceElement newFrame : newFrames) {
+            newFramesValue.add(toFrameKeyValues(newFrame));
           }
-          newFramesValue.add(frameKeyValues);
-        }
 
-        event.addInfo("NewFrames", newFramesValue);
+          event.addInfo("NewFrames", newFramesValue);
+        }
       }
 
+      report(event, metadata);
+    }
+
+    /** Reports the event, preceded by the entry event of the profiling span if not reported yet */
+    private void report(Event event, Metadata metadata) {
       if (!sampled) {
         snapshotEntry.report(entryMetadata, Profiler.reporter);
         sampled = true;
@@ -643,6 +1086,27 @@ public class Profiler {
     }
   }
 
+  static Map<String, Object> toFrameKeyValues(StackTraceElement frame) {
+    Map<String, Object> frameKeyValues = new HashMap<String, Object>();
+    String className = frame.getClassName();
+    if (className != null) {
+      frameKeyValues.put("C", className);
+    }
+    String fileName = frame.getFileName();
+    if (fileName != null) {
+      frameKeyValues.put("F", fileName);
+    }
+    int lineNumber = frame.getLineNumber();
+    if (lineNumber > 0) {
+      frameKeyValues.put("L", lineNumber);
+    }
+    String methodName = frame.getMethodName();
+    if (methodName != null) {
+      frameKeyValues.put("M", methodName);
+    }
+    return frameKeyValues;
+  }
+
   /**
    * Keeps the state of tracked thread to enable snapshot reporting on a thread.
    *
@@ -655,8 +1119,13 @@ public class Profiler {
   public static class SnapshotTracker {
     private StackTraceElement[] stack;
     private final Metadata metadata;
-    private boolean stopped = false;
+    private final FrameDictionary frameDictionary = new FrameDictionary();
+    private CallTree callTree; // set if snapshots are aggregated
+    private volatile boolean stopped = false;
+    private boolean closed = false; // set with the lock held, nothing is recorded once closed
     @Getter private final ArrayList<Long> snapshotsOmitted = new ArrayList<Long>();
+    @Getter private final long startTime = TimeUtils.getTimestampMicroSeconds();
+    private volatile long stopTime = Long.MAX_VALUE; // in microseconds, set once stopped
 
     public SnapshotTracker(Metadata metadata) {
       this.metadata = metadata;
@@ -664,6 +1133,39 @@ public class Profiler {
 
     private void stop() {
       stopped = true;
+      stopTime = TimeUtils.getTimestampMicroSeconds();
+    }
+
+    /**
+     * @param timestamp time in microseconds
+     * @return whether this tracker was running at the given time
+     */
+    private boolean covers(long timestamp) {
+      return timestamp >= startTime && timestamp < stopTime;
+    }
+  }
+
+  /** A stopped tracker and what it takes to record its late samples and close it */
+  private static final class StoppedTracker {
+    private final Profile profile;
+    private final Thread thread;
+    private final SnapshotTracker tracker;
+    private final long closeTime; // in microseconds
+
+    private StoppedTracker(
+        Profile profile, Thread thread, SnapshotTracker tracker, long closeTime) {
+      this.profile = profile;
+      this.thread = thread;
+      this.tracker = tracker;
+      this.closeTime = closeTime;
+    }
+
+    private void recordLateSample(StackTraceElement[] stack, long collectionTime) {
+      profile.record(thread, tracker, stack, collectionTime);
+    }
+
+    private void close() {
+      profile.closeTracker(thread, tracker);
     }
   }
 
@@ -16,9 +16,12 @@
 
 package com.solarwinds.joboe.core.profiler;
 
+import com.solarwinds.joboe.config.InvalidConfigException;
 import java.io.Serializable;
+import java.lang.management.ThreadMXBean;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.Locale;
 import java.util.Set;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
@@ -31,24 +34,114 @@ public class ProfilerSetting implements Serializable {
   public static final int DEFAULT_CIRCUIT_BREAKER_COUNT_THRESHOLD = 2;
   public static final Set<String> DEFAULT_EXCLUDE_PACKAGES =
       new HashSet<String>(Arrays.asList("java", "javax", "com.sun", "sun", "sunw"));
+  public static final SamplingMode DEFAULT_SAMPLING_MODE = SamplingMode.PER_THREAD;
+  public static final int DEFAULT_MAX_CALL_TREE_NODES = 2000;
+  public static final double DEFAULT_OVERHEAD_BUDGET = 0;
   private final boolean isEnabled;
   @Getter private final Set<String> excludePackages;
   @Getter private final int interval;
   @Getter private final int circuitBreakerDurationThreshold;
   @Getter private final int circuitBreakerCountThreshold;
+  @Getter private final SamplingMode samplingMode;
+
+  /**
+   * Whether the snapshots of a profiling span refer to frames by ids defined once per span instead
+   * of repeating the frames in full, and pack the omitted snapshot timestamps as binary
+   */
+  @Getter private final boolean compactEncodingEnabled;
+
+  /**
+   * Whether the snapshots of a profiling span are folded into a call tree that is reported once
+   * when the span ends, instead of reporting each changed snapshot
+   */
+  @Getter private final boolean aggregationEnabled;
+
+  /** Max number of nodes of the call tree of a profiling span, bounds the memory it takes */
+  @Getter private final int maxCallTreeNodes;
+
+  /**
+   * Fraction of the wall time of one core the profiler may spend on sampling, for example 0.01 for
+   * 1%. The interval and the number of threads sampled per cycle are adjusted to stay within it, 0
+   * to always sample all the tracked threads on the configured interval
+   */
+  @Getter private final double overheadBudget;
+
+  /** How the profiler captures the stack traces of the tracked threads on each interval */
+  public enum SamplingMode {
+    /** Calls {@link Thread#getStackTrace()} on each tracked thread, one at a time */
+    PER_THREAD,
+    /** Captures all the tracked threads with a single {@link ThreadMXBean#getThreadInfo} call */
+    BATCHED,
+    /**
+     * Consumes the execution samples of an in-process JFR recording stream, which samples all the
+     * threads without stopping them. Falls back to {@link #PER_THREAD} on JDKs older than 14.
+     *
+     * <p>The samples arrive about a second late, so the profiling of a thread is kept open for a
+     * couple of seconds after it stops to record them, and the exit of its profiling span is
+     * reported that much later
+     */
+    JFR;
+
+    /**
+     * @param value the case-insensitive name of the sampling mode
+     * @return the sampling mode with the given name
+     * @throws InvalidConfigException if no sampling mode has the given name
+     */
+    public static SamplingMode parse(String value) throws InvalidConfigException {
+      try {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+      } catch (IllegalArgumentException e) {
+        throw new InvalidConfigException(
+            "Profiling sampling mode should be one of "
+                + Arrays.toString(values())
+                + " but found "
+                + value,
+            e);
+      }
+    }
+  }
 
   public ProfilerSetting(
       boolean isEnabled,
       Set<String> excludePackages,
       int interval,
       int circuitBreakerDurationThreshold,
-      int circuitBreakerCountThreshold) {
+      int circuitBreakerCountThreshold,
+      SamplingMode samplingMode,
+      boolean compactEncodingEnabled,
+      boolean aggregationEnabled,
+      int maxCallTreeNodes,
+      double overheadBudget) {
     super();
     this.isEnabled = isEnabled;
     this.excludePackages = excludePackages;
     this.interval = interval;
     this.circuitBreakerDurationThreshold = circuitBreakerDurationThreshold;
     this.circuitBreakerCountThreshold = circuitBreakerCountThreshold;
+    this.samplingMode = samplingMode;
+    this.compactEncodingEnabled = compactEncodingEnabled;
+    this.aggregationEnabled = aggregationEnabled;
+    this.maxCallTreeNodes = maxCallTreeNodes;
+    this.overheadBudget = overheadBudget;
+  }
+
+  public ProfilerSetting(
+      boolean isEnabled,
+      Set<String> excludePackages,
+      int interval,
+      int circuitBreakerDurationThreshold,
+      int circuitBreakerCountThreshold) {
+    this(
+        isEnabled,
+        excludePackages,
+        interval,
+        circuitBreakerDurationThreshold,
+        circuitBreakerCountThreshold,
+        DEFAULT_SAMPLING_MODE,
+        false,
+        false,
+        DEFAULT_MAX_CALL_TREE_NODES,
+        DEFAULT_OVERHEAD_BUDGET);
   }
 
   public ProfilerSetting(boolean isEnabled, int interval) {
@@ -76,6 +169,16 @@ public class ProfilerSetting implements Serializable {
         + circuitBreakerDurationThreshold
         + ", circuitBreakerCountThreshold="
         + circuitBreakerCountThreshold
+        + ", samplingMode="
+        + samplingMode
+        + ", compactEncodingEnabled="
+        + compactEncodingEnabled
+        + ", aggregationEnabled="
+        + aggregationEnabled
+        + ", maxCallTreeNodes="
+        + maxCallTreeNodes
+        + ", overheadBudget="
+        + overheadBudget
         + "]";
   }
 }
@@ -0,0 +1,41 @@
+/*
+ * © SolarWinds Worldwide, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.solarwinds.joboe.core.rpc;
+
+import com.solarwinds.joboe.core.Event;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A {@link ProtocolClient} that posts messages without blocking the calling thread.
+ *
+ * <p>Messages are serialized on the calling thread, the returned future completes once the
+ * collector responds. It completes exceptionally with a {@link ClientRecoverableException} if the
+ * call could be retried after reconnecting, or with another {@link ClientException} otherwise
+ *
+ * @see ProtocolClientFactory#isAsync()
+ */
+public interface AsyncProtocolClient extends ProtocolClient {
+  CompletableFuture<Result> doPostEventsAsync(String serviceKey, List<Event> events);
+
+  CompletableFuture<Result> doPostMetricsAsync(
+      String serviceKey, List<Map<String, Object>> messages);
+
+  CompletableFuture<Result> doPostStatusAsync(
+      String serviceKey, List<Map<String, Object>> messages);
+}
@@ -23,4 +23,12 @@ package com.solarwinds.joboe.core.rpc;
  */
 public interface ProtocolClientFactory<C extends ProtocolClient> {
   C buildClient(String host, int port) throws ClientException;
+
+  /**
+   * @return whether the built clients are {@link AsyncProtocolClient}s that {@link RpcClient}
+   *     should post messages with, instead of blocking a thread per task type
+   */
+  default boolean isAsync() {
+    return false;
+  }
 }
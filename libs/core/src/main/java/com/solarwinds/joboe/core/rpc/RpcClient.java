@@ -22,17 +22,22 @@ import com.solarwinds.joboe.core.util.HeartbeatSchedulerProvider;
 import com.solarwinds.joboe.logging.Logger;
 import com.solarwinds.joboe.logging.Logger.Level;
 import com.solarwinds.joboe.logging.LoggerFactory;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import lombok.Getter;
@@ -64,7 +69,8 @@ public class RpcClient implements com.solarwinds.joboe.core.rpc.Client {
       false; // indicates whether this current Collector client is closing permanently
   private Status connectionStatus = Status.NOT_CONNECTED;
 
-  protected ProtocolClient protocolClient;
+  // volatile for the async calls, which read it without locking
+  protected volatile ProtocolClient protocolClient;
   private final ProtocolClientFactory<? extends ProtocolClient> protocolClientFactory;
 
   private static final int QUEUE_CAPACITY = 100;
@@ -72,15 +78,17 @@ public class RpcClient implements com.solarwinds.joboe.core.rpc.Client {
   private static final int TIMEOUT = 10 * 1000; // 10 secs
 
   public enum TaskType {
-    POST_EVENTS(true),
-    POST_METRICS(true),
-    POST_STATUS(true),
-    GET_SETTINGS(true),
-    CONNECTION_INIT(false);
+    POST_EVENTS(true, true),
+    POST_METRICS(true, true),
+    POST_STATUS(true, true),
+    GET_SETTINGS(true, false),
+    CONNECTION_INIT(false, false);
     private final boolean threadpoolRequired;
+    private final boolean asyncSupported; // whether AsyncProtocolClient can perform this task
 
-    TaskType(boolean threadpoolRequired) {
+    TaskType(boolean threadpoolRequired, boolean asyncSupported) {
       this.threadpoolRequired = threadpoolRequired;
+      this.asyncSupported = asyncSupported;
     }
   }
 
@@ -90,6 +98,15 @@ public class RpcClient implements com.solarwinds.joboe.core.rpc.Client {
           ExecutorService>(); // separate thread pool (single thread) for each message type, see
   // https://github.com/librato/joboe/issues/565
 
+  // task types performed with AsyncProtocolClient instead of a thread pool, and their permits for
+  // calls in progress
+  private final Map<TaskType, Semaphore> asyncTaskPermits = new EnumMap<>(TaskType.class);
+  // shared by all async task types to schedule retries, null if there's no async task type
+  private final ScheduledExecutorService asyncExecutor;
+  // runs the blocking (re)connects of async calls so they never hold up the retries scheduled on
+  // the asyncExecutor, null if there's no async task type
+  private final ExecutorService asyncConnectExecutor;
+
   private final RetryParamConstants
       defaultRetryParamConstants; // defines various retry param constants such as init delay, max
   // delay and max retry on various Result code
@@ -144,7 +161,9 @@ public class RpcClient implements com.solarwinds.joboe.core.rpc.Client {
     }
 
     for (TaskType taskType : taskTypes) {
-      if (taskType.threadpoolRequired) {
+      if (taskType.asyncSupported && protocolClientFactory.isAsync()) {
+        asyncTaskPermits.put(taskType, new Semaphore(QUEUE_CAPACITY));
+      } else if (taskType.threadpoolRequired) {
         services.put(
             taskType,
             new ThreadPoolExecutor(
@@ -157,6 +176,17 @@ public class RpcClient implements com.solarwinds.joboe.core.rpc.Client {
       }
     }
 
+    asyncExecutor =
+        asyncTaskPermits.isEmpty()
+            ? null
+            : Executors.newSingleThreadScheduledExecutor(
+                DaemonThreadFactory.newInstance("async-rpc-executor"));
+    asyncConnectExecutor =
+        asyncTaskPermits.isEmpty()
+            ? null
+            : Executors.newSingleThreadExecutor(
+                DaemonThreadFactory.newInstance("async-rpc-connect"));
+
     heartbeatScheduler =
         HeartbeatSchedulerProvider.createHeartbeatScheduler(() -> protocolClient, serviceKey, this);
   }
@@ -319,6 +349,234 @@ public class RpcClient implements com.solarwinds.joboe.core.rpc.Client {
     return task;
   }
 
+  /**
+   * Starts an async call on the calling thread, retries are scheduled on the {@link #asyncExecutor}
+   * so no thread is blocked while the call is in progress. Connecting blocks, so connects and
+   * reconnects run on the {@link #asyncConnectExecutor} instead. The retry behavior is the same as
+   * the calls submitted with {@link #submit(Callable, TaskType)}
+   */
+  private <T extends Result> Future<T> submitAsync(
+      AsyncClientCall<T> clientCall, TaskType taskType, Callback<T> callback)
+      throws RpcClientRejectedExecutionException {
+    Semaphore permits = asyncTaskPermits.get(taskType);
+    if (isClosing) {
+      throw new RpcClientRejectedExecutionException(
+          "Cannot submit job of taskType [" + taskType + "] as this collector client is closing");
+    }
+    if (!permits.tryAcquire()) {
+      RejectedExecutionException e =
+          new RejectedExecutionException(
+              "Too many calls of taskType [" + taskType + "] in progress");
+      handleRejectedExecutionException(e);
+      throw new RpcClientRejectedExecutionException(e);
+    }
+
+    AsyncCall<T> call = new AsyncCall<>(clientCall, taskType, callback);
+    call.result.whenComplete((result, e) -> permits.release());
+    call.attempt();
+    return call.result;
+  }
+
+  private interface AsyncClientCall<T extends Result> {
+    CompletableFuture<T> call(AsyncProtocolClient client) throws ClientException;
+  }
+
+  /** An async call and its retry state, at most one attempt of the call is in progress */
+  private class AsyncCall<T extends Result> {
+    private final AsyncClientCall<T> clientCall;
+    private final TaskType taskType;
+    private final Callback<T> callback;
+    private final RetryParams retryParams;
+    private final CompletableFuture<T> result = new CompletableFuture<>();
+
+    private AsyncCall(AsyncClientCall<T> clientCall, TaskType taskType, Callback<T> callback) {
+      this.clientCall = clientCall;
+      this.taskType = taskType;
+      this.callback = callback;
+      this.retryParams = new RetryParams(taskType);
+    }
+
+    private void attempt() {
+      ProtocolClient client = protocolClient;
+      if (client == null) { // check/initialize the connection, this blocks so not on this thread
+        executeConnect(
+            () -> {
+              if (checkClient()) {
+                attempt();
+              } else {
+                retryOrComplete(null);
+              }
+            });
+        return;
+      }
+
+      CompletableFuture<T> call;
+      try {
+        if (!(client instanceof AsyncProtocolClient)) {
+          throw new ClientFatalException(
+              "Protocol client [" + client.getClass().getName() + "] does not support async calls");
+        }
+        call = clientCall.call((AsyncProtocolClient) client);
+      } catch (Exception e) {
+        onFailure(client, e);
+        return;
+      }
+
+      call.whenComplete(
+          (callResult, e) -> {
+            if (e == null) {
+              onResult(client, callResult);
+            } else {
+              onFailure(client, e instanceof CompletionException ? e.getCause() : e);
+            }
+          });
+    }
+
+    private void onResult(ProtocolClient client, T callResult) {
+      if (callback != null) {
+        callback.complete(callResult);
+      }
+      CallableWithCallback.reportWarning(callResult);
+
+      if (reportedConnectError) { // successfully made a call, report the connection is recovered
+        logger.info(
+            "Protocol client [" + taskType + "] successfully recovered : " + host + ":" + port);
+        reportedConnectError = false;
+      }
+      reportedRejectedExecutionError = false;
+
+      connectionStatus = callResult.getResultCode().isError() ? Status.FAILURE : Status.OK;
+      heartbeatScheduler.schedule(); // connection is healthy, update keep alive
+
+      if (callResult.getResultCode() == ResultCode.TRY_LATER) {
+        retryParams.flagRetry(RetryType.TRY_LATER);
+      } else if (callResult.getResultCode() == ResultCode.LIMIT_EXCEEDED) {
+        retryParams.flagRetry(RetryType.LIMIT_EXCEED);
+      } else if (callResult.getResultCode() == ResultCode.REDIRECT
+          && retryParams.flagRetry(RetryType.REDIRECT, true)) {
+        executeConnect(
+            () -> {
+              try {
+                redirectClient(client, callResult.getArg());
+              } catch (ClientFatalException e) {
+                handleFailure(client, e);
+                return;
+              }
+              retryOrComplete(callResult);
+            });
+        return;
+      }
+
+      retryOrComplete(callResult);
+    }
+
+    private void onFailure(ProtocolClient client, Throwable e) {
+      if (callback != null) {
+        callback.fail(e instanceof Exception ? (Exception) e : new ClientException(e));
+      }
+      handleFailure(client, e);
+    }
+
+    private void handleFailure(ProtocolClient client, Throwable e) {
+      if (isClosing) {
+        logger.debug(
+            () ->
+                "Found exception during collector Client shutdown. This is probably not critical as the client is shutting down : "
+                    + e.getMessage(),
+            e);
+        retryOrComplete(null);
+      } else if (e instanceof ClientRecoverableException) {
+        logConnectException((ClientRecoverableException) e, taskType);
+        retryParams.flagRetry(RetryType.SERVER_ERROR); // retry after a server error
+        executeConnect(
+            () -> {
+              reconnectClient(client);
+              retryOrComplete(null);
+            });
+      } else {
+        logger.warn(
+            "Error sending message to collector (fatal exception) ["
+                + taskType
+                + "] : "
+                + e.getClass().getName()
+                + " message: "
+                + e.getMessage()); // fatal exception so it's okay to be verbose
+        result.completeExceptionally(e instanceof ClientException ? e : new ClientException(e));
+      }
+    }
+
+    /**
+     * Schedules the next attempt if a retry is flagged, otherwise completes the call
+     *
+     * @param callResult result of the last attempt, null if the attempt did not get a result
+     */
+    private void retryOrComplete(T callResult) {
+      int delay = isClosing ? -1 : retryParams.nextRetryDelay();
+      if (delay >= 0) {
+        execute(this::attempt, delay);
+      } else if (callResult == null) { // cannot even get a result object from the server
+        result.completeExceptionally(
+            new ClientException(
+                "Failed to get response of taskType ["
+                    + taskType
+                    + "] from collector after "
+                    + retryParams.currentRetryCounts
+                    + " tries"));
+      } else {
+        result.complete(callResult);
+      }
+    }
+
+    private void execute(Runnable task, long delayMillis) {
+      try {
+        asyncExecutor.schedule(guard(task), delayMillis, TimeUnit.MILLISECONDS);
+      } catch (RejectedExecutionException e) {
+        onRejected(e);
+      }
+    }
+
+    /** Runs a task that blocks on connecting the protocol client */
+    private void executeConnect(Runnable task) {
+      try {
+        asyncConnectExecutor.execute(guard(task));
+      } catch (RejectedExecutionException e) {
+        onRejected(e);
+      }
+    }
+
+    private Runnable guard(Runnable task) {
+      return () -> {
+        try {
+          task.run();
+        } catch (RuntimeException e) {
+          result.completeExceptionally(new ClientException(e));
+        }
+      };
+    }
+
+    private void onRejected(RejectedExecutionException e) {
+      result.completeExceptionally(
+          new ClientException(
+              "Cannot complete job of taskType [" + taskType + "] as this client is closed", e));
+    }
+  }
+
+  /** Reconnects unless the failed protocol client has already been replaced by another call */
+  private synchronized void reconnectClient(ProtocolClient failedClient) {
+    if (protocolClient == failedClient) {
+      shutdownProtocolClient();
+      initClient();
+    }
+  }
+
+  /** Redirects unless the protocol client has already been replaced by another call */
+  private synchronized void redirectClient(ProtocolClient redirectedClient, String arg)
+      throws ClientFatalException {
+    if (protocolClient == redirectedClient) {
+      resetClient(arg);
+    }
+  }
+
   /**
    * Checks if underlying protocol client is available. Initialize the underlying client if it's not
    * yet available.
@@ -497,6 +755,10 @@ public class RpcClient implements com.solarwinds.joboe.core.rpc.Client {
   @Override
   public Future<Result> postEvents(final List<Event> events, final Callback<Result> callback)
       throws ClientException {
+    if (asyncTaskPermits.containsKey(TaskType.POST_EVENTS)) {
+      return submitAsync(
+          client -> client.doPostEventsAsync(serviceKey, events), TaskType.POST_EVENTS, callback);
+    }
     return submit(
         new CallableWithCallback<Result>(callback) {
           @Override
@@ -519,6 +781,12 @@ public class RpcClient implements com.solarwinds.joboe.core.rpc.Client {
   public Future<Result> postMetrics(
       final List<Map<String, Object>> messages, final Callback<Result> callback)
       throws ClientException {
+    if (asyncTaskPermits.containsKey(TaskType.POST_METRICS)) {
+      return submitAsync(
+          client -> client.doPostMetricsAsync(serviceKey, messages),
+          TaskType.POST_METRICS,
+          callback);
+    }
     return submit(
         new CallableWithCallback<Result>(callback) {
           @Override
@@ -541,6 +809,12 @@ public class RpcClient implements com.solarwinds.joboe.core.rpc.Client {
   public Future<Result> postStatus(
       final List<Map<String, Object>> messages, final Callback<Result> callback)
       throws ClientException {
+    if (asyncTaskPermits.containsKey(TaskType.POST_STATUS)) {
+      return submitAsync(
+          client -> client.doPostStatusAsync(serviceKey, messages),
+          TaskType.POST_STATUS,
+          callback);
+    }
     return submit(
         new CallableWithCallback<Result>(callback) {
           @Override
@@ -596,6 +870,12 @@ public class RpcClient implements com.solarwinds.joboe.core.rpc.Client {
       }
     }
 
+    if (asyncExecutor != null) {
+      // delayed retries still run, they complete the calls right away as the client is closing
+      asyncExecutor.shutdown();
+      asyncConnectExecutor.shutdown(); // queued connects return right away as well
+    }
+
     shutdownProtocolClient();
   }
 
@@ -641,16 +921,7 @@ public class RpcClient implements com.solarwinds.joboe.core.rpc.Client {
           callback.complete(result);
         }
 
-        String warning = result.getWarning();
-        if (warning != null && !warning.isEmpty()) {
-          if (logger.shouldLog(Level.DEBUG) || !warning.equals(previousReportedWarning)) {
-            logger.warn("RPC call warning : [" + warning + "]");
-            previousReportedWarning = warning;
-          }
-        } else if (result.getResultCode()
-            == ResultCode.OK) { // then reset the previous warning, since it's OK now
-          previousReportedWarning = null;
-        }
+        reportWarning(result);
 
         return result;
       } catch (Exception e) {
@@ -661,6 +932,19 @@ public class RpcClient implements com.solarwinds.joboe.core.rpc.Client {
       }
     }
 
+    private static void reportWarning(Result result) {
+      String warning = result.getWarning();
+      if (warning != null && !warning.isEmpty()) {
+        if (logger.shouldLog(Level.DEBUG) || !warning.equals(previousReportedWarning)) {
+          logger.warn("RPC call warning : [" + warning + "]");
+          previousReportedWarning = warning;
+        }
+      } else if (result.getResultCode()
+          == ResultCode.OK) { // then reset the previous warning, since it's OK now
+        previousReportedWarning = null;
+      }
+    }
+
     public abstract T doCall() throws Exception;
   }
 
@@ -917,5 +1201,21 @@ public class RpcClient implements com.solarwinds.joboe.core.rpc.Client {
         return false;
       }
     }
+
+    /**
+     * Same as {@link RetryParams#retry()} but returns the delay instead of sleeping, for retries
+     * scheduled without blocking a thread
+     *
+     * @return the delay in milliseconds before the retry, or -1 if no retry should be performed
+     */
+    int nextRetryDelay() {
+      if (!shouldRetry) {
+        return -1;
+      }
+      int delay = activeDelay;
+      activeDelay = 0;
+      shouldRetry = false; // reset
+      return delay;
+    }
   }
 }
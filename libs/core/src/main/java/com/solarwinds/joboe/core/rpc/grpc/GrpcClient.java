@@ -21,12 +21,14 @@ import static com.solarwinds.joboe.core.util.HostInfoUtils.getHostId;
 import static com.solarwinds.joboe.core.util.ServerHostInfoReader.setIfNotNull;
 
 import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
 import com.solarwinds.joboe.config.ConfigManager;
 import com.solarwinds.joboe.config.ConfigProperty;
 import com.solarwinds.joboe.config.ProxyConfig;
 import com.solarwinds.joboe.core.BsonBufferException;
 import com.solarwinds.joboe.core.Event;
 import com.solarwinds.joboe.core.HostId;
+import com.solarwinds.joboe.core.rpc.AsyncProtocolClient;
 import com.solarwinds.joboe.core.rpc.ClientException;
 import com.solarwinds.joboe.core.rpc.ClientFatalException;
 import com.solarwinds.joboe.core.rpc.ClientRecoverableException;
@@ -48,6 +50,7 @@ import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
 import io.grpc.netty.GrpcSslContexts;
 import io.grpc.netty.NettyChannelBuilder;
+import io.grpc.stub.StreamObserver;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.URL;
@@ -55,6 +58,7 @@ import java.security.GeneralSecurityException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import javax.net.ssl.SSLException;
 import javax.net.ssl.TrustManagerFactory;
@@ -64,9 +68,10 @@ import javax.net.ssl.TrustManagerFactory;
  *
  * <p>Wraps the gRPC client generated from the collector.proto definition
  */
-public class GrpcClient implements ProtocolClient {
+public class GrpcClient implements AsyncProtocolClient {
   private static final Logger logger = LoggerFactory.getLogger();
   private final TraceCollectorGrpc.TraceCollectorBlockingStub client;
+  private final TraceCollectorGrpc.TraceCollectorStub asyncClient;
   private final GrpcHostIdManager hostIdManager = new GrpcHostIdManager();
 
   private static final int INITIAL_MESSAGE_SIZE = 64 * 1024; // 64 kB
@@ -75,11 +80,21 @@ public class GrpcClient implements ProtocolClient {
 
   GrpcClient(TraceCollectorGrpc.TraceCollectorBlockingStub blockingStub) {
     this.client = blockingStub;
+    this.asyncClient = newAsyncStub(blockingStub);
     Integer configuredDeadLine =
         (Integer) ConfigManager.getConfig(ConfigProperty.AGENT_COLLECTOR_TIMEOUT);
     this.deadlineSeconds = configuredDeadLine == null ? 10 : configuredDeadLine;
   }
 
+  /** Creates an async stub on the same channel and with the same compression as blocking stub */
+  private static TraceCollectorGrpc.TraceCollectorStub newAsyncStub(
+      TraceCollectorGrpc.TraceCollectorBlockingStub blockingStub) {
+    TraceCollectorGrpc.TraceCollectorStub stub =
+        TraceCollectorGrpc.newStub(blockingStub.getChannel());
+    String compressor = blockingStub.getCallOptions().getCompressor();
+    return compressor != null ? stub.withCompression(compressor) : stub;
+  }
+
   @Override
   public void shutdown() {
     if (client != null && client.getChannel() instanceof ManagedChannel) {
@@ -104,6 +119,23 @@ public class GrpcClient implements ProtocolClient {
     return postInBatch(serviceKey, messages, KEY_VALUE_MAP_SERIALIZER, POST_STATUS_ACTION);
   }
 
+  @Override
+  public CompletableFuture<Result> doPostEventsAsync(String serviceKey, List<Event> events) {
+    return postInBatchAsync(serviceKey, events, EVENT_SERIALIZER, POST_EVENTS_ACTION);
+  }
+
+  @Override
+  public CompletableFuture<Result> doPostMetricsAsync(
+      String serviceKey, List<Map<String, Object>> messages) {
+    return postInBatchAsync(serviceKey, messages, KEY_VALUE_MAP_SERIALIZER, POST_METRICS_ACTION);
+  }
+
+  @Override
+  public CompletableFuture<Result> doPostStatusAsync(
+      String serviceKey, List<Map<String, Object>> messages) {
+    return postInBatchAsync(serviceKey, messages, KEY_VALUE_MAP_SERIALIZER, POST_STATUS_ACTION);
+  }
+
   @Override
   public SettingsResult doGetSettings(String serviceKey, String version) throws ClientException {
     // For getSettings call, we decided to fill in `hostname` only for `HostID` for consistency with
@@ -139,6 +171,65 @@ public class GrpcClient implements ProtocolClient {
   private <T> Result postInBatch(
       String serviceKey, List<T> items, Serializer<T> serializer, PostAction postAction)
       throws ClientException {
+    Collector.MessageResult resultMessage = null;
+    for (List<ByteString> itemsAsByteString : serializeByCalls(items, serializer, postAction)) {
+      Collector.MessageRequest request = buildRequest(serviceKey, itemsAsByteString, postAction);
+      try {
+        resultMessage =
+            postAction.post(client.withDeadlineAfter(deadlineSeconds, TimeUnit.SECONDS), request);
+      } catch (StatusRuntimeException e) {
+        throw toClientException(e);
+      }
+    }
+
+    if (resultMessage == null) {
+      return new Result(null, null, null);
+    }
+
+    return toResult(resultMessage);
+  }
+
+  /**
+   * Same as {@link #postInBatch(String, List, Serializer, PostAction)} but all the calls of the
+   * batch are in flight at the same time, and the calling thread is not blocked on any of them
+   *
+   * @return the first non OK result of the calls in order, otherwise the result of the last call
+   */
+  private <T> CompletableFuture<Result> postInBatchAsync(
+      String serviceKey, List<T> items, Serializer<T> serializer, PostAction postAction) {
+    List<CompletableFuture<Collector.MessageResult>> calls = new ArrayList<>();
+    try {
+      for (List<ByteString> itemsAsByteString : serializeByCalls(items, serializer, postAction)) {
+        Collector.MessageRequest request = buildRequest(serviceKey, itemsAsByteString, postAction);
+        MessageResultObserver observer = new MessageResultObserver();
+        postAction.postAsync(
+            asyncClient.withDeadlineAfter(deadlineSeconds, TimeUnit.SECONDS), request, observer);
+        calls.add(observer.result);
+      }
+    } catch (ClientException e) {
+      CompletableFuture<Result> failed = new CompletableFuture<>();
+      failed.completeExceptionally(e);
+      return failed;
+    }
+
+    return CompletableFuture.allOf(calls.toArray(new CompletableFuture<?>[0]))
+        .thenApply(
+            ignored -> {
+              Collector.MessageResult resultMessage = null;
+              for (CompletableFuture<Collector.MessageResult> call : calls) {
+                resultMessage = call.join();
+                if (resultMessage.getResult() != Collector.ResultCode.OK) {
+                  break;
+                }
+              }
+              return toResult(resultMessage);
+            });
+  }
+
+  /** Serializes the items and splits them into calls of at most {@link #MAX_CALL_SIZE} */
+  private static <T> List<List<ByteString>> serializeByCalls(
+      List<T> items, Serializer<T> serializer, PostAction postAction)
+      throws ClientFatalException {
     List<List<ByteString>> itemsByCalls = new ArrayList<List<ByteString>>();
     List<ByteString> byteStrings = new ArrayList<ByteString>();
     itemsByCalls.add(byteStrings);
@@ -167,51 +258,72 @@ public class GrpcClient implements ProtocolClient {
         throw new ClientFatalException(e);
       }
     }
+    return itemsByCalls;
+  }
 
-    Collector.MessageResult resultMessage = null;
-    for (List<ByteString> itemsAsByteString : itemsByCalls) {
-      Collector.HostID hostId = hostIdManager.resolveGrpcHostId();
-      Collector.MessageRequest.Builder builder =
-          Collector.MessageRequest.newBuilder()
-              .setApiKey(serviceKey)
-              .setIdentity(hostId)
-              .setEncoding(Collector.EncodingType.BSON);
-      logger.debug(
-          () ->
-              postAction.getDescription()
-                  + " "
-                  + itemsAsByteString.size()
-                  + " item(s) using gRPC client hostId="
-                  + hostId);
-      try {
-        builder.addAllMessages(itemsAsByteString);
-        resultMessage =
-            postAction.post(
-                client.withDeadlineAfter(deadlineSeconds, TimeUnit.SECONDS), builder.build());
-      } catch (StatusRuntimeException e) {
-        if (e.getStatus().getCode() == Status.RESOURCE_EXHAUSTED.getCode()) {
-          throw new ClientFatalException(
-              "gRPC Operation failed : [post events] status ["
-                  + e.getStatus()
-                  + "]. This is not recoverable due to exhausted resource.",
-              e);
-        } else {
-          throw new ClientRecoverableException(
-              "gRPC Operation failed : [post events] status [" + e.getStatus() + "]", e);
-        }
-      }
-    }
-
-    if (resultMessage == null) {
-      return new Result(null, null, null);
-    }
+  private Collector.MessageRequest buildRequest(
+      String serviceKey, List<ByteString> itemsAsByteString, PostAction postAction) {
+    Collector.HostID hostId = hostIdManager.resolveGrpcHostId();
+    logger.debug(
+        () ->
+            postAction.getDescription()
+                + " "
+                + itemsAsByteString.size()
+                + " item(s) using gRPC client hostId="
+                + hostId);
+    return Collector.MessageRequest.newBuilder()
+        .setApiKey(serviceKey)
+        .setIdentity(hostId)
+        .setEncoding(Collector.EncodingType.BSON)
+        .addAllMessages(itemsAsByteString)
+        .build();
+  }
 
+  private static Result toResult(Collector.MessageResult resultMessage) {
     return new Result(
         ResultCode.valueOf(resultMessage.getResult().name()),
         resultMessage.getArg(),
         resultMessage.getWarning());
   }
 
+  private static ClientException toClientException(StatusRuntimeException e) {
+    if (e.getStatus().getCode() == Status.RESOURCE_EXHAUSTED.getCode()) {
+      return new ClientFatalException(
+          "gRPC Operation failed : [post events] status ["
+              + e.getStatus()
+              + "]. This is not recoverable due to exhausted resource.",
+          e);
+    } else {
+      return new ClientRecoverableException(
+          "gRPC Operation failed : [post events] status [" + e.getStatus() + "]", e);
+    }
+  }
+
+  /** Completes a future with the response of an async unary call */
+  private static class MessageResultObserver implements StreamObserver<Collector.MessageResult> {
+    private final CompletableFuture<Collector.MessageResult> result = new CompletableFuture<>();
+    private Collector.MessageResult value;
+
+    @Override
+    public void onNext(Collector.MessageResult value) {
+      this.value = value;
+    }
+
+    @Override
+    public void onError(Throwable t) {
+      result.completeExceptionally(
+          toClientException(
+              t instanceof StatusRuntimeException
+                  ? (StatusRuntimeException) t
+                  : Status.fromThrowable(t).asRuntimeException()));
+    }
+
+    @Override
+    public void onCompleted() {
+      result.complete(value);
+    }
+  }
+
   interface Serializer<T> {
     ByteString serialize(T item) throws BsonBufferException;
   }
@@ -222,6 +334,11 @@ public class GrpcClient implements ProtocolClient {
         Collector.MessageRequest messageRequest)
         throws StatusRuntimeException;
 
+    void postAsync(
+        TraceCollectorGrpc.TraceCollectorStub client,
+        Collector.MessageRequest messageRequest,
+        StreamObserver<Collector.MessageResult> responseObserver);
+
     String getDescription();
   }
 
@@ -230,8 +347,10 @@ public class GrpcClient implements ProtocolClient {
           ByteString.copyFrom(
               BsonUtils.convertMapToBson(item, INITIAL_MESSAGE_SIZE, MAX_MESSAGE_SIZE));
 
+  // the event buffer is owned by the event until released by the reporter after the call completes,
+  // so it can be wrapped without copying
   private static final Serializer<Event> EVENT_SERIALIZER =
-      event -> ByteString.copyFrom(event.toBytes());
+      event -> UnsafeByteOperations.unsafeWrap(event.toByteBuffer());
 
   private static final PostAction POST_EVENTS_ACTION =
       new PostAction() {
@@ -242,6 +361,14 @@ public class GrpcClient implements ProtocolClient {
           return client.postEvents(request);
         }
 
+        @Override
+        public void postAsync(
+            TraceCollectorGrpc.TraceCollectorStub client,
+            Collector.MessageRequest request,
+            StreamObserver<Collector.MessageResult> responseObserver) {
+          client.postEvents(request, responseObserver);
+        }
+
         @Override
         public String getDescription() {
           return "Post Events";
@@ -257,6 +384,14 @@ public class GrpcClient implements ProtocolClient {
           return client.postStatus(request);
         }
 
+        @Override
+        public void postAsync(
+            TraceCollectorGrpc.TraceCollectorStub client,
+            Collector.MessageRequest request,
+            StreamObserver<Collector.MessageResult> responseObserver) {
+          client.postStatus(request, responseObserver);
+        }
+
         @Override
         public String getDescription() {
           return "Post Status Message";
@@ -272,6 +407,14 @@ public class GrpcClient implements ProtocolClient {
           return client.postMetrics(request);
         }
 
+        @Override
+        public void postAsync(
+            TraceCollectorGrpc.TraceCollectorStub client,
+            Collector.MessageRequest request,
+            StreamObserver<Collector.MessageResult> responseObserver) {
+          client.postMetrics(request, responseObserver);
+        }
+
         @Override
         public String getDescription() {
           return "Post Metrics";
@@ -284,6 +427,8 @@ public class GrpcClient implements ProtocolClient {
         (ProxyConfig) ConfigManager.getConfig(ConfigProperty.AGENT_PROXY);
     private static final String compression;
     private static final String DEFAULT_COMPRESSION = "gzip";
+    private final boolean async =
+        ConfigManager.getConfigOptional(ConfigProperty.AGENT_GRPC_ASYNC_CLIENT, false);
 
     static {
       String compressionString =
@@ -354,6 +499,11 @@ public class GrpcClient implements ProtocolClient {
 
       return new GrpcClient(stub);
     }
+
+    @Override
+    public boolean isAsync() {
+      return async;
+    }
   }
 
   private static class GrpcHostIdManager {
@@ -364,7 +514,7 @@ public class GrpcClient implements ProtocolClient {
 
     private GrpcHostIdManager() {}
 
-    private Collector.HostID resolveGrpcHostId() {
+    private synchronized Collector.HostID resolveGrpcHostId() {
       HostId hostId = getHostId();
       boolean loadGrpcHostId;
       if (hostId == localHostId || hostId.equals(localHostId)) {
@@ -381,7 +531,7 @@ public class GrpcClient implements ProtocolClient {
       return grpcHostId;
     }
 
-    private Collector.HostID resolveGrpcHostnameOnlyHostId() {
+    private synchronized Collector.HostID resolveGrpcHostnameOnlyHostId() {
       String hostname = HostInfoUtils.getHostName();
       boolean loadGrpcHostId;
       if (hostname.equals(localHostname)) {
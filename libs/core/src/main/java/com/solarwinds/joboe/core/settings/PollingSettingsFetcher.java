@@ -45,7 +45,7 @@ public class PollingSettingsFetcher implements SettingsFetcher {
 
   private final ExecutorService executorService =
       Executors.newSingleThreadExecutor(DaemonThreadFactory.newInstance("poll-settings"));
-  private Settings currentSettings;
+  private volatile Settings currentSettings;
 
   private SettingsListener listener;
   private final CountDownLatch firstTryLatch = new CountDownLatch(1);
@@ -63,12 +63,16 @@ public class PollingSettingsFetcher implements SettingsFetcher {
 
   @Override
   public Settings getSettings() {
-    synchronized (this) {
-      if (isExpired(currentSettings)) {
-        currentSettings = null;
+    Settings settings = currentSettings;
+    if (isExpired(settings)) {
+      synchronized (this) {
+        if (currentSettings == settings) { // do not discard settings refreshed in the meantime
+          currentSettings = null;
+        }
       }
+      return null;
     }
-    return currentSettings;
+    return settings;
   }
 
   private boolean isExpired(Settings settings) {
@@ -128,7 +132,7 @@ public class PollingSettingsFetcher implements SettingsFetcher {
               }
 
               if (newSettings != null) {
-                synchronized (this) {
+                synchronized (PollingSettingsFetcher.this) {
                   currentSettings = newSettings;
                 }
 
@@ -33,12 +33,22 @@ class AtomicEventReporterStatsTest {
     tested.incrementSentCount(1);
     tested.setQueueCount(1);
 
-    EventReporterStats expected = new EventReporterStats(1, 1, 1, 1, 1);
+    EventReporterStats expected = new EventReporterStats(1, 1, 1, 1, 1, 0, 0, 0);
     EventReporterStats actual = tested.consumeStats();
     assertEquals(expected, actual);
 
-    expected = new EventReporterStats(0, 0, 0, 10, 0);
+    expected = new EventReporterStats(0, 0, 0, 10, 0, 0, 0, 0);
     actual = tested.consumeStats();
     assertEquals(expected, actual);
   }
+
+  @Test
+  void testConsumeOverflowStatsByPolicy() {
+    tested.incrementOverflowedCount(PipelinedEventReporter.OverflowPolicy.DROP_NEWEST, 1);
+    tested.incrementOverflowedCount(PipelinedEventReporter.OverflowPolicy.DROP_OLDEST, 2);
+    tested.incrementOverflowedCount(PipelinedEventReporter.OverflowPolicy.SAMPLE_DOWN, 3);
+
+    EventReporterStats expected = new EventReporterStats(0, 6, 0, 10, 0, 1, 2, 3);
+    assertEquals(expected, tested.consumeStats());
+  }
 }
@@ -0,0 +1,77 @@
+/*
+ * © SolarWinds Worldwide, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.solarwinds.joboe.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+class EventBufferPoolTest {
+  private final EventBufferPool tested = new EventBufferPool(256, 4096, 1024);
+
+  @Test
+  void acquiresSizeClassArrays() {
+    assertEquals(256, tested.acquire(0).length);
+    assertEquals(256, tested.acquire(256).length);
+    assertEquals(512, tested.acquire(257).length);
+    assertEquals(4096, tested.acquire(4096).length);
+    assertEquals(4097, tested.acquire(4097).length); // beyond the largest size class
+
+    EventBufferPool.Stats stats = tested.consumeStats();
+    assertEquals(0, stats.getHitCount());
+    assertEquals(5, stats.getMissCount());
+  }
+
+  @Test
+  void reusesReleasedArrays() {
+    byte[] buffer = tested.acquire(300);
+    tested.release(buffer);
+
+    assertSame(buffer, tested.acquire(500));
+    assertNotSame(buffer, tested.acquire(500));
+
+    EventBufferPool.Stats stats = tested.consumeStats();
+    assertEquals(1, stats.getHitCount());
+    assertEquals(2, stats.getMissCount());
+    assertEquals(1.0 / 3, stats.getHitRate(), 0.0001);
+    assertEquals(0, tested.consumeStats().getHitRate());
+  }
+
+  @Test
+  void retainsBoundedArrays() {
+    // 1024 bytes retained per size class, so at most 2 arrays of 512 bytes
+    byte[][] buffers = {tested.acquire(512), tested.acquire(512), tested.acquire(512)};
+    for (byte[] buffer : buffers) {
+      tested.release(buffer);
+    }
+    tested.release(new byte[300]); // not from the pool
+    tested.release(tested.acquire(4097));
+    tested.consumeStats();
+
+    assertSame(buffers[0], tested.acquire(512));
+    assertSame(buffers[1], tested.acquire(512));
+    assertNotSame(buffers[2], tested.acquire(512));
+    assertEquals(256, tested.acquire(1).length);
+    assertEquals(4097, tested.acquire(4097).length);
+
+    EventBufferPool.Stats stats = tested.consumeStats();
+    assertEquals(2, stats.getHitCount());
+    assertEquals(3, stats.getMissCount());
+  }
+}
@@ -24,6 +24,7 @@ import static com.solarwinds.joboe.core.Constants.XTR_PROCESS_ID_KEY;
 import static com.solarwinds.joboe.core.Constants.XTR_THREAD_ID_KEY;
 import static com.solarwinds.joboe.core.Constants.XTR_TIMESTAMP_U_KEY;
 import static com.solarwinds.joboe.core.Constants.XTR_XTRACE;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
@@ -539,4 +540,22 @@ public class EventImplTest {
         "2BA6A6D97A748BFC9F91A4DC46A0D15BBB00000000B6968E14AC09A25A00",
         EventImpl.w3cContextToXtrace("00-a6a6d97a748bfc9f91a4dc46a0d15bbb-b6968e14ac09a25a-00"));
   }
+
+  @Test
+  public void testEncodedEvent() throws Exception {
+    Metadata md = new Metadata();
+    md.randomize(true);
+    EventImpl event = new EventImpl(md, true);
+    event.addInfo("Layer", "encoded", "Label", "entry");
+    byte[] expected = event.toBytes();
+
+    event.encode();
+    assertArrayEquals(expected, event.toBytes());
+    ByteBuffer encoded = event.toByteBuffer();
+    assertEquals(expected.length, encoded.remaining());
+    assertEquals(ByteBuffer.wrap(expected), encoded);
+
+    event.release();
+    assertArrayEquals(expected, event.toBytes()); // encoded again after release
+  }
 }
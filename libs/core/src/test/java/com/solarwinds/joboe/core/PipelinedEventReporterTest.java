@@ -0,0 +1,149 @@
+/*
+ * © SolarWinds Worldwide, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.solarwinds.joboe.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.solarwinds.joboe.core.PipelinedEventReporter.OverflowPolicy;
+import com.solarwinds.joboe.core.rpc.Client;
+import com.solarwinds.joboe.core.rpc.Result;
+import com.solarwinds.joboe.core.rpc.ResultCode;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class PipelinedEventReporterTest {
+
+  @Mock private Client clientMock;
+
+  private final Event event = mock(Event.class);
+
+  @Test
+  void testSendAndClose() throws Exception {
+    when(clientMock.postEvents(anyList(), any()))
+        .thenReturn(CompletableFuture.completedFuture(new Result(ResultCode.OK, "", "")));
+    when(clientMock.getStatus()).thenReturn(Client.Status.OK);
+
+    PipelinedEventReporter tested =
+        new PipelinedEventReporter(clientMock, 2, OverflowPolicy.DROP_NEWEST);
+    for (int i = 0; i < 100; i++) {
+      tested.send(event);
+    }
+    tested.close();
+
+    EventReporterStats stats = tested.consumeStats();
+    assertEquals(100, stats.getSentCount());
+    assertEquals(100, stats.getProcessedCount());
+    assertEquals(0, stats.getOverflowedCount());
+  }
+
+  @Test
+  void testDropNewestWhenSendWindowIsFull() throws Exception {
+    CompletableFuture<Result> pending = new CompletableFuture<>();
+    when(clientMock.postEvents(anyList(), any())).thenReturn(pending);
+    when(clientMock.getStatus()).thenReturn(Client.Status.OK);
+
+    PipelinedEventReporter tested =
+        new PipelinedEventReporter(clientMock, 1, OverflowPolicy.DROP_NEWEST);
+    int rejected = 0;
+    for (int i = 0; i < QueuingEventReporter.QUEUE_CAPACITY * 2; i++) {
+      try {
+        tested.send(event);
+      } catch (EventReporterQueueFullException e) {
+        rejected++;
+      }
+    }
+    pending.complete(new Result(ResultCode.OK, "", ""));
+    tested.close();
+
+    EventReporterStats stats = tested.consumeStats();
+    assertTrue(rejected > 0);
+    assertEquals(rejected, stats.getOverflowedCount());
+    assertEquals(rejected, stats.getDroppedNewestCount());
+    assertEquals(QueuingEventReporter.QUEUE_CAPACITY * 2 - rejected, stats.getSentCount());
+    assertEquals(QueuingEventReporter.QUEUE_CAPACITY * 2, stats.getProcessedCount());
+  }
+
+  @Test
+  void testDropOldestWhenSendWindowIsFull() throws Exception {
+    CompletableFuture<Result> pending = new CompletableFuture<>();
+    when(clientMock.postEvents(anyList(), any())).thenReturn(pending);
+    when(clientMock.getStatus()).thenReturn(Client.Status.OK);
+
+    PipelinedEventReporter tested =
+        new PipelinedEventReporter(clientMock, 1, OverflowPolicy.DROP_OLDEST);
+    for (int i = 0; i < QueuingEventReporter.QUEUE_CAPACITY * 2; i++) {
+      tested.send(event); // never rejects
+    }
+    pending.complete(new Result(ResultCode.OK, "", ""));
+    tested.close();
+
+    EventReporterStats stats = tested.consumeStats();
+    assertTrue(stats.getDroppedOldestCount() > 0);
+    assertEquals(stats.getDroppedOldestCount(), stats.getOverflowedCount());
+    assertEquals(
+        QueuingEventReporter.QUEUE_CAPACITY * 2,
+        stats.getSentCount() + stats.getOverflowedCount());
+  }
+
+  @Test
+  void testSampleDownWhenSendWindowIsFull() throws Exception {
+    CompletableFuture<Result> pending = new CompletableFuture<>();
+    when(clientMock.postEvents(anyList(), any())).thenReturn(pending);
+    when(clientMock.getStatus()).thenReturn(Client.Status.OK);
+
+    PipelinedEventReporter tested =
+        new PipelinedEventReporter(clientMock, 1, OverflowPolicy.SAMPLE_DOWN);
+    int rejected = 0;
+    for (int i = 0; i < QueuingEventReporter.QUEUE_CAPACITY * 2; i++) {
+      try {
+        tested.send(event);
+      } catch (EventReporterQueueFullException e) {
+        rejected++;
+      }
+    }
+    pending.complete(new Result(ResultCode.OK, "", ""));
+    tested.close();
+
+    EventReporterStats stats = tested.consumeStats();
+    assertTrue(rejected > 0);
+    assertEquals(rejected, stats.getOverflowedCount());
+    assertEquals(rejected, stats.getSampledDownCount());
+    assertEquals(rejected, stats.getOverflowedCount(OverflowPolicy.SAMPLE_DOWN));
+    assertEquals(0, stats.getDroppedNewestCount());
+    assertEquals(QueuingEventReporter.QUEUE_CAPACITY * 2 - rejected, stats.getSentCount());
+    assertEquals(QueuingEventReporter.QUEUE_CAPACITY * 2, stats.getProcessedCount());
+  }
+
+  @Test
+  void testOverflowPolicyFromConfigValue() {
+    assertEquals(OverflowPolicy.DROP_NEWEST, OverflowPolicy.fromConfigValue("drop-newest"));
+    assertEquals(OverflowPolicy.DROP_OLDEST, OverflowPolicy.fromConfigValue("DROP-OLDEST"));
+    assertEquals(OverflowPolicy.SAMPLE_DOWN, OverflowPolicy.fromConfigValue("sample-down"));
+    assertNull(OverflowPolicy.fromConfigValue("unknown"));
+    assertNull(OverflowPolicy.fromConfigValue(null));
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * © SolarWinds Worldwide, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.solarwinds.joboe.core;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.solarwinds.joboe.core.rpc.Client;
+import com.solarwinds.joboe.core.rpc.Result;
+import com.solarwinds.joboe.core.rpc.ResultCode;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class PostedEventsTest {
+
+  @Mock private Client clientMock;
+
+  @Mock private Client.Callback<Result> callbackMock;
+
+  private final Event event = mock(Event.class);
+
+  @Test
+  void testReleaseIfDoneWhenRequestCompleted() throws Exception {
+    when(clientMock.postEvents(anyList(), any()))
+        .thenReturn(CompletableFuture.completedFuture(new Result(ResultCode.OK, "", "")));
+
+    PostedEvents tested = new PostedEvents(Collections.singletonList(event), callbackMock);
+    tested.post(clientMock);
+    tested.releaseIfDone();
+
+    verify(event).release();
+  }
+
+  @Test
+  void testReleaseIfDoneWhenNotPosted() {
+    PostedEvents tested = new PostedEvents(Collections.singletonList(event), callbackMock);
+    tested.releaseIfDone();
+
+    verify(event).release();
+  }
+
+  @Test
+  void testInFlightRequestReleasesOnCompletion() throws Exception {
+    when(clientMock.postEvents(anyList(), any())).thenReturn(new CompletableFuture<>());
+
+    PostedEvents tested = new PostedEvents(Collections.singletonList(event), callbackMock);
+    tested.post(clientMock);
+    tested.releaseIfDone(); // e.g. the sender got interrupted while waiting on the request
+    verify(event, never()).release();
+
+    Result result = new Result(ResultCode.OK, "", "");
+    tested.complete(result);
+    verify(callbackMock).complete(result);
+    verify(event).release();
+  }
+
+  @Test
+  void testReleasesOnlyOnce() throws Exception {
+    when(clientMock.postEvents(anyList(), any()))
+        .thenReturn(CompletableFuture.completedFuture(new Result(ResultCode.OK, "", "")));
+
+    PostedEvents tested = new PostedEvents(Collections.singletonList(event), callbackMock);
+    tested.post(clientMock);
+    tested.fail(new Exception("test"));
+    tested.releaseIfDone();
+
+    verify(event, times(1)).release();
+  }
+}
@@ -17,6 +17,7 @@
 package com.solarwinds.joboe.core;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 import com.solarwinds.joboe.core.rpc.Client;
@@ -59,4 +60,18 @@ public class ReporterFactoryTest {
   void testCreateQueuingEventReporter() {
     assertNotNull(tested.createQueuingEventReporter(clientMock));
   }
+
+  @Test
+  void testCreatePipelinedEventReporter() {
+    PipelinedEventReporter reporter =
+        tested.createPipelinedEventReporter(
+            clientMock, 8, PipelinedEventReporter.OverflowPolicy.SAMPLE_DOWN);
+    assertEquals(8, reporter.getSendWindow());
+    assertEquals(PipelinedEventReporter.OverflowPolicy.SAMPLE_DOWN, reporter.getOverflowPolicy());
+  }
+
+  @Test
+  void testCreateEventReporterDefaultsToQueuing() {
+    assertInstanceOf(QueuingEventReporter.class, tested.createEventReporter(clientMock));
+  }
 }
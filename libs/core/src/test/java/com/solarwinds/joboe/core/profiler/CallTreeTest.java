@@ -0,0 +1,119 @@
+/*
+ * © SolarWinds Worldwide, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.solarwinds.joboe.core.profiler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class CallTreeTest {
+  private static final StackTraceElement ROOT =
+      new StackTraceElement("com.example.Root", "run", "Root.java", 10);
+  private static final StackTraceElement FIRST =
+      new StackTraceElement("com.example.First", "call", "First.java", 20);
+  private static final StackTraceElement SECOND =
+      new StackTraceElement("com.example.Second", "call", "Second.java", 30);
+
+  @Test
+  void countSnapshotsPerStackPath() {
+    CallTree tested = new CallTree(10);
+    tested.add(new StackTraceElement[] {FIRST, ROOT});
+    tested.add(new StackTraceElement[] {FIRST, ROOT});
+    tested.add(new StackTraceElement[] {SECOND, FIRST, ROOT});
+    tested.add(new StackTraceElement[] {ROOT});
+
+    assertEquals(4, tested.getSampleCount());
+    assertEquals(3, tested.getNodeCount());
+    assertEquals(0, tested.getTruncatedSampleCount());
+
+    List<Map<String, Object>> nodes = tested.toNodes(null, new ArrayList<>());
+    assertEquals(3, nodes.size());
+    assertNode(nodes.get(0), ROOT, -1, 4, 1);
+    assertNode(nodes.get(1), FIRST, 0, 3, 2);
+    assertNode(nodes.get(2), SECOND, 1, 1, 1);
+  }
+
+  @Test
+  void countSnapshotsOnDeepestExistingNodeGivenTreeIsFull() {
+    CallTree tested = new CallTree(2);
+    tested.add(new StackTraceElement[] {FIRST, ROOT});
+    tested.add(new StackTraceElement[] {SECOND, FIRST, ROOT});
+
+    assertEquals(2, tested.getSampleCount());
+    assertEquals(2, tested.getNodeCount());
+    assertEquals(1, tested.getTruncatedSampleCount());
+
+    List<Map<String, Object>> nodes = tested.toNodes(null, new ArrayList<>());
+    assertEquals(2, nodes.size());
+    assertNode(nodes.get(1), FIRST, 0, 2, 2);
+  }
+
+  @Test
+  void encodeFramesWithDictionary() {
+    CallTree tested = new CallTree(10);
+    tested.add(new StackTraceElement[] {FIRST, ROOT});
+    tested.add(new StackTraceElement[] {ROOT});
+
+    FrameDictionary frameDictionary = new FrameDictionary();
+    frameDictionary.encode(ROOT, new ArrayList<>());
+    List<Map<String, Object>> definitions = new ArrayList<>();
+    List<Map<String, Object>> nodes = tested.toNodes(frameDictionary, definitions);
+
+    assertEquals(0, nodes.get(0).get("I"));
+    assertNull(nodes.get(0).get("C"));
+    assertEquals(1, nodes.get(1).get("I"));
+    assertEquals(0, nodes.get(1).get("P"));
+
+    assertEquals(1, definitions.size());
+    assertEquals(1, definitions.get(0).get("I"));
+    assertEquals("com.example.First", definitions.get(0).get("C"));
+  }
+
+  @Test
+  void flattenNodesAfterTheirParent() {
+    CallTree tested = new CallTree(10);
+    StackTraceElement other = new StackTraceElement("com.example.Other", "run", null, -1);
+    tested.add(new StackTraceElement[] {SECOND, FIRST, ROOT});
+    tested.add(new StackTraceElement[] {SECOND, ROOT});
+    tested.add(new StackTraceElement[] {other});
+
+    List<Map<String, Object>> nodes = tested.toNodes(null, new ArrayList<>());
+    assertEquals(5, nodes.size());
+    for (int i = 0; i < nodes.size(); i++) {
+      int parentIndex = (Integer) nodes.get(i).get("P");
+      assertTrue(parentIndex < i);
+    }
+  }
+
+  private static void assertNode(
+      Map<String, Object> node,
+      StackTraceElement frame,
+      int parentIndex,
+      int sampleCount,
+      int selfSampleCount) {
+    assertEquals(frame.getClassName(), node.get("C"));
+    assertEquals(frame.getMethodName(), node.get("M"));
+    assertEquals(parentIndex, node.get("P"));
+    assertEquals(sampleCount, node.get("N"));
+    assertEquals(selfSampleCount, node.get("S"));
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * © SolarWinds Worldwide, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.solarwinds.joboe.core.profiler;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class FrameDictionaryTest {
+  private final FrameDictionary tested = new FrameDictionary();
+
+  @Test
+  void defineEachFrameOnce() {
+    StackTraceElement frame = new StackTraceElement("com.example.Foo", "foo", "Foo.java", 1);
+    StackTraceElement other = new StackTraceElement("com.example.Bar", "bar", "Bar.java", 2);
+    List<Map<String, Object>> definitions = new ArrayList<>();
+
+    assertEquals(
+        Arrays.asList(0, 1, 0),
+        tested.encode(new StackTraceElement[] {frame, other, frame}, definitions));
+    assertEquals(2, definitions.size());
+    assertEquals(0, definitions.get(0).get("I"));
+    assertEquals("com.example.Foo", definitions.get(0).get("C"));
+    assertEquals(1, definitions.get(1).get("I"));
+
+    definitions.clear();
+    assertEquals(
+        Collections.singletonList(1), tested.encode(new StackTraceElement[] {other}, definitions));
+    assertTrue(definitions.isEmpty());
+  }
+
+  @Test
+  void defineFramesAgainGivenDictionaryIsFull() {
+    List<Map<String, Object>> definitions = new ArrayList<>();
+    for (int i = 0; i < FrameDictionary.MAX_SIZE; i++) {
+      tested.encode(
+          new StackTraceElement[] {new StackTraceElement("com.example.Foo", "foo" + i, null, i)},
+          definitions);
+    }
+    assertEquals(FrameDictionary.MAX_SIZE, tested.size());
+
+    StackTraceElement frame = new StackTraceElement("com.example.Bar", "bar", "Bar.java", 1);
+    definitions.clear();
+    List<Integer> firstIds = tested.encode(new StackTraceElement[] {frame}, definitions);
+    List<Integer> secondIds = tested.encode(new StackTraceElement[] {frame}, definitions);
+
+    assertEquals(Collections.singletonList(FrameDictionary.MAX_SIZE), firstIds);
+    assertEquals(Collections.singletonList(FrameDictionary.MAX_SIZE + 1), secondIds);
+    assertEquals(2, definitions.size());
+    assertEquals(FrameDictionary.MAX_SIZE, tested.size());
+  }
+
+  @Test
+  void packTimestampsAsLittleEndianLongs() {
+    assertArrayEquals(
+        new byte[] {1, 0, 0, 0, 0, 0, 0, 0, 0, 1, 0, 0, 0, 0, 0, 0},
+        FrameDictionary.pack(Arrays.asList(1L, 256L)));
+    assertEquals(0, FrameDictionary.pack(Collections.emptyList()).length);
+  }
+}
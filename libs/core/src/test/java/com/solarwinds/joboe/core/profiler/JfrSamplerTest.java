@@ -0,0 +1,72 @@
+/*
+ * © SolarWinds Worldwide, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.solarwinds.joboe.core.profiler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class JfrSamplerTest {
+  private static volatile long sink;
+
+  @Test
+  void receiveSamplesOfRunningThread() throws Exception {
+    assumeTrue(JfrSampler.isSupported());
+
+    Thread busyThread = new Thread(JfrSamplerTest::spin, "busy-thread");
+    busyThread.setDaemon(true);
+    busyThread.start();
+
+    CompletableFuture<StackTraceElement[]> sampledStack = new CompletableFuture<>();
+    long before = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+    try (JfrSampler sampler =
+        JfrSampler.start(
+            10,
+            (threadId, stack, timestamp) -> {
+              if (threadId == busyThread.getId() && timestamp >= before) {
+                sampledStack.complete(stack);
+              }
+            })) {
+      assertEquals(10, sampler.getPeriod());
+      StackTraceElement[] stack = sampledStack.get(30, TimeUnit.SECONDS);
+
+      assertEquals(Thread.class.getName(), stack[stack.length - 1].getClassName());
+      boolean spinning = false;
+      for (StackTraceElement frame : stack) {
+        spinning |= "spin".equals(frame.getMethodName());
+      }
+      assertTrue(spinning);
+
+      sampler.setPeriod(20);
+      assertEquals(20, sampler.getPeriod());
+    } finally {
+      busyThread.interrupt();
+    }
+  }
+
+  private static void spin() {
+    long value = 0;
+    while (!Thread.currentThread().isInterrupted()) {
+      value += System.nanoTime() % 7;
+    }
+    sink = value;
+  }
+}
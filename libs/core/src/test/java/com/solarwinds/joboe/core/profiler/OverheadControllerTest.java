@@ -0,0 +1,83 @@
+/*
+ * © SolarWinds Worldwide, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.solarwinds.joboe.core.profiler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class OverheadControllerTest {
+  private static final double BUDGET = 0.01;
+  private static final int BASE_INTERVAL = 20;
+
+  @Test
+  void keepConfiguredIntervalGivenNoBudget() {
+    OverheadController tested = new OverheadController(0, BASE_INTERVAL);
+    tested.update(10_000_000, 10, 10, BASE_INTERVAL);
+
+    assertEquals(BASE_INTERVAL, tested.getInterval());
+    assertEquals(Integer.MAX_VALUE, tested.getThreadLimit());
+    assertTrue(tested.getOverhead() > 0);
+  }
+
+  @Test
+  void keepConfiguredIntervalGivenCyclesWithinBudget() {
+    OverheadController tested = new OverheadController(BUDGET, BASE_INTERVAL);
+    tested.update(10_000, 1, 1, BASE_INTERVAL);
+
+    assertEquals(BASE_INTERVAL, tested.getInterval());
+    assertEquals(Integer.MAX_VALUE, tested.getThreadLimit());
+  }
+
+  @Test
+  void increaseIntervalGivenCyclesOverBudget() {
+    OverheadController tested = new OverheadController(BUDGET, BASE_INTERVAL);
+    // 100 us per thread, sampling 10 threads takes 1 ms which is 1% of 100 ms
+    tested.update(1_000_000, 10, 10, BASE_INTERVAL);
+
+    assertEquals(100, tested.getInterval());
+    assertEquals(Integer.MAX_VALUE, tested.getThreadLimit());
+
+    // the cost per thread is smoothed, the interval gets back to the configured one gradually
+    tested.update(0, 10, 10, BASE_INTERVAL);
+    assertEquals(80, tested.getInterval());
+  }
+
+  @Test
+  void limitThreadsGivenMaxIntervalIsOverBudget() {
+    OverheadController tested = new OverheadController(BUDGET, BASE_INTERVAL);
+    // 100 us per thread, 1% of the max interval of 1 s allows sampling 100 threads
+    tested.update(100_000_000, 1000, 1000, BASE_INTERVAL);
+
+    assertEquals(BASE_INTERVAL * OverheadController.MAX_INTERVAL_MULTIPLIER, tested.getInterval());
+    assertEquals(100, tested.getThreadLimit());
+  }
+
+  @Test
+  void resetIntervalAndDecayOverheadGivenIdle() {
+    OverheadController tested = new OverheadController(BUDGET, BASE_INTERVAL);
+    tested.update(100_000_000, 1000, 1000, BASE_INTERVAL);
+    double overhead = tested.getOverhead();
+
+    tested.idle(BASE_INTERVAL);
+
+    assertEquals(BASE_INTERVAL, tested.getInterval());
+    assertEquals(Integer.MAX_VALUE, tested.getThreadLimit());
+    assertTrue(tested.getOverhead() < overhead);
+  }
+}
@@ -16,6 +16,7 @@
 
 package com.solarwinds.joboe.core.profiler;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
@@ -25,13 +26,18 @@ import com.solarwinds.joboe.core.TestReporter;
 import com.solarwinds.joboe.core.TestReporter.DeserializedEvent;
 import com.solarwinds.joboe.core.profiler.Profiler.Profile;
 import com.solarwinds.joboe.core.util.TestUtils;
+import com.solarwinds.joboe.core.util.TimeUtils;
 import com.solarwinds.joboe.sampling.Metadata;
 import com.solarwinds.joboe.sampling.SamplingConfiguration;
 import com.solarwinds.joboe.sampling.SamplingException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -217,6 +223,289 @@ public class ProfileTest {
     assertNull(profile.getSnapshotTracker(thread));
   }
 
+  @Test
+  @SuppressWarnings("unchecked")
+  void recordSnapshotsOfAllTrackedThreadsInBatch() throws Exception {
+    Metadata.setup(SamplingConfiguration.builder().build());
+    Thread thread = Thread.currentThread();
+    Thread terminatedThread = new Thread(() -> {});
+    terminatedThread.start();
+    terminatedThread.join();
+
+    Profile profile = new Profile(profilerSetting);
+    profile.startProfilingOnThread(
+        thread, new Metadata("00-970026c88092a447d3b2bba3be3be2fc-0c8fc43138df813a-01"));
+    Profile otherProfile = new Profile(profilerSetting);
+    otherProfile.startProfilingOnThread(
+        terminatedThread,
+        new Metadata("00-870026c88092a447d3b2bba3be3be2fc-0c8fc43138df813a-01"));
+
+    Profiler.recordBatched(
+        new ArrayList<>(
+            Profiler.indexTrackedThreads(Arrays.asList(profile, otherProfile)).values()),
+        ManagementFactory.getThreadMXBean());
+    List<DeserializedEvent> events = profilingReporter.getSentEvents();
+
+    // entry and info event of each profile, the terminated thread is recorded with an empty stack
+    assertEquals(4, events.size());
+    StackTraceElement[] stackTrace = thread.getStackTrace();
+    for (DeserializedEvent event : events) {
+      Map<String, Object> entries = event.getSentEntries();
+      if (!"info".equals(entries.get("Label"))) {
+        continue;
+      }
+      int framesCount = (Integer) entries.get("FramesCount");
+      if (Long.valueOf(thread.getId()).equals(entries.get("TID"))) {
+        assertEquals(
+            stackTrace[stackTrace.length - 1].getClassName(),
+            ((Map<String, Map<String, Object>>) entries.get("NewFrames"))
+                .get(String.valueOf(framesCount - 1))
+                .get("C"));
+      } else {
+        assertEquals(terminatedThread.getId(), entries.get("TID"));
+        assertEquals(0, framesCount);
+      }
+    }
+  }
+
+  @Test
+  void recordJfrSamplesOfTrackedThreadsOnly() throws SamplingException {
+    Metadata.setup(SamplingConfiguration.builder().build());
+    Thread thread = Thread.currentThread();
+    Profile profile = new Profile(profilerSetting);
+    profile.startProfilingOnThread(
+        thread, new Metadata("00-970026c88092a447d3b2bba3be3be2fc-0c8fc43138df813a-01"));
+
+    try {
+      Profiler.setTrackedThreads(Profiler.indexTrackedThreads(Collections.singleton(profile)));
+      StackTraceElement[] stackTrace = thread.getStackTrace();
+      long timestamp = TimeUtils.getTimestampMicroSeconds();
+      Profiler.recordSample(thread.getId() + 1, stackTrace, timestamp);
+      assertTrue(profilingReporter.getSentEvents().isEmpty());
+
+      Profiler.recordSample(thread.getId(), stackTrace, timestamp);
+      List<DeserializedEvent> events = profilingReporter.getSentEvents();
+      assertEquals(2, events.size());
+      assertEquals(stackTrace.length, events.get(1).getSentEntries().get("FramesCount"));
+    } finally {
+      Profiler.setTrackedThreads(Collections.emptyMap());
+    }
+  }
+
+  @Test
+  void recordLateJfrSamplesIntoStoppedTracker() throws Exception {
+    Metadata.setup(SamplingConfiguration.builder().build());
+    Thread thread = Thread.currentThread();
+    StackTraceElement[] stackTrace = thread.getStackTrace();
+    Profile profile = new Profile(profilerSetting);
+    profile.startProfilingOnThread(
+        thread, new Metadata("00-970026c88092a447d3b2bba3be3be2fc-0c8fc43138df813a-01"));
+    long startTime = profile.getSnapshotTracker(thread).getStartTime();
+    Profiler.consumeLateSampleCount();
+
+    try {
+      Profiler.setCloseTrackersLate(true);
+      Profiler.setTrackedThreads(Profiler.indexTrackedThreads(Collections.singleton(profile)));
+      // taken before profiling on the thread started
+      Profiler.recordSample(thread.getId(), stackTrace, startTime - 1);
+      assertTrue(profilingReporter.getSentEvents().isEmpty());
+
+      TimeUnit.MILLISECONDS.sleep(2);
+      profile.stopProfilingOnThread(thread);
+
+      // the thread is reused by another trace before the late sample of the first one arrives
+      Profile otherProfile = new Profile(profilerSetting);
+      otherProfile.startProfilingOnThread(
+          thread, new Metadata("00-870026c88092a447d3b2bba3be3be2fc-0c8fc43138df813a-01"));
+      Profiler.setTrackedThreads(Profiler.indexTrackedThreads(Collections.singleton(otherProfile)));
+
+      Profiler.recordSample(thread.getId(), stackTrace, startTime + 1);
+      assertEquals(1, Profiler.consumeLateSampleCount());
+      assertEquals(2, profilingReporter.getSentEvents().size()); // entry and info event
+      assertTrue(profile.isSampled());
+      assertFalse(otherProfile.isSampled());
+
+      Profiler.recordSample(thread.getId(), stackTrace, TimeUtils.getTimestampMicroSeconds());
+      assertEquals(4, profilingReporter.getSentEvents().size());
+      assertTrue(otherProfile.isSampled());
+
+      // the exit of the stopped tracker waits for the grace period
+      Profiler.closeStoppedTrackers(TimeUtils.getTimestampMicroSeconds());
+      assertEquals(4, profilingReporter.getSentEvents().size());
+
+      Profiler.closeStoppedTrackers(Long.MAX_VALUE);
+      List<DeserializedEvent> events = profilingReporter.getSentEvents();
+      assertEquals(5, events.size());
+      assertEquals("exit", events.get(4).getSentEntries().get("Label"));
+
+      // no longer recorded once the tracker is closed
+      Profiler.recordSample(thread.getId(), stackTrace, startTime + 1);
+      assertEquals(0, Profiler.consumeLateSampleCount());
+      assertEquals(5, profilingReporter.getSentEvents().size());
+    } finally {
+      Profiler.setCloseTrackersLate(false);
+      Profiler.setTrackedThreads(Collections.emptyMap());
+      Profiler.closeStoppedTrackers(Long.MAX_VALUE);
+    }
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void reportFrameIdsAndDefineFramesOnceGivenCompactEncoding() throws SamplingException {
+    Metadata.setup(SamplingConfiguration.builder().build());
+    ProfilerSetting compactSetting =
+        new ProfilerSetting(
+            true,
+            Collections.emptySet(),
+            ProfilerSetting.DEFAULT_INTERVAL,
+            ProfilerSetting.DEFAULT_CIRCUIT_BREAKER_DURATION_THRESHOLD,
+            ProfilerSetting.DEFAULT_CIRCUIT_BREAKER_COUNT_THRESHOLD,
+            ProfilerSetting.DEFAULT_SAMPLING_MODE,
+            true,
+            false,
+            ProfilerSetting.DEFAULT_MAX_CALL_TREE_NODES,
+            ProfilerSetting.DEFAULT_OVERHEAD_BUDGET);
+    Thread thread = Thread.currentThread();
+    Profile profile = new Profile(compactSetting);
+    profile.startProfilingOnThread(
+        thread, new Metadata("00-970026c88092a447d3b2bba3be3be2fc-0c8fc43138df813a-01"));
+
+    StackTraceElement root = new StackTraceElement("com.example.Root", "run", "Root.java", 10);
+    StackTraceElement first = new StackTraceElement("com.example.First", "call", "First.java", 20);
+    StackTraceElement second = new StackTraceElement("com.example.Second", "call", null, -1);
+    profile.record(thread, new StackTraceElement[] {first, root}, 2);
+    profile.record(thread, new StackTraceElement[] {second, root}, 3);
+    profile.record(thread, new StackTraceElement[] {second, root}, 4);
+    profile.record(thread, new StackTraceElement[] {first, root}, 5);
+
+    List<DeserializedEvent> events = profilingReporter.getSentEvents();
+    assertEquals(4, events.size());
+
+    Map<String, Object> firstSnapshot = events.get(1).getSentEntries();
+    assertNull(firstSnapshot.get("NewFrames"));
+    assertEquals(0, ((Map<String, Object>) firstSnapshot.get("NewFrameIds")).get("0"));
+    assertEquals(1, ((Map<String, Object>) firstSnapshot.get("NewFrameIds")).get("1"));
+    Map<String, Map<String, Object>> definitions =
+        (Map<String, Map<String, Object>>) firstSnapshot.get("FrameDefinitions");
+    assertEquals(2, definitions.size());
+    assertEquals(0, definitions.get("0").get("I"));
+    assertEquals("com.example.First", definitions.get("0").get("C"));
+    assertEquals("First.java", definitions.get("0").get("F"));
+    assertEquals(20, definitions.get("0").get("L"));
+    assertEquals("call", definitions.get("0").get("M"));
+    assertEquals(1, definitions.get("1").get("I"));
+    assertEquals("com.example.Root", definitions.get("1").get("C"));
+
+    Map<String, Object> secondSnapshot = events.get(2).getSentEntries();
+    assertEquals(1, secondSnapshot.get("FramesExited"));
+    assertEquals(2, ((Map<String, Object>) secondSnapshot.get("NewFrameIds")).get("0"));
+    definitions = (Map<String, Map<String, Object>>) secondSnapshot.get("FrameDefinitions");
+    assertEquals(1, definitions.size());
+    assertEquals(2, definitions.get("0").get("I"));
+    assertEquals("com.example.Second", definitions.get("0").get("C"));
+    assertNull(definitions.get("0").get("F"));
+    assertNull(definitions.get("0").get("L"));
+
+    Map<String, Object> thirdSnapshot = events.get(3).getSentEntries();
+    assertEquals(0, ((Map<String, Object>) thirdSnapshot.get("NewFrameIds")).get("0"));
+    assertNull(thirdSnapshot.get("FrameDefinitions"));
+    assertArrayEquals(
+        FrameDictionary.pack(Collections.singletonList(4L)),
+        (byte[]) thirdSnapshot.get("SnapshotsOmitted"));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void reportCallTreeOnceWhenProfilingStopsGivenAggregation() throws SamplingException {
+    Metadata.setup(SamplingConfiguration.builder().build());
+    ProfilerSetting aggregationSetting =
+        new ProfilerSetting(
+            true,
+            Collections.emptySet(),
+            ProfilerSetting.DEFAULT_INTERVAL,
+            ProfilerSetting.DEFAULT_CIRCUIT_BREAKER_DURATION_THRESHOLD,
+            ProfilerSetting.DEFAULT_CIRCUIT_BREAKER_COUNT_THRESHOLD,
+            ProfilerSetting.DEFAULT_SAMPLING_MODE,
+            false,
+            true,
+            ProfilerSetting.DEFAULT_MAX_CALL_TREE_NODES,
+            ProfilerSetting.DEFAULT_OVERHEAD_BUDGET);
+    Thread thread = Thread.currentThread();
+    Profile profile = new Profile(aggregationSetting);
+    profile.startProfilingOnThread(
+        thread, new Metadata("00-970026c88092a447d3b2bba3be3be2fc-0c8fc43138df813a-01"));
+
+    StackTraceElement root = new StackTraceElement("com.example.Root", "run", "Root.java", 10);
+    StackTraceElement first = new StackTraceElement("com.example.First", "call", "First.java", 20);
+    profile.record(thread, new StackTraceElement[] {first, root}, 2);
+    profile.record(thread, new StackTraceElement[] {root}, 3);
+    profile.record(thread, new StackTraceElement[] {first, root}, 4);
+    assertTrue(profilingReporter.getSentEvents().isEmpty());
+
+    profile.stopProfilingOnThread(thread);
+    assertTrue(profilingReporter.getSentEvents().isEmpty()); // left to the profiler thread
+
+    Profiler.closeStoppedTrackers(TimeUtils.getTimestampMicroSeconds());
+    List<DeserializedEvent> events = profilingReporter.getSentEvents();
+    assertEquals(3, events.size());
+    assertEquals("entry", events.get(0).getSentEntries().get("Label"));
+    assertEquals("exit", events.get(2).getSentEntries().get("Label"));
+
+    Map<String, Object> summary = events.get(1).getSentEntries();
+    assertEquals("info", summary.get("Label"));
+    assertEquals(3, summary.get("SampleCount"));
+    assertEquals(thread.getId(), summary.get("TID"));
+    assertNull(summary.get("NewFrames"));
+    assertNull(summary.get("SamplesTruncated"));
+
+    Map<String, Map<String, Object>> callTree =
+        (Map<String, Map<String, Object>>) summary.get("CallTree");
+    assertEquals(2, callTree.size());
+    assertEquals("com.example.Root", callTree.get("0").get("C"));
+    assertEquals(-1, callTree.get("0").get("P"));
+    assertEquals(3, callTree.get("0").get("N"));
+    assertEquals(1, callTree.get("0").get("S"));
+    assertEquals("com.example.First", callTree.get("1").get("C"));
+    assertEquals(0, callTree.get("1").get("P"));
+    assertEquals(2, callTree.get("1").get("N"));
+  }
+
+  @Test
+  void rotateSampledThreadsGivenThreadLimit() throws SamplingException {
+    Metadata.setup(SamplingConfiguration.builder().build());
+    Profile profile = new Profile(profilerSetting);
+    for (int i = 0; i < 3; i++) {
+      profile.startProfilingOnThread(
+          new Thread(() -> {}),
+          new Metadata("00-970026c88092a447d3b2bba3be3be2fc-0c8fc43138df813a-01"));
+    }
+    List<Profiler.TrackedThread> trackedThreads =
+        new ArrayList<>(Profiler.indexTrackedThreads(Collections.singleton(profile)).values());
+
+    List<Profiler.TrackedThread> sampled = new ArrayList<>();
+    sampled.addAll(Profiler.selectSampledThreads(trackedThreads, 2));
+    sampled.addAll(Profiler.selectSampledThreads(trackedThreads, 2));
+
+    // each thread is sampled before any is sampled again
+    assertEquals(4, sampled.size());
+    assertEquals(3, new HashSet<>(sampled.subList(0, 3)).size());
+    assertEquals(trackedThreads, Profiler.selectSampledThreads(trackedThreads, 3));
+  }
+
+  @Test
+  void consumeSamplingCycleMetrics() {
+    Profiler.consumeSamplingCycleCount();
+    Profiler.consumeSamplingCycleDuration();
+
+    Profiler.recordSamplingCycle(1_500_000);
+    Profiler.recordSamplingCycle(500_000);
+
+    assertEquals(2, Profiler.consumeSamplingCycleCount());
+    assertEquals(2000, Profiler.consumeSamplingCycleDuration());
+    assertEquals(0, Profiler.consumeSamplingCycleCount());
+    assertEquals(0, Profiler.consumeSamplingCycleDuration());
+  }
+
   private void assertNewFrames(
       StackTraceElement[] expectedNewFrames, Map<String, Map<String, Object>> actualNewFrames) {
     for (int i = 0; i < expectedNewFrames.length; i++) {
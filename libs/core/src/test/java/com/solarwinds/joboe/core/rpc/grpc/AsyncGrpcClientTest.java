@@ -0,0 +1,292 @@
+/*
+ * © SolarWinds Worldwide, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.solarwinds.joboe.core.rpc.grpc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import com.solarwinds.joboe.core.rpc.ClientFatalException;
+import com.solarwinds.joboe.core.rpc.ClientRecoverableException;
+import com.solarwinds.joboe.core.rpc.ProtocolClient;
+import com.solarwinds.joboe.core.rpc.ProtocolClientFactory;
+import com.solarwinds.joboe.core.rpc.Result;
+import com.solarwinds.joboe.core.rpc.ResultCode;
+import com.solarwinds.joboe.core.rpc.RpcClient;
+import com.solarwinds.trace.ingestion.proto.Collector;
+import com.solarwinds.trace.ingestion.proto.TraceCollectorGrpc;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AsyncGrpcClientTest {
+  private static final String SERVICE_KEY = "test-key:test-service";
+
+  private final BlockingQueue<PendingCall> pendingCalls = new LinkedBlockingQueue<>();
+  private final List<ManagedChannel> channels = new ArrayList<>();
+  private String serverName;
+  private Server server;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    serverName = InProcessServerBuilder.generateName();
+    server =
+        InProcessServerBuilder.forName(serverName)
+            .maxInboundMessageSize(ProtocolClient.MAX_CALL_SIZE + 1024 * 1024)
+            .addService(new HoldingCollectorService())
+            .build()
+            .start();
+  }
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    for (ManagedChannel channel : channels) {
+      channel.shutdownNow();
+    }
+    server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+  }
+
+  @Test
+  void pipelinesCallsOfBatch() throws Exception {
+    CompletableFuture<Result> result =
+        newGrpcClient().doPostMetricsAsync(SERVICE_KEY, bigMessages(6));
+
+    // 6 messages of 1.5 MB are split into 3 calls, all in flight before any response
+    List<PendingCall> calls = takeCalls(3);
+    assertFalse(result.isDone());
+    assertEquals(2, calls.get(0).request.getMessagesCount());
+
+    // responses in any order, the result is the first non OK one in call order
+    calls.get(2).respond(Collector.ResultCode.LIMIT_EXCEEDED);
+    calls.get(1).respond(Collector.ResultCode.TRY_LATER);
+    assertFalse(result.isDone());
+    calls.get(0).respond(Collector.ResultCode.OK);
+
+    assertEquals(ResultCode.TRY_LATER, result.get(5, TimeUnit.SECONDS).getResultCode());
+    assertNull(pendingCalls.poll());
+  }
+
+  @Test
+  void returnsLastResultIfAllOk() throws Exception {
+    CompletableFuture<Result> result =
+        newGrpcClient().doPostStatusAsync(SERVICE_KEY, bigMessages(3));
+
+    for (PendingCall call : takeCalls(2)) {
+      call.respond(Collector.ResultCode.OK);
+    }
+    assertEquals(ResultCode.OK, result.get(5, TimeUnit.SECONDS).getResultCode());
+  }
+
+  @Test
+  void mapsCallFailures() throws Exception {
+    CompletableFuture<Result> exhausted =
+        newGrpcClient().doPostMetricsAsync(SERVICE_KEY, bigMessages(1));
+    takeCalls(1).get(0).fail(Status.RESOURCE_EXHAUSTED);
+    ExecutionException exception =
+        assertThrows(ExecutionException.class, () -> exhausted.get(5, TimeUnit.SECONDS));
+    assertInstanceOf(ClientFatalException.class, exception.getCause());
+
+    CompletableFuture<Result> unavailable =
+        newGrpcClient().doPostMetricsAsync(SERVICE_KEY, bigMessages(1));
+    takeCalls(1).get(0).fail(Status.UNAVAILABLE);
+    exception = assertThrows(ExecutionException.class, () -> unavailable.get(5, TimeUnit.SECONDS));
+    assertInstanceOf(ClientRecoverableException.class, exception.getCause());
+  }
+
+  @Test
+  void rpcClientRetriesAsyncCalls() throws Exception {
+    AtomicInteger builtClients = new AtomicInteger();
+    RpcClient rpcClient =
+        new RpcClient(
+            "localhost",
+            0,
+            SERVICE_KEY,
+            new RpcClient.RetryParamConstants(10, 10, 3),
+            asyncFactory(builtClients));
+    try {
+      CompletableFuture<Result> result = toCompletableFuture(rpcClient, bigMessages(1));
+      takeCalls(1).get(0).respond(Collector.ResultCode.TRY_LATER);
+      takeCalls(1).get(0).fail(Status.UNAVAILABLE); // reconnects then retries
+      takeCalls(1).get(0).respond(Collector.ResultCode.OK);
+
+      assertEquals(ResultCode.OK, result.get(5, TimeUnit.SECONDS).getResultCode());
+      assertEquals(2, builtClients.get());
+
+      // gives up after the max retry count and returns the last result
+      CompletableFuture<Result> limited = toCompletableFuture(rpcClient, bigMessages(1));
+      for (int i = 0; i < 4; i++) {
+        takeCalls(1).get(0).respond(Collector.ResultCode.LIMIT_EXCEEDED);
+      }
+      assertEquals(ResultCode.LIMIT_EXCEEDED, limited.get(5, TimeUnit.SECONDS).getResultCode());
+      assertNull(pendingCalls.poll(100, TimeUnit.MILLISECONDS));
+    } finally {
+      rpcClient.close();
+    }
+  }
+
+  @Test
+  void rpcClientReconnectsOffTheRetryExecutor() throws Exception {
+    List<String> buildThreads = Collections.synchronizedList(new ArrayList<>());
+    RpcClient rpcClient =
+        new RpcClient(
+            "localhost",
+            0,
+            SERVICE_KEY,
+            new RpcClient.RetryParamConstants(10, 10, 3),
+            asyncFactory(buildThreads::add));
+    try {
+      CompletableFuture<Result> result = toCompletableFuture(rpcClient, bigMessages(1));
+      takeCalls(1).get(0).fail(Status.UNAVAILABLE); // reconnects then retries
+      takeCalls(1).get(0).respond(Collector.ResultCode.OK);
+
+      assertEquals(ResultCode.OK, result.get(5, TimeUnit.SECONDS).getResultCode());
+      assertEquals(2, buildThreads.size());
+      // the reconnect blocks, so it must not run on the executor shared by the retries
+      assertTrue(buildThreads.get(1).contains("async-rpc-connect"), buildThreads.get(1));
+    } finally {
+      rpcClient.close();
+    }
+  }
+
+  private static CompletableFuture<Result> toCompletableFuture(
+      RpcClient rpcClient, List<Map<String, Object>> messages) throws Exception {
+    // the async path returns the CompletableFuture of the call, no executor task is involved
+    return (CompletableFuture<Result>) rpcClient.postMetrics(messages, null);
+  }
+
+  private ProtocolClientFactory<ProtocolClient> asyncFactory(AtomicInteger builtClients) {
+    return asyncFactory(threadName -> builtClients.incrementAndGet());
+  }
+
+  private ProtocolClientFactory<ProtocolClient> asyncFactory(Consumer<String> onBuild) {
+    return new ProtocolClientFactory<ProtocolClient>() {
+      @Override
+      public ProtocolClient buildClient(String host, int port) {
+        onBuild.accept(Thread.currentThread().getName());
+        return new GrpcClient(TraceCollectorGrpc.newBlockingStub(newChannel())) {
+          @Override
+          public Result doPostMetrics(String serviceKey, List<Map<String, Object>> messages) {
+            return fail("Async client should not be called synchronously");
+          }
+        };
+      }
+
+      @Override
+      public boolean isAsync() {
+        return true;
+      }
+    };
+  }
+
+  private GrpcClient newGrpcClient() {
+    return new GrpcClient(TraceCollectorGrpc.newBlockingStub(newChannel()));
+  }
+
+  private synchronized ManagedChannel newChannel() {
+    ManagedChannel channel = InProcessChannelBuilder.forName(serverName).build();
+    channels.add(channel);
+    return channel;
+  }
+
+  private static List<Map<String, Object>> bigMessages(int count) {
+    List<Map<String, Object>> messages = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      // 1.5 MB, growing with the index to tell the calls apart
+      String value = new String(new char[1536 * 1024 + i]).replace('\0', 'x');
+      messages.add(Collections.singletonMap("Value", value));
+    }
+    return messages;
+  }
+
+  private List<PendingCall> takeCalls(int count) throws InterruptedException {
+    List<PendingCall> calls = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      PendingCall call = pendingCalls.poll(5, TimeUnit.SECONDS);
+      assertNotNull(call, "Expected " + count + " calls but found " + i);
+      calls.add(call);
+    }
+    // calls of a batch may arrive in any order, sort them by the size of their first message
+    calls.sort((a, b) -> Integer.compare(a.firstMessageSize(), b.firstMessageSize()));
+    return calls;
+  }
+
+  private static class PendingCall {
+    private final Collector.MessageRequest request;
+    private final StreamObserver<Collector.MessageResult> responseObserver;
+
+    private PendingCall(
+        Collector.MessageRequest request,
+        StreamObserver<Collector.MessageResult> responseObserver) {
+      this.request = request;
+      this.responseObserver = responseObserver;
+    }
+
+    private int firstMessageSize() {
+      return request.getMessages(0).size();
+    }
+
+    private void respond(Collector.ResultCode resultCode) {
+      responseObserver.onNext(
+          Collector.MessageResult.newBuilder().setResult(resultCode).setArg("").build());
+      responseObserver.onCompleted();
+    }
+
+    private void fail(Status status) {
+      responseObserver.onError(status.asRuntimeException());
+    }
+  }
+
+  /** Holds the post calls until the test responds */
+  private class HoldingCollectorService extends TraceCollectorGrpc.TraceCollectorImplBase {
+    @Override
+    public void postMetrics(
+        Collector.MessageRequest request,
+        StreamObserver<Collector.MessageResult> responseObserver) {
+      pendingCalls.add(new PendingCall(request, responseObserver));
+    }
+
+    @Override
+    public void postStatus(
+        Collector.MessageRequest request,
+        StreamObserver<Collector.MessageResult> responseObserver) {
+      pendingCalls.add(new PendingCall(request, responseObserver));
+    }
+  }
+}
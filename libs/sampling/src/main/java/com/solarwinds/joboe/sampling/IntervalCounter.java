@@ -0,0 +1,56 @@
+/*
+ * © SolarWinds Worldwide, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.solarwinds.joboe.sampling;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A striped counter that is consumed once per reporting interval.
+ *
+ * <p>{@link LongAdder#sumThenReset()} is not atomic, increments landing between the sum and the
+ * reset of a cell are lost. This counter never resets its {@link LongAdder}, each {@link
+ * #consume()} returns the difference with the sum it consumed last, so concurrent increments are
+ * counted in either the current or the next interval.
+ */
+public final class IntervalCounter {
+  private final LongAdder count = new LongAdder();
+  private long consumedCount; // guarded by this
+
+  public void increment() {
+    count.increment();
+  }
+
+  public void add(long value) {
+    count.add(value);
+  }
+
+  /**
+   * @return the count accumulated since the last call
+   */
+  public synchronized long consume() {
+    long sum = count.sum();
+    long delta = sum - consumedCount;
+    consumedCount = sum;
+    return delta;
+  }
+
+  /** Discards the accumulated count */
+  public synchronized void reset() {
+    count.reset();
+    consumedCount = 0;
+  }
+}
@@ -20,7 +20,6 @@ import com.solarwinds.joboe.logging.Logger;
 import com.solarwinds.joboe.logging.LoggerFactory;
 import io.opentelemetry.api.trace.SpanContext;
 import java.util.Arrays;
-import java.util.Random;
 import java.util.concurrent.atomic.AtomicInteger;
 import lombok.Getter;
 
@@ -199,7 +198,7 @@ public class Metadata {
   }
 
   public void randomizeTaskId() {
-    random.nextBytes(taskId);
+    ThreadLocalRng.secureSeeded().nextBytes(taskId);
     // just in case if it really generates all zeros, then flip the last byte to a non zero value
     if (!isValid()) {
       taskId[taskLen - 1] = 0x1;
@@ -207,7 +206,7 @@ public class Metadata {
   }
 
   public void randomizeOpId() {
-    random.nextBytes(opId);
+    ThreadLocalRng.secureSeeded().nextBytes(opId);
   }
 
   public void setOpId(Metadata md) {
@@ -607,29 +606,6 @@ public class Metadata {
     return maxBacktraces;
   }
 
-  // Shared random number generator to avoid overhead:
-  private static Random random = null;
-
-  static {
-    // This RNG implementation is MUCH (over 10x) faster than Java's built-in SecureRandom
-    // See http://maths.uncommons.org/
-    try {
-      try {
-        // try /dev/urandom first, as using SecureRandomSeedGenerator could trigger slow startup due
-        // to /dev/random blocking (entropy exhaustion)
-        random = new XorShiftRng(new DevUrandomSeedGenerator());
-      } catch (SeedException e) {
-        logger.debug(
-            () ->
-                "Failed to use /dev/urandom as seed generator. Error message : " + e.getMessage());
-        // try using the SecureRandomSeedGenerator instead
-        random = new XorShiftRng(new SecureRandomSeedGenerator());
-      }
-    } catch (Exception ex) {
-      logger.error(ex.getMessage(), ex); // should never happen
-    }
-  }
-
   public String getCompactTraceId() {
     return taskHexString() + "-" + (isSampled() ? "1" : "0");
   }
@@ -16,6 +16,18 @@
 
 package com.solarwinds.joboe.sampling;
 
+import java.util.regex.Pattern;
+
 public interface ResourceMatcher {
   boolean matches(String signal);
+
+  /**
+   * Returns the pattern that fully defines this matcher, so {@link TraceConfigs} can index literal
+   * and prefix/suffix rules instead of evaluating them one by one
+   *
+   * @return the pattern matched against the whole signal, null if the matcher is not pattern based
+   */
+  default Pattern getPattern() {
+    return null;
+  }
 }
@@ -0,0 +1,314 @@
+/*
+ * © SolarWinds Worldwide, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.solarwinds.joboe.sampling;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Compiled form of an ordered list of {@link ResourceMatcher}s that answers "which is the first
+ * rule matching any of the signals" in one pass over each signal.
+ *
+ * <p>Rules backed by a {@link ResourceMatcher#getPattern()} are analyzed once:
+ *
+ * <ul>
+ *   <li>literal patterns, e.g. <code>/api/health</code>, go into an exact match map
+ *   <li>literal prefix patterns, e.g. <code>/static/.*</code>, go into a prefix trie
+ *   <li>literal suffix patterns, e.g. <code>.*\.html</code>, go into a suffix trie
+ * </ul>
+ *
+ * All the other rules are kept in rule order and only evaluated while they can still beat the best
+ * match found by the indexes.
+ */
+final class ResourceMatcherIndex {
+  private final Map<String, Integer> exactRules = new HashMap<>();
+  private final Map<String, Integer> caseInsensitiveExactRules = new HashMap<>();
+  private final TrieNode prefixRules = new TrieNode();
+  private final TrieNode caseInsensitivePrefixRules = new TrieNode();
+  private final TrieNode suffixRules = new TrieNode();
+  private final TrieNode caseInsensitiveSuffixRules = new TrieNode();
+  private final int[] otherRuleIndexes;
+  private final ResourceMatcher[] otherRules;
+
+  ResourceMatcherIndex(List<ResourceMatcher> matchers) {
+    List<Integer> otherIndexes = new ArrayList<>();
+    List<ResourceMatcher> others = new ArrayList<>();
+
+    for (int ruleIndex = 0; ruleIndex < matchers.size(); ruleIndex++) {
+      ResourceMatcher matcher = matchers.get(ruleIndex);
+      if (!index(matcher.getPattern(), ruleIndex)) {
+        otherIndexes.add(ruleIndex);
+        others.add(matcher);
+      }
+    }
+
+    otherRuleIndexes = new int[otherIndexes.size()];
+    for (int i = 0; i < otherRuleIndexes.length; i++) {
+      otherRuleIndexes[i] = otherIndexes.get(i);
+    }
+    otherRules = others.toArray(new ResourceMatcher[0]);
+  }
+
+  /**
+   * Finds the first rule (in the order provided on construction) that matches any of the signals
+   *
+   * @param signals the signals to match
+   * @return index of the first matching rule, -1 if none matches
+   */
+  int firstMatch(List<String> signals) {
+    int best = Integer.MAX_VALUE;
+    for (int i = 0; i < signals.size(); i++) {
+      String signal = signals.get(i);
+      if (signal != null) {
+        best = Math.min(best, firstMatch(signal, best));
+      }
+    }
+    return best == Integer.MAX_VALUE ? -1 : best;
+  }
+
+  private int firstMatch(String signal, int bound) {
+    int best = bound;
+
+    Integer exact = exactRules.get(signal);
+    if (exact != null && exact < best) {
+      best = exact;
+    }
+    if (!caseInsensitiveExactRules.isEmpty()) {
+      exact = caseInsensitiveExactRules.get(toLowerCase(signal));
+      if (exact != null && exact < best) {
+        best = exact;
+      }
+    }
+
+    // `.` in the wildcard part does not match line terminators, only literals may contain them
+    int firstTerminator = -1;
+    int lastTerminator = -1;
+    for (int i = 0; i < signal.length(); i++) {
+      if (isLineTerminator(signal.charAt(i))) {
+        if (firstTerminator == -1) {
+          firstTerminator = i;
+        }
+        lastTerminator = i;
+      }
+    }
+
+    best = prefixRules.matchPrefix(signal, false, lastTerminator, best);
+    best = caseInsensitivePrefixRules.matchPrefix(signal, true, lastTerminator, best);
+    best = suffixRules.matchSuffix(signal, false, firstTerminator, best);
+    best = caseInsensitiveSuffixRules.matchSuffix(signal, true, firstTerminator, best);
+
+    for (int i = 0; i < otherRules.length && otherRuleIndexes[i] < best; i++) {
+      if (otherRules[i].matches(signal)) {
+        best = otherRuleIndexes[i];
+      }
+    }
+    return best;
+  }
+
+  private boolean index(Pattern pattern, int ruleIndex) {
+    if (pattern == null) {
+      return false;
+    }
+
+    int flags = pattern.flags();
+    if ((flags & ~Pattern.CASE_INSENSITIVE) != 0) {
+      return false; // other flags change the semantics of literals and `.`, keep it as a regex
+    }
+    boolean caseInsensitive = flags == Pattern.CASE_INSENSITIVE;
+
+    String regex = pattern.pattern();
+    // anchors are redundant as the rules are matched against the whole signal
+    int start = regex.startsWith("^") ? 1 : 0;
+    int end = regex.length();
+    if (end > start && regex.charAt(end - 1) == '$' && !isEscaped(regex, end - 1)) {
+      end--;
+    }
+
+    boolean wildcardPrefix = regex.startsWith(".*", start);
+    if (wildcardPrefix) {
+      start += 2;
+    }
+    boolean wildcardSuffix =
+        end - start >= 2 && regex.startsWith(".*", end - 2) && !isEscaped(regex, end - 2);
+    if (wildcardSuffix) {
+      end -= 2;
+    }
+
+    String literal = parseLiteral(regex, start, end);
+    if (literal == null || (wildcardPrefix && wildcardSuffix)) {
+      return false;
+    }
+    if (caseInsensitive) {
+      literal = toLowerCase(literal);
+    }
+
+    if (wildcardPrefix) {
+      (caseInsensitive ? caseInsensitiveSuffixRules : suffixRules).addReversed(literal, ruleIndex);
+    } else if (wildcardSuffix) {
+      (caseInsensitive ? caseInsensitivePrefixRules : prefixRules).add(literal, ruleIndex);
+    } else {
+      (caseInsensitive ? caseInsensitiveExactRules : exactRules).putIfAbsent(literal, ruleIndex);
+    }
+    return true;
+  }
+
+  /**
+   * Parses the regex section as a literal
+   *
+   * @return the literal, or null if the section contains any regex construct
+   */
+  private static String parseLiteral(String regex, int start, int end) {
+    StringBuilder literal = new StringBuilder(end - start);
+    for (int i = start; i < end; i++) {
+      char c = regex.charAt(i);
+      if (c == '\\') {
+        if (i + 1 >= end) {
+          return null;
+        }
+        char escaped = regex.charAt(++i);
+        if (Character.isLetterOrDigit(escaped)) {
+          return null; // character classes, back references, \Q..\E etc.
+        }
+        literal.append(escaped);
+      } else if (".[]{}()*+?^$|".indexOf(c) != -1) {
+        return null;
+      } else {
+        literal.append(c);
+      }
+    }
+    return literal.toString();
+  }
+
+  private static boolean isEscaped(String regex, int index) {
+    int backslashes = 0;
+    for (int i = index - 1; i >= 0 && regex.charAt(i) == '\\'; i--) {
+      backslashes++;
+    }
+    return backslashes % 2 == 1;
+  }
+
+  private static boolean isLineTerminator(char c) {
+    return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+  }
+
+  // CASE_INSENSITIVE without UNICODE_CASE only folds US-ASCII characters
+  private static char toLowerCase(char c) {
+    return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+  }
+
+  private static String toLowerCase(String value) {
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c >= 'A' && c <= 'Z') {
+        char[] chars = value.toCharArray();
+        for (int j = i; j < chars.length; j++) {
+          chars[j] = toLowerCase(chars[j]);
+        }
+        return new String(chars);
+      }
+    }
+    return value;
+  }
+
+  private static final class TrieNode {
+    private static final char[] NO_KEYS = new char[0];
+    private static final TrieNode[] NO_CHILDREN = new TrieNode[0];
+
+    private char[] keys = NO_KEYS; // sorted
+    private TrieNode[] children = NO_CHILDREN;
+    private int ruleIndex = Integer.MAX_VALUE; // first rule that ends on this node
+
+    void add(String literal, int ruleIndex) {
+      TrieNode node = this;
+      for (int i = 0; i < literal.length(); i++) {
+        node = node.getOrAddChild(literal.charAt(i));
+      }
+      node.ruleIndex = Math.min(node.ruleIndex, ruleIndex);
+    }
+
+    void addReversed(String literal, int ruleIndex) {
+      TrieNode node = this;
+      for (int i = literal.length() - 1; i >= 0; i--) {
+        node = node.getOrAddChild(literal.charAt(i));
+      }
+      node.ruleIndex = Math.min(node.ruleIndex, ruleIndex);
+    }
+
+    /** Walks the signal forward, the remainder after the prefix must not have line terminators */
+    int matchPrefix(String signal, boolean caseInsensitive, int lastTerminator, int best) {
+      TrieNode node = this;
+      for (int i = 0; node != null; i++) {
+        if (node.ruleIndex < best && lastTerminator < i) {
+          best = node.ruleIndex;
+        }
+        if (i == signal.length()) {
+          break;
+        }
+        char c = signal.charAt(i);
+        node = node.getChild(caseInsensitive ? toLowerCase(c) : c);
+      }
+      return best;
+    }
+
+    /** Walks the signal backward, the part before the suffix must not have line terminators */
+    int matchSuffix(String signal, boolean caseInsensitive, int firstTerminator, int best) {
+      TrieNode node = this;
+      for (int i = signal.length(); node != null; i--) {
+        if (node.ruleIndex < best && (firstTerminator == -1 || firstTerminator >= i)) {
+          best = node.ruleIndex;
+        }
+        if (i == 0) {
+          break;
+        }
+        char c = signal.charAt(i - 1);
+        node = node.getChild(caseInsensitive ? toLowerCase(c) : c);
+      }
+      return best;
+    }
+
+    private TrieNode getChild(char key) {
+      int position = Arrays.binarySearch(keys, key);
+      return position >= 0 ? children[position] : null;
+    }
+
+    private TrieNode getOrAddChild(char key) {
+      int position = Arrays.binarySearch(keys, key);
+      if (position >= 0) {
+        return children[position];
+      }
+
+      int insertAt = -position - 1;
+      char[] newKeys = new char[keys.length + 1];
+      TrieNode[] newChildren = new TrieNode[children.length + 1];
+      System.arraycopy(keys, 0, newKeys, 0, insertAt);
+      System.arraycopy(children, 0, newChildren, 0, insertAt);
+      System.arraycopy(keys, insertAt, newKeys, insertAt + 1, keys.length - insertAt);
+      System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+
+      TrieNode child = new TrieNode();
+      newKeys[insertAt] = key;
+      newChildren[insertAt] = child;
+      keys = newKeys;
+      children = newChildren;
+      return child;
+    }
+  }
+}
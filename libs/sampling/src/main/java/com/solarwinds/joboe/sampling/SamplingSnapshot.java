@@ -0,0 +1,153 @@
+/*
+ * © SolarWinds Worldwide, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.solarwinds.joboe.sampling;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.Getter;
+
+/**
+ * Immutable view of the effective sampling configuration derived from a remote {@link Settings} and
+ * a local {@link SamplingConfiguration}.
+ *
+ * <p>A snapshot is only rebuilt by {@link TraceDecisionUtil} when either source is replaced, so the
+ * per-request path reads the precomputed {@link TraceConfig}s and {@link TraceDecision}s instead of
+ * merging and allocating them on every call.
+ */
+final class SamplingSnapshot {
+  private final Settings settings;
+  private final SamplingConfiguration samplingConfiguration;
+
+  /** Trace config from the remote settings, null if the settings are not available */
+  @Getter private final TraceConfig remoteConfig;
+
+  private final EffectiveTraceConfig universalConfig;
+
+  // keyed by identity of the local transaction specific configs, bounded by the number of rules
+  private final ConcurrentHashMap<TraceConfig, EffectiveTraceConfig> specificConfigs =
+      new ConcurrentHashMap<>();
+
+  SamplingSnapshot(Settings settings, SamplingConfiguration samplingConfiguration) {
+    this.settings = settings;
+    this.samplingConfiguration = samplingConfiguration;
+    this.remoteConfig = TraceDecisionUtil.buildRemoteTraceConfig(settings);
+    this.universalConfig =
+        remoteConfig != null
+            ? merge(TraceDecisionUtil.buildLocalUniversalTraceConfig(samplingConfiguration))
+            : null;
+  }
+
+  /**
+   * Checks whether this snapshot was built from the exact same sources
+   *
+   * @param settings the current remote settings
+   * @param samplingConfiguration the current local sampling configuration
+   * @return true if the snapshot is still valid for the sources provided
+   */
+  boolean isCurrent(Settings settings, SamplingConfiguration samplingConfiguration) {
+    return this.settings == settings && this.samplingConfiguration == samplingConfiguration;
+  }
+
+  /**
+   * Looks up the local transaction specific trace config that matches the signals
+   *
+   * @param signals resource signals of the request, could be null
+   * @return the matching local trace config, null if there's none
+   */
+  TraceConfig getLocalSpecificConfig(List<String> signals) {
+    TraceConfigs transactionSettings = samplingConfiguration.getInternalTransactionSettings();
+    if (signals != null && transactionSettings != null) {
+      return transactionSettings.getTraceConfig(signals);
+    }
+    return null;
+  }
+
+  /**
+   * Returns the effective trace config with the remote config merged in. Must only be called when
+   * {@link #getRemoteConfig()} is not null
+   *
+   * @param localSpecificConfig the local transaction specific config, null to use the universal
+   *     local config
+   * @return the effective trace config
+   */
+  EffectiveTraceConfig getEffectiveConfig(TraceConfig localSpecificConfig) {
+    if (localSpecificConfig == null) {
+      return universalConfig;
+    }
+
+    EffectiveTraceConfig effectiveConfig = specificConfigs.get(localSpecificConfig);
+    if (effectiveConfig == null) {
+      effectiveConfig = merge(localSpecificConfig);
+      EffectiveTraceConfig existing =
+          specificConfigs.putIfAbsent(localSpecificConfig, effectiveConfig);
+      if (existing != null) {
+        effectiveConfig = existing;
+      }
+    }
+    return effectiveConfig;
+  }
+
+  private EffectiveTraceConfig merge(TraceConfig localConfig) {
+    return new EffectiveTraceConfig(
+        TraceDecisionUtil.computeTraceConfig(
+            remoteConfig, localConfig, samplingConfiguration.isTriggerTraceEnabled()));
+  }
+
+  /**
+   * A merged {@link TraceConfig} along with all the {@link TraceDecision}s that do not carry
+   * incoming metadata, so that they can be shared across requests.
+   */
+  static final class EffectiveTraceConfig {
+    private static final TraceDecisionUtil.RequestType[] REQUEST_TYPES =
+        TraceDecisionUtil.RequestType.values();
+
+    @Getter private final TraceConfig config;
+    @Getter private final boolean reportMetrics;
+    private final TraceDecision[] decisions;
+
+    private EffectiveTraceConfig(TraceConfig config) {
+      this.config = config;
+      this.reportMetrics = config.isMetricsEnabled();
+      this.decisions = new TraceDecision[REQUEST_TYPES.length * 8];
+      for (TraceDecisionUtil.RequestType requestType : REQUEST_TYPES) {
+        for (int flags = 0; flags < 8; flags++) {
+          decisions[requestType.ordinal() * 8 + flags] =
+              new TraceDecision(
+                  (flags & 1) != 0, (flags & 2) != 0, (flags & 4) != 0, config, requestType);
+        }
+      }
+    }
+
+    /**
+     * Returns the shared decision for a request without incoming metadata
+     *
+     * @param sampled whether the request is sampled
+     * @param reportMetrics whether metrics should be reported
+     * @param bucketExhausted whether the token bucket was exhausted
+     * @param requestType the request type
+     * @return the shared trace decision
+     */
+    TraceDecision getDecision(
+        boolean sampled,
+        boolean reportMetrics,
+        boolean bucketExhausted,
+        TraceDecisionUtil.RequestType requestType) {
+      int flags = (sampled ? 1 : 0) | (reportMetrics ? 2 : 0) | (bucketExhausted ? 4 : 0);
+      return decisions[requestType.ordinal() * 8 + flags];
+    }
+  }
+}
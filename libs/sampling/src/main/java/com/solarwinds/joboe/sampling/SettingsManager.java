@@ -49,7 +49,7 @@ public final class SettingsManager {
   private static final Logger logger = LoggerFactory.getLogger();
 
   @Getter
-  private static SamplingConfiguration samplingConfiguration =
+  private static volatile SamplingConfiguration samplingConfiguration =
       SamplingConfiguration.builder().build();
 
   public static CountDownLatch initialize(
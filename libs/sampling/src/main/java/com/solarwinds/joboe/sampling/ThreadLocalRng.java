@@ -0,0 +1,96 @@
+/*
+ * © SolarWinds Worldwide, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.solarwinds.joboe.sampling;
+
+import com.solarwinds.joboe.logging.Logger;
+import com.solarwinds.joboe.logging.LoggerFactory;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Per-thread random number generators, so request threads never contend on a shared seed.
+ *
+ * <ul>
+ *   <li>{@link #nextInt(int)} is for sampling coin-flips, backed by {@link ThreadLocalRandom}
+ *   <li>{@link #secureSeeded()} is for ID generation, a thread confined {@link XorShiftRng}
+ * </ul>
+ *
+ * <p>Only one seed is read from /dev/urandom, or {@link java.security.SecureRandom} if /dev/urandom
+ * is not available, to seed a shared generator once. The generators of the threads are seeded from
+ * that shared generator, so starting a thread costs no system entropy.
+ */
+public final class ThreadLocalRng {
+  private static final Logger logger = LoggerFactory.getLogger();
+
+  private static final SeedGenerator[] SEED_GENERATORS = {
+    new DevUrandomSeedGenerator(), new SecureRandomSeedGenerator()
+  };
+
+  // seeds the generators of the threads, guarded by its own lock
+  private static final Random SEED_SOURCE = new XorShiftRng(generateSeed());
+
+  private static final ThreadLocal<Random> SECURE_SEEDED =
+      ThreadLocal.withInitial(
+          () -> {
+            byte[] seed = new byte[XorShiftRng.SEED_SIZE_BYTES];
+            SEED_SOURCE.nextBytes(seed);
+            return new XorShiftRng(seed, true);
+          });
+
+  private ThreadLocalRng() {}
+
+  /**
+   * Returns a pseudorandom int between zero (inclusive) and the bound (exclusive) from the
+   * generator of the current thread
+   *
+   * @param bound the upper bound (exclusive), must be positive
+   * @return the pseudorandom value
+   */
+  public static int nextInt(int bound) {
+    return ThreadLocalRandom.current().nextInt(bound);
+  }
+
+  /**
+   * Returns the secure seeded generator of the current thread. The returned instance must not be
+   * shared with other threads
+   *
+   * @return the generator of the current thread
+   */
+  public static Random secureSeeded() {
+    return SECURE_SEEDED.get();
+  }
+
+  private static byte[] generateSeed() {
+    for (SeedGenerator seedGenerator : SEED_GENERATORS) {
+      try {
+        return seedGenerator.generateSeed(XorShiftRng.SEED_SIZE_BYTES);
+      } catch (SeedException | RuntimeException e) {
+        logger.debug(
+            () ->
+                "Failed to use "
+                    + seedGenerator
+                    + " as seed generator. Error message : "
+                    + e.getMessage());
+      }
+    }
+
+    logger.warn("No secure seed generator available, seeding from ThreadLocalRandom");
+    byte[] seed = new byte[XorShiftRng.SEED_SIZE_BYTES];
+    ThreadLocalRandom.current().nextBytes(seed);
+    return seed;
+  }
+}
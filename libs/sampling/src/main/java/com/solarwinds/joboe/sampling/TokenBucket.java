@@ -16,28 +16,39 @@
 
 package com.solarwinds.joboe.sampling;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * A bucket that contains tokens to be consumed. The bucket is refilled based on the replenish rate.
  *
  * <p>This class is converted from <a
  * href="https://github.com/tracelytics/scribe/blob/FastTransformer/src/token_bucket.h">...</a>
  *
+ * <p>The bucket is lock-free: available tokens are kept as fixed point micro tokens in an {@link
+ * AtomicLong} and updated with CAS. Refill is driven by {@link System#nanoTime()}, the thread that
+ * advances the last refill timestamp credits the tokens generated over the elapsed interval, so
+ * each interval is credited exactly once.
+ *
  * @author Patson Luk
  */
 public class TokenBucket {
-  private double ratePerSecond; // replenish rate in second
-  private double
-      capacity; // capacity of the bucket, available token should never exceed this number
-  private double availableTokens;
-  private long lastCheck;
+  private static final long SCALE = 1_000_000; // available tokens are stored as micro tokens
+  private static final long MAX_SCALED = Long.MAX_VALUE / 4; // headroom for additions
+  private static final long MIN_REFILL_INTERVAL = 1_000_000; // 1 ms in nanoseconds
+
+  private volatile double ratePerSecond; // replenish rate in second
+  private volatile double capacity; // capacity of the bucket as configured
+  private volatile long
+      scaledCapacity; // capacity in micro tokens, available token should never exceed this number
+  private final AtomicLong availableTokens;
+  private final AtomicLong lastRefill;
 
   public TokenBucket(double bucketCapacity, double ratePerSecond) {
     this.ratePerSecond = ratePerSecond;
     this.capacity = bucketCapacity;
-    this.availableTokens = bucketCapacity;
-
-    this.lastCheck =
-        System.currentTimeMillis(); // do not use System.nanoTime as we need JRE 1.5 support
+    this.scaledCapacity = toScaled(bucketCapacity);
+    this.availableTokens = new AtomicLong(scaledCapacity);
+    this.lastRefill = new AtomicLong(System.nanoTime());
   }
 
   /**
@@ -56,41 +67,61 @@ public class TokenBucket {
    * @param size # of tokens to be consumed
    * @return true if tokens were available and consumed
    */
-  public synchronized boolean consume(int size) {
+  public boolean consume(int size) {
     updateAvailable();
 
-    if (availableTokens >= size) {
-      availableTokens -= size;
-
-      return true;
-    } else {
-      return false;
+    long required = size * SCALE;
+    while (true) {
+      long available = availableTokens.get();
+      if (available < required) {
+        return false;
+      }
+      if (availableTokens.compareAndSet(available, available - required)) {
+        if (available >= scaledCapacity) {
+          // no refill owed while the bucket was full, start accruing from now on
+          lastRefill.set(System.nanoTime());
+        }
+        return true;
+      }
     }
   }
 
-  /** Updates the available tokens based on last checked time and replenish rate */
-  private synchronized void updateAvailable() {
-    if (availableTokens < capacity) {
-      // calculate time since last check
-      long now = System.currentTimeMillis();
-      long delta = now - lastCheck;
+  /** Updates the available tokens based on last refill time and replenish rate */
+  private void updateAvailable() {
+    if (availableTokens.get() >= scaledCapacity) {
+      return; // already full, nothing to refill
+    }
+
+    long last = lastRefill.get();
+    long now = System.nanoTime();
+    long delta = now - last;
+
+    // refill at most once per interval to keep CAS traffic on the timestamp low
+    if (delta < MIN_REFILL_INTERVAL || !lastRefill.compareAndSet(last, now)) {
+      return;
+    }
+
+    // compute number of new tokens generated since last refill, in micro tokens
+    long newTokens = (long) Math.min(ratePerSecond * delta / 1000, MAX_SCALED);
+    if (newTokens <= 0) {
+      return;
+    }
 
-      // return if "time went backwards", possible on some VMs or with NTP
-      if (delta <= 0) {
+    while (true) {
+      long available = availableTokens.get();
+      long updated = Math.min(available + newTokens, Math.max(available, scaledCapacity));
+      if (updated == available || availableTokens.compareAndSet(available, updated)) {
         return;
       }
+    }
+  }
 
-      // compute number of new tokens generated since last check
-      double newTokens = ratePerSecond * (double) delta / 1000; // delta in millisec
-      if (availableTokens + newTokens < capacity) {
-        availableTokens = availableTokens + newTokens;
-      } else {
-        availableTokens = capacity;
-      }
+  double getRatePerSecond() {
+    return ratePerSecond;
+  }
 
-      // update time of last check
-      lastCheck = now;
-    }
+  double getCapacity() {
+    return capacity;
   }
 
   /**
@@ -98,7 +129,7 @@ public class TokenBucket {
    *
    * @param ratePerSecond Replenish rate per second
    */
-  synchronized void setRatePerSecond(double ratePerSecond) {
+  void setRatePerSecond(double ratePerSecond) {
     this.ratePerSecond = ratePerSecond;
   }
 
@@ -107,10 +138,24 @@ public class TokenBucket {
    *
    * @param capacity the new capacity
    */
-  synchronized void setCapacity(double capacity) {
+  void setCapacity(double capacity) {
+    long newScaledCapacity = toScaled(capacity);
     this.capacity = capacity;
-    if (availableTokens > capacity) {
-      availableTokens = capacity;
+    this.scaledCapacity = newScaledCapacity;
+
+    while (true) {
+      long available = availableTokens.get();
+      if (available <= newScaledCapacity
+          || availableTokens.compareAndSet(available, newScaledCapacity)) {
+        return;
+      }
+    }
+  }
+
+  private static long toScaled(double tokens) {
+    if (tokens <= 0) {
+      return 0;
     }
+    return (long) Math.min(tokens * SCALE, MAX_SCALED);
   }
 }
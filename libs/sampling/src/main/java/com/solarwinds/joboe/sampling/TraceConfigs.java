@@ -19,55 +19,51 @@ package com.solarwinds.joboe.sampling;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import lombok.ToString;
 
 /**
  * Container that stores {@link TraceConfig} mapped by URL
  *
+ * <p>The matchers are compiled into a {@link ResourceMatcherIndex} so that a lookup finds the first
+ * matching rule in one pass over the signals, results are cached by the signal list.
+ *
  * @author pluk
  */
 @ToString
 public class TraceConfigs implements Serializable {
   private static final long serialVersionUID = 1L;
 
+  // marks a cached lookup without match as the cache does not accept null values
+  private static final TraceConfig NO_MATCH = new TraceConfig(null, null, null);
+
   private final Map<ResourceMatcher, TraceConfig> traceConfigsByMatcher;
 
-  private final Cache<String, TraceConfig> lruCache =
-      Caffeine.newBuilder().maximumSize(1048).build();
+  @ToString.Exclude private final TraceConfig[] traceConfigs;
 
-  private final Cache<String, String> lruCacheKey = Caffeine.newBuilder().maximumSize(1048).build();
+  @ToString.Exclude private final ResourceMatcherIndex matcherIndex;
+
+  @ToString.Exclude
+  private final Cache<List<String>, TraceConfig> lruCache =
+      Caffeine.newBuilder().maximumSize(1048).build();
 
   public TraceConfigs(Map<ResourceMatcher, TraceConfig> traceConfigsByMatcher) {
     this.traceConfigsByMatcher = traceConfigsByMatcher;
+    this.traceConfigs = traceConfigsByMatcher.values().toArray(new TraceConfig[0]);
+    this.matcherIndex = new ResourceMatcherIndex(new ArrayList<>(traceConfigsByMatcher.keySet()));
   }
 
   public TraceConfig getTraceConfig(List<String> signals) {
-    StringBuilder key = new StringBuilder();
-    signals.forEach(key::append);
-    TraceConfig result = null;
-
-    if (lruCacheKey.getIfPresent(key.toString()) != null) {
-      return lruCache.getIfPresent(key.toString());
+    TraceConfig result = lruCache.getIfPresent(signals);
+    if (result == null) {
+      int ruleIndex = matcherIndex.firstMatch(signals);
+      result = ruleIndex != -1 ? traceConfigs[ruleIndex] : NO_MATCH;
+      // copy as the caller may reuse or modify the list
+      lruCache.put(Collections.unmodifiableList(new ArrayList<>(signals)), result);
     }
-
-    outer:
-    for (Entry<ResourceMatcher, TraceConfig> entry : traceConfigsByMatcher.entrySet()) {
-      for (String signal : signals) {
-        if (entry.getKey().matches(signal)) {
-          result = entry.getValue();
-          break outer;
-        }
-      }
-    }
-
-    if (result != null) {
-      lruCache.put(key.toString(), result);
-    }
-
-    lruCacheKey.put(key.toString(), key.toString());
-    return result;
+    return result != NO_MATCH ? result : null;
   }
 }
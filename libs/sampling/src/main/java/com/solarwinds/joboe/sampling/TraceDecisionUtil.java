@@ -22,9 +22,7 @@ import java.util.AbstractMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
 import lombok.Getter;
 
 public class TraceDecisionUtil {
@@ -35,21 +33,22 @@ public class TraceDecisionUtil {
   private static final ConcurrentHashMap<TokenBucketType, TokenBucket> tokenBuckets =
       new ConcurrentHashMap<TokenBucketType, TokenBucket>();
 
-  private static final Random rand = new Random();
-
-  private static final Map<MetricType, AtomicInteger> requestCounters =
-      new HashMap<MetricType, AtomicInteger>();
+  // striped counters indexed by MetricType ordinal, incremented by every request thread
+  private static final IntervalCounter[] requestCounters =
+      new IntervalCounter[MetricType.values().length];
 
   private static final Map<String, TraceConfig> lastTraceConfigs =
       new ConcurrentHashMap<String, TraceConfig>();
 
+  private static volatile SamplingSnapshot samplingSnapshot;
+
   // map of flags to keep of whether a settings error was reported, only report it once
   private static final ConcurrentHashMap<String, Boolean> reportedSettingsError =
       new ConcurrentHashMap<String, Boolean>();
 
   static {
     for (MetricType type : MetricType.values()) {
-      requestCounters.put(type, new AtomicInteger(0));
+      requestCounters[type.ordinal()] = new IntervalCounter();
     }
   }
 
@@ -70,8 +69,8 @@ public class TraceDecisionUtil {
       RequestType requestType = getRequestType(inXtraceId, xtraceOptions);
       isTriggerTrace = requestType.isTriggerTrace();
 
-      // First get the config from remote source (SRv1)
-      TraceConfig remoteConfig = getRemoteTraceConfig();
+      SamplingSnapshot snapshot = getSamplingSnapshot();
+      TraceConfig remoteConfig = snapshot.getRemoteConfig();
 
       if (remoteConfig == null) { // settings not readable, do not trace
         logger.debug(
@@ -81,30 +80,27 @@ public class TraceDecisionUtil {
         return new TraceDecision(false, false, null, requestType);
       }
 
-      // Get the local sample rate (either from file, defaults, JVM, url matching etc)
-      TraceConfig localConfig = getLocalTraceConfig(signals);
-
-      TraceConfig config =
-          computeTraceConfig(
-              remoteConfig,
-              localConfig,
-              SettingsManager.getSamplingConfiguration().isTriggerTraceEnabled());
+      // Get the local sample rate (either from file, defaults, JVM, url matching etc) merged with
+      // the remote config, precomputed per snapshot
+      SamplingSnapshot.EffectiveTraceConfig effectiveConfig =
+          snapshot.getEffectiveConfig(snapshot.getLocalSpecificConfig(signals));
+      TraceConfig config = effectiveConfig.getConfig();
 
       if (!config.isSampleRateConfigured()) {
         logger.debug(
             "Cannot trace request as sample rate is undefined"); // debug message, otherwise it
         // could be very noisy
-        return new TraceDecision(false, false, config, requestType);
+        return effectiveConfig.getDecision(false, false, false, requestType);
       }
 
       if (!config.isFlagsConfigured()) {
         logger.debug(
             "Cannot trace request as flags are undefined"); // debug message, otherwise it could be
         // very noisy
-        return new TraceDecision(false, false, config, requestType);
+        return effectiveConfig.getDecision(false, false, false, requestType);
       }
 
-      boolean isReportMetrics = isReportMetricsByConfig(config);
+      boolean isReportMetrics = effectiveConfig.isReportMetrics();
       if (xtraceOptions != null && xtraceOptions.getAuthenticationStatus().isFailure()) {
         logger.debug("Bad x-tv-options-signature, not tracing");
         return new TraceDecision(false, isReportMetrics, null, requestType);
@@ -152,6 +148,10 @@ public class TraceDecisionUtil {
         }
       }
 
+      if (inMetadata == null) {
+        return effectiveConfig.getDecision(
+            isSampled, isReportMetrics, bucketExhausted, requestType);
+      }
       return new TraceDecision(
           isSampled, isReportMetrics, bucketExhausted, config, requestType, inMetadata);
     } finally {
@@ -218,16 +218,42 @@ public class TraceDecisionUtil {
       TokenBucketType bucketType, double newBucketCapacity, double newBucketRate) {
     TokenBucket bucket = tokenBuckets.get(bucketType);
     if (bucket == null) {
-      bucket = new TokenBucket(newBucketCapacity, newBucketRate);
-      tokenBuckets.put(bucketType, bucket);
-    } else {
+      TokenBucket newBucket = new TokenBucket(newBucketCapacity, newBucketRate);
+      bucket = tokenBuckets.putIfAbsent(bucketType, newBucket);
+      if (bucket == null) {
+        return newBucket;
+      }
+    }
+
+    // only update when the settings have changed, which is rare compared to the request rate
+    if (bucket.getCapacity() != newBucketCapacity) {
       bucket.setCapacity(newBucketCapacity);
+    }
+    if (bucket.getRatePerSecond() != newBucketRate) {
       bucket.setRatePerSecond(newBucketRate);
     }
 
     return bucket;
   }
 
+  /**
+   * Returns the sampling snapshot of the current remote settings and local sampling configuration.
+   * A new snapshot is only built when either of them has been replaced
+   *
+   * @return the current sampling snapshot, never null
+   */
+  static SamplingSnapshot getSamplingSnapshot() {
+    Settings settings = SettingsManager.getSettings();
+    SamplingConfiguration samplingConfiguration = SettingsManager.getSamplingConfiguration();
+
+    SamplingSnapshot snapshot = samplingSnapshot;
+    if (snapshot == null || !snapshot.isCurrent(settings, samplingConfiguration)) {
+      snapshot = new SamplingSnapshot(settings, samplingConfiguration);
+      samplingSnapshot = snapshot;
+    }
+    return snapshot;
+  }
+
   /**
    * Retrieves Trace Config from a remote source
    *
@@ -235,8 +261,17 @@ public class TraceDecisionUtil {
    *     available
    */
   public static TraceConfig getRemoteTraceConfig() {
+    return getSamplingSnapshot().getRemoteConfig();
+  }
+
+  /**
+   * Builds the Trace Config of the remote settings
+   *
+   * @param settings the remote settings, could be null
+   * @return TraceConfig of the settings, null if the settings is null
+   */
+  static TraceConfig buildRemoteTraceConfig(Settings settings) {
     TraceConfig config = null;
-    Settings settings = SettingsManager.getSettings();
 
     if (settings != null) {
       Map<TokenBucketType, Double> bucketCapacities =
@@ -305,47 +340,31 @@ public class TraceDecisionUtil {
    *     universal Trace Config from local settings.
    */
   public static TraceConfig getLocalTraceConfig(List<String> signals) {
-    TraceConfig localTraceConfig = getLocalSpecificTraceConfig(signals);
+    SamplingSnapshot snapshot = getSamplingSnapshot();
+    TraceConfig localTraceConfig = snapshot.getLocalSpecificConfig(signals);
     if (localTraceConfig == null) {
-      localTraceConfig = getLocalUniversalTraceConfig();
+      localTraceConfig = buildLocalUniversalTraceConfig(SettingsManager.getSamplingConfiguration());
     }
 
     return localTraceConfig;
   }
 
   /**
-   * Retrieves universal (general settings that apply to the java process) Trace Config from local
+   * Builds universal (general settings that apply to the java process) Trace Config from local
    * Settings such as jvm arguments and java agent config file
    *
+   * @param samplingConfiguration the local sampling configuration
    * @return the universal trace config from local settings
    */
-  private static TraceConfig getLocalUniversalTraceConfig() {
-    Integer sampleRate = SettingsManager.getSamplingConfiguration().getSampleRate();
-    TracingMode tracingMode = SettingsManager.getSamplingConfiguration().getTracingMode();
+  static TraceConfig buildLocalUniversalTraceConfig(SamplingConfiguration samplingConfiguration) {
+    Integer sampleRate = samplingConfiguration.getSampleRate();
+    TracingMode tracingMode = samplingConfiguration.getTracingMode();
     return new TraceConfig(
         sampleRate,
         sampleRate != null ? SampleRateSource.FILE : SampleRateSource.DEFAULT,
         tracingMode != null ? tracingMode.toFlags() : null);
   }
 
-  /**
-   * Retrieves Resource specific Trace Config from local settings (by URL, job names etc)
-   *
-   * @param signals URL of the web request, null otherwise
-   * @return Resource specific Trace Config if a match is found from local settings, otherwise null
-   *     is returned
-   */
-  private static TraceConfig getLocalSpecificTraceConfig(List<String> signals) {
-    if (signals != null
-        && SettingsManager.getSamplingConfiguration().getInternalTransactionSettings() != null) {
-      return SettingsManager.getSamplingConfiguration()
-          .getInternalTransactionSettings()
-          .getTraceConfig(signals);
-    } else {
-      return null;
-    }
-  }
-
   /**
    * Computes the trace config based on the precedence list.
    *
@@ -417,7 +436,8 @@ public class TraceDecisionUtil {
 
   private static boolean sampled(int sampleRate) {
     return (sampleRate == SAMPLE_RESOLUTION
-        || (sampleRate < SAMPLE_RESOLUTION && rand.nextInt(SAMPLE_RESOLUTION) <= sampleRate));
+        || (sampleRate < SAMPLE_RESOLUTION
+            && ThreadLocalRng.nextInt(SAMPLE_RESOLUTION) <= sampleRate));
   }
 
   /**
@@ -456,19 +476,13 @@ public class TraceDecisionUtil {
     }
   }
 
-  private static boolean isReportMetricsByConfig(TraceConfig config) {
-    return config
-        .isMetricsEnabled(); // report metrics as far as the metrics is enabled in config. No
-    // propagation for now
-  }
-
   /**
    * Increments the count for the given metricType.
    *
    * @param metricType the metric type to increment
    */
   private static void incrementMetrics(MetricType metricType) {
-    requestCounters.get(metricType).incrementAndGet();
+    requestCounters[metricType.ordinal()].increment();
   }
 
   /**
@@ -478,22 +492,23 @@ public class TraceDecisionUtil {
    * @param layer the layer name
    */
   private static void recordLastTraceConfig(TraceConfig config, String layer) {
+    if (lastTraceConfigs.get(layer) == config) { // configs are shared per snapshot
+      return;
+    }
     synchronized (lastTraceConfigs) {
       lastTraceConfigs.put(layer, config);
     }
   }
 
   /**
-   * Consumes and return a clone of metrics data map of the Metric type as argument. Take note of
-   * the side effect that, after the call, the existing metric data would be consumed and cleared
+   * Consumes and return the metrics count of the Metric type as argument. Take note of the side
+   * effect that, after the call, the existing metric count would be consumed and reset to zero
    *
    * @param type Metric type
-   * @return a clone of the metric data map of the Metric type, null if the Metric is not available
-   *     for that type
+   * @return the count accumulated for the Metric type since the last call
    */
-  public static int consumeMetricsData(MetricType type) {
-    AtomicInteger metricData = requestCounters.get(type);
-    return metricData.getAndSet(0);
+  public static long consumeMetricsData(MetricType type) {
+    return requestCounters[type.ordinal()].consume();
   }
 
   /**
@@ -516,9 +531,10 @@ public class TraceDecisionUtil {
   /** For internal testing usage only */
   public static void reset() {
     tokenBuckets.clear();
+    samplingSnapshot = null;
 
-    for (AtomicInteger counter : requestCounters.values()) {
-      counter.set(0);
+    for (IntervalCounter counter : requestCounters) {
+      counter.reset();
     }
     lastTraceConfigs.clear();
     reportedSettingsError.clear();
@@ -29,7 +29,7 @@ import java.util.concurrent.locks.ReentrantLock;
  */
 public class XorShiftRng extends Random {
   private static final long serialVersionUID = 1L;
-  private static final int SEED_SIZE_BYTES = 20; // Needs 5 32-bit integers.
+  static final int SEED_SIZE_BYTES = 20; // Needs 5 32-bit integers.
 
   // Previously used an array for state but using separate fields proved to be
   // faster.
@@ -41,8 +41,9 @@ public class XorShiftRng extends Random {
 
   private final byte[] seed;
 
-  // Lock to prevent concurrent modification of the RNG's internal state.
-  private final ReentrantLock lock = new ReentrantLock();
+  // Lock to prevent concurrent modification of the RNG's internal state, null if the RNG is
+  // confined to a single thread.
+  private final ReentrantLock lock;
 
   /**
    * Seed the RNG using the provided seed generation strategy.
@@ -61,9 +62,21 @@ public class XorShiftRng extends Random {
    * @param seed The seed data used to initialise the RNG.
    */
   public XorShiftRng(byte[] seed) {
+    this(seed, false);
+  }
+
+  /**
+   * Creates an RNG and seeds it with the specified seed data.
+   *
+   * @param seed The seed data used to initialise the RNG.
+   * @param threadConfined Whether the RNG is only ever used by a single thread, in which case its
+   *     internal state is not guarded by a lock.
+   */
+  XorShiftRng(byte[] seed, boolean threadConfined) {
     if (seed == null || seed.length != SEED_SIZE_BYTES) {
       throw new IllegalArgumentException("XOR shift RNG requires 160 bits of seed data.");
     }
+    this.lock = threadConfined ? null : new ReentrantLock();
     this.seed = seed.clone();
     int[] state = BinaryUtils.convertBytesToInts(seed);
     this.state1 = state[0];
@@ -81,18 +94,25 @@ public class XorShiftRng extends Random {
   /** {@inheritDoc} */
   @Override
   protected int next(int bits) {
+    if (lock == null) {
+      return nextUnlocked(bits);
+    }
     try {
       lock.lock();
-      int t = (state1 ^ (state1 >> 7));
-      state1 = state2;
-      state2 = state3;
-      state3 = state4;
-      state4 = state5;
-      state5 = (state5 ^ (state5 << 6)) ^ (t ^ (t << 13));
-      int value = (state2 + state2 + 1) * state5;
-      return value >>> (32 - bits);
+      return nextUnlocked(bits);
     } finally {
       lock.unlock();
     }
   }
+
+  private int nextUnlocked(int bits) {
+    int t = (state1 ^ (state1 >> 7));
+    state1 = state2;
+    state2 = state3;
+    state3 = state4;
+    state4 = state5;
+    state5 = (state5 ^ (state5 << 6)) ^ (t ^ (t << 13));
+    int value = (state2 + state2 + 1) * state5;
+    return value >>> (32 - bits);
+  }
 }
@@ -45,6 +45,7 @@ public class XtraceOptions {
   private static final Logger logger = LoggerFactory.getLogger();
   static final long TIMESTAMP_MAX_DELTA = 5 * 60; // 5 minutes in seconds
   private static SignatureAuthenticator authenticator;
+  private static final XtraceOptionsCache cache = new XtraceOptionsCache();
 
   private final Map<XtraceOption<?>, ?> options;
   static final String ENTRY_SEPARATOR = ";";
@@ -64,6 +65,9 @@ public class XtraceOptions {
    */
   @Getter private final AuthenticationStatus authenticationStatus;
 
+  // last epoch second for which the authentication status still holds
+  @ToString.Exclude private final long authenticationValidUntil;
+
   static {
     SettingsManager.registerListener(
         new SettingsArgChangeListener<byte[]>(SettingsArg.TRACE_OPTIONS_SECRET) {
@@ -82,9 +86,18 @@ public class XtraceOptions {
       Map<XtraceOption<?>, ?> options,
       List<XtraceOptionException> exceptions,
       AuthenticationStatus authenticationStatus) {
+    this(options, exceptions, authenticationStatus, Long.MAX_VALUE);
+  }
+
+  private XtraceOptions(
+      Map<XtraceOption<?>, ?> options,
+      List<XtraceOptionException> exceptions,
+      AuthenticationStatus authenticationStatus,
+      long authenticationValidUntil) {
     this.options = options;
     this.exceptions = exceptions;
     this.authenticationStatus = authenticationStatus;
+    this.authenticationValidUntil = authenticationValidUntil;
   }
 
   /**
@@ -93,6 +106,9 @@ public class XtraceOptions {
    * <p>If `traceOptionsSignature` is provided, then authenticates the options with the
    * authenticator
    *
+   * <p>Results are cached by the options and the signature, the returned instance could be shared
+   * with other requests carrying the same headers
+   *
    * @param traceOptionsString the raw X-Trace-Options header value to parse
    * @param traceOptionsSignature the signature to authenticate the options, or null if not provided
    * @return An XTraceOptions instance after the parsing and authentication; null if
@@ -102,7 +118,27 @@ public class XtraceOptions {
    */
   public static XtraceOptions getXtraceOptions(
       String traceOptionsString, String traceOptionsSignature) {
-    return getXtraceOptions(traceOptionsString, traceOptionsSignature, authenticator);
+    return cache.get(traceOptionsString, traceOptionsSignature, authenticator);
+  }
+
+  /**
+   * Consumes and returns the number of {@link #getXtraceOptions(String, String)} calls served from
+   * the cache since the last call
+   *
+   * @return the cache hit count since the last call
+   */
+  public static long consumeCacheHitCount() {
+    return cache.consumeHitCount();
+  }
+
+  /**
+   * Consumes and returns the number of {@link #getXtraceOptions(String, String)} calls that had to
+   * parse the options since the last call
+   *
+   * @return the cache miss count since the last call
+   */
+  public static long consumeCacheMissCount() {
+    return cache.consumeMissCount();
   }
 
   static XtraceOptions getXtraceOptions(
@@ -180,24 +216,58 @@ public class XtraceOptions {
     }
 
     // authenticate
+    final Long timestamp = (Long) options.get(XtraceOption.TS);
+    final long authenticationValidUntil =
+        getAuthenticationValidUntil(
+            timestamp, traceOptionsSignature, System.currentTimeMillis() / 1000);
     AuthenticationStatus authenticationStatus =
-        authenticate(
-            traceOptionsString,
-            (Long) options.get(XtraceOption.TS),
-            traceOptionsSignature,
-            authenticator);
+        authenticate(traceOptionsString, timestamp, traceOptionsSignature, authenticator);
 
     if (authenticationStatus.isFailure()) { // if authentication failed, ignore all xtrace options
       return new XtraceOptions(
-          Collections.emptyMap(), Collections.emptyList(), authenticationStatus);
+          Collections.emptyMap(),
+          Collections.emptyList(),
+          authenticationStatus,
+          authenticationValidUntil);
     } else {
       for (XtraceOptionException exception : exceptions) {
         logger.debug(exception.getMessage());
       }
-      return new XtraceOptions(options, exceptions, authenticationStatus);
+      return new XtraceOptions(
+          options,
+          Collections.unmodifiableList(exceptions),
+          authenticationStatus,
+          authenticationValidUntil);
     }
   }
 
+  /**
+   * Computes until when the timestamp check of {@link #authenticate} keeps the verdict it has at
+   * `nowSeconds`, so that an authenticated result can be reused until then
+   *
+   * @param timestamp the timestamp extracted from the options, or null if absent
+   * @param traceOptionsSignature the signature to verify against, or null if not provided
+   * @param nowSeconds the current time in epoch seconds
+   * @return the last epoch second the verdict holds, {@link Long#MAX_VALUE} if it never changes
+   */
+  static long getAuthenticationValidUntil(
+      Long timestamp, String traceOptionsSignature, long nowSeconds) {
+    if (traceOptionsSignature == null || timestamp == null) {
+      return Long.MAX_VALUE;
+    }
+    if (timestamp < nowSeconds - TIMESTAMP_MAX_DELTA) { // expired for good
+      return Long.MAX_VALUE;
+    }
+    if (timestamp > nowSeconds + TIMESTAMP_MAX_DELTA) { // not valid yet
+      return timestamp - TIMESTAMP_MAX_DELTA - 1;
+    }
+    return timestamp + TIMESTAMP_MAX_DELTA;
+  }
+
+  long getAuthenticationValidUntil() {
+    return authenticationValidUntil;
+  }
+
   /**
    * Authenticates the `optionString` with:
    *
@@ -445,15 +515,19 @@ public class XtraceOptions {
     boolean authenticate(String optionsString, String signature);
   }
 
+  /**
+   * Authenticates with HMAC-SHA1. A {@link Mac} is not thread safe, so each thread keeps its own
+   * one initialized with the secret
+   */
   static class HmacSignatureAuthenticator implements SignatureAuthenticator {
-    private final Mac mac;
+    private final ThreadLocal<Mac> mac;
 
     HmacSignatureAuthenticator(byte[] secret) {
-      mac = getMac(secret);
+      SecretKeySpec signingKey = new SecretKeySpec(secret, "HMACSHA1");
+      mac = ThreadLocal.withInitial(() -> getMac(signingKey));
     }
 
-    private Mac getMac(byte[] secret) {
-      SecretKeySpec signingKey = new SecretKeySpec(secret, "HMACSHA1");
+    private static Mac getMac(SecretKeySpec signingKey) {
       try {
         Mac mac = Mac.getInstance("HMACSHA1");
         mac.init(signingKey);
@@ -467,6 +541,10 @@ public class XtraceOptions {
 
     @Override
     public boolean authenticate(String optionsString, String signature) {
+      final Mac mac = this.mac.get();
+      if (mac == null) {
+        return false;
+      }
       byte[] rawHmac = mac.doFinal(optionsString.getBytes());
       String expectedSignature = HexUtils.bytesToHex(rawHmac).toLowerCase();
       return expectedSignature.equals(signature);
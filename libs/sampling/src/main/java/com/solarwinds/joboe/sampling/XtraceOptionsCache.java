@@ -0,0 +1,140 @@
+/*
+ * © SolarWinds Worldwide, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.solarwinds.joboe.sampling;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded cache of parsed and authenticated {@link XtraceOptions} keyed by the options string and
+ * the signature. Synthetic monitors and health checks send identical X-Trace-Options many times a
+ * minute, so most of them skip the parsing and the HMAC check.
+ *
+ * <p>An entry is only reused with the same authenticator it was verified with, and until the
+ * timestamp check of a signed options string could give another verdict.
+ */
+final class XtraceOptionsCache {
+  static final long MAXIMUM_SIZE = 1024;
+
+  // longer options are parsed every time to bound the memory held by the cache
+  static final int MAX_OPTIONS_LENGTH = 1024;
+
+  private final Cache<Key, Entry> cache;
+
+  private final LongSupplier epochSecondsClock;
+
+  private final IntervalCounter hitCount = new IntervalCounter();
+
+  private final IntervalCounter missCount = new IntervalCounter();
+
+  XtraceOptionsCache() {
+    this(MAXIMUM_SIZE, () -> System.currentTimeMillis() / 1000);
+  }
+
+  XtraceOptionsCache(long maximumSize, LongSupplier epochSecondsClock) {
+    this.cache = Caffeine.newBuilder().maximumSize(maximumSize).build();
+    this.epochSecondsClock = epochSecondsClock;
+  }
+
+  /**
+   * Returns the cached result of {@link XtraceOptions#getXtraceOptions(String, String,
+   * XtraceOptions.SignatureAuthenticator)}, parsing the options on a miss
+   *
+   * @param traceOptionsString the raw X-Trace-Options header value, could be null
+   * @param traceOptionsSignature the signature of the options, could be null
+   * @param authenticator the signature authenticator to use, could be null
+   * @return the parsed options, null if `traceOptionsString` is null
+   */
+  XtraceOptions get(
+      String traceOptionsString,
+      String traceOptionsSignature,
+      XtraceOptions.SignatureAuthenticator authenticator) {
+    if (traceOptionsString == null) {
+      return null;
+    }
+    if (traceOptionsString.length() > MAX_OPTIONS_LENGTH) {
+      missCount.increment();
+      return XtraceOptions.getXtraceOptions(
+          traceOptionsString, traceOptionsSignature, authenticator);
+    }
+
+    final Key key = new Key(traceOptionsString, traceOptionsSignature);
+    final Entry entry = cache.getIfPresent(key);
+    if (entry != null
+        && entry.authenticator == authenticator
+        && epochSecondsClock.getAsLong() <= entry.options.getAuthenticationValidUntil()) {
+      hitCount.increment();
+      return entry.options;
+    }
+
+    missCount.increment();
+    final XtraceOptions options =
+        XtraceOptions.getXtraceOptions(traceOptionsString, traceOptionsSignature, authenticator);
+    cache.put(key, new Entry(options, authenticator));
+    return options;
+  }
+
+  long consumeHitCount() {
+    return hitCount.consume();
+  }
+
+  long consumeMissCount() {
+    return missCount.consume();
+  }
+
+  private static final class Key {
+    private final String traceOptionsString;
+    private final String traceOptionsSignature;
+    private final int hashCode;
+
+    private Key(String traceOptionsString, String traceOptionsSignature) {
+      this.traceOptionsString = traceOptionsString;
+      this.traceOptionsSignature = traceOptionsSignature;
+      this.hashCode = 31 * traceOptionsString.hashCode() + Objects.hashCode(traceOptionsSignature);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key that = (Key) o;
+      return traceOptionsString.equals(that.traceOptionsString)
+          && Objects.equals(traceOptionsSignature, that.traceOptionsSignature);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+  private static final class Entry {
+    private final XtraceOptions options;
+    private final XtraceOptions.SignatureAuthenticator authenticator;
+
+    private Entry(XtraceOptions options, XtraceOptions.SignatureAuthenticator authenticator) {
+      this.options = options;
+      this.authenticator = authenticator;
+    }
+  }
+}
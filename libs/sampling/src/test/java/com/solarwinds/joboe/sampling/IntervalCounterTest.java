@@ -0,0 +1,75 @@
+/*
+ * © SolarWinds Worldwide, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.solarwinds.joboe.sampling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class IntervalCounterTest {
+
+  @Test
+  void consumeCountSinceLastCall() {
+    IntervalCounter tested = new IntervalCounter();
+    tested.increment();
+    tested.add(2);
+    assertEquals(3, tested.consume());
+    assertEquals(0, tested.consume());
+
+    tested.increment();
+    assertEquals(1, tested.consume());
+  }
+
+  @Test
+  void countAllIncrementsGivenConcurrentConsume() throws InterruptedException {
+    IntervalCounter tested = new IntervalCounter();
+    int threadCount = 4;
+    int incrementsPerThread = 100_000;
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < threadCount; i++) {
+      Thread thread =
+          new Thread(
+              () -> {
+                for (int j = 0; j < incrementsPerThread; j++) {
+                  tested.increment();
+                }
+              });
+      threads.add(thread);
+      thread.start();
+    }
+
+    long consumed = 0;
+    for (Thread thread : threads) {
+      while (thread.isAlive()) {
+        consumed += tested.consume();
+      }
+    }
+    consumed += tested.consume();
+
+    assertEquals((long) threadCount * incrementsPerThread, consumed);
+  }
+
+  @Test
+  void discardCountOnReset() {
+    IntervalCounter tested = new IntervalCounter();
+    tested.add(5);
+    tested.reset();
+    assertEquals(0, tested.consume());
+  }
+}
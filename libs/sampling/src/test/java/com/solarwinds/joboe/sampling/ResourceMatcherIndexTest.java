@@ -0,0 +1,158 @@
+/*
+ * © SolarWinds Worldwide, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.solarwinds.joboe.sampling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+
+class ResourceMatcherIndexTest {
+
+  private static final List<String> REGEXES =
+      Arrays.asList(
+          "/api/health",
+          "^/static/.*$",
+          ".*\\.(png|jpg)",
+          ".*\\.html",
+          "/api/.*",
+          "/api/v\\d+/users",
+          "",
+          ".*",
+          "/A\\.b",
+          ".*/admin/.*",
+          "\\$home$");
+
+  private static final List<String> SIGNALS =
+      Arrays.asList(
+          "/api/health",
+          "/API/HEALTH",
+          "/static/app.js",
+          "/static/",
+          "/static/a\nb",
+          "/img/logo.PNG",
+          "/index.html",
+          "/line\nbreak.html",
+          "/api/v2/users",
+          "/api/anything",
+          "",
+          "/a.b",
+          "/AXb",
+          "/x/admin/y",
+          "$home",
+          "unrelated",
+          "multi line");
+
+  @Test
+  void returnsSameResultAsSequentialMatching() {
+    for (int flags : new int[] {0, Pattern.CASE_INSENSITIVE, Pattern.DOTALL}) {
+      // rotate the rules so that every rule kind gets to be the first match
+      for (int offset = 0; offset < REGEXES.size(); offset++) {
+        List<ResourceMatcher> matchers = new ArrayList<>();
+        for (int i = 0; i < REGEXES.size(); i++) {
+          matchers.add(
+              new PatternMatcher(
+                  Pattern.compile(REGEXES.get((i + offset) % REGEXES.size()), flags)));
+        }
+
+        ResourceMatcherIndex index = new ResourceMatcherIndex(matchers);
+        for (String first : SIGNALS) {
+          for (String second : SIGNALS) {
+            List<String> signals = Arrays.asList(first, second);
+            assertEquals(
+                firstMatchSequentially(matchers, signals),
+                index.firstMatch(signals),
+                "signals " + signals + " with flags " + flags + " and offset " + offset);
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  void evaluatesNonPatternMatchersInOrder() {
+    List<ResourceMatcher> matchers =
+        Arrays.asList(
+            signal -> signal.endsWith(".js"),
+            new PatternMatcher(Pattern.compile("/static/.*")),
+            signal -> true);
+    ResourceMatcherIndex index = new ResourceMatcherIndex(matchers);
+
+    assertEquals(0, index.firstMatch(Collections.singletonList("/static/app.js")));
+    assertEquals(1, index.firstMatch(Collections.singletonList("/static/app.css")));
+    assertEquals(2, index.firstMatch(Collections.singletonList("/other")));
+    assertEquals(-1, new ResourceMatcherIndex(Collections.emptyList()).firstMatch(SIGNALS));
+  }
+
+  @Test
+  void returnsFirstMatchingRuleFromTraceConfigs() {
+    TraceConfig staticConfig = new TraceConfig(0, SampleRateSource.FILE, (short) 0);
+    TraceConfig apiConfig = new TraceConfig(1000000, SampleRateSource.FILE, (short) 0);
+
+    Map<ResourceMatcher, TraceConfig> configs = new LinkedHashMap<>();
+    configs.put(
+        new PatternMatcher(Pattern.compile(".*\\.js", Pattern.CASE_INSENSITIVE)), staticConfig);
+    configs.put(
+        new PatternMatcher(Pattern.compile("/api/.*", Pattern.CASE_INSENSITIVE)), apiConfig);
+    TraceConfigs traceConfigs = new TraceConfigs(configs);
+
+    assertSame(staticConfig, traceConfigs.getTraceConfig(Arrays.asList("/api/lib.JS", "x")));
+    assertSame(apiConfig, traceConfigs.getTraceConfig(Arrays.asList("x", "/API/users")));
+    assertNull(traceConfigs.getTraceConfig(Arrays.asList("/other", "x")));
+
+    // cached results
+    assertSame(apiConfig, traceConfigs.getTraceConfig(Arrays.asList("x", "/API/users")));
+    assertNull(traceConfigs.getTraceConfig(Arrays.asList("/other", "x")));
+  }
+
+  private static int firstMatchSequentially(List<ResourceMatcher> matchers, List<String> signals) {
+    for (int i = 0; i < matchers.size(); i++) {
+      for (String signal : signals) {
+        if (matchers.get(i).matches(signal)) {
+          return i;
+        }
+      }
+    }
+    return -1;
+  }
+
+  private static final class PatternMatcher implements ResourceMatcher {
+    private final Pattern pattern;
+
+    private PatternMatcher(Pattern pattern) {
+      this.pattern = pattern;
+    }
+
+    @Override
+    public boolean matches(String signal) {
+      return pattern.matcher(signal).matches();
+    }
+
+    @Override
+    public Pattern getPattern() {
+      return pattern;
+    }
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * © SolarWinds Worldwide, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.solarwinds.joboe.sampling;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+class ThreadLocalRngTest {
+
+  @Test
+  void returnsSameGeneratorWithinThread() {
+    assertSame(ThreadLocalRng.secureSeeded(), ThreadLocalRng.secureSeeded());
+  }
+
+  @Test
+  void returnsDistinctGeneratorsAcrossThreads() throws InterruptedException {
+    AtomicReference<Random> other = new AtomicReference<>();
+    Thread thread = new Thread(() -> other.set(ThreadLocalRng.secureSeeded()));
+    thread.start();
+    thread.join();
+
+    assertNotSame(ThreadLocalRng.secureSeeded(), other.get());
+    // seeded from the shared generator, each thread gets its own seed
+    assertFalse(
+        Arrays.equals(
+            ((XorShiftRng) ThreadLocalRng.secureSeeded()).getSeed(),
+            ((XorShiftRng) other.get()).getSeed()));
+  }
+
+  @Test
+  void generatesDistinctIds() {
+    byte[] first = new byte[Constants.TASK_ID_LEN];
+    byte[] second = new byte[Constants.TASK_ID_LEN];
+    ThreadLocalRng.secureSeeded().nextBytes(first);
+    ThreadLocalRng.secureSeeded().nextBytes(second);
+
+    assertFalse(Arrays.equals(first, second));
+  }
+
+  @Test
+  void nextIntStaysWithinBound() {
+    for (int i = 0; i < 1000; i++) {
+      int value = ThreadLocalRng.nextInt(TraceDecisionUtil.SAMPLE_RESOLUTION);
+      assertTrue(value >= 0 && value < TraceDecisionUtil.SAMPLE_RESOLUTION);
+    }
+  }
+}
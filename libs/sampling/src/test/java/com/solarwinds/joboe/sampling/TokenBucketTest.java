@@ -16,10 +16,15 @@
 
 package com.solarwinds.joboe.sampling;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.Test;
 
 public class TokenBucketTest {
@@ -134,4 +139,38 @@ public class TokenBucketTest {
     assertTrue(bucket.consume(2)); // OK, 0 left
     assertFalse(bucket.consume()); // none left
   }
+
+  @Test
+  public void testConcurrentConsume() throws InterruptedException {
+    TokenBucket bucket = new TokenBucket(1000.0, 0.0);
+    AtomicInteger consumed = new AtomicInteger();
+
+    ExecutorService executorService = Executors.newFixedThreadPool(64);
+    for (int i = 0; i < 64; i++) {
+      executorService.submit(
+          () -> {
+            for (int j = 0; j < 100; j++) {
+              if (bucket.consume()) {
+                consumed.incrementAndGet();
+              }
+            }
+          });
+    }
+    executorService.shutdown();
+    assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+
+    assertEquals(1000, consumed.get()); // exactly the capacity, no token is handed out twice
+  }
+
+  @Test
+  public void testSettersKeepConfiguredValues() {
+    TokenBucket bucket = new TokenBucket(16.0, 8.0);
+    assertEquals(16.0, bucket.getCapacity());
+    assertEquals(8.0, bucket.getRatePerSecond());
+
+    bucket.setCapacity(0.3);
+    bucket.setRatePerSecond(0.5);
+    assertEquals(0.3, bucket.getCapacity());
+    assertEquals(0.5, bucket.getRatePerSecond());
+  }
 }
@@ -19,6 +19,8 @@ package com.solarwinds.joboe.sampling;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.when;
 
@@ -540,7 +542,7 @@ public class TraceDecisionUtilTest {
     when(settingsFetcherMock.getSettings())
         .thenReturn(SettingsStub.builder().withFlags(true, false, true, true, false).build());
 
-    int data;
+    long data;
     TraceDecisionUtil.consumeMetricsData(TraceDecisionUtil.MetricType.THROUGHPUT); // clear it
 
     TraceDecisionUtil.shouldTraceRequest("LayerA", null, null, null);
@@ -583,7 +585,7 @@ public class TraceDecisionUtilTest {
 
     executorService.invokeAll(tasks);
 
-    int data = TraceDecisionUtil.consumeMetricsData(TraceDecisionUtil.MetricType.THROUGHPUT);
+    long data = TraceDecisionUtil.consumeMetricsData(TraceDecisionUtil.MetricType.THROUGHPUT);
     assertEquals(threadCount * runPerThread, data);
 
     // try to do increment and clear at once
@@ -592,7 +594,7 @@ public class TraceDecisionUtilTest {
       tasks.add(
           () -> {
             TraceDecisionUtil.shouldTraceRequest("LayerA", null, null, null);
-            int data1 =
+            long data1 =
                 TraceDecisionUtil.consumeMetricsData(TraceDecisionUtil.MetricType.THROUGHPUT);
             return data1;
           });
@@ -666,7 +668,7 @@ public class TraceDecisionUtilTest {
         null); // no change in exhaustion, as Continue trace does not have bucket restriction
     // LayerC should have 1 token bucket exhaustion count
 
-    int data =
+    long data =
         TraceDecisionUtil.consumeMetricsData(TraceDecisionUtil.MetricType.TOKEN_BUCKET_EXHAUSTION);
     assertEquals(4, data);
 
@@ -937,7 +939,7 @@ public class TraceDecisionUtilTest {
     when(settingsFetcherMock.getSettings())
         .thenReturn(SettingsStub.builder().withFlags(true, false, true, true, false).build());
 
-    int data;
+    long data;
     TraceDecisionUtil.consumeMetricsData(TraceDecisionUtil.MetricType.TRACE_COUNT); // clear it
 
     when(settingsFetcherMock.getSettings())
@@ -981,7 +983,7 @@ public class TraceDecisionUtilTest {
     when(settingsFetcherMock.getSettings())
         .thenReturn(SettingsStub.builder().withFlags(true, false, true, true, false).build());
 
-    int data;
+    long data;
     TraceDecisionUtil.consumeMetricsData(TraceDecisionUtil.MetricType.SAMPLE_COUNT); // clear it
 
     when(settingsFetcherMock.getSettings())
@@ -1023,7 +1025,7 @@ public class TraceDecisionUtilTest {
     when(settingsFetcherMock.getSettings())
         .thenReturn(SettingsStub.builder().withFlags(true, false, true, true, false).build());
 
-    int data;
+    long data;
     TraceDecisionUtil.consumeMetricsData(
         TraceDecisionUtil.MetricType.THROUGH_TRACE_COUNT); // clear it
 
@@ -1074,7 +1076,7 @@ public class TraceDecisionUtilTest {
     when(settingsFetcherMock.getSettings())
         .thenReturn(SettingsStub.builder().withFlags(true, false, true, true, false).build());
 
-    int data;
+    long data;
     TraceDecisionUtil.consumeMetricsData(
         TraceDecisionUtil.MetricType.TRIGGERED_TRACE_COUNT); // clear it
     TraceDecisionUtil.consumeMetricsData(TraceDecisionUtil.MetricType.TRACE_COUNT); // clear it
@@ -1414,6 +1416,50 @@ public class TraceDecisionUtilTest {
     assertTrue(traceDecision.isReportMetrics());
   }
 
+  @Test
+  public void testSamplingSnapshotReusedUntilSettingsChange() {
+    Settings settings =
+        SettingsStub.builder()
+            .withFlags(true, false, true, true, false)
+            .withSampleRate(1000000)
+            .build();
+    when(settingsFetcherMock.getSettings()).thenReturn(settings);
+
+    TraceDecision first = TraceDecisionUtil.shouldTraceRequest(TEST_LAYER, null, null, null);
+    TraceDecision second = TraceDecisionUtil.shouldTraceRequest(TEST_LAYER, null, null, null);
+    assertTrue(first.isSampled());
+    assertSame(first, second); // same snapshot, decision is shared
+    assertSame(TraceDecisionUtil.getRemoteTraceConfig(), TraceDecisionUtil.getRemoteTraceConfig());
+
+    when(settingsFetcherMock.getSettings())
+        .thenReturn(
+            SettingsStub.builder()
+                .withFlags(true, false, true, true, false)
+                .withSampleRate(0)
+                .build());
+
+    TraceDecision updated = TraceDecisionUtil.shouldTraceRequest(TEST_LAYER, null, null, null);
+    assertFalse(updated.isSampled());
+    assertNotSame(first.getTraceConfig(), updated.getTraceConfig());
+    assertEquals(0, updated.getTraceConfig().getSampleRate());
+  }
+
+  @Test
+  public void testSamplingSnapshotRebuiltOnLocalConfigChange() {
+    when(settingsFetcherMock.getSettings())
+        .thenReturn(
+            SettingsStub.builder()
+                .withFlags(true, false, true, true, false)
+                .withSampleRate(1000000)
+                .build());
+    assertTrue(TraceDecisionUtil.shouldTraceRequest(TEST_LAYER, null, null, null).isSampled());
+
+    SettingsManager.initialize(
+        settingsFetcherMock,
+        SamplingConfiguration.builder().tracingMode(TracingMode.NEVER).build());
+    assertFalse(TraceDecisionUtil.shouldTraceRequest(TEST_LAYER, null, null, null).isSampled());
+  }
+
   private static Map.Entry<String, Object> getLayerTag(String layer) {
     return getTag("Layer", layer);
   }
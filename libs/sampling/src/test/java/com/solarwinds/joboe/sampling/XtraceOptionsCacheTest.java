@@ -0,0 +1,98 @@
+/*
+ * © SolarWinds Worldwide, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.solarwinds.joboe.sampling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class XtraceOptionsCacheTest {
+  private final AtomicLong clock = new AtomicLong(System.currentTimeMillis() / 1000);
+
+  private final XtraceOptionsCache tested = new XtraceOptionsCache(16, clock::get);
+
+  private final AtomicInteger authentications = new AtomicInteger();
+
+  private final XtraceOptions.SignatureAuthenticator authenticator =
+      (optionsString, signature) -> {
+        authentications.incrementAndGet();
+        return true;
+      };
+
+  @Test
+  void returnCachedOptionsGivenSameOptionsAndSignature() {
+    XtraceOptions first = tested.get("trigger-trace;custom-foo=bar", null, authenticator);
+    XtraceOptions second = tested.get("trigger-trace;custom-foo=bar", null, authenticator);
+
+    assertSame(first, second);
+    assertEquals("bar", second.getCustomKvs().values().iterator().next());
+    assertEquals(1, tested.consumeHitCount());
+    assertEquals(1, tested.consumeMissCount());
+    assertEquals(0, tested.consumeHitCount());
+
+    assertNotSame(first, tested.get("trigger-trace;custom-foo=bar", "sig", authenticator));
+    assertNull(tested.get(null, "sig", authenticator));
+  }
+
+  @Test
+  void reuseAuthenticationUntilTimestampLeavesWindow() {
+    String options = "trigger-trace;ts=" + clock.get();
+
+    XtraceOptions first = tested.get(options, "sig", authenticator);
+    assertEquals(XtraceOptions.AuthenticationStatus.OK, first.getAuthenticationStatus());
+    assertSame(first, tested.get(options, "sig", authenticator));
+    assertEquals(1, authentications.get());
+
+    clock.addAndGet(XtraceOptions.TIMESTAMP_MAX_DELTA);
+    assertSame(first, tested.get(options, "sig", authenticator));
+
+    clock.incrementAndGet();
+    assertNotSame(first, tested.get(options, "sig", authenticator));
+    assertEquals(2, tested.consumeHitCount());
+    assertEquals(2, tested.consumeMissCount());
+  }
+
+  @Test
+  void authenticateAgainGivenAuthenticatorChanged() {
+    String options = "trigger-trace;ts=" + clock.get();
+
+    XtraceOptions unavailable = tested.get(options, "sig", null);
+    assertEquals(
+        XtraceOptions.AuthenticationStatus.failure("authenticator-unavailable"),
+        unavailable.getAuthenticationStatus());
+
+    XtraceOptions authenticated = tested.get(options, "sig", authenticator);
+    assertEquals(XtraceOptions.AuthenticationStatus.OK, authenticated.getAuthenticationStatus());
+    assertEquals(0, tested.consumeHitCount());
+  }
+
+  @Test
+  void skipCacheGivenOversizeOptions() {
+    String value = new String(new char[XtraceOptionsCache.MAX_OPTIONS_LENGTH]).replace('\0', 'x');
+    String options = "custom-foo=" + value;
+
+    assertNotSame(
+        tested.get(options, null, authenticator), tested.get(options, null, authenticator));
+    assertEquals(0, tested.consumeHitCount());
+    assertEquals(2, tested.consumeMissCount());
+  }
+}
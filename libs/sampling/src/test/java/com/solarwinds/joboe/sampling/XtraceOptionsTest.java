@@ -25,9 +25,14 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.junit.jupiter.api.Test;
 
 public class XtraceOptionsTest {
@@ -329,6 +334,57 @@ public class XtraceOptionsTest {
             "2c1c398c3e6be898f47f74bf74f035903b48baaa"));
   }
 
+  @Test
+  public void testHmacAuthenticatorConcurrently() throws Exception {
+    byte[] content =
+        Files.readAllBytes(Paths.get(new File("src/test/resources/hmac-signature.txt").getPath()));
+    XtraceOptions.HmacSignatureAuthenticator authenticator =
+        new XtraceOptions.HmacSignatureAuthenticator(content);
+
+    ExecutorService executorService = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<Boolean>> results = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        results.add(
+            executorService.submit(
+                () -> {
+                  boolean allValid = true;
+                  for (int j = 0; j < 1000; j++) {
+                    allValid &=
+                        authenticator.authenticate(
+                            "trigger-trace;sw-keys=lo:se,check-id:123;ts=1564597681",
+                            "26e33ce58c52afc507c5c1e9feff4ac5562c9e1c");
+                  }
+                  return allValid;
+                }));
+      }
+      for (Future<Boolean> result : results) {
+        assertTrue(result.get());
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testAuthenticationValidUntil() {
+    long now = 1_700_000_000L;
+    long delta = XtraceOptions.TIMESTAMP_MAX_DELTA;
+
+    // no signature or no timestamp, the verdict never changes
+    assertEquals(Long.MAX_VALUE, XtraceOptions.getAuthenticationValidUntil(now, null, now));
+    assertEquals(Long.MAX_VALUE, XtraceOptions.getAuthenticationValidUntil(null, "sig", now));
+    // in range until the timestamp gets too old
+    assertEquals(now + delta, XtraceOptions.getAuthenticationValidUntil(now, "sig", now));
+    assertEquals(
+        now + delta, XtraceOptions.getAuthenticationValidUntil(now - delta, "sig", now - 1));
+    // too old stays too old
+    assertEquals(
+        Long.MAX_VALUE, XtraceOptions.getAuthenticationValidUntil(now - delta - 1, "sig", now));
+    // too new until the timestamp gets in range
+    assertEquals(now, XtraceOptions.getAuthenticationValidUntil(now + delta + 1, "sig", now));
+  }
+
   @Test
   public void testAuthenticate() throws IOException {
     byte[] content =
@@ -17,7 +17,6 @@
 package com.solarwinds.opentelemetry.extensions;
 
 import com.solarwinds.joboe.config.ConfigManager;
-import com.solarwinds.joboe.config.ConfigProperty;
 import io.opentelemetry.sdk.common.CompletableResultCode;
 import io.opentelemetry.sdk.common.export.MemoryMode;
 import io.opentelemetry.sdk.metrics.Aggregation;
@@ -39,7 +38,7 @@ public class DelegatingMetricExporter implements MetricExporter {
 
   @Override
   public CompletableResultCode export(@NonNull Collection<MetricData> metrics) {
-    if (ConfigManager.getConfigOptional(ConfigProperty.AGENT_EXPORT_METRICS_ENABLED, true)) {
+    if (ConfigManager.getSnapshot().isExportMetricsEnabled()) {
       return delegate.export(metrics).whenComplete(TransactionNameManager::clearTransactionNames);
     }
 
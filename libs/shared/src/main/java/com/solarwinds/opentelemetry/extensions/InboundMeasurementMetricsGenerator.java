@@ -21,8 +21,6 @@ import static com.solarwinds.opentelemetry.extensions.SharedNames.TRANSACTION_NA
 
 import com.solarwinds.joboe.logging.Logger;
 import com.solarwinds.joboe.logging.LoggerFactory;
-import io.opentelemetry.api.common.Attributes;
-import io.opentelemetry.api.common.AttributesBuilder;
 import io.opentelemetry.api.metrics.LongHistogram;
 import io.opentelemetry.api.metrics.Meter;
 import io.opentelemetry.api.trace.SpanContext;
@@ -38,6 +36,8 @@ import io.opentelemetry.semconv.HttpAttributes;
 public class InboundMeasurementMetricsGenerator implements ExtendedSpanProcessor {
   private LongHistogram responseTime;
 
+  private final ResponseTimeAttributes responseTimeAttributes = new ResponseTimeAttributes();
+
   private static final Logger logger = LoggerFactory.getLogger();
 
   private void initializeMeasurements() {
@@ -68,52 +68,40 @@ public class InboundMeasurementMetricsGenerator implements ExtendedSpanProcessor
 
   @Override
   public void onEnd(ReadableSpan span) {
-    final SpanContext parentSpanContext = span.toSpanData().getParentSpanContext();
-    if (!parentSpanContext.isValid() || parentSpanContext.isRemote()) {
-      initializeMeasurements();
-      final SpanData spanData = span.toSpanData();
-      final String transactionName = TransactionNameManager.getTransactionName(spanData);
-
-      boolean hasError = spanData.getStatus().getStatusCode() == StatusCode.ERROR;
-      final Long status = spanData.getAttributes().get(HttpAttributes.HTTP_RESPONSE_STATUS_CODE);
-
-      final long duration =
-          (spanData.getEndEpochNanos() - spanData.getStartEpochNanos()) / 1_000_000;
-
-      AttributesBuilder responseTimeAttr = Attributes.builder();
-      if (span.getKind() == SpanKind.SERVER && status != null) {
-        String key = "http.status_code";
-        responseTimeAttr.put(key, status);
-      }
-
-      final String method = spanData.getAttributes().get(HttpAttributes.HTTP_REQUEST_METHOD);
-      if (span.getKind() == SpanKind.SERVER && method != null) {
-        String methodKey = "http.method";
-        responseTimeAttr.put(methodKey, method);
-      }
-
-      String errorKey = "sw.is_error";
-      responseTimeAttr.put(errorKey, hasError);
-      responseTime.record(
-          duration, responseTimeAttr.put(TRANSACTION_NAME_KEY, transactionName).build());
-    }
+    // noop, the response time is recorded by onEnding along with the transaction name
   }
 
   @Override
   public boolean isEndRequired() {
-    return true;
+    return false;
   }
 
   @Override
   public void onEnding(ReadWriteSpan span) {
-    SpanData spanData = span.toSpanData();
-    final SpanContext parentSpanContext = spanData.getParentSpanContext();
+    final SpanContext parentSpanContext = span.getParentSpanContext();
+    if (parentSpanContext.isValid() && !parentSpanContext.isRemote()) {
+      return;
+    }
 
-    if (!parentSpanContext.isValid() || parentSpanContext.isRemote()) {
-      String transactionName = TransactionNameManager.getTransactionName(spanData);
-      span.setAttribute(TRANSACTION_NAME_KEY, transactionName)
-          .setAttribute(LEGACY_TRANSACTION_NAME_KEY, transactionName);
+    // the only copy of the span, shared by the transaction naming and the measurement
+    final SpanData spanData = span.toSpanData();
+    final String transactionName = TransactionNameManager.getTransactionName(spanData);
+    span.setAttribute(TRANSACTION_NAME_KEY, transactionName)
+        .setAttribute(LEGACY_TRANSACTION_NAME_KEY, transactionName);
+
+    initializeMeasurements();
+    final boolean hasError = spanData.getStatus().getStatusCode() == StatusCode.ERROR;
+    Long status = null;
+    String method = null;
+    if (spanData.getKind() == SpanKind.SERVER) {
+      status = spanData.getAttributes().get(HttpAttributes.HTTP_RESPONSE_STATUS_CODE);
+      method = spanData.getAttributes().get(HttpAttributes.HTTP_REQUEST_METHOD);
     }
+
+    final long duration =
+        (spanData.getEndEpochNanos() - spanData.getStartEpochNanos()) / 1_000_000;
+    responseTime.record(
+        duration, responseTimeAttributes.get(transactionName, method, status, hasError));
   }
 
   @Override
@@ -25,6 +25,10 @@ public class MeterProvider {
 
   public static final String requestMeterScopeName = "sw.apm.request.metrics";
 
+  public static final String profilingMeterScopeName = "sw.apm.profiling.metrics";
+
+  public static final String reporterMeterScopeName = "sw.apm.reporter.metrics";
+
   public static Meter getSamplingMetricsMeter() {
     return GlobalOpenTelemetry.meterBuilder(samplingMeterScopeName)
         .setInstrumentationVersion(BuildConfig.SOLARWINDS_AGENT_VERSION)
@@ -36,4 +40,16 @@ public class MeterProvider {
         .setInstrumentationVersion(BuildConfig.SOLARWINDS_AGENT_VERSION)
         .build();
   }
+
+  public static Meter getProfilingMetricsMeter() {
+    return GlobalOpenTelemetry.meterBuilder(profilingMeterScopeName)
+        .setInstrumentationVersion(BuildConfig.SOLARWINDS_AGENT_VERSION)
+        .build();
+  }
+
+  public static Meter getReporterMetricsMeter() {
+    return GlobalOpenTelemetry.meterBuilder(reporterMeterScopeName)
+        .setInstrumentationVersion(BuildConfig.SOLARWINDS_AGENT_VERSION)
+        .build();
+  }
 }
@@ -0,0 +1,126 @@
+/*
+ * © SolarWinds Worldwide, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.solarwinds.opentelemetry.extensions;
+
+import static com.solarwinds.opentelemetry.extensions.SharedNames.TRANSACTION_NAME_KEY;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.common.AttributesBuilder;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntSupplier;
+
+/**
+ * Interns the attribute sets of the response time measurements by transaction name, method, status
+ * code and error flag.
+ *
+ * <p>Lookups walk nested maps keyed by the values as read off the span, so a hit allocates nothing
+ * and the meter gets the same {@link Attributes} instance for every request of a tuple. Each level
+ * is bounded: transactions by the transaction name limit, as names over the limit are all reported
+ * as {@link TransactionNameManager#OVER_LIMIT_TRANSACTION_NAME}, methods and status codes by small
+ * fixed caps. Tuples over the caps get a new attribute set each time.
+ */
+final class ResponseTimeAttributes {
+  static final AttributeKey<Long> STATUS_CODE_KEY = AttributeKey.longKey("http.status_code");
+  static final AttributeKey<String> METHOD_KEY = AttributeKey.stringKey("http.method");
+  static final AttributeKey<Boolean> IS_ERROR_KEY = AttributeKey.booleanKey("sw.is_error");
+
+  static final int MAX_METHODS = 16;
+  static final int MAX_STATUS_CODES = 64;
+
+  // map keys for absent values, as concurrent maps do not accept null
+  private static final String NO_METHOD = "";
+  private static final Long NO_STATUS_CODE = Long.MIN_VALUE;
+
+  // the over limit and unknown names come on top of the tracked ones
+  private static final int RESERVED_NAME_COUNT = 2;
+
+  private final IntSupplier maxNameCount;
+
+  // transaction name -> method -> status code -> attribute sets without and with error
+  private final ConcurrentHashMap<
+          String, ConcurrentHashMap<String, ConcurrentHashMap<Long, Attributes[]>>>
+      transactions = new ConcurrentHashMap<>();
+
+  ResponseTimeAttributes() {
+    this(TransactionNameManager::getMaxNameCount);
+  }
+
+  ResponseTimeAttributes(IntSupplier maxNameCount) {
+    this.maxNameCount = maxNameCount;
+  }
+
+  /**
+   * Returns the attribute set of a response time measurement
+   *
+   * @param transactionName the transaction name, never null
+   * @param method the HTTP method, null if not a server span or absent
+   * @param statusCode the HTTP response status code, null if not a server span or absent
+   * @param hasError whether the span has an error status
+   * @return the interned attribute set, or a new one if the tuple is over the caps
+   */
+  Attributes get(String transactionName, String method, Long statusCode, boolean hasError) {
+    ConcurrentHashMap<String, ConcurrentHashMap<Long, Attributes[]>> methods =
+        transactions.get(transactionName);
+    if (methods == null) {
+      if (transactions.size() >= maxNameCount.getAsInt() + RESERVED_NAME_COUNT) {
+        // the tracked names rotate with every metrics export, start over with the current ones
+        transactions.clear();
+      }
+      methods = transactions.computeIfAbsent(transactionName, k -> new ConcurrentHashMap<>());
+    }
+
+    final String methodKey = method != null ? method : NO_METHOD;
+    ConcurrentHashMap<Long, Attributes[]> statusCodes = methods.get(methodKey);
+    if (statusCodes == null) {
+      if (methods.size() >= MAX_METHODS) {
+        return build(transactionName, method, statusCode, hasError);
+      }
+      statusCodes = methods.computeIfAbsent(methodKey, k -> new ConcurrentHashMap<>());
+    }
+
+    final Long statusCodeKey = statusCode != null ? statusCode : NO_STATUS_CODE;
+    Attributes[] byError = statusCodes.get(statusCodeKey);
+    if (byError == null) {
+      if (statusCodes.size() >= MAX_STATUS_CODES) {
+        return build(transactionName, method, statusCode, hasError);
+      }
+      byError = statusCodes.computeIfAbsent(statusCodeKey, k -> new Attributes[2]);
+    }
+
+    final int index = hasError ? 1 : 0;
+    Attributes attributes = byError[index];
+    if (attributes == null) {
+      // racing threads build equal sets, which are immutable
+      attributes = build(transactionName, method, statusCode, hasError);
+      byError[index] = attributes;
+    }
+    return attributes;
+  }
+
+  static Attributes build(
+      String transactionName, String method, Long statusCode, boolean hasError) {
+    AttributesBuilder builder = Attributes.builder();
+    if (statusCode != null) {
+      builder.put(STATUS_CODE_KEY, statusCode);
+    }
+    if (method != null) {
+      builder.put(METHOD_KEY, method);
+    }
+    return builder.put(IS_ERROR_KEY, hasError).put(TRANSACTION_NAME_KEY, transactionName).build();
+  }
+}
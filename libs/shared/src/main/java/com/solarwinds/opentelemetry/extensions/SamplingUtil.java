@@ -21,17 +21,31 @@ import com.solarwinds.joboe.sampling.TraceDecisionUtil;
 import com.solarwinds.joboe.sampling.XtraceOption;
 import com.solarwinds.joboe.sampling.XtraceOptions;
 import io.opentelemetry.api.common.AttributesBuilder;
-import java.util.regex.Pattern;
 
 public class SamplingUtil {
   private SamplingUtil() {}
 
   public static final String SW_TRACESTATE_KEY = "sw";
   public static final String SW_XTRACE_OPTIONS_RESP_KEY = "xtrace_options_response";
-  static final Pattern SW_TRACESTATE_REGEX = Pattern.compile("[0-9a-fA-F]{16}-[0-9a-fA-F]{2}");
+  // <16 hex span id>-<2 hex trace flags>
+  private static final int SW_TRACESTATE_LENGTH = 19;
+  private static final int SW_TRACESTATE_DELIMITER_INDEX = 16;
 
   public static boolean isValidSwTraceState(String swVal) {
-    return swVal != null && SW_TRACESTATE_REGEX.matcher(swVal).matches();
+    if (swVal == null || swVal.length() != SW_TRACESTATE_LENGTH) {
+      return false;
+    }
+    for (int i = 0; i < SW_TRACESTATE_LENGTH; i++) {
+      final char c = swVal.charAt(i);
+      if (i == SW_TRACESTATE_DELIMITER_INDEX ? c != '-' : !isHex(c)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isHex(char c) {
+    return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
   }
 
   public static void addXtraceOptionsToAttribute(
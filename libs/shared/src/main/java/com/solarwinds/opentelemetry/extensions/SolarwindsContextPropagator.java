@@ -30,8 +30,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.util.function.BiConsumer;
 
 public class SolarwindsContextPropagator implements TextMapPropagator {
   private static final String SWI_TRACE_STATE_KEY = "sw";
@@ -46,8 +45,10 @@ public class SolarwindsContextPropagator implements TextMapPropagator {
   private static final int TRACESTATE_MAX_SIZE = 512;
   private static final int TRACESTATE_MAX_MEMBERS = 32;
   private static final int OVERSIZE_ENTRY_LENGTH = 129;
-  private static final String TRACESTATE_KEY_VALUE_DELIMITER = "=";
-  private static final String TRACESTATE_ENTRY_DELIMITER = ",";
+  private static final char TRACESTATE_KEY_VALUE_DELIMITER = '=';
+  private static final char TRACESTATE_ENTRY_DELIMITER = ',';
+  private static final String SW_ENTRY_PREFIX =
+      SWI_TRACE_STATE_KEY + TRACESTATE_KEY_VALUE_DELIMITER;
 
   @Override
   public Collection<String> fields() {
@@ -95,58 +96,24 @@ public class SolarwindsContextPropagator implements TextMapPropagator {
    * @return updated tracestate serialized to string
    */
   private String updateTraceState(TraceState traceState, String swTraceStateValue) {
-    final StringBuilder traceStateBuilder = new StringBuilder(TRACESTATE_MAX_SIZE);
-    traceStateBuilder
-        .append(SWI_TRACE_STATE_KEY)
-        .append(TRACESTATE_KEY_VALUE_DELIMITER)
-        .append(swTraceStateValue);
-
-    final Set<Map.Entry<String, String>> tracestateEntries = traceState.asMap().entrySet();
-    int count = 1;
-    // calculate current length of the tracestate
-    int traceStateLength = 0;
-    for (Map.Entry<String, String> entry : tracestateEntries) {
-      String key = entry.getKey();
-      boolean verdict = (SWI_TRACE_STATE_KEY.equals(key) || SW_XTRACE_OPTIONS_RESP_KEY.equals(key));
-      if (!verdict) {
-        traceStateLength += (key.length());
-        traceStateLength += (TRACESTATE_KEY_VALUE_DELIMITER.length());
-        traceStateLength += (entry.getValue().length());
-        traceStateLength += (TRACESTATE_ENTRY_DELIMITER.length());
-      }
+    if (traceState.isEmpty()) {
+      return SWI_TRACE_STATE_KEY + TRACESTATE_KEY_VALUE_DELIMITER + swTraceStateValue;
     }
 
-    boolean truncateLargeEntry =
-        traceStateLength + traceStateBuilder.length() > TRACESTATE_MAX_SIZE;
-    for (Map.Entry<String, String> entry : tracestateEntries) {
-      String key = entry.getKey();
-      String value = entry.getValue();
-      boolean verdict = (SWI_TRACE_STATE_KEY.equals(key) || SW_XTRACE_OPTIONS_RESP_KEY.equals(key));
-
-      final int length =
-          traceStateBuilder.length()
-              + TRACESTATE_ENTRY_DELIMITER.length()
-              + key.length()
-              + TRACESTATE_KEY_VALUE_DELIMITER.length()
-              + value.length();
-
-      if (!verdict && count < TRACESTATE_MAX_MEMBERS && length <= TRACESTATE_MAX_SIZE) {
-        if (key.length() + TRACESTATE_KEY_VALUE_DELIMITER.length() + value.length()
-                >= OVERSIZE_ENTRY_LENGTH
-            && truncateLargeEntry) {
-          truncateLargeEntry = false; // only truncate one oversize entry as SW tracestate entry is
-          // smaller than OVERSIZE_ENTRY_LENGTH
-        } else {
-          traceStateBuilder
-              .append(TRACESTATE_ENTRY_DELIMITER)
-              .append(key)
-              .append(TRACESTATE_KEY_VALUE_DELIMITER)
-              .append(value);
-          count++;
-        }
-      }
-    }
-    return traceStateBuilder.toString();
+    // measure the entries to carry over first, then write them into a builder of the final size
+    final TraceStateWriter writer = new TraceStateWriter();
+    traceState.forEach(writer);
+
+    final int swEntryLength = SWI_TRACE_STATE_KEY.length() + 1 + swTraceStateValue.length();
+    final int traceStateLength = swEntryLength + writer.otherEntriesLength;
+    writer.truncateLargeEntry = traceStateLength > TRACESTATE_MAX_SIZE;
+    writer.builder =
+        new StringBuilder(Math.min(traceStateLength, TRACESTATE_MAX_SIZE))
+            .append(SWI_TRACE_STATE_KEY)
+            .append(TRACESTATE_KEY_VALUE_DELIMITER)
+            .append(swTraceStateValue);
+    traceState.forEach(writer);
+    return writer.builder.toString();
   }
 
   /**
@@ -175,12 +142,79 @@ public class SolarwindsContextPropagator implements TextMapPropagator {
 
     final String traceState = getter.get(carrier, TRACE_STATE);
     if (traceState != null) {
-      boolean anyMatch =
-          Arrays.stream(traceState.split(",")).anyMatch(info -> !info.startsWith("sw="));
-      if (anyMatch) {
+      if (hasOtherVendorEntry(traceState)) {
         context = context.with(TraceStateKey.KEY, traceState);
       }
     }
     return context;
   }
+
+  /**
+   * Scans the raw tracestate header for an entry that is not ours, without splitting it. Trailing
+   * empty entries are ignored while other empty entries count as foreign ones.
+   *
+   * @param traceState the raw tracestate header
+   * @return true if any entry does not start with {@code sw=}
+   */
+  static boolean hasOtherVendorEntry(String traceState) {
+    int end = traceState.length();
+    while (end > 0 && traceState.charAt(end - 1) == TRACESTATE_ENTRY_DELIMITER) {
+      end--;
+    }
+    if (end == 0) {
+      return traceState.isEmpty();
+    }
+
+    int start = 0;
+    while (true) {
+      if (!traceState.startsWith(SW_ENTRY_PREFIX, start)) {
+        return true;
+      }
+      final int delimiter = traceState.indexOf(TRACESTATE_ENTRY_DELIMITER, start);
+      if (delimiter < 0 || delimiter >= end) {
+        return false;
+      }
+      start = delimiter + 1;
+    }
+  }
+
+  /**
+   * Appends the entries of a {@link TraceState} after ours, visited via {@link TraceState#forEach}
+   * so that no map of the entries is built. Only measures the entries to carry over while no
+   * builder is set.
+   */
+  private static final class TraceStateWriter implements BiConsumer<String, String> {
+    private StringBuilder builder;
+    private int otherEntriesLength;
+    private boolean truncateLargeEntry;
+    private int count = 1;
+
+    @Override
+    public void accept(String key, String value) {
+      if (SWI_TRACE_STATE_KEY.equals(key) || SW_XTRACE_OPTIONS_RESP_KEY.equals(key)) {
+        return;
+      }
+
+      final int entryLength = key.length() + 1 + value.length();
+      if (builder == null) {
+        otherEntriesLength += entryLength + 1;
+        return;
+      }
+
+      if (count < TRACESTATE_MAX_MEMBERS
+          && builder.length() + 1 + entryLength <= TRACESTATE_MAX_SIZE) {
+        if (entryLength >= OVERSIZE_ENTRY_LENGTH && truncateLargeEntry) {
+          truncateLargeEntry = false; // only truncate one oversize entry as SW tracestate entry is
+          // smaller than OVERSIZE_ENTRY_LENGTH
+        } else {
+          builder
+              .append(TRACESTATE_ENTRY_DELIMITER)
+              .append(key)
+              .append(TRACESTATE_KEY_VALUE_DELIMITER)
+              .append(value);
+          count++;
+        }
+      }
+    }
+  }
 }
@@ -23,7 +23,9 @@ import static com.solarwinds.opentelemetry.extensions.SharedNames.LAYER_NAME_PLA
 
 import com.solarwinds.joboe.logging.Logger;
 import com.solarwinds.joboe.logging.LoggerFactory;
+import com.solarwinds.joboe.sampling.TraceConfig;
 import com.solarwinds.joboe.sampling.TraceDecision;
+import com.solarwinds.joboe.sampling.TraceDecisionUtil;
 import com.solarwinds.joboe.sampling.XtraceOptions;
 import com.solarwinds.joboe.sampling.XtraceOptionsResponse;
 import com.solarwinds.opentelemetry.core.Constants;
@@ -42,8 +44,9 @@ import io.opentelemetry.sdk.trace.samplers.SamplingDecision;
 import io.opentelemetry.sdk.trace.samplers.SamplingResult;
 import io.opentelemetry.semconv.ServerAttributes;
 import io.opentelemetry.semconv.UrlAttributes;
-import java.util.Arrays;
+import java.util.AbstractList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Sampler that uses trace decision logic from our joboe core (consult local and remote settings)
@@ -82,8 +85,12 @@ public class SolarwindsSampler implements Sampler {
               AttributeKey.booleanKey(Constants.SW_METRICS), false,
               AttributeKey.booleanKey(Constants.SW_SAMPLER), true));
 
+  private static final Sampler LOCAL_PARENT_BASED = Sampler.parentBased(Sampler.alwaysOff());
+
   private static final Logger logger = LoggerFactory.getLogger();
 
+  private volatile SampledResults sampledResults = SampledResults.EMPTY;
+
   public SolarwindsSampler() {
     logger.info("Attached Solarwinds' Sampler");
   }
@@ -97,72 +104,75 @@ public class SolarwindsSampler implements Sampler {
       Attributes attributes,
       List<LinkData> parentLinks) {
     final SpanContext parentSpanContext = Span.fromContext(parentContext).getSpanContext();
-    final TraceState traceState =
-        parentSpanContext.getTraceState() != null
-            ? parentSpanContext.getTraceState()
-            : TraceState.getDefault();
 
-    final SamplingResult samplingResult;
-    final AttributesBuilder additionalAttributesBuilder = Attributes.builder();
-    final XtraceOptions xTraceOptions = parentContext.get(TriggerTraceContextKey.KEY);
+    if (parentSpanContext.isValid()
+        && !parentSpanContext.isRemote()) { // local span, continue with parent based sampling
+      SamplingResult result =
+          LOCAL_PARENT_BASED.shouldSample(
+              parentContext, traceId, name, spanKind, attributes, parentLinks);
+      logger.trace(() -> String.format("Sampling decision: %s", result.getDecision()));
+      return result;
+    }
 
-    String xtraceOptionsResponseStr = null;
-    List<String> signals =
-        Arrays.asList(
-            constructUrl(attributes), String.format(LAYER_NAME_PLACEHOLDER, spanKind, name.trim()));
+    final XtraceOptions xTraceOptions = parentContext.get(TriggerTraceContextKey.KEY);
+    // only resolved if there are transaction settings to match against
+    final List<String> signals = new Signals(attributes, spanKind, name);
+    final TraceDecision traceDecision;
+    final boolean genesis;
+    Attributes additionalAttributes = Attributes.empty();
 
     if (!parentSpanContext.isValid()) { // no valid traceparent, it is a new trace
-      TraceDecision traceDecision = shouldTraceRequest(name, null, xTraceOptions, signals);
-      samplingResult = toOtSamplingResult(traceDecision, xTraceOptions, true);
-      XtraceOptionsResponse xtraceOptionsResponse =
-          XtraceOptionsResponse.computeResponse(xTraceOptions, traceDecision, true);
+      traceDecision = shouldTraceRequest(name, null, xTraceOptions, signals);
+      genesis = true;
 
-      if (xtraceOptionsResponse != null) {
-        xtraceOptionsResponseStr = xtraceOptionsResponse.toString();
-      }
-
-    } else if (parentSpanContext.isRemote()) {
+    } else {
+      final TraceState traceState =
+          parentSpanContext.getTraceState() != null
+              ? parentSpanContext.getTraceState()
+              : TraceState.getDefault();
       final String swTraceState = traceState.get(SW_TRACESTATE_KEY);
+      final String traceStateValue = parentContext.get(TraceStateKey.KEY);
+      AttributesBuilder additionalAttributesBuilder = null;
 
       if (SamplingUtil.isValidSwTraceState(swTraceState)) { // pass through for request counting
-        additionalAttributesBuilder.put(Constants.SW_PARENT_ID, swTraceState.split("-")[0]);
+        additionalAttributesBuilder = Attributes.builder();
+        additionalAttributesBuilder.put(
+            Constants.SW_PARENT_ID, swTraceState.substring(0, swTraceState.indexOf('-')));
         final String xTraceId = Util.w3cContextToHexString(parentSpanContext);
-        final TraceDecision traceDecision =
-            shouldTraceRequest(name, xTraceId, xTraceOptions, signals);
-
-        samplingResult = toOtSamplingResult(traceDecision, xTraceOptions, false);
-        final XtraceOptionsResponse xTraceOptionsResponse =
-            XtraceOptionsResponse.computeResponse(xTraceOptions, traceDecision, false);
-
-        if (xTraceOptionsResponse != null) {
-          xtraceOptionsResponseStr = xTraceOptionsResponse.toString();
-        }
+        traceDecision = shouldTraceRequest(name, xTraceId, xTraceOptions, signals);
+        genesis = false;
 
       } else { // no swTraceState, treat it as a new trace
-        final TraceDecision traceDecision = shouldTraceRequest(name, null, xTraceOptions, signals);
-        samplingResult = toOtSamplingResult(traceDecision, xTraceOptions, true);
-
-        final XtraceOptionsResponse xTraceOptionsResponse =
-            XtraceOptionsResponse.computeResponse(xTraceOptions, traceDecision, true);
-        if (xTraceOptionsResponse != null) {
-          xtraceOptionsResponseStr = xTraceOptionsResponse.toString();
-        }
+        traceDecision = shouldTraceRequest(name, null, xTraceOptions, signals);
+        genesis = true;
       }
 
-      final String traceStateValue = parentContext.get(TraceStateKey.KEY);
       if (traceStateValue != null) {
+        if (additionalAttributesBuilder == null) {
+          additionalAttributesBuilder = Attributes.builder();
+        }
         additionalAttributesBuilder.put(Constants.SW_UPSTREAM_TRACESTATE, traceStateValue);
       }
 
-    } else { // local span, continue with parent based sampling
-      samplingResult =
-          Sampler.parentBased(Sampler.alwaysOff())
-              .shouldSample(parentContext, traceId, name, spanKind, attributes, parentLinks);
+      if (additionalAttributesBuilder != null) {
+        additionalAttributes = additionalAttributesBuilder.build();
+      }
+    }
+
+    String xtraceOptionsResponseStr = null;
+    if (xTraceOptions != null) {
+      XtraceOptionsResponse xtraceOptionsResponse =
+          XtraceOptionsResponse.computeResponse(xTraceOptions, traceDecision, genesis);
+      if (xtraceOptionsResponse != null) {
+        xtraceOptionsResponseStr = xtraceOptionsResponse.toString();
+      }
     }
 
     SamplingResult result =
         TraceStateSamplingResult.wrap(
-            samplingResult, additionalAttributesBuilder.build(), xtraceOptionsResponseStr);
+            toOtSamplingResult(traceDecision, xTraceOptions, genesis),
+            additionalAttributes,
+            xtraceOptionsResponseStr);
 
     logger.trace(() -> String.format("Sampling decision: %s", result.getDecision()));
     return result;
@@ -206,33 +216,13 @@ public class SolarwindsSampler implements Sampler {
     SamplingResult result = NOT_TRACED;
 
     if (traceDecision.isSampled()) {
-      final SamplingDecision samplingDecision = SamplingDecision.RECORD_AND_SAMPLE;
-      final AttributesBuilder attributesBuilder = Attributes.builder();
-      attributesBuilder.put(
-          Constants.SW_KEY_PREFIX + "SampleRate", traceDecision.getTraceConfig().getSampleRate());
-      attributesBuilder.put(
-          Constants.SW_KEY_PREFIX + "SampleSource",
-          traceDecision.getTraceConfig().getSampleRateSourceValue());
-      attributesBuilder.put(
-          Constants.SW_KEY_PREFIX + "BucketRate",
-          traceDecision
-              .getTraceConfig()
-              .getBucketRate(traceDecision.getRequestType().getBucketType()));
-      attributesBuilder.put(
-          Constants.SW_KEY_PREFIX + "BucketCapacity",
-          traceDecision
-              .getTraceConfig()
-              .getBucketCapacity(traceDecision.getRequestType().getBucketType()));
-      attributesBuilder.put(
-          Constants.SW_KEY_PREFIX + "RequestType", traceDecision.getRequestType().name());
-      attributesBuilder.put(Constants.SW_DETAILED_TRACING, traceDecision.isSampled());
-      attributesBuilder.put(Constants.SW_METRICS, traceDecision.isReportMetrics());
-      attributesBuilder.put(Constants.SW_SAMPLER, true); // mark that it has been sampled by us
-
-      if (genesis) {
+      result = getSampledResult(traceDecision);
+      if (genesis && xtraceOptions != null) {
+        final AttributesBuilder attributesBuilder = result.getAttributes().toBuilder();
         addXtraceOptionsToAttribute(traceDecision, xtraceOptions, attributesBuilder);
+        result =
+            SamplingResult.create(SamplingDecision.RECORD_AND_SAMPLE, attributesBuilder.build());
       }
-      result = SamplingResult.create(samplingDecision, attributesBuilder.build());
     } else {
       if (traceDecision.isReportMetrics()) {
         result = METRICS_ONLY;
@@ -240,4 +230,106 @@ public class SolarwindsSampler implements Sampler {
     }
     return result;
   }
+
+  private SamplingResult getSampledResult(TraceDecision traceDecision) {
+    // the remote config is rebuilt along with all the trace configs on settings updates
+    final TraceConfig remoteConfig = TraceDecisionUtil.getRemoteTraceConfig();
+    SampledResults results = sampledResults;
+    if (results.remoteConfig != remoteConfig) {
+      results = new SampledResults(remoteConfig);
+      sampledResults = results;
+    }
+    return results.get(traceDecision);
+  }
+
+  private static SamplingResult createSampledResult(TraceDecision traceDecision) {
+    final TraceConfig traceConfig = traceDecision.getTraceConfig();
+    final TraceDecisionUtil.RequestType requestType = traceDecision.getRequestType();
+    final AttributesBuilder attributesBuilder = Attributes.builder();
+    attributesBuilder.put(Constants.SW_KEY_PREFIX + "SampleRate", traceConfig.getSampleRate());
+    attributesBuilder.put(
+        Constants.SW_KEY_PREFIX + "SampleSource", traceConfig.getSampleRateSourceValue());
+    attributesBuilder.put(
+        Constants.SW_KEY_PREFIX + "BucketRate",
+        traceConfig.getBucketRate(requestType.getBucketType()));
+    attributesBuilder.put(
+        Constants.SW_KEY_PREFIX + "BucketCapacity",
+        traceConfig.getBucketCapacity(requestType.getBucketType()));
+    attributesBuilder.put(Constants.SW_KEY_PREFIX + "RequestType", requestType.name());
+    attributesBuilder.put(Constants.SW_DETAILED_TRACING, traceDecision.isSampled());
+    attributesBuilder.put(Constants.SW_METRICS, traceDecision.isReportMetrics());
+    attributesBuilder.put(Constants.SW_SAMPLER, true); // mark that it has been sampled by us
+    return SamplingResult.create(SamplingDecision.RECORD_AND_SAMPLE, attributesBuilder.build());
+  }
+
+  /**
+   * Sampled results of the trace configs of one remote config. Trace configs are shared by all the
+   * decisions until the settings change, so the results only depend on the config, the request type
+   * and whether metrics are reported.
+   */
+  private static final class SampledResults {
+    private static final SampledResults EMPTY = new SampledResults(null);
+
+    private static final TraceDecisionUtil.RequestType[] REQUEST_TYPES =
+        TraceDecisionUtil.RequestType.values();
+
+    private final TraceConfig remoteConfig;
+
+    // keyed by identity of the trace configs, bounded by the number of transaction settings
+    private final ConcurrentHashMap<TraceConfig, SamplingResult[]> results =
+        new ConcurrentHashMap<>();
+
+    private SampledResults(TraceConfig remoteConfig) {
+      this.remoteConfig = remoteConfig;
+    }
+
+    private SamplingResult get(TraceDecision traceDecision) {
+      final SamplingResult[] configResults =
+          results.computeIfAbsent(
+              traceDecision.getTraceConfig(), k -> new SamplingResult[REQUEST_TYPES.length * 2]);
+      final int index =
+          traceDecision.getRequestType().ordinal() * 2 + (traceDecision.isReportMetrics() ? 1 : 0);
+
+      SamplingResult result = configResults[index];
+      if (result == null) {
+        // racing threads build equal results, which are immutable
+        result = createSampledResult(traceDecision);
+        configResults[index] = result;
+      }
+      return result;
+    }
+  }
+
+  /**
+   * The URL and the layer name of the span to match the transaction settings against. They are only
+   * computed on first access, as most spans are sampled without any transaction settings
+   */
+  private final class Signals extends AbstractList<String> {
+    private final Attributes attributes;
+    private final SpanKind spanKind;
+    private final String name;
+    private String[] values;
+
+    private Signals(Attributes attributes, SpanKind spanKind, String name) {
+      this.attributes = attributes;
+      this.spanKind = spanKind;
+      this.name = name;
+    }
+
+    @Override
+    public String get(int index) {
+      if (values == null) {
+        values =
+            new String[] {
+              constructUrl(attributes), String.format(LAYER_NAME_PLACEHOLDER, spanKind, name.trim())
+            };
+      }
+      return values[index];
+    }
+
+    @Override
+    public int size() {
+      return 2;
+    }
+  }
 }
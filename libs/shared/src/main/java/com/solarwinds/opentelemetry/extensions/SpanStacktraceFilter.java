@@ -17,35 +17,70 @@
 package com.solarwinds.opentelemetry.extensions;
 
 import com.solarwinds.joboe.config.ConfigManager;
-import com.solarwinds.joboe.config.ConfigProperty;
 import io.opentelemetry.api.common.AttributeKey;
 import io.opentelemetry.sdk.trace.ReadableSpan;
-import java.util.Collections;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
+/**
+ * Selects the spans to record a stacktrace for, those having any of the configured attributes.
+ *
+ * <p>Runs on every span end, so the configured attribute names are resolved once into typed {@link
+ * AttributeKey}s which are probed with {@link ReadableSpan#getAttribute(AttributeKey)}, without
+ * copying the attributes of the span.
+ */
 public class SpanStacktraceFilter implements Predicate<ReadableSpan> {
-  private Set<String> filterAttributes = new HashSet<>();
+  private volatile FilterKeys filterKeys = new FilterKeys(null);
 
   @Override
   public boolean test(ReadableSpan readableSpan) {
-    if (filterAttributes.isEmpty()) {
-      Set<String> configuredFilterAttributes =
-          ConfigManager.getConfigOptional(
-              ConfigProperty.AGENT_SPAN_STACKTRACE_FILTERS, Collections.singleton("db.system"));
-
-      Set<String> effectiveFilterAttributes = new HashSet<>(configuredFilterAttributes);
-      effectiveFilterAttributes.add("db.system");
-      filterAttributes = effectiveFilterAttributes;
+    for (AttributeKey<?> key : getFilterKeys().keys) {
+      if (readableSpan.getAttribute(key) != null) {
+        return true;
+      }
     }
+    return false;
+  }
 
-    Set<String> attributes =
-        readableSpan.getAttributes().asMap().keySet().stream()
-            .map(AttributeKey::getKey)
-            .collect(Collectors.toSet());
+  private FilterKeys getFilterKeys() {
+    FilterKeys current = filterKeys;
+    Set<String> configuredFilterAttributes = ConfigManager.getSnapshot().getSpanStacktraceFilters();
+    if (current.configuredFilterAttributes != configuredFilterAttributes) {
+      current = new FilterKeys(configuredFilterAttributes);
+      filterKeys = current;
+    }
+    return current;
+  }
 
-    return filterAttributes.stream().anyMatch(attributes::contains);
+  /** The keys of all attribute types for each configured attribute name, plus `db.system` */
+  private static final class FilterKeys {
+    private final Set<String> configuredFilterAttributes;
+    private final AttributeKey<?>[] keys;
+
+    private FilterKeys(Set<String> configuredFilterAttributes) {
+      this.configuredFilterAttributes = configuredFilterAttributes;
+
+      Set<String> names = new LinkedHashSet<>();
+      names.add("db.system");
+      if (configuredFilterAttributes != null) {
+        names.addAll(configuredFilterAttributes);
+      }
+
+      List<AttributeKey<?>> keys = new ArrayList<>();
+      for (String name : names) {
+        keys.add(AttributeKey.stringKey(name));
+        keys.add(AttributeKey.booleanKey(name));
+        keys.add(AttributeKey.longKey(name));
+        keys.add(AttributeKey.doubleKey(name));
+        keys.add(AttributeKey.stringArrayKey(name));
+        keys.add(AttributeKey.booleanArrayKey(name));
+        keys.add(AttributeKey.longArrayKey(name));
+        keys.add(AttributeKey.doubleArrayKey(name));
+      }
+      this.keys = keys.toArray(new AttributeKey<?>[0]);
+    }
   }
 }
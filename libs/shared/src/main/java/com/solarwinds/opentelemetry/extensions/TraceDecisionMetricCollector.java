@@ -18,6 +18,7 @@ package com.solarwinds.opentelemetry.extensions;
 
 import com.google.auto.service.AutoService;
 import com.solarwinds.joboe.sampling.TraceDecisionUtil;
+import com.solarwinds.joboe.sampling.XtraceOptions;
 import io.opentelemetry.api.metrics.Meter;
 import io.opentelemetry.api.metrics.ObservableLongGauge;
 import io.opentelemetry.javaagent.extension.AgentListener;
@@ -106,6 +107,26 @@ public class TraceDecisionMetricCollector implements AutoCloseable, AgentListene
                     observableLongMeasurement.record(
                         TraceDecisionUtil.consumeMetricsData(
                             TraceDecisionUtil.MetricType.TRIGGERED_TRACE_COUNT))));
+
+    gauges.add(
+        meter
+            .gaugeBuilder("trace.service.xtrace_options_cache_hit_count")
+            .setDescription("Count of X-Trace-Options served from the parsed options cache.")
+            .setUnit(reqCountUnit)
+            .ofLongs()
+            .buildWithCallback(
+                observableLongMeasurement ->
+                    observableLongMeasurement.record(XtraceOptions.consumeCacheHitCount())));
+
+    gauges.add(
+        meter
+            .gaugeBuilder("trace.service.xtrace_options_cache_miss_count")
+            .setDescription("Count of X-Trace-Options parsed and authenticated on a cache miss.")
+            .setUnit(reqCountUnit)
+            .ofLongs()
+            .buildWithCallback(
+                observableLongMeasurement ->
+                    observableLongMeasurement.record(XtraceOptions.consumeCacheMissCount())));
   }
 
   @Override
@@ -29,13 +29,17 @@ import io.opentelemetry.sdk.trace.samplers.SamplingResult;
  */
 public class TraceStateSamplingResult implements SamplingResult {
   private final SamplingResult delegated;
-  private final Attributes additionalAttributes;
+  // merged once, the SDK reads them for every span started
+  private final Attributes attributes;
   private final String sanitizedXtraceOptionsResponse;
 
   private TraceStateSamplingResult(
       SamplingResult delegated, Attributes additionalAttributes, String xtraceOptionsResponse) {
     this.delegated = delegated;
-    this.additionalAttributes = additionalAttributes;
+    this.attributes =
+        additionalAttributes.isEmpty()
+            ? delegated.getAttributes()
+            : delegated.getAttributes().toBuilder().putAll(additionalAttributes).build();
     this.sanitizedXtraceOptionsResponse = sanitize(xtraceOptionsResponse);
   }
 
@@ -51,20 +55,22 @@ public class TraceStateSamplingResult implements SamplingResult {
 
   @Override
   public Attributes getAttributes() {
-    return delegated.getAttributes().toBuilder().putAll(additionalAttributes).build();
+    return attributes;
   }
 
   @Override
   public TraceState getUpdatedTraceState(TraceState parentTraceState) {
-    TraceStateBuilder builder = parentTraceState.toBuilder();
-    if (sanitizedXtraceOptionsResponse != null) {
-      /*
-        This is used to store xtrace options response to make it available for injecting as HTTP
-        headers for servlet instrumentations. It's not expected to happen in GRPC context. When
-        it does, it will cause `tracestate` key to have two values with the other coming from {@link AppOpticsContextPropagator#inject}
-      */
-      builder.put(SW_XTRACE_OPTIONS_RESP_KEY, sanitizedXtraceOptionsResponse);
+    if (sanitizedXtraceOptionsResponse == null) {
+      return parentTraceState;
     }
+
+    /*
+      This is used to store xtrace options response to make it available for injecting as HTTP
+      headers for servlet instrumentations. It's not expected to happen in GRPC context. When
+      it does, it will cause `tracestate` key to have two values with the other coming from {@link AppOpticsContextPropagator#inject}
+    */
+    TraceStateBuilder builder = parentTraceState.toBuilder();
+    builder.put(SW_XTRACE_OPTIONS_RESP_KEY, sanitizedXtraceOptionsResponse);
     return builder.build();
   }
 
@@ -34,28 +34,26 @@ import io.opentelemetry.sdk.trace.data.SpanData;
 import io.opentelemetry.semconv.HttpAttributes;
 import io.opentelemetry.semconv.UrlAttributes;
 import java.time.Duration;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class TransactionNameManager {
   private static final Logger logger = LoggerFactory.getLogger();
-  private static final String[] DEFAULT_TRANSACTION_NAME_PATTERN = {"p1", "p2"};
   private static final String CUSTOM_TRANSACTION_NAME_PATTERN_SEPARATOR = ".";
   private static final String DEFAULT_TRANSACTION_NAME_PATTERN_SEPARATOR = "/";
+  private static final TransactionNamePattern DEFAULT_TRANSACTION_NAME_PATTERN =
+      TransactionNamePattern.parse("p1,p2", true, DEFAULT_TRANSACTION_NAME_PATTERN_SEPARATOR);
   public static final String OVER_LIMIT_TRANSACTION_NAME = "other";
   public static final String UNKNOWN_TRANSACTION_NAME = "unknown";
   public static final int DEFAULT_MAX_NAME_COUNT = 200;
   public static final int MAX_TRANSACTION_NAME_LENGTH = 255;
   public static final String TRANSACTION_NAME_ELLIPSIS = "...";
 
-  private static volatile String[] customTransactionNamePattern = null;
+  private static volatile TransactionNamePattern customTransactionNamePattern = null;
   static final Cache<String, String> URL_TRANSACTION_NAME_CACHE =
       Caffeine.newBuilder().maximumSize(1000).expireAfterWrite(Duration.ofMinutes(20)).build();
 
-  private static final Set<String> EXISTING_TRANSACTION_NAMES = new HashSet<>();
-  private static volatile boolean limitExceeded;
+  private static volatile NameRegistry existingTransactionNames = new NameRegistry();
   private static volatile int maxNameCount = DEFAULT_MAX_NAME_COUNT;
 
   private static NamingScheme namingScheme = new DefaultNamingScheme(null);
@@ -84,7 +82,7 @@ public class TransactionNameManager {
           public void onChange(Integer newValue) {
             if (newValue != null) {
               if (newValue > maxNameCount) {
-                limitExceeded = false; // reset the exceed flag
+                existingTransactionNames.resetLimitExceeded(); // reset the exceed flag
               }
               maxNameCount = newValue;
             } else { // reset to default
@@ -94,18 +92,12 @@ public class TransactionNameManager {
         });
   }
 
-  private static String[] getTransactionNamePattern() {
+  private static TransactionNamePattern getTransactionNamePattern() {
     String pattern =
         ConfigManager.getConfigOptional(ConfigProperty.AGENT_TRANSACTION_NAME_PATTERN, null);
-    return pattern != null ? parseTransactionNamePattern(pattern) : null;
-  }
-
-  static String[] parseTransactionNamePattern(String pattern) {
-    String[] tokens = pattern.split(",");
-    for (int i = 0; i < tokens.length; i++) {
-      tokens[i] = tokens[i].trim();
-    }
-    return tokens;
+    return pattern != null
+        ? TransactionNamePattern.parse(pattern, false, CUSTOM_TRANSACTION_NAME_PATTERN_SEPARATOR)
+        : null;
   }
 
   /**
@@ -213,9 +205,7 @@ public class TransactionNameManager {
 
     if (customTransactionNamePattern
         != null) { // try forming transaction name by the custom configured pattern
-      transactionName =
-          getTransactionNameByUrlAndPattern(
-              path, customTransactionNamePattern, false, CUSTOM_TRANSACTION_NAME_PATTERN_SEPARATOR);
+      transactionName = getTransactionNameByUrlAndPattern(path, customTransactionNamePattern);
 
       if (transactionName != null) {
         String customPatternName = transactionName;
@@ -230,11 +220,7 @@ public class TransactionNameManager {
 
     // try the default token name pattern
     String transactionNameByUrl =
-        getTransactionNameByUrlAndPattern(
-            path,
-            DEFAULT_TRANSACTION_NAME_PATTERN,
-            true,
-            DEFAULT_TRANSACTION_NAME_PATTERN_SEPARATOR);
+        getTransactionNameByUrlAndPattern(path, DEFAULT_TRANSACTION_NAME_PATTERN);
     if (transactionNameByUrl != null) {
       logger.trace(
           () ->
@@ -250,69 +236,28 @@ public class TransactionNameManager {
   }
 
   /**
-   * Gets transaction name based on host, URL and provided name pattern. It might look up and update
-   * the urlTransactionNameCache
+   * Gets transaction name based on URL and provided name pattern. It might look up and update the
+   * urlTransactionNameCache
    *
    * @param url url that must NOT contains query param
    * @param transactionNamePattern pattern used for extracting transaction name
    * @return extracted transaction name
    */
   static String getTransactionNameByUrlAndPattern(
-      String url, String[] transactionNamePattern, boolean separatorAsPrefix, String separator) {
+      String url, TransactionNamePattern transactionNamePattern) {
     if (url == null) {
       return null;
     }
 
     String transactionName = URL_TRANSACTION_NAME_CACHE.getIfPresent(url);
     if (transactionName == null) {
-      transactionName =
-          buildTransactionNameByUrlAndPattern(
-              url, transactionNamePattern, separatorAsPrefix, separator);
+      transactionName = transactionNamePattern.build(url);
       URL_TRANSACTION_NAME_CACHE.put(url, transactionName);
     }
 
     return transactionName;
   }
 
-  /**
-   * Generates a transaction name by concatenating matching pattern tokens with '.'
-   *
-   * <p>The valid tokens are host and p1, p2, ... pn. For example a token list of ["host", "p2"] on
-   * URL <a href="http://localhost:8080/test-api/action/1">...</a>, will generate transaction name
-   * "localhost.action"
-   *
-   * @param url url that must NOT contains query param
-   * @param transactionNamePattern the token pattern as an array
-   * @param separator separator token
-   * @param separatorAsPrefix whether to use separator as prefix
-   * @return formed transaction name
-   */
-  static String buildTransactionNameByUrlAndPattern(
-      String url, String[] transactionNamePattern, boolean separatorAsPrefix, String separator) {
-    Map<String, String> urlTokenMap = new HashMap<>();
-    int counter = 1;
-    for (String token : url.split("/")) {
-      if (!token.isEmpty()) {
-        String tokenName = "p" + counter++;
-        urlTokenMap.put(tokenName, token);
-      }
-    }
-
-    StringBuilder transactionName = new StringBuilder(separatorAsPrefix ? separator : "");
-    boolean isFirstToken = true;
-    for (String patternToken : transactionNamePattern) {
-      if (urlTokenMap.containsKey(patternToken)) {
-        if (isFirstToken) {
-          transactionName.append(urlTokenMap.get(patternToken));
-          isFirstToken = false;
-        } else {
-          transactionName.append(separator).append(urlTokenMap.get(patternToken));
-        }
-      }
-    }
-    return transactionName.toString();
-  }
-
   /**
    * Adds a transaction name to the tracking set
    *
@@ -321,35 +266,76 @@ public class TransactionNameManager {
    *     (limit exceeded)
    */
   public static boolean addTransactionName(String transactionName) {
-    synchronized (EXISTING_TRANSACTION_NAMES) {
-      if (!EXISTING_TRANSACTION_NAMES.contains(transactionName)) {
-        if (EXISTING_TRANSACTION_NAMES.size() < maxNameCount) {
-          EXISTING_TRANSACTION_NAMES.add(transactionName);
-          return true;
-        }
-      } else { // the name already exists, so it's not over the limit
-        return true;
-      }
-    }
-    limitExceeded = true; // toggle the flag
-    return false;
+    return existingTransactionNames.add(transactionName, maxNameCount);
+  }
+
+  static int getMaxNameCount() {
+    return maxNameCount;
   }
 
   @SuppressWarnings("unused")
   public static boolean isLimitExceeded() {
-    return limitExceeded;
+    return existingTransactionNames.isLimitExceeded();
   }
 
+  /**
+   * Starts a new epoch of tracked transaction names. Additions racing with the clear either land in
+   * the previous epoch, which is discarded, or in the new one
+   */
   public static void clearTransactionNames() {
+    NameRegistry previous = existingTransactionNames;
+    existingTransactionNames = new NameRegistry();
+
     logger.trace(
         () ->
             String.format(
                 "Clearing transaction name buffer. Unique transaction count: %d. Note: This log line is used for validation",
-                EXISTING_TRANSACTION_NAMES.size()));
-    synchronized (EXISTING_TRANSACTION_NAMES) {
-      EXISTING_TRANSACTION_NAMES.clear();
+                previous.size()));
+  }
 
+  /**
+   * Set of transaction names of one epoch, admits new names up to the provided limit. The exceeded
+   * flag belongs to the epoch, so a late rejection by a discarded epoch does not flag the new one
+   */
+  private static final class NameRegistry {
+    private final ConcurrentHashMap<String, Boolean> names = new ConcurrentHashMap<>();
+    private final AtomicInteger count = new AtomicInteger();
+    private volatile boolean limitExceeded;
+
+    boolean add(String name, int limit) {
+      if (names.containsKey(name)) {
+        return true; // the name already exists, so it's not over the limit
+      }
+      // the mapping function runs atomically per name, so a name takes at most one slot
+      if (names.computeIfAbsent(name, key -> reserveSlot(limit) ? Boolean.TRUE : null) != null) {
+        return true;
+      }
+      limitExceeded = true; // toggle the flag
+      return false;
+    }
+
+    boolean isLimitExceeded() {
+      return limitExceeded;
+    }
+
+    void resetLimitExceeded() {
       limitExceeded = false;
     }
+
+    private boolean reserveSlot(int limit) {
+      while (true) {
+        int current = count.get();
+        if (current >= limit) {
+          return false;
+        }
+        if (count.compareAndSet(current, current + 1)) {
+          return true;
+        }
+      }
+    }
+
+    int size() {
+      return count.get();
+    }
   }
 }
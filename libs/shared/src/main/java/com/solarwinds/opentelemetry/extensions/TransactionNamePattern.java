@@ -0,0 +1,121 @@
+/*
+ * © SolarWinds Worldwide, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.solarwinds.opentelemetry.extensions;
+
+/**
+ * A transaction name pattern made of positional URL path tokens p1, p2, ... pn, parsed once into
+ * segment indexes so that building a name scans the URL path a single time and only copies the
+ * requested segments.
+ *
+ * <p>For example a pattern of "p1,p3" with separator "." on URL path "/test-api/action/1" forms the
+ * transaction name "test-api.1"
+ */
+public final class TransactionNamePattern {
+  private static final int UNKNOWN_TOKEN = -1;
+
+  private final int[] segmentIndexes;
+  private final int segmentCount; // number of leading segments required by the pattern
+  private final boolean separatorAsPrefix;
+  private final String separator;
+
+  private TransactionNamePattern(
+      int[] segmentIndexes, boolean separatorAsPrefix, String separator) {
+    int maxIndex = UNKNOWN_TOKEN;
+    for (int segmentIndex : segmentIndexes) {
+      maxIndex = Math.max(maxIndex, segmentIndex);
+    }
+    this.segmentIndexes = segmentIndexes;
+    this.segmentCount = maxIndex + 1;
+    this.separatorAsPrefix = separatorAsPrefix;
+    this.separator = separator;
+  }
+
+  /**
+   * Parses a comma separated token pattern, such as "p1,p2". Tokens other than p1, p2, ... pn are
+   * kept in place but never match any segment
+   *
+   * @param pattern the token pattern
+   * @param separatorAsPrefix whether to use separator as prefix
+   * @param separator separator between the tokens
+   * @return the parsed pattern
+   */
+  public static TransactionNamePattern parse(
+      String pattern, boolean separatorAsPrefix, String separator) {
+    String[] tokens = pattern.split(",");
+    int[] segmentIndexes = new int[tokens.length];
+    for (int i = 0; i < tokens.length; i++) {
+      segmentIndexes[i] = parseToken(tokens[i].trim());
+    }
+    return new TransactionNamePattern(segmentIndexes, separatorAsPrefix, separator);
+  }
+
+  private static int parseToken(String token) {
+    // same as matching against "p" + position, position starting from 1 without leading zeros
+    if (token.length() < 2 || token.length() > 10 || token.charAt(0) != 'p') {
+      return UNKNOWN_TOKEN;
+    }
+    int position = 0;
+    for (int i = 1; i < token.length(); i++) {
+      char c = token.charAt(i);
+      if (c < '0' || c > '9' || (i == 1 && c == '0')) {
+        return UNKNOWN_TOKEN;
+      }
+      position = position * 10 + (c - '0');
+    }
+    return position > 0 ? position - 1 : UNKNOWN_TOKEN;
+  }
+
+  /**
+   * Builds a transaction name by concatenating the segments selected by this pattern
+   *
+   * @param url url path that must NOT contains query param
+   * @return formed transaction name
+   */
+  public String build(String url) {
+    int length = url.length();
+    // start and end offsets of the non-empty segments, up to the last one referenced
+    int maxSegments = Math.min(segmentCount, (length + 1) / 2);
+    int[] bounds = new int[maxSegments * 2];
+    int found = 0;
+    for (int start = 0; start < length && found < maxSegments; ) {
+      int end = url.indexOf('/', start);
+      if (end == -1) {
+        end = length;
+      }
+      if (end > start) {
+        bounds[found * 2] = start;
+        bounds[found * 2 + 1] = end;
+        found++;
+      }
+      start = end + 1;
+    }
+
+    StringBuilder transactionName = new StringBuilder(separatorAsPrefix ? separator : "");
+    boolean isFirstToken = true;
+    for (int segmentIndex : segmentIndexes) {
+      if (segmentIndex != UNKNOWN_TOKEN && segmentIndex < found) {
+        if (isFirstToken) {
+          isFirstToken = false;
+        } else {
+          transactionName.append(separator);
+        }
+        transactionName.append(url, bounds[segmentIndex * 2], bounds[segmentIndex * 2 + 1]);
+      }
+    }
+    return transactionName.toString();
+  }
+}
@@ -30,4 +30,9 @@ public class StringPatternMatcher implements ResourceMatcher {
   public boolean matches(String resource) {
     return pattern.matcher(resource).matches();
   }
+
+  @Override
+  public Pattern getPattern() {
+    return pattern;
+  }
 }
@@ -18,21 +18,27 @@ package com.solarwinds.opentelemetry.extensions;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.anyLong;
 import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import io.opentelemetry.api.common.AttributeKey;
 import io.opentelemetry.api.common.Attributes;
 import io.opentelemetry.api.metrics.LongHistogram;
+import io.opentelemetry.api.trace.SpanContext;
 import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
 import io.opentelemetry.sdk.testing.trace.TestSpanData;
 import io.opentelemetry.sdk.trace.ReadWriteSpan;
-import io.opentelemetry.sdk.trace.ReadableSpan;
 import io.opentelemetry.sdk.trace.data.StatusData;
 import io.opentelemetry.semconv.HttpAttributes;
 import java.util.List;
@@ -40,6 +46,7 @@ import java.util.Objects;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
 import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
@@ -52,8 +59,6 @@ class InboundMeasurementMetricsGeneratorTest {
 
   @Mock private LongHistogram responseTime;
 
-  @Mock private ReadableSpan readableSpanMock;
-
   @Mock private ReadWriteSpan readWriteSpanMock;
 
   @Captor private ArgumentCaptor<AttributeKey<String>> attributeKeyArgumentCaptor;
@@ -68,8 +73,8 @@ class InboundMeasurementMetricsGeneratorTest {
   }
 
   @Test
-  void returnTrueForIsEndRequired() {
-    assertTrue(tested.isEndRequired());
+  void returnFalseForIsEndRequired() {
+    assertFalse(tested.isEndRequired());
   }
 
   @Test
@@ -88,9 +93,9 @@ class InboundMeasurementMetricsGeneratorTest {
             .setHasEnded(true)
             .setStatus(StatusData.ok())
             .build();
-    when(readableSpanMock.toSpanData()).thenReturn(testSpanData);
+    stubRootSpan(testSpanData);
 
-    tested.onEnd(readableSpanMock);
+    tested.onEnding(readWriteSpanMock);
     verify(responseTime).record(longArgumentCaptor.capture(), any());
     assertEquals(10, longArgumentCaptor.getValue());
   }
@@ -113,9 +118,8 @@ class InboundMeasurementMetricsGeneratorTest {
                     200L))
             .build();
 
-    when(readableSpanMock.toSpanData()).thenReturn(testSpanData);
-    when(readableSpanMock.getKind()).thenReturn(testSpanData.getKind());
-    tested.onEnd(readableSpanMock);
+    stubRootSpan(testSpanData);
+    tested.onEnding(readWriteSpanMock);
 
     verify(responseTime).record(anyLong(), attributesArgumentCaptor.capture());
 
@@ -152,9 +156,8 @@ class InboundMeasurementMetricsGeneratorTest {
                     500L))
             .build();
 
-    when(readableSpanMock.toSpanData()).thenReturn(testSpanData);
-    when(readableSpanMock.getKind()).thenReturn(testSpanData.getKind());
-    tested.onEnd(readableSpanMock);
+    stubRootSpan(testSpanData);
+    tested.onEnding(readWriteSpanMock);
 
     verify(responseTime).record(anyLong(), attributesArgumentCaptor.capture());
 
@@ -191,8 +194,8 @@ class InboundMeasurementMetricsGeneratorTest {
                     500L))
             .build();
 
-    when(readableSpanMock.toSpanData()).thenReturn(testSpanData);
-    tested.onEnd(readableSpanMock);
+    stubRootSpan(testSpanData);
+    tested.onEnding(readWriteSpanMock);
 
     verify(responseTime).record(anyLong(), attributesArgumentCaptor.capture());
 
@@ -219,10 +222,8 @@ class InboundMeasurementMetricsGeneratorTest {
             .setAttributes(Attributes.of(HttpAttributes.HTTP_REQUEST_METHOD, "get"))
             .build();
 
+    when(readWriteSpanMock.getParentSpanContext()).thenReturn(SpanContext.getInvalid());
     when(readWriteSpanMock.toSpanData()).thenReturn(testSpanData);
-    when(readWriteSpanMock.setAttribute(attributeKeyArgumentCaptor.capture(), any()))
-        .thenReturn(readWriteSpanMock);
-
     when(readWriteSpanMock.setAttribute(attributeKeyArgumentCaptor.capture(), any()))
         .thenReturn(readWriteSpanMock);
     tested.onEnding(readWriteSpanMock);
@@ -240,4 +241,53 @@ class InboundMeasurementMetricsGeneratorTest {
             .filter(Objects::nonNull)
             .anyMatch(key -> key.getKey().equals("TransactionName")));
   }
+
+  @Test
+  void verifyNothingIsRecordedForLocalChildSpan() {
+    when(readWriteSpanMock.getParentSpanContext())
+        .thenReturn(
+            SpanContext.create(
+                "80ad68e98d3449dfc54098b38fc466ec",
+                "a2d8376f3cab2837",
+                TraceFlags.getSampled(),
+                TraceState.getDefault()));
+
+    tested.onEnding(readWriteSpanMock);
+    verify(readWriteSpanMock, never()).toSpanData();
+    verifyNoInteractions(responseTime);
+  }
+
+  @Test
+  void verifyMetricAttributesAreReusedForSameTuple() {
+    TestSpanData testSpanData =
+        TestSpanData.builder()
+            .setName("test")
+            .setKind(SpanKind.SERVER)
+            .setStartEpochNanos(0)
+            .setEndEpochNanos(10000)
+            .setHasEnded(true)
+            .setStatus(StatusData.ok())
+            .setAttributes(
+                Attributes.of(
+                    HttpAttributes.HTTP_REQUEST_METHOD,
+                    "get",
+                    HttpAttributes.HTTP_RESPONSE_STATUS_CODE,
+                    200L))
+            .build();
+    stubRootSpan(testSpanData);
+
+    tested.onEnding(readWriteSpanMock);
+    tested.onEnding(readWriteSpanMock);
+
+    verify(responseTime, times(2)).record(anyLong(), attributesArgumentCaptor.capture());
+    List<Attributes> recorded = attributesArgumentCaptor.getAllValues();
+    assertSame(recorded.get(0), recorded.get(1));
+  }
+
+  private void stubRootSpan(TestSpanData testSpanData) {
+    when(readWriteSpanMock.getParentSpanContext()).thenReturn(SpanContext.getInvalid());
+    when(readWriteSpanMock.toSpanData()).thenReturn(testSpanData);
+    when(readWriteSpanMock.setAttribute(ArgumentMatchers.<AttributeKey<String>>any(), any()))
+        .thenReturn(readWriteSpanMock);
+  }
 }
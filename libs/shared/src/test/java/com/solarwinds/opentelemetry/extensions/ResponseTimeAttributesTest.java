@@ -0,0 +1,82 @@
+/*
+ * © SolarWinds Worldwide, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.solarwinds.opentelemetry.extensions;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import io.opentelemetry.api.common.Attributes;
+import org.junit.jupiter.api.Test;
+
+class ResponseTimeAttributesTest {
+  private final ResponseTimeAttributes tested = new ResponseTimeAttributes(() -> 2);
+
+  @Test
+  void returnSameAttributesGivenSameTuple() {
+    Attributes attributes = tested.get("GET /orders", "GET", 200L, false);
+
+    assertSame(attributes, tested.get("GET /orders", "GET", 200L, false));
+    assertEquals(200L, attributes.get(ResponseTimeAttributes.STATUS_CODE_KEY));
+    assertEquals("GET", attributes.get(ResponseTimeAttributes.METHOD_KEY));
+    assertEquals(false, attributes.get(ResponseTimeAttributes.IS_ERROR_KEY));
+    assertEquals("GET /orders", attributes.get(SharedNames.TRANSACTION_NAME_KEY));
+
+    assertNotSame(attributes, tested.get("GET /orders", "GET", 200L, true));
+    assertNotSame(attributes, tested.get("GET /orders", "GET", 500L, false));
+    assertNotSame(attributes, tested.get("GET /orders", "POST", 200L, false));
+  }
+
+  @Test
+  void omitAbsentMethodAndStatusCode() {
+    Attributes attributes = tested.get("job", null, null, true);
+
+    assertSame(attributes, tested.get("job", null, null, true));
+    assertNull(attributes.get(ResponseTimeAttributes.STATUS_CODE_KEY));
+    assertNull(attributes.get(ResponseTimeAttributes.METHOD_KEY));
+    assertEquals(2, attributes.size());
+  }
+
+  @Test
+  void buildNewAttributesGivenMethodsOverCap() {
+    for (int i = 0; i < ResponseTimeAttributes.MAX_METHODS; i++) {
+      tested.get("GET /orders", "METHOD" + i, 200L, false);
+    }
+
+    Attributes attributes = tested.get("GET /orders", "OTHER", 200L, false);
+    assertNotSame(attributes, tested.get("GET /orders", "OTHER", 200L, false));
+    assertEquals(attributes, tested.get("GET /orders", "OTHER", 200L, false));
+    assertSame(
+        tested.get("GET /orders", "METHOD0", 200L, false),
+        tested.get("GET /orders", "METHOD0", 200L, false));
+  }
+
+  @Test
+  void startOverGivenTransactionsOverNameLimit() {
+    // the limit of 2 names, plus the over limit and unknown names
+    Attributes first = tested.get("a", null, null, false);
+    tested.get("b", null, null, false);
+    tested.get(TransactionNameManager.OVER_LIMIT_TRANSACTION_NAME, null, null, false);
+    tested.get(TransactionNameManager.UNKNOWN_TRANSACTION_NAME, null, null, false);
+    assertSame(first, tested.get("a", null, null, false));
+
+    Attributes other = tested.get("c", null, null, false);
+    assertSame(other, tested.get("c", null, null, false));
+    assertNotSame(first, tested.get("a", null, null, false));
+  }
+}
@@ -89,6 +89,11 @@ class SamplingUtilTest {
     assertEquals("lo:se,check-id:123", builder.build().get(stringKey("SWKeys")));
   }
 
+  @Test
+  void returnTrueGivenUpperCaseSwTraceState() {
+    assertTrue(SamplingUtil.isValidSwTraceState("4025843A0F1F35F3-0B"));
+  }
+
   static Stream<String> validHexFlags() {
     return IntStream.rangeClosed(0x00, 0xff)
         .mapToObj(i -> "4025843a0f1f35f3-" + String.format("%02x", i));
@@ -107,7 +112,11 @@ class SamplingUtilTest {
         "4025843a0f1f35f3-0g",
         "4025843a0f1f35f-01",
         "4025843a0f1f35f33-01",
-        "4025843a0f1f3-5f-01"
+        "4025843a0f1f3-5f-01",
+        "4025843a0f1f35f3_01",
+        "4025843a0f1f35f3-01 ",
+        "4025843a0f1f35f3-０1",
+        "4025843A0F1F35G3-01"
       })
   void returnFalseGivenInvalidSwTraceState(String swTraceState) {
     assertFalse(SamplingUtil.isValidSwTraceState(swTraceState));
@@ -19,8 +19,10 @@ package com.solarwinds.opentelemetry.extensions;
 import static com.solarwinds.opentelemetry.extensions.TriggerTraceContextKey.XTRACE_OPTIONS;
 import static com.solarwinds.opentelemetry.extensions.TriggerTraceContextKey.XTRACE_OPTIONS_SIGNATURE;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.atMostOnce;
@@ -36,6 +38,7 @@ import io.opentelemetry.api.trace.Span;
 import io.opentelemetry.api.trace.SpanContext;
 import io.opentelemetry.api.trace.TraceFlags;
 import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.api.trace.TraceStateBuilder;
 import io.opentelemetry.context.Context;
 import io.opentelemetry.context.propagation.TextMapGetter;
 import io.opentelemetry.context.propagation.TextMapSetter;
@@ -44,6 +47,8 @@ import java.util.Map;
 import java.util.Random;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.InjectMocks;
@@ -130,6 +135,89 @@ class SolarwindsContextPropagatorTest {
     }
   }
 
+  @Test
+  void verifyThatTracestateIsCappedAt32Members() {
+    try (MockedStatic<Span> spanMockedStatic = mockStatic(Span.class)) {
+      TraceStateBuilder traceStateBuilder = TraceState.builder();
+      for (int i = 0; i < 32; i++) {
+        traceStateBuilder.put("k" + i, "v" + i);
+      }
+      SpanContext spanContext =
+          SpanContext.create(traceId, spanId, TraceFlags.getSampled(), traceStateBuilder.build());
+
+      spanMockedStatic.when(() -> Span.fromContext(any())).thenReturn(spanMock);
+      when(spanMock.getSpanContext()).thenReturn(spanContext);
+
+      solarwindsContextPropagator.inject(Context.current(), new HashMap<>(), textMapSetterMock);
+      verify(textMapSetterMock, atMostOnce())
+          .set(any(), anyString(), stringArgumentCaptor.capture());
+
+      // the builder puts new members first, the oldest one is dropped to make room for ours
+      String[] entries = stringArgumentCaptor.getValue().split(",");
+      assertEquals(32, entries.length);
+      assertEquals(String.format("sw=%s-01", spanId), entries[0]);
+      assertEquals("k31=v31", entries[1]);
+      assertEquals("k1=v1", entries[31]);
+    }
+  }
+
+  @Test
+  void verifyThatOwnTracestateEntriesAreReplaced() {
+    try (MockedStatic<Span> spanMockedStatic = mockStatic(Span.class)) {
+      SpanContext spanContext =
+          SpanContext.create(
+              traceId,
+              spanId,
+              TraceFlags.getSampled(),
+              TraceState.builder()
+                  .put("other", "1")
+                  .put("sw", "0000000000000001-00")
+                  .put("xtrace_options_response", "trigger-trace####ok")
+                  .build());
+
+      spanMockedStatic.when(() -> Span.fromContext(any())).thenReturn(spanMock);
+      when(spanMock.getSpanContext()).thenReturn(spanContext);
+
+      solarwindsContextPropagator.inject(Context.current(), new HashMap<>(), textMapSetterMock);
+      verify(textMapSetterMock, atMostOnce())
+          .set(any(), anyString(), stringArgumentCaptor.capture());
+      assertEquals(String.format("sw=%s-01,other=1", spanId), stringArgumentCaptor.getValue());
+    }
+  }
+
+  @Test
+  void verifyThatOnlyOneOversizeEntryIsTruncatedWhenOver512Characters() {
+    try (MockedStatic<Span> spanMockedStatic = mockStatic(Span.class)) {
+      String oversize = new String(new char[140]).replace('\0', 'o');
+      String large = new String(new char[120]).replace('\0', 'l');
+      SpanContext spanContext =
+          SpanContext.create(
+              traceId,
+              spanId,
+              TraceFlags.getDefault(),
+              TraceState.builder()
+                  .put("f", large)
+                  .put("e", large)
+                  .put("d", oversize)
+                  .put("c", large)
+                  .put("b", oversize)
+                  .put("a", "small")
+                  .build());
+
+      spanMockedStatic.when(() -> Span.fromContext(any())).thenReturn(spanMock);
+      when(spanMock.getSpanContext()).thenReturn(spanContext);
+
+      solarwindsContextPropagator.inject(Context.current(), new HashMap<>(), textMapSetterMock);
+      verify(textMapSetterMock, atMostOnce())
+          .set(any(), anyString(), stringArgumentCaptor.capture());
+
+      // only the first oversize entry is dropped, then members are kept while within 512 characters
+      assertEquals(
+          String.format("sw=%s-00,a=small,c=%s,d=%s,e=%s", spanId, large, oversize, large),
+          stringArgumentCaptor.getValue());
+    }
+  }
+
   @Test
   void verifyThatXtraceOptionsIsInjected() {
     try (MockedStatic<Span> spanMockedStatic = mockStatic(Span.class)) {
@@ -217,6 +305,19 @@ class SolarwindsContextPropagatorTest {
     assertEquals("trigger-trace=ok", newContext.get(TraceStateKey.KEY));
   }
 
+  @ParameterizedTest
+  @ValueSource(
+      strings = {"other=1", "sw=blah,other=1", "other=1,sw=blah", ",sw=blah", "sw=a,,sw=b", ""})
+  void returnTrueGivenTracestateWithOtherVendorEntry(String traceState) {
+    assertTrue(SolarwindsContextPropagator.hasOtherVendorEntry(traceState));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"sw=blah", "sw=a,sw=b", "sw=blah,", "sw=blah,,", ","})
+  void returnFalseGivenTracestateWithOnlySwEntries(String traceState) {
+    assertFalse(SolarwindsContextPropagator.hasOtherVendorEntry(traceState));
+  }
+
   @Test
   void verifyThatTracestateIsNotPutIntoContextWhenNoVendorInfo() {
     final Map<String, String> carrier =
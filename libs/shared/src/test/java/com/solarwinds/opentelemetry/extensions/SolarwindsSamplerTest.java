@@ -17,18 +17,24 @@
 package com.solarwinds.opentelemetry.extensions;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.solarwinds.joboe.sampling.TraceConfig;
 import com.solarwinds.joboe.sampling.TraceDecision;
 import com.solarwinds.joboe.sampling.TraceDecisionUtil;
+import com.solarwinds.joboe.sampling.XtraceOption;
 import com.solarwinds.joboe.sampling.XtraceOptions;
 import com.solarwinds.opentelemetry.core.Util;
+import io.opentelemetry.api.common.AttributeKey;
 import io.opentelemetry.api.common.Attributes;
 import io.opentelemetry.api.trace.Span;
 import io.opentelemetry.api.trace.SpanContext;
@@ -96,6 +102,54 @@ class SolarwindsSamplerTest {
     verify(traceConfigMock, atLeastOnce()).getSampleRate();
   }
 
+  @Test
+  void reuseSampledResultGivenSameTraceConfigAndRequestType() {
+    stubSampledDecision(TraceDecisionUtil.RequestType.REGULAR);
+
+    SamplingResult first = tested.toOtSamplingResult(traceDecisionMock, xtraceOptionsMock, false);
+    SamplingResult second = tested.toOtSamplingResult(traceDecisionMock, null, true);
+
+    assertSame(first, second);
+    assertEquals(SamplingDecision.RECORD_AND_SAMPLE, first.getDecision());
+    assertEquals("REGULAR", first.getAttributes().get(AttributeKey.stringKey("sw.RequestType")));
+    verify(traceConfigMock, times(1)).getSampleRate();
+
+    when(traceDecisionMock.getRequestType())
+        .thenReturn(TraceDecisionUtil.RequestType.AUTHENTICATED_TRIGGER_TRACE);
+    assertNotSame(first, tested.toOtSamplingResult(traceDecisionMock, null, false));
+  }
+
+  @Test
+  void rebuildSampledResultGivenRemoteTraceConfigChanged() {
+    try (MockedStatic<TraceDecisionUtil> traceDecisionUtilMockedStatic =
+        mockStatic(TraceDecisionUtil.class)) {
+      traceDecisionUtilMockedStatic
+          .when(TraceDecisionUtil::getRemoteTraceConfig)
+          .thenReturn(mock(TraceConfig.class), mock(TraceConfig.class));
+      stubSampledDecision(TraceDecisionUtil.RequestType.REGULAR);
+
+      SamplingResult first = tested.toOtSamplingResult(traceDecisionMock, null, false);
+      SamplingResult second = tested.toOtSamplingResult(traceDecisionMock, null, false);
+
+      assertNotSame(first, second);
+      assertEquals(first.getAttributes(), second.getAttributes());
+    }
+  }
+
+  @Test
+  void addXtraceOptionsToSampledResultGivenGenesis() {
+    stubSampledDecision(TraceDecisionUtil.RequestType.REGULAR);
+    when(xtraceOptionsMock.getCustomKvs()).thenReturn(Collections.emptyMap());
+    when(xtraceOptionsMock.getOptionValue(XtraceOption.SW_KEYS)).thenReturn("lo:se");
+
+    SamplingResult cached = tested.toOtSamplingResult(traceDecisionMock, null, true);
+    SamplingResult actual = tested.toOtSamplingResult(traceDecisionMock, xtraceOptionsMock, true);
+
+    assertEquals("lo:se", actual.getAttributes().get(AttributeKey.stringKey("SWKeys")));
+    assertNull(cached.getAttributes().get(AttributeKey.stringKey("SWKeys")));
+    assertSame(cached, tested.toOtSamplingResult(traceDecisionMock, null, true));
+  }
+
   @Test
   void returnSamplingResultGivenTraceDecisionIsMetricsOnly() {
     when(traceDecisionMock.isSampled()).thenReturn(false);
@@ -231,7 +285,6 @@ class SolarwindsSamplerTest {
 
       when(spanContextMock.isValid()).thenReturn(true);
       when(spanContextMock.isSampled()).thenReturn(true);
-      when(spanContextMock.getTraceState()).thenReturn(traceStateMock);
 
       SamplingResult actual =
           tested.shouldSample(
@@ -254,7 +307,6 @@ class SolarwindsSamplerTest {
 
       when(spanContextMock.isRemote()).thenReturn(false);
       when(spanContextMock.isValid()).thenReturn(true);
-      when(spanContextMock.getTraceState()).thenReturn(traceStateMock);
 
       SamplingResult actual =
           tested.shouldSample(
@@ -304,4 +356,15 @@ class SolarwindsSamplerTest {
                 UrlAttributes.URL_PATH,
                 "/path")));
   }
+
+  private void stubSampledDecision(TraceDecisionUtil.RequestType requestType) {
+    when(traceDecisionMock.isSampled()).thenReturn(true);
+    when(traceDecisionMock.isReportMetrics()).thenReturn(true);
+    when(traceDecisionMock.getTraceConfig()).thenReturn(traceConfigMock);
+    when(traceDecisionMock.getRequestType()).thenReturn(requestType);
+    when(traceConfigMock.getSampleRate()).thenReturn(1000000);
+    when(traceConfigMock.getSampleRateSourceValue()).thenReturn(6);
+    when(traceConfigMock.getBucketRate(any())).thenReturn(1.0);
+    when(traceConfigMock.getBucketCapacity(any())).thenReturn(2.0);
+  }
 }
@@ -18,6 +18,7 @@ package com.solarwinds.opentelemetry.extensions;
 
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -109,9 +110,31 @@ class SpanStacktraceFilterTest {
     assertTrue(filter.test(span));
   }
 
+  @Test
+  void followConfiguredFilterChanges() throws InvalidConfigException {
+    ReadableSpan span =
+        createSpanWithAttributes(Attributes.builder().put("thread.name", "main").build());
+    assertFalse(tested.test(span));
+
+    Set<String> customFilters = new HashSet<>();
+    customFilters.add("thread.name");
+    ConfigManager.setConfig(ConfigProperty.AGENT_SPAN_STACKTRACE_FILTERS, customFilters);
+    assertTrue(tested.test(span));
+  }
+
+  @Test
+  void returnFalseWhenSpanHasOnlyOtherAttributes() {
+    ReadableSpan span =
+        createSpanWithAttributes(
+            Attributes.builder().put("http.method", "GET").put("db.name", "orders").build());
+    assertFalse(tested.test(span));
+  }
+
   private ReadableSpan createSpanWithAttributes(Attributes attributes) {
     ReadableSpan span = mock(ReadableSpan.class);
     when(span.getAttributes()).thenReturn(attributes);
+    when(span.getAttribute(any()))
+        .thenAnswer(invocation -> attributes.get((AttributeKey<?>) invocation.getArgument(0)));
     return span;
   }
 }
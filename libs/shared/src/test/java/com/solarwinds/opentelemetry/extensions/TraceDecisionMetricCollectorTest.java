@@ -68,7 +68,7 @@ class TraceDecisionMetricCollectorTest {
     consumerArgumentCaptor
         .getAllValues()
         .forEach(consumer -> consumer.accept(observableLongMeasurementMock));
-    verify(observableLongMeasurementMock, times(6)).record(anyLong());
+    verify(observableLongMeasurementMock, times(8)).record(anyLong());
   }
 
   @Test
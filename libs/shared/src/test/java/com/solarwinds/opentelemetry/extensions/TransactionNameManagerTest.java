@@ -18,17 +18,30 @@ package com.solarwinds.opentelemetry.extensions;
 
 import static com.solarwinds.opentelemetry.extensions.SharedNames.TRANSACTION_NAME_KEY;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import io.opentelemetry.api.common.Attributes;
 import io.opentelemetry.api.trace.SpanKind;
 import io.opentelemetry.sdk.testing.trace.TestSpanData;
 import io.opentelemetry.sdk.trace.data.StatusData;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
 class TransactionNameManagerTest {
 
+  @AfterEach
+  void tearDown() {
+    TransactionNameManager.clearTransactionNames();
+  }
+
   @Test
   void buildTransactionNameReturnsPreComputedNameFromSpanAttribute() {
     TestSpanData spanData =
@@ -80,4 +93,52 @@ class TransactionNameManagerTest {
     assertNotNull(result);
     assertNotEquals("", result);
   }
+
+  @Test
+  void addTransactionNameAdmitsUpToMaxNameCountUntilCleared() {
+    TransactionNameManager.clearTransactionNames();
+    for (int i = 0; i < TransactionNameManager.DEFAULT_MAX_NAME_COUNT; i++) {
+      assertTrue(TransactionNameManager.addTransactionName("name-" + i));
+    }
+
+    assertTrue(TransactionNameManager.addTransactionName("name-0"));
+    assertFalse(TransactionNameManager.addTransactionName("one-too-many"));
+    assertTrue(TransactionNameManager.isLimitExceeded());
+
+    TransactionNameManager.clearTransactionNames();
+    assertFalse(TransactionNameManager.isLimitExceeded());
+    assertTrue(TransactionNameManager.addTransactionName("one-too-many"));
+  }
+
+  @Test
+  void addTransactionNameAdmitsExactlyMaxNameCountUnderContention() throws InterruptedException {
+    TransactionNameManager.clearTransactionNames();
+    int threadCount = 16;
+    ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+    CountDownLatch start = new CountDownLatch(1);
+    AtomicInteger admitted = new AtomicInteger();
+
+    for (int thread = 0; thread < threadCount; thread++) {
+      executorService.execute(
+          () -> {
+            try {
+              start.await();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+              return;
+            }
+            // every thread races on the same names
+            for (int i = 0; i < TransactionNameManager.DEFAULT_MAX_NAME_COUNT * 2; i++) {
+              if (TransactionNameManager.addTransactionName("name-" + i)) {
+                admitted.incrementAndGet();
+              }
+            }
+          });
+    }
+    start.countDown();
+    executorService.shutdown();
+    assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+
+    assertEquals(TransactionNameManager.DEFAULT_MAX_NAME_COUNT * threadCount, admitted.get());
+  }
 }
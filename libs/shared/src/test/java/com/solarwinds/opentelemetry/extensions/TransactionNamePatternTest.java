@@ -0,0 +1,60 @@
+/*
+ * © SolarWinds Worldwide, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.solarwinds.opentelemetry.extensions;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class TransactionNamePatternTest {
+
+  @Test
+  void buildsNameFromDefaultPattern() {
+    TransactionNamePattern tested = TransactionNamePattern.parse("p1,p2", true, "/");
+
+    assertEquals("/test-api/action", tested.build("/test-api/action/1"));
+    assertEquals("/test-api/action", tested.build("//test-api///action/"));
+    assertEquals("/test-api", tested.build("/test-api"));
+    assertEquals("/", tested.build("/"));
+    assertEquals("/", tested.build(""));
+  }
+
+  @Test
+  void buildsNameFromCustomPattern() {
+    TransactionNamePattern tested = TransactionNamePattern.parse(" p3 , p1,p3", false, ".");
+
+    assertEquals("1.test-api.1", tested.build("/test-api/action/1"));
+    assertEquals("test-api", tested.build("/test-api/action"));
+  }
+
+  @Test
+  void ignoresUnknownTokens() {
+    TransactionNamePattern tested =
+        TransactionNamePattern.parse("host,p0,p01,p2,px,p,p99999999999", false, ".");
+
+    assertEquals("action", tested.build("/test-api/action/1"));
+    assertEquals("", tested.build("/test-api"));
+  }
+
+  @Test
+  void supportsPositionsBeyondUrlSegments() {
+    TransactionNamePattern tested = TransactionNamePattern.parse("p999999999,p12", false, ".");
+
+    assertEquals("l", tested.build("/a/b/c/d/e/f/g/h/i/j/k/l/m"));
+    assertEquals("", tested.build("/a"));
+  }
+}